@@ -105,6 +105,7 @@
 import org.terasology.world.block.shapes.BlockShape;
 import org.terasology.world.block.shapes.BlockShapeData;
 import org.terasology.world.block.shapes.BlockShapeImpl;
+import org.terasology.world.block.shapes.JsonBlockShapeLoader;
 import org.terasology.world.block.sounds.BlockSounds;
 import org.terasology.world.block.sounds.BlockSoundsData;
 import org.terasology.world.block.tiles.BlockTile;
@@ -206,6 +207,7 @@ protected AssetManager setupAssetManager() {
                 (AssetFactory<Prefab, PrefabData>) PojoPrefab::new, false, "prefabs");
         assetTypeManager.registerCoreAssetType(BlockShape.class,
                 (AssetFactory<BlockShape, BlockShapeData>) BlockShapeImpl::new, "shapes");
+        assetTypeManager.registerCoreFormat(BlockShape.class, new JsonBlockShapeLoader());
         assetTypeManager.registerCoreAssetType(BlockSounds.class,
                 (AssetFactory<BlockSounds, BlockSoundsData>) BlockSounds::new, "blockSounds");
         assetTypeManager.registerCoreAssetType(BlockTile.class,
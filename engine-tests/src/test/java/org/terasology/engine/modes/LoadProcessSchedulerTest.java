@@ -0,0 +1,173 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.engine.modes;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link LoadProcessScheduler}
+ *
+ */
+public class LoadProcessSchedulerTest {
+
+    private final List<String> finished = Collections.synchronizedList(Lists.newArrayList());
+
+    @Test
+    public void testMainThreadProcessesRunInOrder() {
+        LoadProcessScheduler scheduler = new LoadProcessScheduler();
+        TestProcess first = new TestProcess("first", false);
+        TestProcess second = new TestProcess("second", false);
+        scheduler.add(first);
+        scheduler.add(second);
+
+        runToCompletion(scheduler);
+
+        assertEquals(Lists.newArrayList("first", "second"), finished);
+        assertSame(Thread.currentThread(), first.thread);
+        assertSame(Thread.currentThread(), second.thread);
+    }
+
+    @Test
+    public void testConcurrentProcessRunsOnWorkerAfterItsDependencies() {
+        LoadProcessScheduler scheduler = new LoadProcessScheduler();
+        TestProcess setup = new TestProcess("setup", false);
+        TestProcess concurrent = new TestProcess("concurrent", true, setup.getClass());
+        scheduler.add(setup);
+        scheduler.add(concurrent);
+
+        runToCompletion(scheduler);
+
+        assertEquals("setup", finished.get(0));
+        assertTrue(finished.contains("concurrent"));
+        assertNotSame(Thread.currentThread(), concurrent.thread);
+    }
+
+    @Test
+    public void testMainThreadProcessWaitsForConcurrentDependency() {
+        LoadProcessScheduler scheduler = new LoadProcessScheduler();
+        SlowProcess concurrent = new SlowProcess();
+        TestProcess dependent = new TestProcess("dependent", false, SlowProcess.class);
+        scheduler.add(concurrent);
+        scheduler.add(dependent);
+
+        runToCompletion(scheduler);
+
+        assertEquals(Lists.newArrayList("slow", "dependent"), finished);
+        assertEquals(1f, scheduler.getProgress(), 0.0001f);
+    }
+
+    @Test(expected = LoadError.class, timeout = 10000)
+    public void testErrorInConcurrentProcessFailsLoading() {
+        LoadProcessScheduler scheduler = new LoadProcessScheduler();
+        scheduler.add(new TestProcess("failing", true) {
+            @Override
+            public boolean step() {
+                throw new LoadError();
+            }
+        });
+
+        runToCompletion(scheduler);
+    }
+
+    private void runToCompletion(LoadProcessScheduler scheduler) {
+        while (!scheduler.isFinished()) {
+            if (!scheduler.step()) {
+                Thread.yield();
+            }
+        }
+    }
+
+    private class TestProcess implements LoadProcess {
+        private final String name;
+        private final boolean concurrent;
+        private final Set<Class<? extends LoadProcess>> dependencies;
+        private volatile Thread thread;
+
+        @SafeVarargs
+        TestProcess(String name, boolean concurrent, Class<? extends LoadProcess>... dependencies) {
+            this.name = name;
+            this.concurrent = concurrent;
+            this.dependencies = ImmutableSet.copyOf(dependencies);
+        }
+
+        @Override
+        public String getMessage() {
+            return name;
+        }
+
+        @Override
+        public boolean step() {
+            thread = Thread.currentThread();
+            finished.add(name);
+            return true;
+        }
+
+        @Override
+        public void begin() {
+        }
+
+        @Override
+        public float getProgress() {
+            return 0;
+        }
+
+        @Override
+        public int getExpectedCost() {
+            return 1;
+        }
+
+        @Override
+        public boolean isConcurrent() {
+            return concurrent;
+        }
+
+        @Override
+        public Set<Class<? extends LoadProcess>> getDependencies() {
+            return dependencies;
+        }
+    }
+
+    private class SlowProcess extends TestProcess {
+
+        SlowProcess() {
+            super("slow", true);
+        }
+
+        @Override
+        public boolean step() {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.step();
+        }
+    }
+
+    private static class LoadError extends Error {
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.engine.module;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.reflections.Reflections;
+import org.reflections.util.ConfigurationBuilder;
+import org.terasology.module.BaseModule;
+import org.terasology.module.ModuleMetadata;
+import org.terasology.naming.Name;
+import org.terasology.naming.Version;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests {@link ModuleIndexCache}
+ *
+ */
+public class ModuleIndexCacheTest {
+
+    private static final String SUBTYPES = "SubTypesScanner";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path directory;
+    private Path jar;
+
+    @Before
+    public void setup() throws Exception {
+        directory = temporaryFolder.newFolder("modules").toPath();
+        jar = temporaryFolder.getRoot().toPath().resolve("test.jar");
+        Files.write(jar, "original".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testIndexLoadedFromCacheWithoutScanning() {
+        ScannedModule module = new ScannedModule();
+        new ModuleIndexCache(directory).getIndexedModule(module).getReflectionsFragment();
+
+        ScannedModule relaunched = new ScannedModule();
+        ModuleIndexCache cache = new ModuleIndexCache(directory);
+        Reflections reflections = cache.getIndexedModule(relaunched).getReflectionsFragment();
+
+        assertEquals(1, module.scans);
+        assertEquals(0, relaunched.scans);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(ImmutableList.of("test.Implementation"),
+                ImmutableList.copyOf(reflections.getStore().getOrCreate(SUBTYPES).get("test.Interface")));
+    }
+
+    @Test
+    public void testChangedJarScannedAgain() throws Exception {
+        new ModuleIndexCache(directory).getIndexedModule(new ScannedModule()).getReflectionsFragment();
+        Files.write(jar, "changed".getBytes(StandardCharsets.UTF_8));
+
+        ScannedModule changed = new ScannedModule();
+        ModuleIndexCache cache = new ModuleIndexCache(directory);
+        cache.getIndexedModule(changed).getReflectionsFragment();
+
+        assertEquals(1, changed.scans);
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testDirectoryModuleNotIndexed() throws Exception {
+        jar = temporaryFolder.newFolder("classes").toPath();
+        ScannedModule module = new ScannedModule();
+
+        assertSame(module, new ModuleIndexCache(directory).getIndexedModule(module));
+    }
+
+    private class ScannedModule extends BaseModule {
+        private int scans;
+
+        ScannedModule() {
+            super(Collections.singletonList(jar), createMetadata());
+        }
+
+        @Override
+        public ImmutableList<URL> getClasspaths() {
+            try {
+                return ImmutableList.of(jar.toUri().toURL());
+            } catch (MalformedURLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public boolean isOnClasspath() {
+            return false;
+        }
+
+        @Override
+        public boolean isCodeModule() {
+            return true;
+        }
+
+        @Override
+        public Reflections getReflectionsFragment() {
+            scans++;
+            Reflections reflections = new Reflections(new ConfigurationBuilder().setScanners());
+            reflections.getStore().getOrCreate(SUBTYPES).put("test.Interface", "test.Implementation");
+            return reflections;
+        }
+    }
+
+    private static ModuleMetadata createMetadata() {
+        ModuleMetadata metadata = new ModuleMetadata();
+        metadata.setId(new Name("test"));
+        metadata.setVersion(new Version("1.0.0"));
+        return metadata;
+    }
+}
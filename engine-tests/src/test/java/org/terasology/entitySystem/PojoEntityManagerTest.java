@@ -382,4 +382,67 @@ public void testDestructionOfUnloadedEntitiesPrevented() {
         entity.destroy();
         assertTrue(entity.exists());
     }
+
+    @Test
+    public void testSnapshotKeepsReplacedComponents() {
+        EntityRef entity = entityManager.create(new StringComponent("Test"));
+        PojoEntityManager snapshot = entityManager.createSnapshot();
+
+        entity.saveComponent(new StringComponent("Changed"));
+
+        assertEquals("Changed", entity.getComponent(StringComponent.class).value);
+        assertEquals("Test", snapshot.getEntity(entity.getId()).getComponent(StringComponent.class).value);
+    }
+
+    @Test
+    public void testSnapshotKeepsComponentsAsSaved() {
+        EntityRef entity = entityManager.create(new StringComponent("Test"));
+        PojoEntityManager snapshot = entityManager.createSnapshot();
+
+        StringComponent comp = entity.getComponent(StringComponent.class);
+        comp.value = "Saved";
+        entity.saveComponent(comp);
+        comp.value = "Changed";
+        entity.saveComponent(comp);
+
+        assertTrue(comp == entity.getComponent(StringComponent.class));
+        assertEquals("Saved", snapshot.getEntity(entity.getId()).getComponent(StringComponent.class).value);
+    }
+
+    @Test
+    public void testComponentsNotCopiedWhenRead() {
+        EntityRef entity = entityManager.create(new StringComponent("Test"));
+        StringComponent original = entity.getComponent(StringComponent.class);
+        PojoEntityManager snapshot = entityManager.createSnapshot();
+
+        assertTrue(original == entity.getComponent(StringComponent.class));
+        assertTrue(original == entityManager.getComponent(entity.getId(), StringComponent.class));
+        assertTrue(original == snapshot.getEntity(entity.getId()).getComponent(StringComponent.class));
+    }
+
+    @Test
+    public void testSnapshotUnaffectedByEntityChanges() {
+        EntityRef entity = entityManager.create(new StringComponent("Test"));
+        PojoEntityManager snapshot = entityManager.createSnapshot();
+
+        entity.addComponent(new IntegerComponent(1));
+        entity.destroy();
+        EntityRef newEntity = entityManager.create(new StringComponent("New"));
+
+        EntityRef snapshotEntity = snapshot.getEntity(entity.getId());
+        assertTrue(snapshotEntity.isActive());
+        assertNotNull(snapshotEntity.getComponent(StringComponent.class));
+        assertNull(snapshotEntity.getComponent(IntegerComponent.class));
+        assertFalse(snapshot.isActiveEntity(newEntity.getId()));
+    }
+
+    @Test
+    public void testComponentsNotCopiedAfterSnapshotReleased() {
+        EntityRef entity = entityManager.create(new StringComponent("Test"));
+        StringComponent original = entity.getComponent(StringComponent.class);
+        entityManager.createSnapshot();
+        entityManager.releaseSnapshot();
+
+        assertTrue(original == entity.getComponent(StringComponent.class));
+    }
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.characters;
+
+import org.junit.Test;
+import org.terasology.math.geom.Quat4f;
+import org.terasology.math.geom.Vector3f;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class CharacterStateHistoryTest {
+
+    private static final float EPSILON = 0.0001f;
+
+    @Test
+    public void testOldestStatesDropped() {
+        CharacterStateHistory history = new CharacterStateHistory(4);
+        CharacterStateEvent last = null;
+        for (int i = 0; i < 10; ++i) {
+            last = state(i * 100, i, 0, 0);
+            history.add(last);
+        }
+        assertEquals(4, history.size());
+        assertEquals(600, history.getTime(0));
+        assertEquals(900, history.getTime(3));
+        assertSame(last, history.getLast());
+    }
+
+    @Test
+    public void testIndexAtOrBefore() {
+        CharacterStateHistory history = new CharacterStateHistory(4);
+        for (int i = 0; i < 6; ++i) {
+            history.add(state(i * 100, 0, 0, 0));
+        }
+        assertEquals(-1, history.indexAtOrBefore(199));
+        assertEquals(0, history.indexAtOrBefore(200));
+        assertEquals(1, history.indexAtOrBefore(350));
+        assertEquals(3, history.indexAtOrBefore(10000));
+    }
+
+    @Test
+    public void testGetState() {
+        CharacterStateHistory history = new CharacterStateHistory(4);
+        CharacterStateEvent original = state(100, 1, 2, 3);
+        original.setMode(MovementMode.SWIMMING);
+        original.setGrounded(true);
+        original.setFootstepDelta(0.5f);
+        history.add(original);
+
+        CharacterStateEvent copy = history.getState(0, new CharacterStateEvent());
+        assertEquals(100, copy.getTime());
+        assertEquals(original.getPosition(), copy.getPosition());
+        assertEquals(original.getRotation(), copy.getRotation());
+        assertEquals(original.getVelocity(), copy.getVelocity());
+        assertSame(MovementMode.SWIMMING, copy.getMode());
+        assertTrue(copy.isGrounded());
+        assertEquals(0.5f, copy.getFootstepDelta(), EPSILON);
+    }
+
+    @Test
+    public void testSamplePosition() {
+        CharacterStateHistory history = new CharacterStateHistory(4);
+        history.add(state(100, 0, 0, 0));
+        history.add(state(200, 10, 0, -10));
+
+        Vector3f position = new Vector3f();
+        assertFalse(history.samplePosition(50, position));
+        assertTrue(history.samplePosition(150, position));
+        assertEquals(5, position.x, EPSILON);
+        assertEquals(-5, position.z, EPSILON);
+
+        // Past the last state the position is extrapolated from its velocity
+        assertTrue(history.samplePosition(300, position));
+        assertEquals(10 + 100 * 0.0001f, position.x, EPSILON);
+    }
+
+    private CharacterStateEvent state(long time, float x, float y, float z) {
+        return new CharacterStateEvent(time, 0, new Vector3f(x, y, z), new Quat4f(0, 0, 0, 1), new Vector3f(1, 0, 0), 0, 0, MovementMode.WALKING, false);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import gnu.trove.iterator.TIntObjectIterator;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class ReplicationStateTest {
+
+    @Test
+    public void testChangedComponents() {
+        ReplicationState state = new ReplicationState();
+        state.componentChanged(7, 3);
+        state.componentChanged(7, 5);
+
+        ReplicationState.EntityChanges changes = single(state, 7);
+        assertEquals(2, changes.getChanged().cardinality());
+        assertTrue(changes.getChanged().get(3));
+        assertTrue(changes.getChanged().get(5));
+    }
+
+    @Test
+    public void testChangeToAddedComponentIgnored() {
+        ReplicationState state = new ReplicationState();
+        state.componentAdded(7, 3);
+        state.componentChanged(7, 3);
+
+        ReplicationState.EntityChanges changes = single(state, 7);
+        assertTrue(changes.getAdded().get(3));
+        assertTrue(changes.getChanged().isEmpty());
+    }
+
+    @Test
+    public void testRemovedThenAddedIsChanged() {
+        ReplicationState state = new ReplicationState();
+        state.componentChanged(7, 3);
+        state.componentRemoved(7, 3);
+        assertTrue(single(state, 7).getRemoved().get(3));
+        assertTrue(single(state, 7).getChanged().isEmpty());
+
+        state.componentAdded(7, 3);
+        ReplicationState.EntityChanges changes = single(state, 7);
+        assertTrue(changes.getAdded().isEmpty());
+        assertTrue(changes.getRemoved().isEmpty());
+        assertTrue(changes.getChanged().get(3));
+    }
+
+    @Test
+    public void testAddedThenRemovedIsNothing() {
+        ReplicationState state = new ReplicationState();
+        state.componentAdded(7, 3);
+        state.componentRemoved(7, 3);
+
+        ReplicationState.EntityChanges changes = single(state, 7);
+        assertTrue(changes.getAdded().isEmpty());
+        assertTrue(changes.getRemoved().isEmpty());
+        assertTrue(changes.getChanged().isEmpty());
+    }
+
+    @Test
+    public void testClearAndRemove() {
+        ReplicationState state = new ReplicationState();
+        state.componentChanged(1, 0);
+        state.componentChanged(2, 0);
+        state.remove(1);
+        single(state, 2);
+
+        state.clear();
+        assertTrue(state.isEmpty());
+
+        // Pooled changes must come back empty
+        state.componentAdded(3, 1);
+        ReplicationState.EntityChanges changes = single(state, 3);
+        assertFalse(changes.getChanged().get(0));
+        assertEquals(1, changes.getAdded().cardinality());
+    }
+
+    private ReplicationState.EntityChanges single(ReplicationState state, int netId) {
+        TIntObjectIterator<ReplicationState.EntityChanges> iterator = state.iterator();
+        assertTrue(iterator.hasNext());
+        iterator.advance();
+        assertEquals(netId, iterator.key());
+        ReplicationState.EntityChanges changes = iterator.value();
+        assertFalse(iterator.hasNext());
+        return changes;
+    }
+}
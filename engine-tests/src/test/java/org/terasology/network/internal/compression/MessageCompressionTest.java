@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal.compression;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.junit.Test;
+import org.terasology.network.CompressionMode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class MessageCompressionTest {
+
+    private static final String[] WORDS = {"engine:location", "engine:mesh", "position", "rotation", "velocity", "health", "inventory"};
+
+    @Test
+    public void testZlibRoundTrip() {
+        assertRoundTrip(new CompressionSettings(CompressionMode.ZLIB, Deflater.BEST_SPEED, null));
+    }
+
+    @Test
+    public void testLzRoundTrip() {
+        assertRoundTrip(new CompressionSettings(CompressionMode.LZ, Deflater.DEFAULT_COMPRESSION, null));
+    }
+
+    @Test
+    public void testZlibRoundTripWithDictionary() {
+        assertRoundTrip(new CompressionSettings(CompressionMode.ZLIB, Deflater.DEFAULT_COMPRESSION, createDictionary()));
+    }
+
+    @Test
+    public void testLzRoundTripWithDictionary() {
+        assertRoundTrip(new CompressionSettings(CompressionMode.LZ, Deflater.DEFAULT_COMPRESSION, createDictionary()));
+    }
+
+    @Test
+    public void testNoneHasNoCompressor() {
+        CompressionSettings settings = new CompressionSettings(CompressionMode.NONE, Deflater.DEFAULT_COMPRESSION, null);
+        assertNull(settings.createCompressor());
+        assertNull(settings.createDecompressor());
+    }
+
+    @Test
+    public void testDictionaryImprovesSmallMessages() {
+        CompressionDictionary dictionary = createDictionary();
+        byte[] message = createMessage(new Random(7), 80);
+        int without = new LzMessageCompressor(null).compress(ChannelBuffers.wrappedBuffer(message)).readableBytes();
+        int with = new LzMessageCompressor(dictionary).compress(ChannelBuffers.wrappedBuffer(message)).readableBytes();
+        assertTrue(with < without);
+    }
+
+    @Test
+    public void testTrainerFindsSharedSequences() {
+        CompressionDictionary dictionary = createDictionary();
+        assertNotNull(dictionary);
+        String content = new String(dictionary.getData(), StandardCharsets.US_ASCII);
+        assertTrue(content.contains("engine:location"));
+        assertTrue(dictionary.size() <= 4096);
+    }
+
+    private void assertRoundTrip(CompressionSettings settings) {
+        MessageCompressor compressor = settings.createCompressor();
+        MessageDecompressor decompressor = settings.createDecompressor();
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            byte[] message = createMessage(random, random.nextInt(i % 20 == 0 ? 20000 : 200));
+            ChannelBuffer compressed = compressor.compress(ChannelBuffers.wrappedBuffer(message));
+            ChannelBuffer decompressed = decompressor.decompress(compressed);
+            byte[] result = new byte[decompressed.readableBytes()];
+            decompressed.readBytes(result);
+            assertArrayEquals(message, result);
+        }
+    }
+
+    private CompressionDictionary createDictionary() {
+        CompressionDictionaryTrainer trainer = new CompressionDictionaryTrainer(100);
+        Random random = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            trainer.addSample(ChannelBuffers.wrappedBuffer(createMessage(random, 200)));
+        }
+        assertEquals(100, trainer.getSampleCount());
+        return trainer.train(4096);
+    }
+
+    private byte[] createMessage(Random random, int length) {
+        StringBuilder builder = new StringBuilder();
+        while (builder.length() < length) {
+            builder.append(WORDS[random.nextInt(WORDS.length)]).append('=').append(random.nextInt(1000)).append(';');
+        }
+        return builder.substring(0, length).getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.terasology.context.Context;
+import org.terasology.context.internal.ContextImpl;
+import org.terasology.engine.SimpleUri;
+import org.terasology.engine.bootstrap.EntitySystemSetupUtil;
+import org.terasology.engine.module.ModuleManager;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.EngineEntityManager;
+import org.terasology.entitySystem.event.Event;
+import org.terasology.entitySystem.metadata.EventLibrary;
+import org.terasology.entitySystem.metadata.EventMetadata;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.network.NetworkSystem;
+import org.terasology.persistence.serializers.DecodedEvent;
+import org.terasology.persistence.serializers.EventSerializer;
+import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
+import org.terasology.reflection.metadata.FieldMetadata;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.testUtil.ModuleManagerFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ */
+public class EventSerializerTest {
+    private static ModuleManager moduleManager;
+    private EventSerializer eventSerializer;
+    private EngineEntityManager entityManager;
+
+    @BeforeClass
+    public static void setupClass() throws Exception {
+        moduleManager = ModuleManagerFactory.create();
+    }
+
+    @Before
+    public void setup() {
+        Context context = new ContextImpl();
+        context.put(ModuleManager.class, moduleManager);
+        context.put(NetworkSystem.class, mock(NetworkSystem.class));
+        CoreRegistry.setContext(context);
+        EntitySystemSetupUtil.addReflectionBasedLibraries(context);
+        EntitySystemSetupUtil.addEntityManagementRelatedClasses(context);
+        entityManager = context.get(EngineEntityManager.class);
+
+        EventLibrary eventLibrary = context.get(EventLibrary.class);
+        eventLibrary.register(new SimpleUri("test", "plain"), PlainEvent.class);
+        eventLibrary.register(new SimpleUri("test", "entity"), EntityEvent.class);
+        assignFieldIds(eventLibrary.getMetadata(PlainEvent.class));
+        assignFieldIds(eventLibrary.getMetadata(EntityEvent.class));
+
+        eventSerializer = new EventSerializer(eventLibrary, context.get(TypeSerializationLibrary.class));
+        eventSerializer.setIdMapping(ImmutableMap.<Class<? extends Event>, Integer>builder()
+                .put(PlainEvent.class, 1)
+                .put(EntityEvent.class, 2).build());
+    }
+
+    @Test
+    public void testPlainEventDecodedCompletely() {
+        DecodedEvent decoded = eventSerializer.decode(eventSerializer.serialize(new PlainEvent("text", 3, new Vector3f(1, 2, 3))));
+        assertTrue(decoded.isComplete());
+        assertEquals(PlainEvent.class, decoded.getType());
+
+        PlainEvent event = (PlainEvent) decoded.complete();
+        assertEquals("text", event.text);
+        assertEquals(3, event.count);
+        assertEquals(new Vector3f(1, 2, 3), event.position);
+    }
+
+    @Test
+    public void testEntityFieldsDeferredUntilComplete() {
+        EntityRef target = entityManager.create();
+        DecodedEvent decoded = eventSerializer.decode(eventSerializer.serialize(new EntityEvent("text", target)));
+        assertFalse(decoded.isComplete());
+
+        EntityEvent event = (EntityEvent) decoded.complete();
+        assertTrue(decoded.isComplete());
+        assertEquals("text", event.text);
+        assertEquals(target, event.target);
+    }
+
+    @Test
+    public void testDeserializeMatchesDecode() {
+        EntityRef target = entityManager.create();
+        EntityEvent event = (EntityEvent) eventSerializer.deserialize(eventSerializer.serialize(new EntityEvent("text", target)));
+        assertEquals("text", event.text);
+        assertEquals(target, event.target);
+    }
+
+    private static void assignFieldIds(EventMetadata<?> metadata) {
+        byte id = 0;
+        for (FieldMetadata<?, ?> field : metadata.getFields()) {
+            field.setId(id++);
+        }
+    }
+
+    public static class PlainEvent implements Event {
+        public String text;
+        public int count;
+        public Vector3f position;
+
+        public PlainEvent() {
+        }
+
+        public PlainEvent(String text, int count, Vector3f position) {
+            this.text = text;
+            this.count = count;
+            this.position = position;
+        }
+    }
+
+    public static class EntityEvent implements Event {
+        public String text;
+        public EntityRef target = EntityRef.NULL;
+
+        public EntityEvent() {
+        }
+
+        public EntityEvent(String text, EntityRef target) {
+            this.text = text;
+            this.target = target;
+        }
+    }
+}
@@ -64,6 +64,7 @@
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -219,6 +220,97 @@ public void testGlobalEntitiesStoredAndRestored() throws Exception {
     }
 
 
+    @Test
+    public void testGlobalEntityChangesJournaledAndRestored() throws Exception {
+        List<EntityRef> created = Lists.newArrayList();
+        for (int i = 0; i < 10; i++) {
+            created.add(entityManager.create(new StringComponent("Test" + i)));
+        }
+        esm.waitForCompletionOfPreviousSaveAndStartSaving();
+
+        StringComponent changed = created.get(0).getComponent(StringComponent.class);
+        changed.value = "Changed";
+        created.get(0).saveComponent(changed);
+        created.get(1).destroy();
+        EntityRef added = entityManager.create(new StringComponent("Added"));
+
+        esm.waitForCompletionOfPreviousSaveAndStartSaving();
+        esm.finishSavingAndShutdown();
+        assertTrue(Files.isDirectory(savePath.resolve("global-journal")));
+
+        EntitySystemSetupUtil.addReflectionBasedLibraries(context);
+        EntitySystemSetupUtil.addEntityManagementRelatedClasses(context);
+        EngineEntityManager newEntityManager = context.get(EngineEntityManager.class);
+        StorageManager newSM = new ReadWriteStorageManager(savePath, moduleEnvironment, newEntityManager, blockManager,
+                biomeManager, false);
+        newSM.loadGlobalStore();
+
+        List<EntityRef> entities = Lists.newArrayList(newEntityManager.getEntitiesWith(StringComponent.class));
+        assertEquals(10, entities.size());
+        assertEquals("Changed", newEntityManager.getEntity(created.get(0).getId()).getComponent(StringComponent.class).value);
+        assertFalse(newEntityManager.getEntity(created.get(1).getId()).exists());
+        assertEquals("Added", newEntityManager.getEntity(added.getId()).getComponent(StringComponent.class).value);
+    }
+
+    @Test
+    public void testGlobalEntitiesSavedFromSnapshot() throws Exception {
+        StorageManager snapshotSM = new ReadWriteStorageManager(savePath, moduleEnvironment, entityManager, blockManager,
+                biomeManager, false, true);
+        EntityRef entity = entityManager.create(new StringComponent("Test"));
+        EntityRef referencing = entityManager.create(new EntityRefComponent(entity));
+
+        snapshotSM.waitForCompletionOfPreviousSaveAndStartSaving();
+        // Changes made while the save runs must not end up in it:
+        StringComponent component = entity.getComponent(StringComponent.class);
+        component.value = "Changed";
+        entity.saveComponent(component);
+        snapshotSM.finishSavingAndShutdown();
+
+        EntitySystemSetupUtil.addReflectionBasedLibraries(context);
+        EntitySystemSetupUtil.addEntityManagementRelatedClasses(context);
+        EngineEntityManager newEntityManager = context.get(EngineEntityManager.class);
+        StorageManager newSM = new ReadWriteStorageManager(savePath, moduleEnvironment, newEntityManager, blockManager,
+                biomeManager, false);
+        newSM.loadGlobalStore();
+
+        assertEquals("Test", newEntityManager.getEntity(entity.getId()).getComponent(StringComponent.class).value);
+        EntityRef restoredRef = newEntityManager.getEntity(referencing.getId()).getComponent(EntityRefComponent.class).entityRef;
+        assertEquals(entity.getId(), restoredRef.getId());
+    }
+
+    @Test
+    public void testChangedGlobalEntityJournaledFromSnapshot() throws Exception {
+        StorageManager snapshotSM = new ReadWriteStorageManager(savePath, moduleEnvironment, entityManager, blockManager,
+                biomeManager, false, true);
+        List<EntityRef> created = Lists.newArrayList();
+        for (int i = 0; i < 10; i++) {
+            created.add(entityManager.create(new StringComponent("Test" + i)));
+        }
+        snapshotSM.waitForCompletionOfPreviousSaveAndStartSaving();
+
+        StringComponent changed = created.get(0).getComponent(StringComponent.class);
+        changed.value = "Changed";
+        created.get(0).saveComponent(changed);
+
+        snapshotSM.waitForCompletionOfPreviousSaveAndStartSaving();
+        snapshotSM.finishSavingAndShutdown();
+        Path journalPath = savePath.resolve("global-journal");
+        assertTrue(Files.isDirectory(journalPath));
+        try (Stream<Path> segments = Files.list(journalPath)) {
+            assertTrue(segments.findAny().isPresent());
+        }
+
+        EntitySystemSetupUtil.addReflectionBasedLibraries(context);
+        EntitySystemSetupUtil.addEntityManagementRelatedClasses(context);
+        EngineEntityManager newEntityManager = context.get(EngineEntityManager.class);
+        StorageManager newSM = new ReadWriteStorageManager(savePath, moduleEnvironment, newEntityManager, blockManager,
+                biomeManager, false);
+        newSM.loadGlobalStore();
+
+        assertEquals("Changed", newEntityManager.getEntity(created.get(0).getId()).getComponent(StringComponent.class).value);
+        assertEquals("Test1", newEntityManager.getEntity(created.get(1).getId()).getComponent(StringComponent.class).value);
+    }
+
     @Test
     public void testReferenceRemainsValidOverStorageRestoral() throws Exception {
         EntityRef someEntity = entityManager.create();
@@ -329,6 +421,44 @@ public void testEntitySurvivesStorageInChunkStore() throws Exception {
     }
 
 
+    @Test
+    public void testChunkStoreEntitiesRestoredOneAtATime() throws Exception {
+        Chunk chunk = new ChunkImpl(CHUNK_POS, blockManager, biomeManager);
+        chunk.markReady();
+        ChunkProvider chunkProvider = mock(ChunkProvider.class);
+        when(chunkProvider.getAllChunks()).thenReturn(Arrays.asList(chunk));
+        CoreRegistry.put(ChunkProvider.class, chunkProvider);
+        Vector3f positionInChunk = new Vector3f(chunk.getAABB().getMin());
+        positionInChunk.add(1, 1, 1);
+        long firstId = entityManager.create(new LocationComponent(positionInChunk), new StringComponent("first")).getId();
+        long secondId = entityManager.create(new LocationComponent(positionInChunk), new StringComponent("second")).getId();
+        esm.waitForCompletionOfPreviousSaveAndStartSaving();
+        esm.finishSavingAndShutdown();
+
+        EntitySystemSetupUtil.addReflectionBasedLibraries(context);
+        EntitySystemSetupUtil.addEntityManagementRelatedClasses(context);
+        EngineEntityManager newEntityManager = context.get(EngineEntityManager.class);
+        StorageManager newSM = new ReadWriteStorageManager(savePath, moduleEnvironment, newEntityManager, blockManager,
+                biomeManager, false);
+        newSM.loadGlobalStore();
+
+        ChunkStore restored = newSM.loadChunkStore(CHUNK_POS);
+        restored.prepareEntities();
+        assertEquals(2, restored.getUnrestoredEntityCount());
+        assertTrue(restored.restoreNextEntity());
+        assertEquals(1, restored.getUnrestoredEntityCount());
+        assertFalse(restored.restoreNextEntity());
+        assertEquals(0, restored.getUnrestoredEntityCount());
+
+        EntityRef first = newEntityManager.getEntity(firstId);
+        EntityRef second = newEntityManager.getEntity(secondId);
+        assertTrue(first.isActive());
+        assertTrue(second.isActive());
+        assertEquals(new StringComponent("first"), first.getComponent(StringComponent.class));
+        assertEquals(new StringComponent("second"), second.getComponent(StringComponent.class));
+        assertEquals(positionInChunk, first.getComponent(LocationComponent.class).getWorldPosition());
+    }
+
     @Test
     public void testCanSavePlayerWithoutUnloading() throws Exception {
         esm.waitForCompletionOfPreviousSaveAndStartSaving();
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import org.junit.Test;
+import org.terasology.math.Side;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class ChunkFaceConnectivityTest {
+
+    @Test
+    public void testEmptyChunkIsFullyConnected() {
+        assertSame(ChunkFaceConnectivity.ALL_CONNECTED, ChunkFaceConnectivity.compute(new BitSet()));
+    }
+
+    @Test
+    public void testSolidChunkIsNotConnected() {
+        ChunkFaceConnectivity connectivity = ChunkFaceConnectivity.compute(solid());
+        for (Side from : Side.values()) {
+            for (Side to : Side.values()) {
+                assertFalse(connectivity.isConnected(from, to));
+            }
+        }
+    }
+
+    @Test
+    public void testWallSeparatesSides() {
+        BitSet occluding = new BitSet();
+        for (int y = 0; y < ChunkConstants.SIZE_Y; y++) {
+            for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
+                occluding.set(ChunkFaceConnectivity.index(10, y, z));
+            }
+        }
+        ChunkFaceConnectivity connectivity = ChunkFaceConnectivity.compute(occluding);
+        assertFalse(connectivity.isConnected(Side.LEFT, Side.RIGHT));
+        assertFalse(connectivity.isConnected(Side.RIGHT, Side.LEFT));
+        assertTrue(connectivity.isConnected(Side.LEFT, Side.TOP));
+        assertTrue(connectivity.isConnected(Side.RIGHT, Side.TOP));
+        assertTrue(connectivity.isConnected(Side.TOP, Side.BOTTOM));
+    }
+
+    @Test
+    public void testTunnelConnectsItsEnds() {
+        BitSet occluding = solid();
+        for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
+            occluding.clear(ChunkFaceConnectivity.index(x, 20, 5));
+        }
+        ChunkFaceConnectivity connectivity = ChunkFaceConnectivity.compute(occluding);
+        assertTrue(connectivity.isConnected(Side.LEFT, Side.RIGHT));
+        assertTrue(connectivity.isConnected(Side.RIGHT, Side.LEFT));
+        assertFalse(connectivity.isConnected(Side.TOP, Side.BOTTOM));
+        assertFalse(connectivity.isConnected(Side.LEFT, Side.FRONT));
+    }
+
+    private static BitSet solid() {
+        BitSet occluding = new BitSet();
+        occluding.set(0, ChunkConstants.SIZE_X * ChunkConstants.SIZE_Y * ChunkConstants.SIZE_Z);
+        return occluding;
+    }
+}
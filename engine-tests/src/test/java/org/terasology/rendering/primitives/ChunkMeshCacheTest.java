@@ -0,0 +1,215 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.ChunkView;
+import org.terasology.world.block.tiles.WorldAtlas;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Tests {@link ChunkMeshCache}
+ *
+ */
+public class ChunkMeshCacheTest {
+
+    private static final Vector3i FIRST = new Vector3i(1, 0, -2);
+    private static final Vector3i SECOND = new Vector3i(3, 0, 4);
+    private static final long SALT = 17;
+    private static final long CONTENT_HASH = 42;
+    private static final long CONNECTIONS = 0x15L;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path directory;
+
+    @Before
+    public void setup() {
+        directory = temporaryFolder.getRoot().toPath().resolve("meshes");
+    }
+
+    @Test
+    public void testStoredMeshLoadedAfterReopening() throws Exception {
+        ChunkMeshCache cache = new ChunkMeshCache(directory, Long.MAX_VALUE, SALT, null);
+        cache.store(FIRST, createMesh(2, 10), CONTENT_HASH);
+        cache.close();
+
+        ChunkMeshCache reopened = new ChunkMeshCache(directory, Long.MAX_VALUE, SALT, null);
+        ChunkMesh mesh = reopened.load(FIRST, 2, CONTENT_HASH);
+        assertNotNull(mesh);
+        assertEquals(2, mesh.getLodScale());
+        assertEquals(CONNECTIONS, mesh.getFaceConnectivity().getConnections());
+        for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
+            ChunkMesh.VertexElements elements = mesh.getVertexElements(type);
+            int first = 10 * (type.ordinal() + 1);
+            assertEquals(type.ordinal() + 1, elements.vertexCount);
+            assertBuffer(first, ChunkMesh.VERTEX_SIZE * (type.ordinal() + 1), elements.finalVertices);
+            assertBuffer(-first, 3 * (type.ordinal() + 1), elements.finalIndices);
+        }
+        assertEquals(1, reopened.getHitCount());
+        mesh.dispose();
+    }
+
+    @Test
+    public void testChangedContentNotLoaded() throws Exception {
+        ChunkMeshCache cache = new ChunkMeshCache(directory, Long.MAX_VALUE, SALT, null);
+        cache.store(FIRST, createMesh(1, 0), CONTENT_HASH);
+
+        assertNull(cache.load(FIRST, 1, CONTENT_HASH + 1));
+        assertNull(cache.load(FIRST, 2, CONTENT_HASH));
+        assertNull(cache.load(SECOND, 1, CONTENT_HASH));
+        assertEquals(3, cache.getMissCount());
+        assertNotNull(cache.load(FIRST, 1, CONTENT_HASH));
+    }
+
+    @Test
+    public void testChangedSaltDiscardsEntries() throws Exception {
+        ChunkMeshCache cache = new ChunkMeshCache(directory, Long.MAX_VALUE, SALT, null);
+        cache.store(FIRST, createMesh(1, 0), CONTENT_HASH);
+        cache.close();
+        // Stored after the index was written, so only found by its header
+        cache.store(SECOND, createMesh(1, 0), CONTENT_HASH);
+
+        ChunkMeshCache resalted = new ChunkMeshCache(directory, Long.MAX_VALUE, SALT + 1, null);
+        assertNull(resalted.load(FIRST, 1, CONTENT_HASH));
+        assertNull(resalted.load(SECOND, 1, CONTENT_HASH));
+        assertEquals(0, resalted.getTotalBytes());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertFalse(files.anyMatch(file -> file.getFileName().toString().endsWith(".mesh")));
+        }
+    }
+
+    @Test
+    public void testUnindexedEntryRecovered() throws Exception {
+        ChunkMeshCache cache = new ChunkMeshCache(directory, Long.MAX_VALUE, SALT, null);
+        cache.store(FIRST, createMesh(1, 0), CONTENT_HASH);
+
+        ChunkMeshCache reopened = new ChunkMeshCache(directory, Long.MAX_VALUE, SALT, null);
+        assertEquals(cache.getTotalBytes(), reopened.getTotalBytes());
+        assertNotNull(reopened.load(FIRST, 1, CONTENT_HASH));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryEvicted() throws Exception {
+        ChunkMeshCache sizing = new ChunkMeshCache(temporaryFolder.newFolder().toPath(), Long.MAX_VALUE, SALT, null);
+        sizing.store(FIRST, createMesh(1, 0), CONTENT_HASH);
+        long entryBytes = sizing.getTotalBytes();
+
+        ChunkMeshCache cache = new ChunkMeshCache(directory, 2 * entryBytes, SALT, null);
+        cache.store(FIRST, createMesh(1, 0), CONTENT_HASH);
+        cache.store(SECOND, createMesh(1, 0), CONTENT_HASH);
+        ChunkMesh loaded = cache.load(FIRST, 1, CONTENT_HASH);
+        assertNotNull(loaded);
+        loaded.dispose();
+        cache.store(new Vector3i(5, 0, 5), createMesh(1, 0), CONTENT_HASH);
+
+        assertEquals(2 * entryBytes, cache.getTotalBytes());
+        assertNull(cache.load(SECOND, 1, CONTENT_HASH));
+        assertNotNull(cache.load(FIRST, 1, CONTENT_HASH));
+        // A loaded entry is not held open, so it can be replaced
+        cache.store(FIRST, createMesh(1, 1), CONTENT_HASH + 1);
+        assertNotNull(cache.load(FIRST, 1, CONTENT_HASH + 1));
+    }
+
+    @Test
+    public void testSaltCoversMeshingMode() {
+        WorldAtlas atlas = mock(WorldAtlas.class);
+        when(atlas.getAtlasSize()).thenReturn(256);
+        when(atlas.getTileSize()).thenReturn(16);
+
+        long salt = ChunkMeshCache.salt(Collections.emptyList(), atlas, false);
+        assertEquals(salt, ChunkMeshCache.salt(Collections.emptyList(), atlas, false));
+        assertNotEquals(salt, ChunkMeshCache.salt(Collections.emptyList(), atlas, true));
+        when(atlas.getTileSize()).thenReturn(32);
+        assertNotEquals(salt, ChunkMeshCache.salt(Collections.emptyList(), atlas, false));
+    }
+
+    @Test
+    public void testContentHashCoversBorder() throws Exception {
+        ChunkMeshCache cache = new ChunkMeshCache(directory, Long.MAX_VALUE, SALT, null);
+        long hash = cache.contentHash(chunkViewWithBlockAt(-5, 0, 0), 1);
+
+        assertEquals(hash, cache.contentHash(chunkViewWithBlockAt(-2, 0, 0), 1));
+        assertNotEquals(hash, cache.contentHash(chunkViewWithBlockAt(-1, 0, 0), 1));
+        assertNotEquals(hash, cache.contentHash(chunkViewWithBlockAt(ChunkConstants.SIZE_X, 3, 0), 1));
+        // A level of detail cell is sampled around the chunk
+        assertNotEquals(cache.contentHash(chunkViewWithBlockAt(-5, 0, 0), 4), cache.contentHash(chunkViewWithBlockAt(-4, 0, 0), 4));
+        assertNotEquals(hash, cache.contentHash(chunkViewWithBlockAt(-5, 0, 0), 4));
+    }
+
+    /**
+     * @return A mesh with some vertices and indices per render type, with values counting up from a different start
+     *         for each type
+     */
+    private static ChunkMesh createMesh(int lodScale, int offset) {
+        ChunkMesh mesh = new ChunkMesh(null);
+        mesh.setLodScale(lodScale);
+        mesh.setFaceConnectivity(ChunkFaceConnectivity.fromConnections(CONNECTIONS));
+        for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
+            ChunkMesh.VertexElements elements = mesh.getVertexElements(type);
+            int first = 10 * (type.ordinal() + 1) + offset;
+            elements.finalVertices = buffer(first, ChunkMesh.VERTEX_SIZE * (type.ordinal() + 1));
+            elements.finalIndices = buffer(-first, 3 * (type.ordinal() + 1));
+        }
+        return mesh;
+    }
+
+    private static IntBuffer buffer(int first, int count) {
+        IntBuffer buffer = IntBuffer.allocate(count);
+        for (int i = 0; i < count; i++) {
+            buffer.put(first + i);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void assertBuffer(int first, int count, IntBuffer buffer) {
+        assertEquals(count, buffer.remaining());
+        for (int i = 0; i < count; i++) {
+            assertEquals(first + i, buffer.get(buffer.position() + i));
+        }
+    }
+
+    private static ChunkView chunkViewWithBlockAt(int x, int y, int z) {
+        // Hashing reads every position of the chunk and its border, so the calls are not recorded
+        ChunkView chunkView = mock(ChunkView.class, withSettings().stubOnly());
+        when(chunkView.getBlockId(anyInt(), anyInt(), anyInt())).thenReturn((short) 0);
+        when(chunkView.getBlockId(x, y, z)).thenReturn((short) 1);
+        return chunkView;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.TerasologyTestingEnvironment;
+import org.terasology.assets.ResourceUrn;
+import org.terasology.assets.management.AssetManager;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.utilities.random.FastRandom;
+import org.terasology.world.biomes.BiomeManager;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockUri;
+import org.terasology.world.block.family.SymmetricBlockFamilyFactory;
+import org.terasology.world.block.internal.BlockManagerImpl;
+import org.terasology.world.block.loader.BlockFamilyDefinition;
+import org.terasology.world.block.loader.BlockFamilyDefinitionData;
+import org.terasology.world.block.shapes.BlockShape;
+import org.terasology.world.block.tiles.NullWorldAtlas;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.internal.ChunkViewCore;
+import org.terasology.world.internal.ChunkViewCoreImpl;
+
+import java.nio.IntBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class ChunkTessellatorTest extends TerasologyTestingEnvironment {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkTessellatorTest.class);
+
+    private static final int EDITS = 20;
+
+    private Block airBlock;
+    private Block solidBlock;
+    private Chunk chunk;
+    private ChunkViewCore chunkView;
+
+    @Before
+    public void setup() {
+        AssetManager assetManager = CoreRegistry.get(AssetManager.class);
+        BlockManager blockManager = new BlockManagerImpl(new NullWorldAtlas(), assetManager);
+        CoreRegistry.put(BlockManager.class, blockManager);
+        airBlock = blockManager.getBlock(BlockManager.AIR_ID);
+
+        BlockFamilyDefinitionData solidData = new BlockFamilyDefinitionData();
+        solidData.getBaseSection().setDisplayName("Stone");
+        solidData.getBaseSection().setShape(assetManager.getAsset("engine:cube", BlockShape.class).get());
+        solidData.getBaseSection().setTranslucent(false);
+        solidData.setFamilyFactory(new SymmetricBlockFamilyFactory());
+        assetManager.loadAsset(new ResourceUrn("engine:stone"), solidData, BlockFamilyDefinition.class);
+        solidBlock = blockManager.getBlock(new BlockUri(new ResourceUrn("engine:stone")));
+
+        // Rough terrain, so that every slice of the chunk has some faces
+        chunk = new ChunkImpl(Vector3i.zero(), blockManager, Mockito.mock(BiomeManager.class));
+        FastRandom random = new FastRandom(7);
+        for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
+            for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
+                int height = random.nextInt(ChunkConstants.SIZE_Y);
+                for (int y = 0; y < height; y++) {
+                    chunk.setBlock(x, y, z, solidBlock);
+                }
+            }
+        }
+        chunkView = new ChunkViewCoreImpl(new Chunk[]{chunk}, Region3i.createFromCenterExtents(Vector3i.zero(), Vector3i.zero()),
+                new Vector3i(), airBlock);
+    }
+
+    @Test
+    public void testSlicedMeshMatchesWholeMesh() {
+        ChunkTessellator tessellator = new ChunkTessellator(null);
+        ChunkMesh whole = tessellator.generateMesh(chunkView, ChunkConstants.SIZE_Y, 0);
+        ChunkMesh sliced = tessellator.generateMeshInSlices(chunkView, 4);
+
+        for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
+            ChunkMesh.VertexElements expected = whole.getVertexElements(type);
+            ChunkMesh.VertexElements actual = sliced.getVertexElements(type);
+            assertEquals(expected.finalVertices.remaining(), actual.finalVertices.remaining());
+            assertEquals(expected.finalIndices.remaining(), actual.finalIndices.remaining());
+            // The vertices are the same, in another order
+            assertEquals(sum(expected.finalVertices), sum(actual.finalVertices));
+            int vertexCount = actual.finalVertices.remaining() / ChunkMesh.VERTEX_SIZE;
+            for (int i = actual.finalIndices.position(); i < actual.finalIndices.limit(); i++) {
+                assertTrue(actual.finalIndices.get(i) >= 0 && actual.finalIndices.get(i) < vertexCount);
+            }
+        }
+        assertTrue(whole.getVertexElements(ChunkMesh.RenderType.OPAQUE).finalIndices.remaining() > 0);
+    }
+
+    /**
+     * Measures the time from editing a block to having the new mesh of its chunk ready for upload, tessellating the
+     * chunk whole and in slices. The times depend on the machine, so they are only logged.
+     */
+    @Test
+    public void testEditToMeshLatency() {
+        ChunkTessellator tessellator = new ChunkTessellator(null, true);
+        // Warm up both paths
+        for (int i = 0; i < 5; i++) {
+            tessellator.generateMesh(chunkView, ChunkConstants.SIZE_Y, 0);
+            tessellator.generateMeshInSlices(chunkView, 4);
+        }
+
+        long wholeNanos = 0;
+        long slicedNanos = 0;
+        FastRandom random = new FastRandom(11);
+        for (int i = 0; i < EDITS; i++) {
+            Vector3i pos = new Vector3i(random.nextInt(ChunkConstants.SIZE_X), random.nextInt(ChunkConstants.SIZE_Y), random.nextInt(ChunkConstants.SIZE_Z));
+            Block previous = chunk.getBlock(pos);
+
+            long start = System.nanoTime();
+            chunk.setBlock(pos, previous == airBlock ? solidBlock : airBlock);
+            ChunkMesh mesh = tessellator.generateMesh(chunkView, ChunkConstants.SIZE_Y, 0);
+            wholeNanos += System.nanoTime() - start;
+            assertTrue(mesh.getPendingBytes() > 0);
+
+            start = System.nanoTime();
+            chunk.setBlock(pos, previous);
+            mesh = tessellator.generateMeshInSlices(chunkView, 4);
+            slicedNanos += System.nanoTime() - start;
+            assertTrue(mesh.getPendingBytes() > 0);
+        }
+
+        logger.info("Edit to mesh latency over {} edits: whole chunk {} ms, 4 slices {} ms on average", EDITS,
+                TimeUnit.NANOSECONDS.toMillis(wholeNanos / EDITS), TimeUnit.NANOSECONDS.toMillis(slicedNanos / EDITS));
+    }
+
+    private static long sum(IntBuffer buffer) {
+        long sum = 0;
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            sum += buffer.get(i);
+        }
+        return sum;
+    }
+}
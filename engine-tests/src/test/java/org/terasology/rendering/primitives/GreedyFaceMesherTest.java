@@ -0,0 +1,216 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multiset;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.terasology.TerasologyTestingEnvironment;
+import org.terasology.assets.ResourceUrn;
+import org.terasology.assets.management.AssetManager;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.utilities.random.FastRandom;
+import org.terasology.world.biomes.BiomeManager;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockUri;
+import org.terasology.world.block.family.SymmetricBlockFamilyFactory;
+import org.terasology.world.block.internal.BlockManagerImpl;
+import org.terasology.world.block.loader.BlockFamilyDefinition;
+import org.terasology.world.block.loader.BlockFamilyDefinitionData;
+import org.terasology.world.block.shapes.BlockShape;
+import org.terasology.world.block.tiles.WorldAtlas;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.internal.ChunkViewCore;
+import org.terasology.world.internal.ChunkViewCoreImpl;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ */
+public class GreedyFaceMesherTest extends TerasologyTestingEnvironment {
+
+    private static final float TILE_SIZE = 1f / 16;
+    private static final float EPSILON = 0.0001f;
+
+    private ChunkViewCore chunkView;
+
+    @Before
+    public void setup() {
+        AssetManager assetManager = CoreRegistry.get(AssetManager.class);
+        WorldAtlas atlas = Mockito.mock(WorldAtlas.class);
+        when(atlas.getRelativeTileSize()).thenReturn(TILE_SIZE);
+        BlockManager blockManager = new BlockManagerImpl(atlas, assetManager);
+        CoreRegistry.put(BlockManager.class, blockManager);
+        Block airBlock = blockManager.getBlock(BlockManager.AIR_ID);
+
+        BlockFamilyDefinitionData solidData = new BlockFamilyDefinitionData();
+        solidData.getBaseSection().setDisplayName("Stone");
+        solidData.getBaseSection().setShape(assetManager.getAsset("engine:cube", BlockShape.class).get());
+        solidData.getBaseSection().setTranslucent(false);
+        solidData.setFamilyFactory(new SymmetricBlockFamilyFactory());
+        assetManager.loadAsset(new ResourceUrn("engine:stone"), solidData, BlockFamilyDefinition.class);
+        Block solidBlock = blockManager.getBlock(new BlockUri(new ResourceUrn("engine:stone")));
+
+        // Rough terrain on one half of the chunk and a flat plateau on the other
+        Chunk chunk = new ChunkImpl(Vector3i.zero(), blockManager, Mockito.mock(BiomeManager.class));
+        FastRandom random = new FastRandom(5);
+        for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
+            for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
+                int height = (x < ChunkConstants.SIZE_X / 2) ? 1 + random.nextInt(4) : 6;
+                for (int y = 0; y < height; y++) {
+                    chunk.setBlock(x, y, z, solidBlock);
+                }
+            }
+        }
+        chunkView = new ChunkViewCoreImpl(new Chunk[]{chunk}, Region3i.createFromCenterExtents(Vector3i.zero(), Vector3i.zero()),
+                new Vector3i(), airBlock);
+    }
+
+    @Test
+    public void testMergedQuadsCoverTheSameFacesAsSingleFaces() {
+        ChunkMesh merged = new ChunkMesh(null);
+        new GreedyFaceMesher().generate(chunkView, merged, ChunkConstants.SIZE_Y, 0);
+
+        ChunkMesh single = new ChunkMesh(null);
+        for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
+            for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
+                for (int y = 0; y < ChunkConstants.SIZE_Y; y++) {
+                    Block block = chunkView.getBlock(x, y, z);
+                    if (block.getMeshGenerator() != null) {
+                        block.getMeshGenerator().generateChunkMesh(chunkView, single, x, y, z);
+                    }
+                }
+            }
+        }
+
+        for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
+            assertEquals(coveredFaces(single.getVertexElements(type)), coveredFaces(merged.getVertexElements(type)));
+        }
+        ChunkMesh.VertexElements opaque = merged.getVertexElements(ChunkMesh.RenderType.OPAQUE);
+        assertTrue(opaque.vertexCount > 0);
+        assertTrue(opaque.vertexCount < single.getVertexElements(ChunkMesh.RenderType.OPAQUE).vertexCount);
+    }
+
+    @Test
+    public void testMergedQuadsRepeatTheirTilePerBlock() {
+        ChunkMesh mesh = new ChunkMesh(null);
+        new GreedyFaceMesher().generate(chunkView, mesh, ChunkConstants.SIZE_Y, 0);
+        ChunkMesh.VertexElements elements = mesh.getVertexElements(ChunkMesh.RenderType.OPAQUE);
+
+        int mergedQuads = 0;
+        for (int quad = 0; quad < elements.vertexCount / 4; quad++) {
+            int[] size = quadSize(elements, quad);
+            int flag = elements.flags.get(4 * quad);
+            if (size[0] == 1 && size[1] == 1) {
+                assertTrue(flag < GreedyFaceMesher.TILE_FLAG_STRIDE);
+                continue;
+            }
+            mergedQuads++;
+            // The stone has no tiles, so every face uses the first tile of the atlas
+            assertEquals(1, flag / GreedyFaceMesher.TILE_FLAG_STRIDE);
+
+            float[] texSpan = new float[2];
+            for (int i = 0; i < 2; i++) {
+                float min = Float.MAX_VALUE;
+                float max = -Float.MAX_VALUE;
+                for (int vertex = 4 * quad; vertex < 4 * quad + 4; vertex++) {
+                    float coord = elements.tex.get(2 * vertex + i);
+                    min = Math.min(min, coord);
+                    max = Math.max(max, coord);
+                }
+                texSpan[i] = (max - min) / TILE_SIZE;
+            }
+            Arrays.sort(size);
+            Arrays.sort(texSpan);
+            assertEquals(size[0], texSpan[0], EPSILON);
+            assertEquals(size[1], texSpan[1], EPSILON);
+        }
+        assertTrue(mergedQuads > 0);
+    }
+
+    /**
+     * @return Every unit face covered by the quads, as the normal, the plane and the position of the face in the plane
+     */
+    private static Multiset<ImmutableList<Integer>> coveredFaces(ChunkMesh.VertexElements elements) {
+        assertEquals(0, elements.vertexCount % 4);
+        Multiset<ImmutableList<Integer>> faces = HashMultiset.create();
+        for (int quad = 0; quad < elements.vertexCount / 4; quad++) {
+            int normalAxis = normalAxis(elements, quad);
+            int uAxis = (normalAxis == 0) ? 1 : 0;
+            int vAxis = (normalAxis == 2) ? 1 : 2;
+            int normalSign = Math.round(Math.signum(elements.normals.get(12 * quad + normalAxis)));
+            int plane = Math.round(2 * elements.vertices.get(12 * quad + normalAxis));
+            int minU = Math.round(min(elements, quad, uAxis) + 0.5f);
+            int minV = Math.round(min(elements, quad, vAxis) + 0.5f);
+            int[] size = quadSize(elements, quad);
+            for (int u = minU; u < minU + size[0]; u++) {
+                for (int v = minV; v < minV + size[1]; v++) {
+                    faces.add(ImmutableList.of(normalAxis, normalSign, plane, u, v));
+                }
+            }
+        }
+        return faces;
+    }
+
+    /**
+     * @return The size of the quad in blocks, along its first and second axis in the plane
+     */
+    private static int[] quadSize(ChunkMesh.VertexElements elements, int quad) {
+        int normalAxis = normalAxis(elements, quad);
+        int uAxis = (normalAxis == 0) ? 1 : 0;
+        int vAxis = (normalAxis == 2) ? 1 : 2;
+        return new int[]{Math.round(max(elements, quad, uAxis) - min(elements, quad, uAxis)),
+                Math.round(max(elements, quad, vAxis) - min(elements, quad, vAxis))};
+    }
+
+    private static int normalAxis(ChunkMesh.VertexElements elements, int quad) {
+        int axis = 0;
+        for (int i = 1; i < 3; i++) {
+            if (Math.abs(elements.normals.get(12 * quad + i)) > Math.abs(elements.normals.get(12 * quad + axis))) {
+                axis = i;
+            }
+        }
+        return axis;
+    }
+
+    private static float min(ChunkMesh.VertexElements elements, int quad, int axis) {
+        float min = Float.MAX_VALUE;
+        for (int vertex = 4 * quad; vertex < 4 * quad + 4; vertex++) {
+            min = Math.min(min, elements.vertices.get(3 * vertex + axis));
+        }
+        return min;
+    }
+
+    private static float max(ChunkMesh.VertexElements elements, int quad, int axis) {
+        float max = -Float.MAX_VALUE;
+        for (int vertex = 4 * quad; vertex < 4 * quad + 4; vertex++) {
+            max = Math.max(max, elements.vertices.get(3 * vertex + axis));
+        }
+        return max;
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.terasology.TerasologyTestingEnvironment;
+import org.terasology.assets.ResourceUrn;
+import org.terasology.assets.management.AssetManager;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.world.biomes.BiomeManager;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockUri;
+import org.terasology.world.block.family.SymmetricBlockFamilyFactory;
+import org.terasology.world.block.internal.BlockManagerImpl;
+import org.terasology.world.block.loader.BlockFamilyDefinition;
+import org.terasology.world.block.loader.BlockFamilyDefinitionData;
+import org.terasology.world.block.shapes.BlockShape;
+import org.terasology.world.block.tiles.WorldAtlas;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.internal.ChunkViewCoreImpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@link LodChunkMesher} on a chunk whose lower 8 blocks are solid, tessellated in cells of 4 blocks.
+ *
+ */
+public class LodChunkMesherTest extends TerasologyTestingEnvironment {
+
+    private static final int SCALE = 4;
+    private static final int SLAB_HEIGHT = 8;
+    private static final int CELLS_X = ChunkConstants.SIZE_X / SCALE;
+    private static final int CELLS_Z = ChunkConstants.SIZE_Z / SCALE;
+    private static final float EPSILON = 0.0001f;
+
+    private Block airBlock;
+    private Block solidBlock;
+    private Chunk chunk;
+
+    @Before
+    public void setup() {
+        AssetManager assetManager = CoreRegistry.get(AssetManager.class);
+        WorldAtlas atlas = Mockito.mock(WorldAtlas.class);
+        when(atlas.getRelativeTileSize()).thenReturn(1f / 16);
+        BlockManager blockManager = new BlockManagerImpl(atlas, assetManager);
+        CoreRegistry.put(BlockManager.class, blockManager);
+        airBlock = blockManager.getBlock(BlockManager.AIR_ID);
+
+        BlockFamilyDefinitionData solidData = new BlockFamilyDefinitionData();
+        solidData.getBaseSection().setDisplayName("Stone");
+        solidData.getBaseSection().setShape(assetManager.getAsset("engine:cube", BlockShape.class).get());
+        solidData.getBaseSection().setTranslucent(false);
+        solidData.setFamilyFactory(new SymmetricBlockFamilyFactory());
+        assetManager.loadAsset(new ResourceUrn("engine:stone"), solidData, BlockFamilyDefinition.class);
+        solidBlock = blockManager.getBlock(new BlockUri(new ResourceUrn("engine:stone")));
+
+        chunk = new ChunkImpl(Vector3i.zero(), blockManager, Mockito.mock(BiomeManager.class));
+        for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
+            for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
+                for (int y = 0; y < SLAB_HEIGHT; y++) {
+                    chunk.setBlock(x, y, z, solidBlock);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCellsDrawnAsCubesWithInnerFacesCulled() {
+        ChunkMesh.VertexElements elements = generate(airBlock);
+
+        // The top and the bottom of the slab, and its four sides on the chunk border
+        int tops = CELLS_X * CELLS_Z;
+        int sides = 2 * (CELLS_X + CELLS_Z) * (SLAB_HEIGHT / SCALE);
+        assertEquals(2 * tops + sides, elements.vertexCount / 4);
+        for (int quad = 0; quad < elements.vertexCount / 4; quad++) {
+            assertCellSized(elements, quad);
+        }
+        assertEquals(tops, countFaces(elements, 1, 1, SLAB_HEIGHT - 0.5f));
+        assertEquals(tops, countFaces(elements, 1, -1, -0.5f));
+        assertEquals(CELLS_Z * SLAB_HEIGHT / SCALE, countFaces(elements, 0, -1, -0.5f));
+        assertEquals(CELLS_Z * SLAB_HEIGHT / SCALE, countFaces(elements, 0, 1, ChunkConstants.SIZE_X - 0.5f));
+    }
+
+    @Test
+    public void testMostlyEmptyCellNotDrawn() {
+        chunk.setBlock(12, SLAB_HEIGHT, 12, solidBlock);
+        chunk.setBlock(13, SLAB_HEIGHT + 1, 13, solidBlock);
+
+        ChunkMesh.VertexElements elements = generate(airBlock);
+        int tops = CELLS_X * CELLS_Z;
+        int sides = 2 * (CELLS_X + CELLS_Z) * (SLAB_HEIGHT / SCALE);
+        assertEquals(2 * tops + sides, elements.vertexCount / 4);
+    }
+
+    @Test
+    public void testBorderFacesCulledOnlyWhereSealed() {
+        // Solid all around the chunk, so only the top of the slab can be seen
+        ChunkMesh.VertexElements elements = generate(solidBlock);
+
+        assertEquals(CELLS_X * CELLS_Z, elements.vertexCount / 4);
+        assertEquals(CELLS_X * CELLS_Z, countFaces(elements, 1, 1, SLAB_HEIGHT - 0.5f));
+    }
+
+    @Test
+    public void testSkirtOnBorderOfUndrawnCell() {
+        // Half of the border layer of a cell, but only an eighth of the cell
+        for (int y = SLAB_HEIGHT; y < SLAB_HEIGHT + 2; y++) {
+            for (int z = SCALE; z < 2 * SCALE; z++) {
+                chunk.setBlock(0, y, z, solidBlock);
+            }
+        }
+
+        ChunkMesh.VertexElements elements = generate(airBlock);
+        int tops = CELLS_X * CELLS_Z;
+        int sides = 2 * (CELLS_X + CELLS_Z) * (SLAB_HEIGHT / SCALE);
+        assertEquals(2 * tops + sides + 1, elements.vertexCount / 4);
+
+        int skirts = 0;
+        for (int quad = 0; quad < elements.vertexCount / 4; quad++) {
+            if (isFace(elements, quad, 0, -1, -0.5f) && Math.abs(min(elements, quad, 1) - (SLAB_HEIGHT - 0.5f)) < EPSILON) {
+                assertEquals(SCALE - 0.5f, min(elements, quad, 2), EPSILON);
+                skirts++;
+            }
+        }
+        assertEquals(1, skirts);
+    }
+
+    private ChunkMesh.VertexElements generate(Block outside) {
+        ChunkViewCoreImpl chunkView = new ChunkViewCoreImpl(new Chunk[]{chunk},
+                Region3i.createFromCenterExtents(Vector3i.zero(), Vector3i.zero()), new Vector3i(), outside);
+        ChunkMesh mesh = new ChunkMesh(null);
+        new LodChunkMesher().generate(chunkView, mesh, SCALE);
+        for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
+            if (type != ChunkMesh.RenderType.OPAQUE) {
+                assertEquals(0, mesh.getVertexElements(type).vertexCount);
+            }
+        }
+        ChunkMesh.VertexElements elements = mesh.getVertexElements(ChunkMesh.RenderType.OPAQUE);
+        assertEquals(0, elements.vertexCount % 4);
+        return elements;
+    }
+
+    private static void assertCellSized(ChunkMesh.VertexElements elements, int quad) {
+        int flatAxes = 0;
+        for (int axis = 0; axis < 3; axis++) {
+            float extent = max(elements, quad, axis) - min(elements, quad, axis);
+            if (extent < EPSILON) {
+                flatAxes++;
+            } else {
+                assertEquals(SCALE, extent, EPSILON);
+            }
+        }
+        assertEquals(1, flatAxes);
+    }
+
+    private static int countFaces(ChunkMesh.VertexElements elements, int axis, int normalSign, float plane) {
+        int count = 0;
+        for (int quad = 0; quad < elements.vertexCount / 4; quad++) {
+            if (isFace(elements, quad, axis, normalSign, plane)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return Whether the quad lies in the given plane across the given axis, facing the given direction along it
+     */
+    private static boolean isFace(ChunkMesh.VertexElements elements, int quad, int axis, int normalSign, float plane) {
+        float normal = elements.normals.get(12 * quad + axis);
+        boolean flat = max(elements, quad, axis) - min(elements, quad, axis) < EPSILON;
+        return flat && Math.signum(normal) == normalSign && Math.abs(min(elements, quad, axis) - plane) < EPSILON;
+    }
+
+    private static float min(ChunkMesh.VertexElements elements, int quad, int axis) {
+        float min = Float.MAX_VALUE;
+        for (int vertex = 4 * quad; vertex < 4 * quad + 4; vertex++) {
+            min = Math.min(min, elements.vertices.get(3 * vertex + axis));
+        }
+        return min;
+    }
+
+    private static float max(ChunkMesh.VertexElements elements, int quad, int axis) {
+        float max = -Float.MAX_VALUE;
+        for (int vertex = 4 * quad; vertex < 4 * quad + 4; vertex++) {
+            max = Math.max(max, elements.vertices.get(3 * vertex + axis));
+        }
+        return max;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.world;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.WorldProvider;
+import org.terasology.world.chunks.RenderableChunk;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ */
+public class ChunkMeshUpdateManagerTest {
+
+    private WorldProvider worldProvider;
+    private RenderableChunk chunk;
+    private ChunkMeshUpdateManager updateManager;
+
+    @Before
+    public void setup() {
+        worldProvider = mock(WorldProvider.class);
+        chunk = mock(RenderableChunk.class);
+        when(chunk.getPosition()).thenReturn(new Vector3i(1, 2, 3));
+        updateManager = new ChunkMeshUpdateManager(null, worldProvider);
+    }
+
+    @After
+    public void teardown() {
+        updateManager.shutdown();
+    }
+
+    @Test
+    public void testQueuedTaskCoalesces() {
+        ChunkMeshUpdateManager.ChunkUpdateTask task = createTask();
+
+        assertTrue(task.coalesce(2));
+        task.run();
+
+        verify(worldProvider).getLocalView(any(Vector3i.class));
+    }
+
+    @Test
+    public void testCancelledTaskDoesNotRun() {
+        ChunkMeshUpdateManager.ChunkUpdateTask task = createTask();
+
+        assertTrue(task.cancel());
+        assertFalse(task.cancel());
+        task.run();
+
+        verify(worldProvider, never()).getLocalView(any(Vector3i.class));
+        assertEquals(1, updateManager.availableChunksForUpdate().size());
+    }
+
+    @Test
+    public void testCancelledTaskCoalescesBeforeItStarts() {
+        ChunkMeshUpdateManager.ChunkUpdateTask task = createTask();
+
+        assertTrue(task.cancel());
+        assertTrue(task.coalesce(1));
+        task.run();
+
+        verify(worldProvider).getLocalView(any(Vector3i.class));
+    }
+
+    @Test
+    public void testDoneTaskNeitherCoalescesNorCancels() {
+        ChunkMeshUpdateManager.ChunkUpdateTask task = createTask();
+        task.run();
+
+        assertFalse(task.coalesce(1));
+        assertFalse(task.cancel());
+    }
+
+    @Test
+    public void testTaskCancelledWhileRunningIsDone() {
+        ChunkMeshUpdateManager.ChunkUpdateTask task = createTask();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicBoolean coalesced = new AtomicBoolean(true);
+        when(worldProvider.getLocalView(any(Vector3i.class))).thenAnswer(invocation -> {
+            coalesced.set(task.coalesce(1));
+            cancelled.set(task.cancel());
+            return null;
+        });
+        task.run();
+
+        assertFalse(coalesced.get());
+        assertTrue(cancelled.get());
+        assertFalse(task.coalesce(1));
+        assertFalse(task.cancel());
+        verify(worldProvider, times(1)).getLocalView(any(Vector3i.class));
+    }
+
+    private ChunkMeshUpdateManager.ChunkUpdateTask createTask() {
+        return new ChunkMeshUpdateManager.ChunkUpdateTask(chunk, 1, 0, null, worldProvider, null, updateManager);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.world;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.math.AABB;
+import org.terasology.math.Region3i;
+import org.terasology.math.Side;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.rendering.primitives.BlockMeshGenerator;
+import org.terasology.rendering.primitives.ChunkFaceConnectivity;
+import org.terasology.rendering.primitives.ChunkMesh;
+import org.terasology.world.ChunkView;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockTable;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.RenderableChunk;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ */
+public class ChunkOcclusionCullerTest {
+
+    private final Region3i region = Region3i.createFromMinMax(new Vector3i(0, 0, 0), new Vector3i(3, 0, 0));
+    private ChunkOcclusionCuller culler;
+    private ChunkFaceConnectivity solidConnectivity;
+    private ChunkFaceConnectivity tunnelConnectivity;
+
+    @Before
+    public void setup() {
+        culler = new ChunkOcclusionCuller();
+
+        Block solid = new Block();
+        solid.setId((short) 1);
+        solid.setMeshGenerator(mock(BlockMeshGenerator.class));
+        for (Side side : Side.values()) {
+            solid.setFullSide(side, true);
+        }
+        ChunkView solidView = mock(ChunkView.class);
+        when(solidView.getBlockTable()).thenReturn(BlockTable.of(Collections.singletonList(solid)));
+        when(solidView.getBlockId(anyInt(), anyInt(), anyInt())).thenReturn(solid.getId());
+        solidConnectivity = ChunkFaceConnectivity.compute(solidView);
+
+        // Solid but for a tunnel along the x axis, which only connects the left and right faces
+        ChunkView tunnelView = mock(ChunkView.class);
+        when(tunnelView.getBlockTable()).thenReturn(BlockTable.of(Collections.singletonList(solid)));
+        when(tunnelView.getBlockId(anyInt(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            boolean inTunnel = (int) invocation.getArgument(1) == 5 && (int) invocation.getArgument(2) == 5;
+            return inTunnel ? (short) 0 : solid.getId();
+        });
+        tunnelConnectivity = ChunkFaceConnectivity.compute(tunnelView);
+    }
+
+    @Test
+    public void testChunksBehindSolidChunkAreOccluded() {
+        List<RenderableChunk> chunks = Lists.newArrayList(
+                chunk(0, null), chunk(1, solidConnectivity), chunk(2, null), chunk(3, null));
+        culler.cull(region, chunks, new Vector3i(0, 0, 0), aabb -> true);
+
+        assertFalse(culler.isOccluded(chunks.get(0)));
+        assertFalse(culler.isOccluded(chunks.get(1)));
+        assertTrue(culler.isOccluded(chunks.get(2)));
+        assertTrue(culler.isOccluded(chunks.get(3)));
+    }
+
+    @Test
+    public void testChunksWithoutMeshAreSeeThrough() {
+        List<RenderableChunk> chunks = Lists.newArrayList(
+                chunk(0, null), chunk(1, null), chunk(2, null), chunk(3, solidConnectivity));
+        culler.cull(region, chunks, new Vector3i(0, 0, 0), aabb -> true);
+
+        for (RenderableChunk chunk : chunks) {
+            assertFalse(culler.isOccluded(chunk));
+        }
+    }
+
+    @Test
+    public void testWalkStaysWithinView() {
+        List<RenderableChunk> chunks = Lists.newArrayList(
+                chunk(0, null), chunk(1, null), chunk(2, null), chunk(3, null));
+        culler.cull(region, chunks, new Vector3i(0, 0, 0), aabb -> aabb.getMin().x < 2 * ChunkConstants.SIZE_X);
+
+        assertFalse(culler.isOccluded(chunks.get(1)));
+        assertTrue(culler.isOccluded(chunks.get(2)));
+        assertTrue(culler.isOccluded(chunks.get(3)));
+    }
+
+    @Test
+    public void testNothingCulledWhenCameraOutsideRegion() {
+        List<RenderableChunk> chunks = Lists.newArrayList(
+                chunk(0, null), chunk(1, solidConnectivity), chunk(2, null), chunk(3, null));
+        culler.cull(region, chunks, new Vector3i(-5, 0, 0), aabb -> true);
+
+        for (RenderableChunk chunk : chunks) {
+            assertFalse(culler.isOccluded(chunk));
+        }
+    }
+
+    @Test
+    public void testChunkWalkedFromEachEntryFace() {
+        // The tunnel chunk is first entered through its front face, from which it cannot be seen through. The chunk
+        // behind it is only visible through the tunnel, when entering the tunnel chunk from the left.
+        Region3i flatRegion = Region3i.createFromMinMax(new Vector3i(0, 0, 0), new Vector3i(2, 0, 1));
+        List<RenderableChunk> chunks = Lists.newArrayList(
+                chunk(0, 0, null), chunk(1, 0, null), chunk(2, 0, solidConnectivity),
+                chunk(0, 1, null), chunk(1, 1, tunnelConnectivity), chunk(2, 1, null));
+        culler.cull(flatRegion, chunks, new Vector3i(0, 0, 0), aabb -> true);
+
+        assertTrue(tunnelConnectivity.isConnected(Side.LEFT, Side.RIGHT));
+        assertFalse(tunnelConnectivity.isConnected(Side.FRONT, Side.RIGHT));
+        for (RenderableChunk chunk : chunks) {
+            assertFalse(culler.isOccluded(chunk));
+        }
+    }
+
+    private static RenderableChunk chunk(int x, ChunkFaceConnectivity connectivity) {
+        return chunk(x, 0, connectivity);
+    }
+
+    private static RenderableChunk chunk(int x, int z, ChunkFaceConnectivity connectivity) {
+        RenderableChunk chunk = mock(RenderableChunk.class);
+        when(chunk.getPosition()).thenReturn(new Vector3i(x, 0, z));
+        Vector3f min = new Vector3f(x * ChunkConstants.SIZE_X, 0, z * ChunkConstants.SIZE_Z);
+        Vector3f max = new Vector3f((x + 1) * ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, (z + 1) * ChunkConstants.SIZE_Z);
+        when(chunk.getAABB()).thenReturn(AABB.createMinMax(min, max));
+        if (connectivity != null) {
+            ChunkMesh mesh = mock(ChunkMesh.class);
+            when(mesh.getFaceConnectivity()).thenReturn(connectivity);
+            when(chunk.hasMesh()).thenReturn(true);
+            when(chunk.getMesh()).thenReturn(mesh);
+        }
+        return chunk;
+    }
+}
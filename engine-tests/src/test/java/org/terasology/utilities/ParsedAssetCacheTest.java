@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.terasology.assets.ResourceUrn;
+import org.terasology.engine.module.ModuleManager;
+import org.terasology.module.ModuleEnvironment;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests {@link ParsedAssetCache}
+ *
+ */
+public class ParsedAssetCacheTest {
+
+    private static final ResourceUrn FIRST = new ResourceUrn("test:first");
+    private static final ResourceUrn SECOND = new ResourceUrn("test:second");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ModuleManager moduleManager;
+    private Path file;
+
+    @Before
+    public void setup() throws Exception {
+        moduleManager = mock(ModuleManager.class);
+        when(moduleManager.getEnvironment()).thenReturn(mock(ModuleEnvironment.class));
+        file = temporaryFolder.getRoot().toPath().resolve("test.cache");
+    }
+
+    @Test
+    public void testStoredDataAvailableAfterReopening() {
+        ParsedAssetCache cache = new ParsedAssetCache(file, 1, moduleManager);
+        String key = cache.key(FIRST, bytes("{}"));
+        cache.put(FIRST, key, bytes("parsed"));
+
+        ParsedAssetCache reopened = new ParsedAssetCache(file, 1, moduleManager);
+        assertEquals("parsed", string(reopened.get(FIRST, key)));
+        assertEquals(1, reopened.getHitCount());
+    }
+
+    @Test
+    public void testChangedContentNotReturned() {
+        ParsedAssetCache cache = new ParsedAssetCache(file, 1, moduleManager);
+        cache.put(FIRST, cache.key(FIRST, bytes("{}")), bytes("parsed"));
+
+        ParsedAssetCache reopened = new ParsedAssetCache(file, 1, moduleManager);
+        assertNull(reopened.get(FIRST, reopened.key(FIRST, bytes("{ \"changed\": true }"))));
+        assertEquals(1, reopened.getMissCount());
+    }
+
+    @Test
+    public void testLatestDataReturned() {
+        ParsedAssetCache cache = new ParsedAssetCache(file, 1, moduleManager);
+        String key = cache.key(FIRST, bytes("{}"));
+        cache.put(FIRST, key, bytes("old"));
+        cache.put(FIRST, key, bytes("new"));
+
+        assertEquals("new", string(new ParsedAssetCache(file, 1, moduleManager).get(FIRST, key)));
+    }
+
+    @Test
+    public void testDifferentDataVersionDiscarded() {
+        ParsedAssetCache cache = new ParsedAssetCache(file, 1, moduleManager);
+        String key = cache.key(FIRST, bytes("{}"));
+        cache.put(FIRST, key, bytes("parsed"));
+
+        assertNull(new ParsedAssetCache(file, 2, moduleManager).get(FIRST, key));
+    }
+
+    @Test
+    public void testIncompleteEntryDropped() throws Exception {
+        ParsedAssetCache cache = new ParsedAssetCache(file, 1, moduleManager);
+        String firstKey = cache.key(FIRST, bytes("{}"));
+        String secondKey = cache.key(SECOND, bytes("{}"));
+        cache.put(FIRST, firstKey, bytes("first"));
+        long intactSize = Files.size(file);
+        cache.put(SECOND, secondKey, bytes("second"));
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length - 2));
+
+        ParsedAssetCache reopened = new ParsedAssetCache(file, 1, moduleManager);
+        assertEquals("first", string(reopened.get(FIRST, firstKey)));
+        assertNull(reopened.get(SECOND, secondKey));
+        assertEquals(intactSize, Files.size(file));
+    }
+
+    @Test
+    public void testStaleEntriesDroppedOnReopening() throws Exception {
+        ParsedAssetCache cache = new ParsedAssetCache(file, 1, moduleManager);
+        String firstKey = cache.key(FIRST, bytes("{}"));
+        for (int i = 0; i < 10; i++) {
+            cache.put(FIRST, firstKey, bytes("version " + i));
+        }
+        long staleSize = Files.size(file);
+
+        ParsedAssetCache reopened = new ParsedAssetCache(file, 1, moduleManager);
+        assertTrue(Files.size(file) < staleSize);
+        assertEquals("version 9", string(reopened.get(FIRST, firstKey)));
+        String secondKey = reopened.key(SECOND, bytes("{}"));
+        reopened.put(SECOND, secondKey, bytes("second"));
+
+        ParsedAssetCache rewritten = new ParsedAssetCache(file, 1, moduleManager);
+        assertEquals("version 9", string(rewritten.get(FIRST, firstKey)));
+        assertEquals("second", string(rewritten.get(SECOND, secondKey)));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer data) {
+        byte[] bytes = new byte[data.remaining()];
+        data.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.block.shapes;
+
+import com.bulletphysics.collision.shapes.BoxShape;
+import com.bulletphysics.collision.shapes.CollisionShape;
+import com.bulletphysics.collision.shapes.CompoundShape;
+import com.bulletphysics.collision.shapes.CompoundShapeChild;
+import com.bulletphysics.collision.shapes.ConvexHullShape;
+import com.bulletphysics.collision.shapes.SphereShape;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.terasology.assets.ResourceUrn;
+import org.terasology.assets.format.AssetDataFile;
+import org.terasology.engine.module.ModuleManager;
+import org.terasology.math.Side;
+import org.terasology.module.ModuleEnvironment;
+import org.terasology.utilities.ParsedAssetCache;
+import org.terasology.world.block.BlockPart;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that block shapes read back from the {@link ParsedAssetCache} equal the shapes parsed from JSON.
+ *
+ */
+public class JsonBlockShapeLoaderTest {
+
+    private static final ResourceUrn URN = new ResourceUrn("test:shape");
+
+    private static final String MESH_PARTS = "\"displayName\": \"Test Shape\","
+            + "\"top\": {"
+            + "  \"vertices\": [[-0.5, 0.5, 0.5], [0.5, 0.5, 0.5], [0.5, 0.5, -0.5], [-0.5, 0.5, -0.5]],"
+            + "  \"normals\": [[0, 1, 0], [0, 1, 0], [0, 1, 0], [0, 1, 0]],"
+            + "  \"texcoords\": [[0, 1], [1, 1], [1, 0], [0, 0]],"
+            + "  \"faces\": [[0, 1, 2, 3]],"
+            + "  \"fullSide\": true"
+            + "},"
+            + "\"center\": {"
+            + "  \"vertices\": [[-0.25, -0.5, 0], [0.25, -0.5, 0], [0, 0.25, 0.125]],"
+            + "  \"normals\": [[0, 0, 1], [0, 0, 1], [0, 0.6, 0.8]],"
+            + "  \"texcoords\": [[0, 1], [1, 1], [0.5, 0.25]],"
+            + "  \"faces\": [[0, 1, 2]]"
+            + "}";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ModuleManager moduleManager;
+    private Path file;
+
+    @Before
+    public void setup() throws Exception {
+        moduleManager = mock(ModuleManager.class);
+        when(moduleManager.getEnvironment()).thenReturn(mock(ModuleEnvironment.class));
+        file = temporaryFolder.getRoot().toPath().resolve("shapes.cache");
+    }
+
+    @Test
+    public void testBoxShapeRoundTrip() throws Exception {
+        assertRoundTrip("{" + MESH_PARTS + "}", BoxShape.class);
+    }
+
+    @Test
+    public void testSphereShapeRoundTrip() throws Exception {
+        assertRoundTrip("{" + MESH_PARTS + ", \"collision\": {\"yawSymmetric\": true, \"colliders\": ["
+                + "{\"type\": \"Sphere\", \"position\": [0, 0.25, 0], \"radius\": 0.375}]}}", SphereShape.class);
+    }
+
+    @Test
+    public void testConvexHullShapeRoundTrip() throws Exception {
+        assertRoundTrip("{" + MESH_PARTS + ", \"collision\": {\"pitchSymmetric\": true, \"rollSymmetric\": true, "
+                + "\"convexHull\": true}}", ConvexHullShape.class);
+    }
+
+    @Test
+    public void testCompoundShapeRoundTrip() throws Exception {
+        assertRoundTrip("{" + MESH_PARTS + ", \"collision\": {\"colliders\": ["
+                + "{\"type\": \"AABB\", \"position\": [0, -0.25, 0], \"extents\": [0.5, 0.25, 0.5]},"
+                + "{\"type\": \"AABB\", \"position\": [0, 0.25, 0.25], \"extents\": [0.5, 0.25, 0.25]},"
+                + "{\"type\": \"Sphere\", \"position\": [0.125, 0, 0], \"radius\": 0.25}]}}", CompoundShape.class);
+    }
+
+    private void assertRoundTrip(String json, Class<? extends CollisionShape> collisionShapeType) throws Exception {
+        byte[] content = json.getBytes(StandardCharsets.UTF_8);
+        BlockShapeData parsed = new JsonBlockShapeLoader(openCache()).load(URN, inputs(content));
+
+        ParsedAssetCache cache = openCache();
+        BlockShapeData cached = new JsonBlockShapeLoader(cache).load(URN, inputs(content));
+        assertEquals(1, cache.getHitCount());
+
+        assertTrue(collisionShapeType.isInstance(parsed.getCollisionShape()));
+        assertEquals(parsed.getDisplayName(), cached.getDisplayName());
+        assertEquals(parsed.isYawSymmetric(), cached.isYawSymmetric());
+        assertEquals(parsed.isPitchSymmetric(), cached.isPitchSymmetric());
+        assertEquals(parsed.isRollSymmetric(), cached.isRollSymmetric());
+        for (Side side : Side.values()) {
+            assertEquals(parsed.isBlockingSide(side), cached.isBlockingSide(side));
+        }
+        for (BlockPart part : BlockPart.values()) {
+            assertMeshPartEquals(parsed.getMeshPart(part), cached.getMeshPart(part));
+        }
+        assertEquals(parsed.getCollisionOffset(), cached.getCollisionOffset());
+        assertCollisionShapeEquals(parsed.getCollisionShape(), cached.getCollisionShape());
+    }
+
+    private ParsedAssetCache openCache() {
+        return new ParsedAssetCache(file, JsonBlockShapeLoader.CACHE_VERSION, moduleManager);
+    }
+
+    private static List<AssetDataFile> inputs(byte[] content) throws Exception {
+        AssetDataFile input = mock(AssetDataFile.class);
+        when(input.openStream()).thenAnswer(invocation -> new ByteArrayInputStream(content));
+        when(input.getFilename()).thenReturn("shape.shape");
+        return Collections.singletonList(input);
+    }
+
+    private static void assertMeshPartEquals(BlockMeshPart expected, BlockMeshPart actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getVertex(i), actual.getVertex(i));
+            assertEquals(expected.getNormal(i), actual.getNormal(i));
+            assertEquals(expected.getTexCoord(i), actual.getTexCoord(i));
+        }
+        assertEquals(expected.indicesSize(), actual.indicesSize());
+        for (int i = 0; i < expected.indicesSize(); i++) {
+            assertEquals(expected.getIndex(i), actual.getIndex(i));
+        }
+    }
+
+    private static void assertCollisionShapeEquals(CollisionShape expected, CollisionShape actual) {
+        assertEquals(expected.getClass(), actual.getClass());
+        if (expected instanceof BoxShape) {
+            assertEquals(((BoxShape) expected).getHalfExtentsWithMargin(new javax.vecmath.Vector3f()),
+                    ((BoxShape) actual).getHalfExtentsWithMargin(new javax.vecmath.Vector3f()));
+        } else if (expected instanceof SphereShape) {
+            assertEquals(((SphereShape) expected).getRadius(), ((SphereShape) actual).getRadius(), 0);
+        } else if (expected instanceof ConvexHullShape) {
+            assertArrayEquals(((ConvexHullShape) expected).getPoints().toArray(), ((ConvexHullShape) actual).getPoints().toArray());
+        } else if (expected instanceof CompoundShape) {
+            List<CompoundShapeChild> expectedChildren = ((CompoundShape) expected).getChildList();
+            List<CompoundShapeChild> actualChildren = ((CompoundShape) actual).getChildList();
+            assertEquals(expectedChildren.size(), actualChildren.size());
+            for (int i = 0; i < expectedChildren.size(); i++) {
+                assertEquals(expectedChildren.get(i).transform.origin, actualChildren.get(i).transform.origin);
+                assertCollisionShapeEquals(expectedChildren.get(i).childShape, actualChildren.get(i).childShape);
+            }
+        }
+    }
+}
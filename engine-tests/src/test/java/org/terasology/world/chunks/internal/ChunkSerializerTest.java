@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.internal;
+
+import com.google.protobuf.CodedInputStream;
+import org.junit.Test;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.protobuf.EntityData;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.blockdata.TeraArray;
+import org.terasology.world.chunks.blockdata.TeraDenseArray16Bit;
+import org.terasology.world.chunks.blockdata.TeraDenseArray8Bit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the streaming decode of {@link ChunkSerializer}
+ *
+ */
+public class ChunkSerializerTest {
+
+    @Test
+    public void testVariedLayersDecodedDense() throws IOException {
+        TeraArray blocks = createBlocks();
+        for (int y = 0; y < blocks.getSizeY(); y++) {
+            blocks.set(y % blocks.getSizeX(), y, 0, y + 1);
+        }
+
+        TeraArray decoded = ChunkSerializer.decodeRunLengths16(blockDataOf(blocks));
+
+        assertFalse(decoded.isSparse());
+        assertSameContent(blocks, decoded);
+    }
+
+    @Test
+    public void testMostlyUniformLayersDecodedSparse() throws IOException {
+        TeraArray blocks = createBlocks();
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < blocks.getSizeX(); x++) {
+                for (int z = 0; z < blocks.getSizeZ(); z++) {
+                    blocks.set(x, y, z, 3);
+                }
+            }
+        }
+        blocks.set(5, 64, 7, 9);
+
+        TeraArray decoded = ChunkSerializer.decodeRunLengths16(blockDataOf(blocks));
+
+        assertTrue(decoded.isSparse());
+        assertSameContent(blocks, decoded);
+    }
+
+    @Test
+    public void testEmptyLiquidDecodedWithoutLayers() throws IOException {
+        TeraArray liquid = new TeraDenseArray8Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encode(createBlocks(), liquid).getLiquidData().writeDelimitedTo(out);
+        TeraArray decoded = ChunkSerializer.decodeRunLengths8(CodedInputStream.newInstance(out.toByteArray()));
+
+        assertTrue(decoded.isSparse());
+        assertSameContent(liquid, decoded);
+    }
+
+    private static TeraArray createBlocks() {
+        return new TeraDenseArray16Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
+    }
+
+    private static CodedInputStream blockDataOf(TeraArray blocks) throws IOException {
+        TeraArray liquid = new TeraDenseArray8Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encode(blocks, liquid).getBlockData().writeDelimitedTo(out);
+        return CodedInputStream.newInstance(out.toByteArray());
+    }
+
+    private static EntityData.ChunkStore encode(TeraArray blocks, TeraArray liquid) {
+        return ChunkSerializer.encode(new Vector3i(), blocks, liquid, createBlocks()).build();
+    }
+
+    private static void assertSameContent(TeraArray expected, TeraArray actual) {
+        for (int y = 0; y < expected.getSizeY(); y++) {
+            for (int z = 0; z < expected.getSizeZ(); z++) {
+                for (int x = 0; x < expected.getSizeX(); x++) {
+                    assertEquals(expected.get(x, y, z), actual.get(x, y, z));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.chunks.localChunkProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.TerasologyTestingEnvironment;
+import org.terasology.engine.GameThread;
+import org.terasology.engine.SimpleUri;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.EngineEntityManager;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.persistence.ChunkStore;
+import org.terasology.persistence.StorageManager;
+import org.terasology.world.biomes.BiomeManager;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.generator.WorldGenerator;
+import org.terasology.world.internal.EntityAwareWorldProvider;
+import org.terasology.world.internal.WorldProviderCoreImpl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ */
+public class LocalChunkProviderTest extends TerasologyTestingEnvironment {
+
+    private static final Vector3i CHUNK_POS = new Vector3i(0, 0, 0);
+    private static final Vector3i BLOCK_POS = new Vector3i(1, 1, 1);
+
+    private EngineEntityManager entityManager;
+    private LocalChunkProvider chunkProvider;
+    private EntityAwareWorldProvider worldProvider;
+    private SlowChunkStore chunkStore;
+
+    @Before
+    public void setup() throws Exception {
+        super.setup();
+        GameThread.setToCurrentThread();
+
+        entityManager = context.get(EngineEntityManager.class);
+        BlockManager blockManager = context.get(BlockManager.class);
+        BiomeManager biomeManager = mock(BiomeManager.class);
+
+        chunkStore = new SlowChunkStore(new ChunkImpl(CHUNK_POS, blockManager, biomeManager), 3);
+        StorageManager storageManager = mock(StorageManager.class);
+        when(storageManager.loadChunkStore(CHUNK_POS)).thenReturn(chunkStore);
+
+        chunkProvider = new LocalChunkProvider(storageManager, entityManager, mock(WorldGenerator.class), blockManager, biomeManager);
+        chunkProvider.setWorldEntity(entityManager.create());
+        chunkProvider.restart();
+
+        WorldProviderCoreImpl worldProviderCore = new WorldProviderCoreImpl("test", "test", 0, new SimpleUri("test:generator"),
+                chunkProvider, blockManager.getBlock(BlockManager.UNLOADED_ID), context);
+        worldProvider = new EntityAwareWorldProvider(worldProviderCore, context);
+        chunkProvider.setBlockEntityRegistry(worldProvider);
+        worldProvider.initialise();
+    }
+
+    @After
+    public void cleanup() {
+        chunkProvider.shutdown();
+    }
+
+    @Test(timeout = 30000)
+    public void testNoBlockEntityCreatedWhileChunkEntitiesAreRestoring() {
+        EntityRef player = entityManager.create(new LocationComponent(new Vector3f()));
+        chunkProvider.addRelevanceEntity(player, new Vector3i(3, 3, 3));
+
+        while (chunkStore.getRestoredEntityCount() == 0) {
+            update();
+        }
+        assertTrue(chunkStore.getUnrestoredEntityCount() > 0);
+        assertFalse(chunkProvider.isChunkReady(CHUNK_POS));
+        assertFalse(worldProvider.getBlockEntityAt(BLOCK_POS).exists());
+
+        while (!chunkProvider.isChunkReady(CHUNK_POS)) {
+            update();
+        }
+        assertEquals(0, chunkStore.getUnrestoredEntityCount());
+        assertTrue(worldProvider.getBlockEntityAt(BLOCK_POS).exists());
+    }
+
+    private void update() {
+        chunkProvider.beginUpdate();
+        chunkProvider.completeUpdate();
+    }
+
+    /**
+     * A chunk store whose entities each take longer to restore than the per-frame budget of the chunk provider, so
+     * that its restoration spans several frames.
+     */
+    private static class SlowChunkStore implements ChunkStore {
+        private final Chunk chunk;
+        private int unrestoredEntities;
+        private int restoredEntities;
+
+        SlowChunkStore(Chunk chunk, int entityCount) {
+            this.chunk = chunk;
+            this.unrestoredEntities = entityCount;
+        }
+
+        @Override
+        public Vector3i getChunkPosition() {
+            return chunk.getPosition();
+        }
+
+        @Override
+        public Chunk getChunk() {
+            return chunk;
+        }
+
+        @Override
+        public void prepareEntities() {
+        }
+
+        @Override
+        public void restoreEntities() {
+            while (restoreNextEntity()) {
+                // Restore the remaining entities
+            }
+        }
+
+        @Override
+        public boolean restoreNextEntity() {
+            if (unrestoredEntities > 0) {
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                unrestoredEntities--;
+                restoredEntities++;
+            }
+            return unrestoredEntities > 0;
+        }
+
+        @Override
+        public int getUnrestoredEntityCount() {
+            return unrestoredEntities;
+        }
+
+        int getRestoredEntityCount() {
+            return restoredEntities;
+        }
+    }
+}
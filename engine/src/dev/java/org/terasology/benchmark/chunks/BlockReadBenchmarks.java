@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.chunks;
+
+import com.google.common.collect.Lists;
+import gnu.trove.map.TShortObjectMap;
+import gnu.trove.map.hash.TShortObjectHashMap;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.utilities.random.FastRandom;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockTable;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.util.List;
+
+/**
+ * Compares the per-voxel cost of reading block properties over a chunk of {@value #BLOCK_TYPES} block types: resolving
+ * each id through a hash map, as the block manager used to, against an array lookup in a {@link BlockTable} and
+ * against reading the primitive property arrays of the table without touching the block at all.
+ * <br><br>
+ * Results are printed per pass over the chunk, divide its volume by the time to get the voxels read per ms.
+ *
+ */
+public final class BlockReadBenchmarks {
+
+    private static final int BLOCK_TYPES = 256;
+
+    private BlockReadBenchmarks() {
+    }
+
+    public static void main(String[] args) {
+        List<Benchmark> benchmarks = Lists.newArrayList();
+        benchmarks.add(new HashMapBenchmark());
+        benchmarks.add(new BlockArrayBenchmark());
+        benchmarks.add(new PrimitiveArrayBenchmark());
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+    }
+
+    private abstract static class BlockReadBenchmark extends AbstractBenchmark {
+        protected final short[] ids = new short[ChunkConstants.SIZE_X * ChunkConstants.SIZE_Y * ChunkConstants.SIZE_Z];
+        protected final List<Block> blocks = Lists.newArrayList();
+        protected int result;
+
+        BlockReadBenchmark(String title) {
+            super(title + " for " + ChunkConstants.SIZE_X * ChunkConstants.SIZE_Y * ChunkConstants.SIZE_Z + " voxels",
+                    20, new int[]{200});
+            FastRandom random = new FastRandom(BLOCK_TYPES);
+            for (short id = 0; id < BLOCK_TYPES; id++) {
+                Block block = new Block();
+                block.setId(id);
+                block.setTranslucent(random.nextBoolean());
+                block.setLuminance((byte) random.nextInt(16));
+                blocks.add(block);
+            }
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = (short) random.nextInt(BLOCK_TYPES);
+            }
+        }
+    }
+
+    private static final class HashMapBenchmark extends BlockReadBenchmark {
+        private final TShortObjectMap<Block> blocksById = new TShortObjectHashMap<>();
+
+        HashMapBenchmark() {
+            super("Hash map lookup and block field read");
+            for (Block block : blocks) {
+                blocksById.put(block.getId(), block);
+            }
+        }
+
+        @Override
+        public void run() {
+            int sum = 0;
+            for (short id : ids) {
+                Block block = blocksById.get(id);
+                if (!block.isTranslucent()) {
+                    sum += block.getLuminance();
+                }
+            }
+            result = sum;
+        }
+    }
+
+    private static final class BlockArrayBenchmark extends BlockReadBenchmark {
+        private final BlockTable table = BlockTable.of(blocks);
+
+        BlockArrayBenchmark() {
+            super("Block table lookup and block field read");
+        }
+
+        @Override
+        public void run() {
+            int sum = 0;
+            for (short id : ids) {
+                Block block = table.getBlock(id);
+                if (!block.isTranslucent()) {
+                    sum += block.getLuminance();
+                }
+            }
+            result = sum;
+        }
+    }
+
+    private static final class PrimitiveArrayBenchmark extends BlockReadBenchmark {
+        private final BlockTable table = BlockTable.of(blocks);
+
+        PrimitiveArrayBenchmark() {
+            super("Block table primitive property read");
+        }
+
+        @Override
+        public void run() {
+            int sum = 0;
+            for (short id : ids) {
+                if (!table.isTranslucent(id)) {
+                    sum += table.getLuminance(id);
+                }
+            }
+            result = sum;
+        }
+    }
+}
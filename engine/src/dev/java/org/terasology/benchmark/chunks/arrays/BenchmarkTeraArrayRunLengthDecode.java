@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.chunks.arrays;
+
+import com.google.common.base.Preconditions;
+import com.google.protobuf.CodedInputStream;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.protobuf.EntityData;
+import org.terasology.world.chunks.blockdata.TeraArray;
+import org.terasology.world.chunks.blockdata.TeraDenseArray16Bit;
+import org.terasology.world.chunks.blockdata.TeraDenseArray8Bit;
+import org.terasology.world.chunks.internal.ChunkSerializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * BenchmarkTeraArrayRunLengthDecode measures decoding the run length encoded block data of a chunk: either streamed
+ * from the encoded bytes straight into the array, or parsed into a message first and expanded element by element.
+ *
+ */
+public class BenchmarkTeraArrayRunLengthDecode implements Benchmark {
+
+    private final String name;
+    private final TeraArray array;
+    private final boolean streaming;
+    private byte[] encoded;
+
+    public BenchmarkTeraArrayRunLengthDecode(String name, TeraArray array, boolean streaming) {
+        this.name = Preconditions.checkNotNull(name);
+        this.array = Preconditions.checkNotNull(array);
+        this.streaming = streaming;
+    }
+
+    @Override
+    public String getTitle() {
+        return name + " run length decode " + (streaming ? "streamed into the array" : "via message");
+    }
+
+    @Override
+    public int getWarmupRepetitions() {
+        return 1000;
+    }
+
+    @Override
+    public int[] getRepetitions() {
+        return new int[]{1000, 5000, 10000};
+    }
+
+    @Override
+    public void setup() {
+        TeraArray liquid = new TeraDenseArray8Bit(array.getSizeX(), array.getSizeY(), array.getSizeZ());
+        EntityData.ChunkStore store = ChunkSerializer.encode(new Vector3i(), array, liquid, array).build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            store.getBlockData().writeDelimitedTo(out);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        encoded = out.toByteArray();
+    }
+
+    @Override
+    public void prerun() {
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (streaming) {
+                ChunkSerializer.decodeRunLengths16(CodedInputStream.newInstance(encoded));
+            } else {
+                decodeViaMessage();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void postrun() {
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+    }
+
+    private TeraArray decodeViaMessage() throws IOException {
+        EntityData.RunLengthEncoding16 data = EntityData.RunLengthEncoding16.parseDelimitedFrom(new ByteArrayInputStream(encoded));
+        short[] decodedData = new short[array.getSizeXYZ()];
+        int index = 0;
+        for (int pos = 0; pos < data.getValuesCount(); ++pos) {
+            int length = data.getRunLengths(pos);
+            short value = (short) data.getValues(pos);
+            for (int i = 0; i < length; ++i) {
+                decodedData[index++] = value;
+            }
+        }
+        return new TeraDenseArray16Bit(array.getSizeX(), array.getSizeY(), array.getSizeZ(), decodedData);
+    }
+}
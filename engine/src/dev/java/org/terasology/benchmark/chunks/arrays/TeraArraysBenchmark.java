@@ -18,6 +18,9 @@
 import org.terasology.benchmark.Benchmarks;
 import org.terasology.benchmark.Benchmark;
 import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.utilities.random.FastRandom;
+import org.terasology.world.chunks.blockdata.TeraArray;
+import org.terasology.world.chunks.blockdata.TeraDenseArray16Bit;
 import org.terasology.world.chunks.blockdata.TeraDenseArray8Bit;
 
 import java.util.LinkedList;
@@ -58,6 +61,11 @@ public static void main(String[] args) {
         benchmarks.add(new BenchmarkTeraArraySerializeToStreamViaByteArray(new TeraDenseArray8Bit.SerializationHandler(), new TeraDenseArray8Bit(16, 256, 16)));
         benchmarks.add(new BenchmarkTeraArraySerializeToStreamViaChannel(new TeraDenseArray8Bit.SerializationHandler(), new TeraDenseArray8Bit(16, 256, 16)));
 
+        benchmarks.add(new BenchmarkTeraArrayRunLengthDecode("Terrain", createTerrain(), false));
+        benchmarks.add(new BenchmarkTeraArrayRunLengthDecode("Terrain", createTerrain(), true));
+        benchmarks.add(new BenchmarkTeraArrayRunLengthDecode("Noise", createNoise(), false));
+        benchmarks.add(new BenchmarkTeraArrayRunLengthDecode("Noise", createNoise(), true));
+
 //        benchmarks.add(new BenchmarkTeraArrayDeserializeFromBuffer(new TeraDenseArray8Bit.SerializationHandler(), new TeraDenseArray8Bit(16, 256, 16)));
 //
 //
@@ -75,4 +83,37 @@ public static void main(String[] args) {
         Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
 
     }
+
+    /**
+     * @return Block data with solid layers below an uneven surface and air above it, as most stored chunks have
+     */
+    private static TeraArray createTerrain() {
+        TeraArray array = new TeraDenseArray16Bit(16, 256, 16);
+        FastRandom random = new FastRandom(1);
+        for (int x = 0; x < array.getSizeX(); x++) {
+            for (int z = 0; z < array.getSizeZ(); z++) {
+                int height = 60 + random.nextInt(8);
+                for (int y = 0; y < height; y++) {
+                    array.set(x, y, z, (y < 56) ? 1 : 2);
+                }
+            }
+        }
+        return array;
+    }
+
+    /**
+     * @return Block data with short runs in every layer
+     */
+    private static TeraArray createNoise() {
+        TeraArray array = new TeraDenseArray16Bit(16, 256, 16);
+        FastRandom random = new FastRandom(2);
+        for (int y = 0; y < array.getSizeY(); y++) {
+            for (int z = 0; z < array.getSizeZ(); z++) {
+                for (int x = 0; x < array.getSizeX(); x++) {
+                    array.set(x, y, z, random.nextInt(4));
+                }
+            }
+        }
+        return array;
+    }
 }
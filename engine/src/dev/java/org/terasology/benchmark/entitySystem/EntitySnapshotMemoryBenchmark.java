@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.entitySystem;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.context.Context;
+import org.terasology.context.internal.ContextImpl;
+import org.terasology.engine.SimpleUri;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.PojoEntityManager;
+import org.terasology.entitySystem.metadata.ComponentLibrary;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.reflection.copy.CopyStrategyLibrary;
+import org.terasology.reflection.reflect.ByteCodeReflectFactory;
+import org.terasology.reflection.reflect.ReflectFactory;
+import org.terasology.utilities.random.FastRandom;
+
+/**
+ * Measures, headless, the heap needed to save {@value #ENTITIES} entities: keeping a private copy of every entity, as
+ * the storage manager does by default, against a copy-on-write snapshot of the entity manager while
+ * {@value #MODIFIED_PERCENTAGE}% of the entities get modified during the save.
+ * <br><br>
+ * Run with a fixed heap size (e.g. -Xms2g -Xmx2g) to get stable numbers.
+ *
+ */
+public final class EntitySnapshotMemoryBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(EntitySnapshotMemoryBenchmark.class);
+
+    private static final int ENTITIES = 200_000;
+    private static final int MODIFIED_PERCENTAGE = 5;
+
+    private EntitySnapshotMemoryBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        ReflectFactory reflectFactory = new ByteCodeReflectFactory();
+        Context context = new ContextImpl();
+        context.put(ReflectFactory.class, reflectFactory);
+        context.put(CopyStrategyLibrary.class, new CopyStrategyLibrary(reflectFactory));
+        ComponentLibrary componentLibrary = new ComponentLibrary(context);
+        componentLibrary.register(new SimpleUri("benchmark", "position"), PositionComponent.class);
+        componentLibrary.register(new SimpleUri("benchmark", "stats"), StatsComponent.class);
+
+        long baseline = usedHeap();
+        PojoEntityManager entityManager = new PojoEntityManager();
+        entityManager.setComponentLibrary(componentLibrary);
+        FastRandom random = new FastRandom(ENTITIES);
+        for (int i = 0; i < ENTITIES; i++) {
+            PositionComponent position = new PositionComponent();
+            position.position = new Vector3f(random.nextFloat(-1000, 1000), random.nextFloat(0, 100), random.nextFloat(-1000, 1000));
+            StatsComponent stats = new StatsComponent();
+            stats.name = "entity" + i;
+            stats.health = random.nextInt(100);
+            entityManager.create(position, stats);
+        }
+        long entities = usedHeap() - baseline;
+        logger.info("{} entities: {} KiB", ENTITIES, entities / 1024);
+
+        long beforeCopy = usedHeap();
+        PojoEntityManager privateCopy = new PojoEntityManager();
+        privateCopy.setComponentLibrary(componentLibrary);
+        privateCopy.setNextId(entityManager.getNextId());
+        for (EntityRef entity : entityManager.getAllEntities()) {
+            privateCopy.createEntityWithId(entity.getId(), entityManager.copyComponents(entity).values());
+        }
+        logger.info("Private copy of all entities: {} KiB", (usedHeap() - beforeCopy) / 1024);
+        privateCopy.clear();
+        privateCopy = null;
+
+        long beforeSnapshot = usedHeap();
+        PojoEntityManager snapshot = entityManager.createSnapshot();
+        long snapshotTables = usedHeap() - beforeSnapshot;
+        int modified = ENTITIES * MODIFIED_PERCENTAGE / 100;
+        for (EntityRef entity : entityManager.getAllEntities()) {
+            if (modified-- == 0) {
+                break;
+            }
+            StatsComponent stats = entity.getComponent(StatsComponent.class);
+            stats.health++;
+            entity.saveComponent(stats);
+        }
+        long snapshotTotal = usedHeap() - beforeSnapshot;
+        logger.info("Snapshot: {} KiB when created, {} KiB after modifying {}% of the entities ({} active entities)",
+                snapshotTables / 1024, snapshotTotal / 1024, MODIFIED_PERCENTAGE, snapshot.getActiveEntityCount());
+        entityManager.releaseSnapshot();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    public static final class PositionComponent implements Component {
+        public Vector3f position;
+    }
+
+    public static final class StatsComponent implements Component {
+        public String name;
+        public int health;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.module;
+
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.TerasologyConstants;
+import org.terasology.engine.module.ModuleIndexCache;
+import org.terasology.engine.module.StandardModuleExtension;
+import org.terasology.module.Module;
+import org.terasology.module.ModuleLoader;
+import org.terasology.module.ModuleMetadataJsonAdapter;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time needed to index the classes of up to {@value #MAX_MODULES} module jars: scanning them, against
+ * loading their index from the {@link ModuleIndexCache}, as done when a module environment is created.
+ * <br><br>
+ * Takes the directory holding the module jars as argument, "modules" by default. Jars that contain a reflections cache
+ * built by Gradle read it instead of being scanned.
+ *
+ */
+public final class ModuleIndexBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(ModuleIndexBenchmark.class);
+
+    private static final int MAX_MODULES = 50;
+
+    private ModuleIndexBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path moduleDirectory = Paths.get((args.length > 0) ? args[0] : "modules");
+        List<Path> jars = Lists.newArrayList();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(moduleDirectory, "*.jar")) {
+            for (Path jar : stream) {
+                if (jars.size() < MAX_MODULES) {
+                    jars.add(jar);
+                }
+            }
+        }
+        Path cacheDirectory = Files.createTempDirectory("moduleIndex");
+
+        long start = System.nanoTime();
+        for (Module module : loadModules(jars)) {
+            module.getReflectionsFragment();
+        }
+        logger.info("Scanning {} modules: {} ms", jars.size(), elapsedMillis(start));
+
+        start = System.nanoTime();
+        ModuleIndexCache cache = new ModuleIndexCache(cacheDirectory);
+        for (Module module : loadModules(jars)) {
+            cache.getIndexedModule(module).getReflectionsFragment();
+        }
+        logger.info("Scanning and caching {} modules: {} ms", jars.size(), elapsedMillis(start));
+
+        start = System.nanoTime();
+        cache = new ModuleIndexCache(cacheDirectory);
+        for (Module module : loadModules(jars)) {
+            cache.getIndexedModule(module).getReflectionsFragment();
+        }
+        logger.info("Loading {} modules from cache: {} ms, {} hits, {} misses", jars.size(), elapsedMillis(start),
+                cache.getHitCount(), cache.getMissCount());
+    }
+
+    private static List<Module> loadModules(List<Path> jars) throws IOException {
+        ModuleMetadataJsonAdapter metadataReader = new ModuleMetadataJsonAdapter();
+        for (StandardModuleExtension ext : StandardModuleExtension.values()) {
+            metadataReader.registerExtension(ext.getKey(), ext.getValueType());
+        }
+        ModuleLoader loader = new ModuleLoader(metadataReader);
+        loader.setModuleInfoPath(TerasologyConstants.MODULE_INFO_FILENAME);
+        List<Module> modules = Lists.newArrayList();
+        for (Path jar : jars) {
+            Module module = loader.load(jar);
+            if (module != null) {
+                modules.add(module);
+            }
+        }
+        return modules;
+    }
+
+    private static long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
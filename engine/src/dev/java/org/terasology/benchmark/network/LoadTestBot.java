@@ -0,0 +1,221 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.network;
+
+import org.jboss.netty.bootstrap.ClientBootstrap;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFactory;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.handler.codec.frame.LengthFieldBasedFrameDecoder;
+import org.jboss.netty.handler.codec.protobuf.ProtobufDecoder;
+import org.jboss.netty.handler.codec.protobuf.ProtobufEncoder;
+import org.jboss.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder;
+import org.jboss.netty.handler.codec.protobuf.ProtobufVarint32LengthFieldPrepender;
+import org.terasology.entitySystem.metadata.EventLibrary;
+import org.terasology.logic.characters.CharacterMoveInputEvent;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.network.internal.ClientHandshakeHandler;
+import org.terasology.network.internal.JoinStatusImpl;
+import org.terasology.network.internal.MetricRecordingHandler;
+import org.terasology.network.internal.compression.CompressionDecoder;
+import org.terasology.network.internal.compression.CompressionSettings;
+import org.terasology.persistence.serializers.EventSerializer;
+import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
+import org.terasology.protobuf.NetData;
+
+import java.net.InetSocketAddress;
+
+import static org.jboss.netty.channel.Channels.pipeline;
+
+/**
+ * A simulated client for network load tests. Rather than running a whole client engine it speaks the wire protocol
+ * directly: it performs the normal handshake (with a throwaway identity), joins, and then sends a scripted stream of
+ * {@link CharacterMoveInputEvent}s for its character, timing how long each takes to come back in a replicated
+ * character state.
+ *
+ */
+public class LoadTestBot {
+
+    private static final int SEQUENCE_STRIDE = 1000000;
+    private static final int PENDING_INPUT_COUNT = 256;
+    private static final float TURN_PER_INPUT = 3f;
+    private static final int JUMP_INTERVAL = 40;
+
+    private final int index;
+    private final LoadTestStatistics statistics;
+    private final EventLibrary eventLibrary;
+    private final EventSerializer eventSerializer;
+    private final MetricRecordingHandler metrics = new MetricRecordingHandler();
+    private final JoinStatusImpl joinStatus = new JoinStatusImpl();
+
+    private final int[] pendingSequences = new int[PENDING_INPUT_COUNT];
+    private final long[] pendingSendTimes = new long[PENDING_INPUT_COUNT];
+
+    private Channel channel;
+    private volatile int clientId;
+    private volatile int characterId;
+    private volatile long lastServerTime;
+    private int inputCount;
+    private int lastAcknowledgedSequence;
+    private long totalReceivedBytes;
+    private long totalSentBytes;
+
+    public LoadTestBot(int index, EventLibrary eventLibrary, TypeSerializationLibrary typeSerializationLibrary, LoadTestStatistics statistics) {
+        this.index = index;
+        this.statistics = statistics;
+        this.eventLibrary = eventLibrary;
+        this.eventSerializer = new EventSerializer(eventLibrary, typeSerializationLibrary);
+        this.lastAcknowledgedSequence = firstSequence() - 1;
+    }
+
+    /**
+     * Starts connecting to the server. Progress can be followed through {@link #getJoinStatus()} and
+     * {@link #getClientId()}.
+     *
+     * @param factory The channel factory shared by all simulated clients
+     * @param address The address of the server
+     * @return The future of the connection attempt
+     */
+    public ChannelFuture connect(ChannelFactory factory, InetSocketAddress address) {
+        ClientBootstrap bootstrap = new ClientBootstrap(factory);
+        bootstrap.setPipelineFactory(() -> {
+            ChannelPipeline p = pipeline();
+            p.addLast(MetricRecordingHandler.NAME, metrics);
+
+            p.addLast("lengthFrameDecoder", new LengthFieldBasedFrameDecoder(8388608, 0, 3, 0, 3));
+            p.addLast(CompressionDecoder.NAME, new CompressionDecoder(CompressionSettings.LEGACY.createDecompressor()));
+            p.addLast("frameDecoder", new ProtobufVarint32FrameDecoder());
+            p.addLast("protobufDecoder", new ProtobufDecoder(NetData.NetMessage.getDefaultInstance()));
+
+            p.addLast("frameEncoder", new ProtobufVarint32LengthFieldPrepender());
+            p.addLast("protobufEncoder", new ProtobufEncoder());
+            p.addLast("authenticationHandler", new ClientHandshakeHandler(joinStatus, false));
+            p.addLast("handler", new LoadTestClientHandler(this, eventLibrary));
+            return p;
+        });
+        bootstrap.setOption("tcpNoDelay", true);
+        bootstrap.setOption("keepAlive", true);
+        ChannelFuture future = bootstrap.connect(address);
+        channel = future.getChannel();
+        return future;
+    }
+
+    public void disconnect() {
+        if (channel != null) {
+            channel.close().awaitUninterruptibly();
+        }
+    }
+
+    /**
+     * Sends the next scripted input: walking forward while turning slowly, with the occasional jump.
+     *
+     * @param deltaMs The time covered by the input
+     */
+    public synchronized void sendInput(long deltaMs) {
+        if (characterId == 0 || channel == null || !channel.isConnected()) {
+            return;
+        }
+        int sequence = firstSequence() + inputCount;
+        float yaw = (inputCount * TURN_PER_INPUT) % 360f;
+        boolean jump = inputCount % JUMP_INTERVAL == JUMP_INTERVAL - 1;
+        CharacterMoveInputEvent input = new CharacterMoveInputEvent(sequence, 0, yaw, new Vector3f(0, 0, -1), false, false, jump, deltaMs);
+        inputCount++;
+
+        int slot = sequence % PENDING_INPUT_COUNT;
+        pendingSequences[slot] = sequence;
+        pendingSendTimes[slot] = System.nanoTime();
+
+        channel.write(NetData.NetMessage.newBuilder()
+                .setTime(lastServerTime)
+                .addEvent(NetData.EventMessage.newBuilder()
+                        .setEvent(eventSerializer.serialize(input))
+                        .setTargetId(characterId))
+                .build());
+    }
+
+    /**
+     * Called when a replicated character state for this bot's character arrives.
+     *
+     * @param sequence The sequence number of the last input included in the state
+     */
+    public synchronized void acknowledge(int sequence) {
+        if (sequence <= lastAcknowledgedSequence) {
+            return;
+        }
+        lastAcknowledgedSequence = sequence;
+        int slot = sequence % PENDING_INPUT_COUNT;
+        if (pendingSequences[slot] == sequence) {
+            statistics.recordLatency(System.nanoTime() - pendingSendTimes[slot]);
+        }
+    }
+
+    /**
+     * Resets the traffic counters, discarding the traffic of the join.
+     */
+    public synchronized void resetTraffic() {
+        metrics.getReceivedBytesSinceLastCall();
+        metrics.getSentBytesSinceLastCall();
+        totalReceivedBytes = 0;
+        totalSentBytes = 0;
+    }
+
+    public synchronized long getReceivedBytes() {
+        totalReceivedBytes += metrics.getReceivedBytesSinceLastCall();
+        return totalReceivedBytes;
+    }
+
+    public synchronized long getSentBytes() {
+        totalSentBytes += metrics.getSentBytesSinceLastCall();
+        return totalSentBytes;
+    }
+
+    public String getName() {
+        return "LoadTestBot" + index;
+    }
+
+    public EventSerializer getEventSerializer() {
+        return eventSerializer;
+    }
+
+    public JoinStatusImpl getJoinStatus() {
+        return joinStatus;
+    }
+
+    public int getClientId() {
+        return clientId;
+    }
+
+    void setClientId(int clientId) {
+        this.clientId = clientId;
+    }
+
+    public int getCharacterId() {
+        return characterId;
+    }
+
+    public void setCharacterId(int characterId) {
+        this.characterId = characterId;
+    }
+
+    void setLastServerTime(long lastServerTime) {
+        this.lastServerTime = lastServerTime;
+    }
+
+    private int firstSequence() {
+        return (index + 1) * SEQUENCE_STRIDE;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.network;
+
+import com.google.common.collect.Maps;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ExceptionEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.SimpleUri;
+import org.terasology.entitySystem.event.Event;
+import org.terasology.entitySystem.metadata.EventLibrary;
+import org.terasology.entitySystem.metadata.EventMetadata;
+import org.terasology.logic.characters.CharacterStateEvent;
+import org.terasology.persistence.typeHandling.DeserializationException;
+import org.terasology.protobuf.NetData;
+import org.terasology.rendering.nui.Color;
+
+import java.util.Map;
+
+/**
+ * Handles the messages received by a {@link LoadTestBot} once it is authenticated: joins the server, and then watches
+ * for the replicated states of the bot's character.
+ *
+ */
+public class LoadTestClientHandler extends SimpleChannelUpstreamHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestClientHandler.class);
+
+    private final LoadTestBot bot;
+    private final EventLibrary eventLibrary;
+
+    public LoadTestClientHandler(LoadTestBot bot, EventLibrary eventLibrary) {
+        this.bot = bot;
+        this.eventLibrary = eventLibrary;
+    }
+
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) {
+        NetData.NetMessage message = (NetData.NetMessage) e.getMessage();
+        if (message.hasTime()) {
+            bot.setLastServerTime(message.getTime());
+        }
+        if (message.hasServerInfo()) {
+            receivedServerInfo(ctx, message.getServerInfo());
+        } else if (message.hasJoinComplete()) {
+            logger.info("{} joined as client {}", bot.getName(), message.getJoinComplete().getClientId());
+            bot.setClientId(message.getJoinComplete().getClientId());
+            bot.getJoinStatus().setComplete();
+        }
+        int characterId = bot.getCharacterId();
+        if (characterId != 0) {
+            for (NetData.EventMessage eventMessage : message.getEventList()) {
+                if (eventMessage.getTargetId() == characterId
+                        && bot.getEventSerializer().getEventClass(eventMessage.getEvent()) == CharacterStateEvent.class) {
+                    receivedCharacterState(eventMessage);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) {
+        logger.warn("Unexpected exception in {}", bot.getName(), e.getCause());
+        bot.getJoinStatus().setErrorMessage(e.getCause().getMessage());
+        e.getChannel().close();
+    }
+
+    private void receivedCharacterState(NetData.EventMessage eventMessage) {
+        try {
+            CharacterStateEvent state = (CharacterStateEvent) bot.getEventSerializer().deserialize(eventMessage.getEvent());
+            bot.acknowledge(state.getSequenceNumber());
+        } catch (DeserializationException e) {
+            logger.error("Failed to deserialize character state", e);
+        }
+    }
+
+    /**
+     * The bot runs in the same process as the server, so the event field ids are already those of the server and only
+     * the event ids need to be mapped.
+     */
+    private void receivedServerInfo(ChannelHandlerContext ctx, NetData.ServerInfoMessage serverInfo) {
+        Map<Class<? extends Event>, Integer> idTable = Maps.newHashMap();
+        for (NetData.SerializationInfo info : serverInfo.getEventList()) {
+            EventMetadata<? extends Event> metadata = eventLibrary.getMetadata(new SimpleUri(info.getName()));
+            if (metadata != null) {
+                idTable.put(metadata.getType(), info.getId());
+            }
+        }
+        bot.getEventSerializer().setIdMapping(idTable);
+        bot.getJoinStatus().setCurrentActivity("Joining");
+
+        ctx.getChannel().write(NetData.NetMessage.newBuilder()
+                .setJoin(NetData.JoinMessage.newBuilder()
+                        .setName(bot.getName())
+                        .setViewDistanceLevel(0)
+                        .setColor(NetData.Color.newBuilder().setRgba(Color.WHITE.rgba())))
+                .build());
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.network;
+
+import gnu.trove.list.array.TLongArrayList;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Collects the measurements of a network load test run: server tick times, replication latencies, traffic and
+ * garbage collection activity between {@link #begin()} and {@link #end()}.
+ *
+ */
+public class LoadTestStatistics {
+
+    private final TLongArrayList tickNanos = new TLongArrayList();
+    private final TLongArrayList latencyNanos = new TLongArrayList();
+
+    private long startTime;
+    private long endTime;
+    private long gcCountAtStart;
+    private long gcTimeAtStart;
+    private long gcCount;
+    private long gcTime;
+    private long receivedBytes;
+    private long sentBytes;
+    private int clientCount;
+    private boolean measuring;
+
+    public synchronized void begin() {
+        tickNanos.resetQuick();
+        latencyNanos.resetQuick();
+        gcCountAtStart = totalGcCount();
+        gcTimeAtStart = totalGcTime();
+        startTime = System.nanoTime();
+        measuring = true;
+    }
+
+    public synchronized void end(long totalReceivedBytes, long totalSentBytes, int clients) {
+        endTime = System.nanoTime();
+        gcCount = totalGcCount() - gcCountAtStart;
+        gcTime = totalGcTime() - gcTimeAtStart;
+        receivedBytes = totalReceivedBytes;
+        sentBytes = totalSentBytes;
+        clientCount = clients;
+        measuring = false;
+    }
+
+    public synchronized boolean isMeasuring() {
+        return measuring;
+    }
+
+    public synchronized void recordTick(long nanos) {
+        if (measuring) {
+            tickNanos.add(nanos);
+        }
+    }
+
+    /**
+     * Called from the network threads of the simulated clients.
+     *
+     * @param nanos The time between sending an input and receiving the character state that includes it
+     */
+    public synchronized void recordLatency(long nanos) {
+        if (measuring) {
+            latencyNanos.add(nanos);
+        }
+    }
+
+    public synchronized String getReport() {
+        double seconds = (endTime - startTime) / 1e9;
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Network load test: %d clients over %.1f s%n", clientCount, seconds));
+        appendDistribution(report, "Server tick", tickNanos);
+        appendDistribution(report, "Replication latency", latencyNanos);
+        if (clientCount > 0 && seconds > 0) {
+            report.append(String.format("Traffic per client: %.1f KB/s down, %.1f KB/s up%n",
+                    receivedBytes / 1024.0 / clientCount / seconds, sentBytes / 1024.0 / clientCount / seconds));
+        }
+        report.append(String.format("GC: %d collections, %d ms (%.2f%% of run time)%n",
+                gcCount, gcTime, seconds > 0 ? 100.0 * gcTime / 1000.0 / seconds : 0.0));
+        return report.toString();
+    }
+
+    private static void appendDistribution(StringBuilder report, String name, TLongArrayList samples) {
+        if (samples.isEmpty()) {
+            report.append(String.format("%s: no samples%n", name));
+            return;
+        }
+        TLongArrayList sorted = new TLongArrayList(samples);
+        sorted.sort();
+        report.append(String.format("%s (%d samples): mean %.2f ms, p50 %.2f ms, p95 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                name, sorted.size(), sorted.sum() / 1e6 / sorted.size(),
+                percentile(sorted, 0.5f), percentile(sorted, 0.95f), percentile(sorted, 0.99f), sorted.get(sorted.size() - 1) / 1e6));
+    }
+
+    private static double percentile(TLongArrayList sorted, float fraction) {
+        int index = Math.min(sorted.size() - 1, (int) (fraction * sorted.size()));
+        return sorted.get(index) / 1e6;
+    }
+
+    private static long totalGcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static long totalGcTime() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.network;
+
+import com.google.common.collect.Lists;
+import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.config.Config;
+import org.terasology.context.Context;
+import org.terasology.engine.GameEngine;
+import org.terasology.engine.modes.GameState;
+import org.terasology.engine.modes.StateIngame;
+import org.terasology.engine.subsystem.EngineSubsystem;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.metadata.EventLibrary;
+import org.terasology.network.ClientComponent;
+import org.terasology.network.NetworkComponent;
+import org.terasology.network.NetworkSystem;
+import org.terasology.network.internal.NetworkSystemImpl;
+import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives a network load test from inside the server engine. Once the server is in game it connects the simulated
+ * clients over loopback, waits for them to spawn, then measures for the configured duration and shuts the engine down.
+ * <br><br>
+ * The time between the pre and post update of each tick is recorded as the server tick time.
+ *
+ */
+public class LoadTestSubsystem implements EngineSubsystem {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestSubsystem.class);
+    private static final long JOIN_TIMEOUT = TimeUnit.SECONDS.toNanos(60);
+
+    private final int clientCount;
+    private final long duration;
+    private final int inputRate;
+    private final LoadTestStatistics statistics = new LoadTestStatistics();
+
+    private GameEngine engine;
+    private Context rootContext;
+    private List<LoadTestBot> bots;
+    private NioClientSocketChannelFactory channelFactory;
+    private ScheduledExecutorService inputScheduler;
+
+    private long tickStart;
+    private long joinDeadline;
+    private long measureEnd;
+    private boolean finished;
+
+    /**
+     * @param clientCount     The number of simulated clients
+     * @param durationSeconds How long to measure for, once the clients have spawned
+     * @param inputRate       The number of movement inputs each client sends per second
+     */
+    public LoadTestSubsystem(int clientCount, int durationSeconds, int inputRate) {
+        this.clientCount = clientCount;
+        this.duration = TimeUnit.SECONDS.toNanos(durationSeconds);
+        this.inputRate = inputRate;
+    }
+
+    @Override
+    public String getName() {
+        return "LoadTest";
+    }
+
+    @Override
+    public void initialise(GameEngine gameEngine, Context context) {
+        this.engine = gameEngine;
+        this.rootContext = context;
+    }
+
+    @Override
+    public void preUpdate(GameState currentState, float delta) {
+        tickStart = System.nanoTime();
+    }
+
+    @Override
+    public void postUpdate(GameState currentState, float delta) {
+        long now = System.nanoTime();
+        statistics.recordTick(now - tickStart);
+        if (finished || !(currentState instanceof StateIngame)) {
+            return;
+        }
+
+        Context context = currentState.getContext();
+        if (bots == null) {
+            startBots(context);
+            joinDeadline = now + JOIN_TIMEOUT;
+            return;
+        }
+
+        int spawned = resolveCharacters(context.get(NetworkSystem.class));
+        if (!statistics.isMeasuring()) {
+            if (spawned == bots.size() || now > joinDeadline) {
+                logger.info("{} of {} simulated clients spawned, measuring", spawned, bots.size());
+                bots.forEach(LoadTestBot::resetTraffic);
+                statistics.begin();
+                measureEnd = now + duration;
+            }
+        } else if (now >= measureEnd) {
+            long received = 0;
+            long sent = 0;
+            for (LoadTestBot bot : bots) {
+                received += bot.getReceivedBytes();
+                sent += bot.getSentBytes();
+            }
+            statistics.end(received, sent, spawned);
+            finished = true;
+            stopBots();
+            engine.shutdown();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        stopBots();
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public LoadTestStatistics getStatistics() {
+        return statistics;
+    }
+
+    private void startBots(Context context) {
+        int port = rootContext.get(Config.class).getNetwork().getServerPort();
+        InetSocketAddress address = new InetSocketAddress("localhost", port);
+        logger.info("Connecting {} simulated clients to {}", clientCount, address);
+
+        channelFactory = new NioClientSocketChannelFactory(Executors.newCachedThreadPool(), Executors.newCachedThreadPool());
+        bots = Lists.newArrayListWithCapacity(clientCount);
+        for (int i = 0; i < clientCount; ++i) {
+            LoadTestBot bot = new LoadTestBot(i, context.get(EventLibrary.class), context.get(TypeSerializationLibrary.class), statistics);
+            bot.connect(channelFactory, address);
+            bots.add(bot);
+        }
+
+        long interval = 1000 / inputRate;
+        inputScheduler = Executors.newSingleThreadScheduledExecutor();
+        inputScheduler.scheduleAtFixedRate(() -> {
+            for (LoadTestBot bot : bots) {
+                bot.sendInput(interval);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Looks up the character of each joined client. This reads the server's entities, so it must happen on the main
+     * thread.
+     *
+     * @return The number of clients with a known character
+     */
+    private int resolveCharacters(NetworkSystem networkSystem) {
+        int spawned = 0;
+        for (LoadTestBot bot : bots) {
+            if (bot.getCharacterId() == 0 && bot.getClientId() != 0) {
+                EntityRef client = ((NetworkSystemImpl) networkSystem).getEntity(bot.getClientId());
+                ClientComponent clientComp = client.getComponent(ClientComponent.class);
+                if (clientComp != null) {
+                    NetworkComponent netComp = clientComp.character.getComponent(NetworkComponent.class);
+                    if (netComp != null) {
+                        bot.setCharacterId(netComp.getNetworkId());
+                    }
+                }
+            }
+            if (bot.getCharacterId() != 0) {
+                spawned++;
+            }
+        }
+        return spawned;
+    }
+
+    private void stopBots() {
+        if (inputScheduler != null) {
+            inputScheduler.shutdownNow();
+            inputScheduler = null;
+        }
+        if (bots != null) {
+            bots.forEach(LoadTestBot::disconnect);
+        }
+        if (channelFactory != null) {
+            channelFactory.releaseExternalResources();
+            channelFactory = null;
+        }
+    }
+}
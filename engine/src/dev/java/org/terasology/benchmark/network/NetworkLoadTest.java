@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.network;
+
+import org.terasology.engine.TerasologyEngine;
+import org.terasology.engine.TerasologyEngineBuilder;
+import org.terasology.engine.paths.PathManager;
+import org.terasology.engine.subsystem.headless.HeadlessAudio;
+import org.terasology.engine.subsystem.headless.HeadlessGraphics;
+import org.terasology.engine.subsystem.headless.HeadlessInput;
+import org.terasology.engine.subsystem.headless.HeadlessTimer;
+import org.terasology.engine.subsystem.headless.mode.HeadlessStateChangeListener;
+import org.terasology.engine.subsystem.headless.mode.StateHeadlessSetup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Measures how the network system scales with the number of connected clients, without any players or a GPU.
+ * <br><br>
+ * Starts a headless server on a fresh home directory and connects a number of simulated clients to it over loopback,
+ * each walking its character around with a scripted stream of movement inputs. Reports the server tick time, the
+ * traffic per client, the replication latency of the inputs and the garbage collection activity.
+ * <br><br>
+ * Usage: {@code NetworkLoadTest [-clients=N] [-duration=seconds] [-inputRate=perSecond] [-homedir=path]}
+ *
+ */
+public final class NetworkLoadTest {
+
+    private static final String CLIENTS = "-clients=";
+    private static final String DURATION = "-duration=";
+    private static final String INPUT_RATE = "-inputRate=";
+    private static final String HOME_DIR = "-homedir=";
+
+    private NetworkLoadTest() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int clients = 8;
+        int duration = 60;
+        int inputRate = 20;
+        Path homePath = null;
+        for (String arg : args) {
+            if (arg.startsWith(CLIENTS)) {
+                clients = Integer.parseInt(arg.substring(CLIENTS.length()));
+            } else if (arg.startsWith(DURATION)) {
+                duration = Integer.parseInt(arg.substring(DURATION.length()));
+            } else if (arg.startsWith(INPUT_RATE)) {
+                inputRate = Integer.parseInt(arg.substring(INPUT_RATE.length()));
+            } else if (arg.startsWith(HOME_DIR)) {
+                homePath = Paths.get(arg.substring(HOME_DIR.length()));
+            } else {
+                System.err.println("Unrecognized argument: " + arg);
+                System.exit(1);
+            }
+        }
+
+        // A fresh home keeps saved games and identities of a real install out of the measurement
+        if (homePath == null) {
+            homePath = Files.createTempDirectory("terasologyLoadTest");
+        }
+        PathManager.getInstance().useOverrideHomePath(homePath);
+
+        LoadTestSubsystem loadTest = new LoadTestSubsystem(clients, duration, inputRate);
+        TerasologyEngine engine = new TerasologyEngineBuilder()
+                .add(new HeadlessGraphics())
+                .add(new HeadlessTimer())
+                .add(new HeadlessAudio())
+                .add(new HeadlessInput())
+                .add(loadTest)
+                .build();
+        engine.subscribeToStateChange(new HeadlessStateChangeListener(engine));
+        engine.run(new StateHeadlessSetup());
+
+        if (loadTest.isFinished()) {
+            System.out.println(loadTest.getStatistics().getReport());
+            System.exit(0);
+        } else {
+            System.err.println("The server shut down before the load test completed");
+            System.exit(1);
+        }
+    }
+}
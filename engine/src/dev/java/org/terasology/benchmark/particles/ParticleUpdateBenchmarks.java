@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.particles;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.particles.ParticleDataMask;
+import org.terasology.particles.ParticlePool;
+import org.terasology.particles.components.affectors.AccelerationAffectorComponent;
+import org.terasology.particles.components.affectors.VelocityAffectorComponent;
+import org.terasology.particles.functions.affectors.AccelerationAffectorFunction;
+import org.terasology.particles.functions.affectors.VelocityAffectorFunction;
+import org.terasology.utilities.random.FastRandom;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Compares applying the acceleration and velocity affectors to {@value #PARTICLES} particles: copying each particle to
+ * the temporary data of its pool and back, as particles used to be updated, against the bulk updates over the arrays
+ * of the pool, on one thread and with the particles split over several emitters updated in parallel.
+ * <br><br>
+ * Results are printed per update, divide {@value #PARTICLES} by the time to get the particles updated per ms.
+ *
+ */
+public final class ParticleUpdateBenchmarks {
+
+    private static final int PARTICLES = 100_000;
+    private static final int EMITTERS = 16;
+    private static final float DELTA = 1.0f / 60.0f;
+
+    private ParticleUpdateBenchmarks() {
+    }
+
+    public static void main(String[] args) {
+        List<Benchmark> benchmarks = Lists.newArrayList();
+        benchmarks.add(new PerParticleBenchmark());
+        benchmarks.add(new BulkBenchmark());
+        benchmarks.add(new ParallelBulkBenchmark());
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+    }
+
+    private static ParticlePool createPool(int size) {
+        ParticlePool pool = new ParticlePool(size);
+        int from = pool.reviveParticles(size);
+        FastRandom random = new FastRandom(size);
+        for (int i = from * 3; i < (from + size) * 3; i++) {
+            pool.position[i] = random.nextFloat(-10, 10);
+            pool.velocity[i] = random.nextFloat(-1, 1);
+        }
+        return pool;
+    }
+
+    private abstract static class AffectorBenchmark extends AbstractBenchmark {
+        protected final AccelerationAffectorFunction acceleration = new AccelerationAffectorFunction();
+        protected final VelocityAffectorFunction velocity = new VelocityAffectorFunction();
+        protected final AccelerationAffectorComponent accelerationComponent =
+                new AccelerationAffectorComponent(new Vector3f(0, -9.81f, 0));
+        protected final VelocityAffectorComponent velocityComponent = new VelocityAffectorComponent();
+
+        AffectorBenchmark(String title) {
+            super(title + " for " + PARTICLES + " particles", 20, new int[]{100});
+        }
+    }
+
+    private static final class PerParticleBenchmark extends AffectorBenchmark {
+        private final ParticlePool pool = createPool(PARTICLES);
+        private final FastRandom random = new FastRandom();
+
+        PerParticleBenchmark() {
+            super("Load, update and store each particle");
+        }
+
+        @Override
+        public void run() {
+            final int mask = ParticleDataMask.ALL.toInt();
+            for (int i = 0; i < pool.livingParticles(); i++) {
+                pool.loadTemporaryDataFrom(i, mask);
+                acceleration.update(accelerationComponent, pool.temporaryParticleData, random, DELTA);
+                velocity.update(velocityComponent, pool.temporaryParticleData, random, DELTA);
+                pool.storeTemporaryDataAt(i, mask);
+            }
+        }
+    }
+
+    private static final class BulkBenchmark extends AffectorBenchmark {
+        private final ParticlePool pool = createPool(PARTICLES);
+        private final FastRandom random = new FastRandom();
+
+        BulkBenchmark() {
+            super("Update the arrays of the pool in bulk");
+        }
+
+        @Override
+        public void run() {
+            acceleration.updateRange(accelerationComponent, pool, 0, pool.livingParticles(), random, DELTA);
+            velocity.updateRange(velocityComponent, pool, 0, pool.livingParticles(), random, DELTA);
+        }
+    }
+
+    private static final class ParallelBulkBenchmark extends AffectorBenchmark {
+        private final List<ParticlePool> pools = Lists.newArrayList();
+        private final ThreadLocal<FastRandom> random = ThreadLocal.withInitial(FastRandom::new);
+
+        ParallelBulkBenchmark() {
+            super("Update the arrays of " + EMITTERS + " emitters in bulk in parallel");
+            for (int i = 0; i < EMITTERS; i++) {
+                pools.add(createPool(PARTICLES / EMITTERS));
+            }
+        }
+
+        @Override
+        public void run() {
+            IntStream.range(0, EMITTERS).parallel().forEach(i -> {
+                ParticlePool pool = pools.get(i);
+                acceleration.updateRange(accelerationComponent, pool, 0, pool.livingParticles(), random.get(), DELTA);
+                velocity.updateRange(velocityComponent, pool, 0, pool.livingParticles(), random.get(), DELTA);
+            });
+        }
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.rendering;
+
+import com.google.common.collect.Maps;
+import org.terasology.math.Region3i;
+import org.terasology.math.Side;
+import org.terasology.math.TeraMath;
+import org.terasology.math.geom.Vector2f;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.rendering.primitives.BlockMeshGeneratorSingleShape;
+import org.terasology.utilities.procedural.SimplexNoise;
+import org.terasology.world.ChunkView;
+import org.terasology.world.biomes.Biome;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockAppearance;
+import org.terasology.world.block.BlockPart;
+import org.terasology.world.block.BlockTable;
+import org.terasology.world.block.BlockUri;
+import org.terasology.world.block.shapes.BlockMeshPart;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.liquid.LiquidData;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A self-contained chunk view over generated rolling terrain with caves, for benchmarking tessellation without
+ * loading assets or a world. Blocks are plain cubes textured from a notional 16x16 tile atlas; the view covers a
+ * single chunk plus a one block border, with sunlight down to the surface and no block light.
+ *
+ */
+public final class BenchmarkChunkView implements ChunkView {
+
+    private static final float TILE_SIZE = 1f / 16f;
+    private static final int BORDER = 1;
+    private static final int SIZE_X = ChunkConstants.SIZE_X + 2 * BORDER;
+    private static final int SIZE_Y = ChunkConstants.SIZE_Y + 2 * BORDER;
+    private static final int SIZE_Z = ChunkConstants.SIZE_Z + 2 * BORDER;
+
+    private static final Block AIR = createAir();
+    private static final Block STONE = createCube("stone", 1, 1, 0, false);
+    private static final Block DIRT = createCube("dirt", 2, 2, 0, false);
+    private static final Block GRASS = createCube("grass", 3, 3, 0, true);
+    private static final BlockTable BLOCK_TABLE = BlockTable.of(Arrays.asList(AIR, STONE, DIRT, GRASS));
+
+    private static final Biome BIOME = new Biome() {
+        @Override
+        public String getId() {
+            return "benchmark:plains";
+        }
+
+        @Override
+        public String getName() {
+            return "Plains";
+        }
+
+        @Override
+        public float getFog() {
+            return 0;
+        }
+
+        @Override
+        public float getHumidity() {
+            return 0.5f;
+        }
+
+        @Override
+        public float getTemperature() {
+            return 0.5f;
+        }
+    };
+
+    private final Block[] blocks = new Block[SIZE_X * SIZE_Y * SIZE_Z];
+    private final byte[] sunlight = new byte[SIZE_X * SIZE_Y * SIZE_Z];
+
+    private BenchmarkChunkView() {
+    }
+
+    /**
+     * Generates the chunk at the given horizontal chunk position.
+     *
+     * @param seed   The seed of the terrain
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @return A view over the generated chunk
+     */
+    public static BenchmarkChunkView generate(long seed, int chunkX, int chunkZ) {
+        SimplexNoise surfaceNoise = new SimplexNoise(seed);
+        SimplexNoise caveNoise = new SimplexNoise(seed + 1);
+        BenchmarkChunkView view = new BenchmarkChunkView();
+        for (int x = 0; x < SIZE_X; x++) {
+            for (int z = 0; z < SIZE_Z; z++) {
+                float worldX = chunkX * ChunkConstants.SIZE_X + x - BORDER;
+                float worldZ = chunkZ * ChunkConstants.SIZE_Z + z - BORDER;
+                int height = 24 + TeraMath.floorToInt(surfaceNoise.noise(worldX * 0.02f, worldZ * 0.02f) * 10
+                        + surfaceNoise.noise(worldX * 0.1f, worldZ * 0.1f) * 2);
+                for (int y = 0; y < SIZE_Y; y++) {
+                    int worldY = y - BORDER;
+                    Block block = AIR;
+                    if (worldY < height - 4) {
+                        block = STONE;
+                    } else if (worldY < height - 1) {
+                        block = DIRT;
+                    } else if (worldY < height) {
+                        block = GRASS;
+                    }
+                    if (block != AIR && worldY < height - 2 && caveNoise.noise(worldX * 0.08f, worldY * 0.08f, worldZ * 0.08f) > 0.55f) {
+                        block = AIR;
+                    }
+                    int index = index(x, y, z);
+                    view.blocks[index] = block;
+                    view.sunlight[index] = (byte) ((worldY >= height) ? ChunkConstants.MAX_SUNLIGHT : 0);
+                }
+            }
+        }
+        return view;
+    }
+
+    @Override
+    public Block getBlock(float x, float y, float z) {
+        return getBlock(TeraMath.floorToInt(x + 0.5f), TeraMath.floorToInt(y + 0.5f), TeraMath.floorToInt(z + 0.5f));
+    }
+
+    @Override
+    public Block getBlock(Vector3i pos) {
+        return getBlock(pos.x, pos.y, pos.z);
+    }
+
+    @Override
+    public Block getBlock(int x, int y, int z) {
+        int index = indexOf(x, y, z);
+        return (index < 0) ? AIR : blocks[index];
+    }
+
+    @Override
+    public short getBlockId(int x, int y, int z) {
+        return getBlock(x, y, z).getId();
+    }
+
+    @Override
+    public BlockTable getBlockTable() {
+        return BLOCK_TABLE;
+    }
+
+    @Override
+    public Biome getBiome(float x, float y, float z) {
+        return BIOME;
+    }
+
+    @Override
+    public Biome getBiome(Vector3i pos) {
+        return BIOME;
+    }
+
+    @Override
+    public Biome getBiome(int x, int y, int z) {
+        return BIOME;
+    }
+
+    @Override
+    public byte getSunlight(float x, float y, float z) {
+        return getSunlight(TeraMath.floorToInt(x + 0.5f), TeraMath.floorToInt(y + 0.5f), TeraMath.floorToInt(z + 0.5f));
+    }
+
+    @Override
+    public byte getSunlight(Vector3i pos) {
+        return getSunlight(pos.x, pos.y, pos.z);
+    }
+
+    @Override
+    public byte getSunlight(int x, int y, int z) {
+        int index = indexOf(x, y, z);
+        return (index < 0) ? ChunkConstants.MAX_SUNLIGHT : sunlight[index];
+    }
+
+    @Override
+    public byte getLight(float x, float y, float z) {
+        return 0;
+    }
+
+    @Override
+    public byte getLight(Vector3i pos) {
+        return 0;
+    }
+
+    @Override
+    public byte getLight(int x, int y, int z) {
+        return 0;
+    }
+
+    @Override
+    public void setBlock(Vector3i pos, Block type) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setBlock(int x, int y, int z, Block type) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setBiome(Vector3i pos, Biome biome) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setBiome(int x, int y, int z, Biome biome) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public LiquidData getLiquid(Vector3i pos) {
+        return new LiquidData();
+    }
+
+    @Override
+    public LiquidData getLiquid(int x, int y, int z) {
+        return new LiquidData();
+    }
+
+    @Override
+    public void setLiquid(Vector3i pos, LiquidData newState) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setLiquid(int x, int y, int z, LiquidData newState) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Vector3i toWorldPos(Vector3i localPos) {
+        return new Vector3i(localPos);
+    }
+
+    @Override
+    public Region3i getWorldRegion() {
+        return getChunkRegion();
+    }
+
+    @Override
+    public Region3i getChunkRegion() {
+        return ChunkConstants.CHUNK_REGION;
+    }
+
+    @Override
+    public void setDirtyAround(Vector3i blockPos) {
+    }
+
+    @Override
+    public void setDirtyAround(Region3i blockRegion) {
+    }
+
+    @Override
+    public boolean isValidView() {
+        return true;
+    }
+
+    private static int indexOf(int x, int y, int z) {
+        int px = x + BORDER;
+        int py = y + BORDER;
+        int pz = z + BORDER;
+        if (px < 0 || py < 0 || pz < 0 || px >= SIZE_X || py >= SIZE_Y || pz >= SIZE_Z) {
+            return -1;
+        }
+        return index(px, py, pz);
+    }
+
+    private static int index(int x, int y, int z) {
+        return (x * SIZE_Y + y) * SIZE_Z + z;
+    }
+
+    private static Block createAir() {
+        Block air = new Block();
+        air.setUri(new BlockUri("benchmark:air"));
+        air.setId((short) 0);
+        air.setTranslucent(true);
+        air.setInvisible(true);
+        air.setPenetrable(true);
+        air.setShadowCasting(false);
+        return air;
+    }
+
+    private static Block createCube(String name, int id, int tileX, int tileY, boolean grass) {
+        Block block = new Block();
+        block.setUri(new BlockUri("benchmark:" + name));
+        block.setId((short) id);
+        block.setGrass(grass);
+        Map<BlockPart, BlockMeshPart> parts = Maps.newEnumMap(BlockPart.class);
+        Map<BlockPart, Vector2f> atlasPositions = Maps.newEnumMap(BlockPart.class);
+        Vector2f atlasPos = new Vector2f(tileX * TILE_SIZE, tileY * TILE_SIZE);
+        for (BlockPart part : BlockPart.values()) {
+            atlasPositions.put(part, atlasPos);
+        }
+        for (Side side : Side.values()) {
+            parts.put(BlockPart.fromSide(side), createFace(side).mapTexCoords(atlasPos, TILE_SIZE));
+            block.setFullSide(side, true);
+        }
+        block.setPrimaryAppearance(new BlockAppearance(parts, atlasPositions));
+        block.setMeshGenerator(new BlockMeshGeneratorSingleShape(block));
+        return block;
+    }
+
+    /**
+     * Creates an outward facing unit square on the given side of a block, with texture coordinates covering [0, 1].
+     */
+    private static BlockMeshPart createFace(Side side) {
+        Vector3i dir = side.getVector3i();
+        Vector3f normal = new Vector3f(dir.x, dir.y, dir.z);
+        Vector3f tangent = (side.isVertical()) ? new Vector3f(1, 0, 0) : new Vector3f(dir.z, 0, -dir.x);
+        Vector3f up = new Vector3f();
+        up.cross(normal, tangent);
+        float[][] corners = {{-0.5f, -0.5f}, {0.5f, -0.5f}, {0.5f, 0.5f}, {-0.5f, 0.5f}};
+        Vector3f[] vertices = new Vector3f[4];
+        Vector3f[] normals = new Vector3f[4];
+        Vector2f[] texCoords = new Vector2f[4];
+        for (int i = 0; i < 4; i++) {
+            vertices[i] = new Vector3f(
+                    0.5f * normal.x + corners[i][0] * tangent.x + corners[i][1] * up.x,
+                    0.5f * normal.y + corners[i][0] * tangent.y + corners[i][1] * up.y,
+                    0.5f * normal.z + corners[i][0] * tangent.z + corners[i][1] * up.z);
+            normals[i] = new Vector3f(normal);
+            texCoords[i] = new Vector2f(corners[i][0] + 0.5f, 0.5f - corners[i][1]);
+        }
+        return new BlockMeshPart(vertices, normals, texCoords, new int[]{0, 1, 2, 0, 2, 3});
+    }
+}
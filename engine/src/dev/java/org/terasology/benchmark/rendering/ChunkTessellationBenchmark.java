@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.rendering;
+
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.engine.subsystem.lwjgl.GLBufferPool;
+import org.terasology.rendering.primitives.ChunkMesh;
+import org.terasology.rendering.primitives.ChunkTessellator;
+import org.terasology.world.ChunkView;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.util.List;
+
+/**
+ * Tessellates and packs a set of sample chunks, with or without greedy meshing, or at a reduced level of detail.
+ *
+ */
+public class ChunkTessellationBenchmark extends AbstractBenchmark {
+
+    private final List<ChunkView> chunks;
+    private final ChunkTessellator tessellator;
+    private final int lodScale;
+
+    public ChunkTessellationBenchmark(String title, List<ChunkView> chunks, boolean greedyMeshing) {
+        this(title, chunks, greedyMeshing, 1);
+    }
+
+    /**
+     * @param lodScale The level of detail to tessellate at, see {@link ChunkTessellator#generateLodMesh}. 1 for full detail.
+     */
+    public ChunkTessellationBenchmark(String title, List<ChunkView> chunks, boolean greedyMeshing, int lodScale) {
+        super(title, 5, new int[]{20});
+        this.chunks = chunks;
+        this.tessellator = new ChunkTessellator(new GLBufferPool(false), greedyMeshing);
+        this.lodScale = lodScale;
+    }
+
+    @Override
+    public void run() {
+        for (ChunkView chunk : chunks) {
+            // Disposing returns the vertex buffers to their pool, as uploading them would
+            generate(chunk).dispose();
+        }
+    }
+
+    /**
+     * @return The total number of vertices across the meshes of all sample chunks
+     */
+    public int countVertices() {
+        int vertices = 0;
+        for (ChunkView chunk : chunks) {
+            ChunkMesh mesh = generate(chunk);
+            for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
+                vertices += mesh.getVertexElements(type).vertexCount;
+            }
+            mesh.dispose();
+        }
+        return vertices;
+    }
+
+    /**
+     * @return The total size in bytes of the packed vertex data of all sample chunks, as it would be uploaded
+     */
+    public long countVertexBytes() {
+        long bytes = 0;
+        for (ChunkView chunk : chunks) {
+            ChunkMesh mesh = generate(chunk);
+            for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
+                bytes += mesh.getVertexElements(type).finalVertices.limit() * 4L;
+            }
+            mesh.dispose();
+        }
+        return bytes;
+    }
+
+    private ChunkMesh generate(ChunkView chunk) {
+        if (lodScale > 1) {
+            return tessellator.generateLodMesh(chunk, lodScale);
+        }
+        return tessellator.generateMesh(chunk, ChunkConstants.SIZE_Y, 0);
+    }
+}
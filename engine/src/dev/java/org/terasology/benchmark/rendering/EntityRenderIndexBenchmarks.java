@@ -0,0 +1,164 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.rendering;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.math.MatrixUtils;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.rendering.cameras.ViewFrustum;
+import org.terasology.rendering.logic.SpatialRenderIndex;
+import org.terasology.utilities.random.FastRandom;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Compares finding the mesh entities to draw each frame: testing and sorting every entity, as the mesh renderer did
+ * with its background sorted list, against collecting the entities of visible chunks from a {@link SpatialRenderIndex}.
+ * <br><br>
+ * Entities are plain positions spread over the area around the camera, of which a share moves every frame. The camera
+ * turns around on the spot, so it runs headless.
+ *
+ */
+public final class EntityRenderIndexBenchmarks {
+
+    private static final int ENTITIES = 50_000;
+    private static final float AREA = 512;
+    private static final float MOVING_SHARE = 0.05f;
+    private static final float RADIUS = 1.0f;
+    private static final int FRAMES = 60;
+
+    private EntityRenderIndexBenchmarks() {
+    }
+
+    public static void main(String[] args) {
+        FastRandom random = new FastRandom(ENTITIES);
+        List<MeshEntity> entities = Lists.newArrayList();
+        for (int i = 0; i < ENTITIES; i++) {
+            entities.add(new MeshEntity(new Vector3f(random.nextFloat(-AREA, AREA), random.nextFloat(-32, 32), random.nextFloat(-AREA, AREA))));
+        }
+
+        List<Benchmark> benchmarks = Lists.newArrayList();
+        benchmarks.add(new TestAllBenchmark(entities));
+        benchmarks.add(new SpatialIndexBenchmark(entities));
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+    }
+
+    private static final class MeshEntity {
+        private final Vector3f position;
+
+        MeshEntity(Vector3f position) {
+            this.position = position;
+        }
+    }
+
+    private abstract static class RenderListBenchmark extends AbstractBenchmark {
+        protected final List<MeshEntity> entities;
+        protected final List<MeshEntity> visible = Lists.newArrayList();
+        protected final ViewFrustum frustum = new ViewFrustum();
+        protected final Vector3f camera = new Vector3f(0, 0, 0);
+        private final FastRandom random = new FastRandom(FRAMES);
+
+        RenderListBenchmark(String title, List<MeshEntity> entities) {
+            super(title + " for " + entities.size() + " entities over " + FRAMES + " frames", 3, new int[]{10});
+            this.entities = entities;
+        }
+
+        @Override
+        public void run() {
+            for (int frame = 0; frame < FRAMES; frame++) {
+                double angle = 2 * Math.PI * frame / FRAMES;
+                frustum.updateFrustum(
+                        MatrixUtils.matrixToFloatBuffer(MatrixUtils.createViewMatrix(0, 0, 0, (float) Math.cos(angle), 0, (float) Math.sin(angle), 0, 1, 0)),
+                        MatrixUtils.matrixToFloatBuffer(MatrixUtils.createPerspectiveProjectionMatrix((float) Math.toRadians(60), 16.0f / 9.0f, 0.1f, 5000.0f)));
+
+                int moving = (int) (entities.size() * MOVING_SHARE);
+                for (int i = 0; i < moving; i++) {
+                    MeshEntity entity = entities.get(random.nextInt(entities.size()));
+                    entity.position.add(random.nextFloat(-1, 1), 0, random.nextFloat(-1, 1));
+                    moved(entity);
+                }
+
+                // The per entity bounding box test of the renderer would follow, and is the same for both
+                visible.clear();
+                collectVisible();
+            }
+        }
+
+        protected abstract void moved(MeshEntity entity);
+
+        protected abstract void collectVisible();
+    }
+
+    private static final class TestAllBenchmark extends RenderListBenchmark {
+        private final Vector3f relative = new Vector3f();
+        private final Comparator<MeshEntity> nearestFirst = (a, b) -> Float.compare(distanceSquared(a), distanceSquared(b));
+        private final List<MeshEntity> sorted;
+
+        TestAllBenchmark(List<MeshEntity> entities) {
+            super("Sort and test all entities every frame", entities);
+            sorted = Lists.newArrayList(entities);
+        }
+
+        @Override
+        protected void moved(MeshEntity entity) {
+            // Sorted from scratch every frame
+        }
+
+        private float distanceSquared(MeshEntity entity) {
+            float x = entity.position.x - camera.x;
+            float y = entity.position.y - camera.y;
+            float z = entity.position.z - camera.z;
+            return x * x + y * y + z * z;
+        }
+
+        @Override
+        protected void collectVisible() {
+            sorted.sort(nearestFirst);
+            for (MeshEntity entity : sorted) {
+                relative.sub(entity.position, camera);
+                if (frustum.intersects(relative, RADIUS)) {
+                    visible.add(entity);
+                }
+            }
+        }
+    }
+
+    private static final class SpatialIndexBenchmark extends RenderListBenchmark {
+        private final SpatialRenderIndex<MeshEntity> index = new SpatialRenderIndex<>();
+
+        SpatialIndexBenchmark(List<MeshEntity> entities) {
+            super("Collect visible chunks from a spatial index", entities);
+            for (MeshEntity entity : entities) {
+                index.update(entity, entity.position, RADIUS);
+            }
+        }
+
+        @Override
+        protected void moved(MeshEntity entity) {
+            index.update(entity, entity.position, RADIUS);
+        }
+
+        @Override
+        protected void collectVisible() {
+            index.collectVisible(frustum, camera, Integer.MAX_VALUE, visible);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.rendering;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.rendering.world.ChunkDistanceSorter;
+import org.terasology.rendering.world.ChunkRenderQueue;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+
+/**
+ * Compares the per frame cost of sorting the chunks around the camera and filling the render queues: rebuilding
+ * priority queues and re-sorting the whole list every frame, against repairing the sort order only when the camera
+ * crosses into another chunk and appending to queues in that order.
+ * <br><br>
+ * Chunks are plain positions and the camera flies in a straight line, so it runs headless. Visibility is a half space
+ * test in front of the camera: frustum tests are the same in both cases and are left out.
+ *
+ */
+public final class RenderQueueBenchmarks {
+
+    // The extents of the region of chunks around the camera, as in the largest view distance
+    private static final int EXTENTS_XZ = 24;
+    private static final int EXTENTS_Y = 4;
+    private static final int FRAMES = 120;
+    private static final float SPEED = 1.5f;
+    private static final int QUEUES = 4;
+
+    private RenderQueueBenchmarks() {
+    }
+
+    public static void main(String[] args) {
+        List<Vector3i> chunks = Lists.newArrayList();
+        for (int x = -EXTENTS_XZ; x <= EXTENTS_XZ; x++) {
+            for (int y = -EXTENTS_Y; y <= EXTENTS_Y; y++) {
+                for (int z = -EXTENTS_XZ; z <= EXTENTS_XZ; z++) {
+                    chunks.add(new Vector3i(x, y, z));
+                }
+            }
+        }
+        Collections.shuffle(chunks);
+
+        List<Benchmark> benchmarks = Lists.newArrayList();
+        benchmarks.add(new FullRebuildBenchmark(chunks));
+        benchmarks.add(new IncrementalBenchmark(chunks));
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+    }
+
+    private static float squaredDistance(Vector3i chunk, Vector3f camera) {
+        float x = (chunk.x + 0.5f) * ChunkConstants.SIZE_X - camera.x;
+        float y = (chunk.y + 0.5f) * ChunkConstants.SIZE_Y - camera.y;
+        float z = (chunk.z + 0.5f) * ChunkConstants.SIZE_Z - camera.z;
+        return x * x + y * y + z * z;
+    }
+
+    private static boolean isInFront(Vector3i chunk, Vector3f camera) {
+        return (chunk.x + 1) * ChunkConstants.SIZE_X > camera.x;
+    }
+
+    private abstract static class QueueingBenchmark extends AbstractBenchmark {
+        protected final List<Vector3i> chunks;
+        protected final Vector3f camera = new Vector3f();
+
+        QueueingBenchmark(String title, List<Vector3i> chunks) {
+            super(title + " for " + chunks.size() + " chunks over " + FRAMES + " frames", 5, new int[]{20});
+            this.chunks = Lists.newArrayList(chunks);
+        }
+
+        @Override
+        public void run() {
+            camera.set(0, 0, 0);
+            for (int frame = 0; frame < FRAMES; frame++) {
+                camera.x += SPEED;
+                queueFrame();
+            }
+        }
+
+        protected abstract void queueFrame();
+
+        protected static void drain(Queue<Vector3i> queue) {
+            while (queue.poll() != null) {
+                // Rendering would happen here
+            }
+        }
+    }
+
+    private static final class FullRebuildBenchmark extends QueueingBenchmark {
+        private final Comparator<Vector3i> frontToBack = (a, b) -> Float.compare(squaredDistance(a, camera), squaredDistance(b, camera));
+        private final List<Queue<Vector3i>> queues = Lists.newArrayList();
+
+        FullRebuildBenchmark(List<Vector3i> chunks) {
+            super("Re-sort and rebuild priority queues every frame", chunks);
+            for (int i = 0; i < QUEUES; i++) {
+                queues.add(new PriorityQueue<>(chunks.size(), frontToBack));
+            }
+        }
+
+        @Override
+        protected void queueFrame() {
+            Collections.sort(chunks, frontToBack);
+            for (Vector3i chunk : chunks) {
+                if (isInFront(chunk, camera)) {
+                    for (Queue<Vector3i> queue : queues) {
+                        queue.add(chunk);
+                    }
+                }
+            }
+            queues.forEach(QueueingBenchmark::drain);
+        }
+    }
+
+    private static final class IncrementalBenchmark extends QueueingBenchmark {
+        private final ChunkDistanceSorter<Vector3i> sorter = new ChunkDistanceSorter<>(chunk -> chunk);
+        private final List<Queue<Vector3i>> queues = Lists.newArrayList();
+        private int sortedForChunkX = Integer.MIN_VALUE;
+
+        IncrementalBenchmark(List<Vector3i> chunks) {
+            super("Repair sort order on chunk crossings and append to queues", chunks);
+            for (int i = 0; i < QUEUES; i++) {
+                queues.add(new ChunkRenderQueue<>(chunks.size(), false));
+            }
+        }
+
+        @Override
+        protected void queueFrame() {
+            int cameraChunkX = (int) Math.floor(camera.x / ChunkConstants.SIZE_X);
+            if (cameraChunkX != sortedForChunkX) {
+                sorter.sort(chunks, camera);
+                sortedForChunkX = cameraChunkX;
+            }
+            for (Vector3i chunk : chunks) {
+                if (isInFront(chunk, camera)) {
+                    for (Queue<Vector3i> queue : queues) {
+                        queue.add(chunk);
+                    }
+                }
+            }
+            queues.forEach(QueueingBenchmark::drain);
+        }
+    }
+}
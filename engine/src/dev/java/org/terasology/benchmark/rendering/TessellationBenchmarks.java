@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.rendering;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.world.ChunkView;
+
+import java.util.List;
+
+/**
+ * Compares the vertex count, vertex data size and tessellation time of chunk meshes built block by block, with
+ * greedy meshing and at each reduced level of detail, over a grid of generated chunks. The measured time includes packing the vertices for upload. Runs headless - no display or assets are needed.
+ *
+ */
+public final class TessellationBenchmarks {
+
+    private static final int GRID_SIZE = 4;
+    // The size of a vertex in the layout before positions, normals and lighting were packed
+    private static final int UNPACKED_VERTEX_BYTES = 64;
+    private static final int MAX_LOD_SCALE = 8;
+
+    private TessellationBenchmarks() {
+    }
+
+    public static void main(String[] args) {
+        List<ChunkView> chunks = Lists.newArrayList();
+        for (int x = 0; x < GRID_SIZE; x++) {
+            for (int z = 0; z < GRID_SIZE; z++) {
+                chunks.add(BenchmarkChunkView.generate(0L, x, z));
+            }
+        }
+
+        ChunkTessellationBenchmark perBlock = new ChunkTessellationBenchmark("Tessellate " + chunks.size() + " chunks per block", chunks, false);
+        ChunkTessellationBenchmark greedy = new ChunkTessellationBenchmark("Tessellate " + chunks.size() + " chunks greedily", chunks, true);
+
+        int perBlockVertices = perBlock.countVertices();
+        int greedyVertices = greedy.countVertices();
+        System.out.println("Vertices per block: " + perBlockVertices);
+        System.out.println("Vertices greedy:    " + greedyVertices + String.format(" (%.1f%%)", 100.0 * greedyVertices / perBlockVertices));
+
+        long perBlockBytes = perBlock.countVertexBytes();
+        System.out.println("Vertex data per block: " + perBlockBytes + " bytes, " + perBlockBytes / perBlockVertices
+                + " bytes/vertex (unpacked: " + (long) perBlockVertices * UNPACKED_VERTEX_BYTES + " bytes, " + UNPACKED_VERTEX_BYTES + " bytes/vertex)");
+
+        List<Benchmark> benchmarks = Lists.newArrayList();
+        benchmarks.add(perBlock);
+        benchmarks.add(greedy);
+        for (int lodScale = 2; lodScale <= MAX_LOD_SCALE; lodScale *= 2) {
+            ChunkTessellationBenchmark lod = new ChunkTessellationBenchmark(
+                    "Tessellate " + chunks.size() + " chunks at " + lodScale + "x level of detail", chunks, true, lodScale);
+            int lodVertices = lod.countVertices();
+            System.out.println("Vertices " + lodScale + "x LOD:   " + lodVertices + String.format(" (%.1f%%)", 100.0 * lodVertices / perBlockVertices)
+                    + ", " + lod.countVertexBytes() + " bytes");
+            benchmarks.add(lod);
+        }
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+    }
+}
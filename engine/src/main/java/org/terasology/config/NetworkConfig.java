@@ -19,6 +19,7 @@
 import com.google.common.collect.Lists;
 
 import org.terasology.engine.TerasologyConstants;
+import org.terasology.network.CompressionMode;
 
 import java.util.Collections;
 import java.util.List;
@@ -49,6 +50,26 @@ public class NetworkConfig {
      */
     private String masterServer = "meta.terasology.org";
 
+    /**
+     * The compression the server prefers for messages sent to clients
+     */
+    private CompressionMode compressionMode = CompressionMode.ZLIB;
+
+    /**
+     * The deflate level used with zlib compression, from 0 (none) to 9 (best), or -1 for the default
+     */
+    private int compressionLevel = -1;
+
+    /**
+     * The preset compression dictionary file, relative to the home directory. Used when it exists.
+     */
+    private String compressionDictionary = "netMessages.dict";
+
+    /**
+     * Whether the server samples outgoing messages and writes a new compression dictionary on shutdown
+     */
+    private boolean trainCompressionDictionary;
+
     public void clear() {
         servers.clear();
     }
@@ -96,4 +117,36 @@ public String getMasterServer() {
     public void setMasterServer(String masterServer) {
         this.masterServer = masterServer;
     }
+
+    public CompressionMode getCompressionMode() {
+        return compressionMode;
+    }
+
+    public void setCompressionMode(CompressionMode compressionMode) {
+        this.compressionMode = compressionMode;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    public String getCompressionDictionary() {
+        return compressionDictionary;
+    }
+
+    public void setCompressionDictionary(String compressionDictionary) {
+        this.compressionDictionary = compressionDictionary;
+    }
+
+    public boolean isTrainCompressionDictionary() {
+        return trainCompressionDictionary;
+    }
+
+    public void setTrainCompressionDictionary(boolean trainCompressionDictionary) {
+        this.trainCompressionDictionary = trainCompressionDictionary;
+    }
 }
@@ -76,6 +76,12 @@ public class RenderingConfig extends AbstractSubscribable {
     public static final String SCREENSHOT_FORMAT = "ScreenshotFormat";
     public static final String DUMP_SHADERS = "DumpShaders";
     public static final String VOLUMETRIC_FOG = "VolumetricFog";
+    public static final String GREEDY_MESHING = "GreedyMeshing";
+    public static final String OCCLUSION_CULLING = "OcclusionCulling";
+    public static final String LOD_CHUNK_DISTANCE = "LodChunkDistance";
+    public static final String MESH_CACHE_SIZE = "MeshCacheSize";
+    public static final String MESH_UPLOAD_BUDGET = "MeshUploadBudget";
+    public static final String SLICE_EDITED_MESHES = "SliceEditedMeshes";
 
     private PixelFormat pixelFormat;
     private int windowPosX;
@@ -121,6 +127,12 @@ public class RenderingConfig extends AbstractSubscribable {
     private int fboScale;
     private boolean dumpShaders;
     private boolean volumetricFog;
+    private boolean greedyMeshing;
+    private boolean occlusionCulling;
+    private int lodChunkDistance;
+    private int meshCacheSize;
+    private int meshUploadBudget;
+    private boolean sliceEditedMeshes;
     private ScreenshotSize screenshotSize;
     private String screenshotFormat;
     private PerspectiveCameraSettings cameraSettings;
@@ -657,4 +669,78 @@ public void setVolumetricFog(boolean volumetricFog) {
         propertyChangeSupport.firePropertyChange(VOLUMETRIC_FOG, oldValue, this.volumetricFog);
     }
 
+    public boolean isGreedyMeshing() {
+        return greedyMeshing;
+    }
+
+    public void setGreedyMeshing(boolean greedyMeshing) {
+        boolean oldValue = this.greedyMeshing;
+        this.greedyMeshing = greedyMeshing;
+        propertyChangeSupport.firePropertyChange(GREEDY_MESHING, oldValue, this.greedyMeshing);
+    }
+
+    public boolean isOcclusionCulling() {
+        return occlusionCulling;
+    }
+
+    public void setOcclusionCulling(boolean occlusionCulling) {
+        boolean oldValue = this.occlusionCulling;
+        this.occlusionCulling = occlusionCulling;
+        propertyChangeSupport.firePropertyChange(OCCLUSION_CULLING, oldValue, this.occlusionCulling);
+    }
+
+    /**
+     * @return The distance in chunks from the camera beyond which chunks are drawn at half detail. Detail halves again
+     * at each doubling of the distance, down to an eighth. 0 if all chunks are drawn at full detail.
+     */
+    public int getLodChunkDistance() {
+        return lodChunkDistance;
+    }
+
+    public void setLodChunkDistance(int lodChunkDistance) {
+        int oldValue = this.lodChunkDistance;
+        this.lodChunkDistance = lodChunkDistance;
+        propertyChangeSupport.firePropertyChange(LOD_CHUNK_DISTANCE, oldValue, this.lodChunkDistance);
+    }
+
+    /**
+     * @return The size in megabytes the chunk meshes cached on disk may occupy per world. 0 if meshes are not cached.
+     */
+    public int getMeshCacheSize() {
+        return meshCacheSize;
+    }
+
+    public void setMeshCacheSize(int meshCacheSize) {
+        int oldValue = this.meshCacheSize;
+        this.meshCacheSize = meshCacheSize;
+        propertyChangeSupport.firePropertyChange(MESH_CACHE_SIZE, oldValue, this.meshCacheSize);
+    }
+
+    /**
+     * @return The size in kilobytes of the chunk mesh data uploaded to the GPU per frame. At least one mesh is uploaded
+     * per frame regardless.
+     */
+    public int getMeshUploadBudget() {
+        return meshUploadBudget;
+    }
+
+    public void setMeshUploadBudget(int meshUploadBudget) {
+        int oldValue = this.meshUploadBudget;
+        this.meshUploadBudget = meshUploadBudget;
+        propertyChangeSupport.firePropertyChange(MESH_UPLOAD_BUDGET, oldValue, this.meshUploadBudget);
+    }
+
+    /**
+     * @return Whether chunks edited in view are tessellated as vertical slices in parallel, to show edits sooner
+     */
+    public boolean isSliceEditedMeshes() {
+        return sliceEditedMeshes;
+    }
+
+    public void setSliceEditedMeshes(boolean sliceEditedMeshes) {
+        boolean oldValue = this.sliceEditedMeshes;
+        this.sliceEditedMeshes = sliceEditedMeshes;
+        propertyChangeSupport.firePropertyChange(SLICE_EDITED_MESHES, oldValue, this.sliceEditedMeshes);
+    }
+
 }
@@ -31,6 +31,7 @@ public class SystemConfig {
     private boolean debugEnabled;
     private boolean monitoringEnabled;
     private boolean writeSaveGamesEnabled;
+    private boolean snapshotSavesEnabled;
     private String locale;
 
     public long getDayNightLengthInMs() {
@@ -93,6 +94,18 @@ public void setWriteSaveGamesEnabled(boolean writeSaveGamesEnabled) {
         this.writeSaveGamesEnabled = writeSaveGamesEnabled;
     }
 
+    /**
+     * @return Whether games get saved from copy-on-write snapshots of the entities, rather than from a full copy that
+     * is kept up to date.
+     */
+    public boolean isSnapshotSavesEnabled() {
+        return snapshotSavesEnabled;
+    }
+
+    public void setSnapshotSavesEnabled(boolean snapshotSavesEnabled) {
+        this.snapshotSavesEnabled = snapshotSavesEnabled;
+    }
+
     public Locale getLocale() {
         if (locale == null) {
             setLocale(Locale.getDefault(Category.DISPLAY));
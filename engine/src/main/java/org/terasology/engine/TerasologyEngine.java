@@ -65,6 +65,7 @@
 import org.terasology.rendering.nui.asset.UIElement;
 import org.terasology.rendering.nui.skin.UISkin;
 import org.terasology.rendering.nui.skin.UISkinData;
+import org.terasology.utilities.ParsedAssetCache;
 import org.terasology.version.TerasologyVersion;
 import org.terasology.world.block.family.BlockFamilyFactoryRegistry;
 import org.terasology.world.block.family.DefaultBlockFamilyFactoryRegistry;
@@ -74,6 +75,7 @@
 import org.terasology.world.block.shapes.BlockShape;
 import org.terasology.world.block.shapes.BlockShapeData;
 import org.terasology.world.block.shapes.BlockShapeImpl;
+import org.terasology.world.block.shapes.JsonBlockShapeLoader;
 import org.terasology.world.block.sounds.BlockSounds;
 import org.terasology.world.block.sounds.BlockSoundsData;
 import org.terasology.world.block.tiles.BlockTile;
@@ -311,6 +313,8 @@ private void initAssets() {
                 (AssetFactory<Prefab, PrefabData>) PojoPrefab::new, false, "prefabs");
         assetTypeManager.registerCoreAssetType(BlockShape.class,
                 (AssetFactory<BlockShape, BlockShapeData>) BlockShapeImpl::new, "shapes");
+        assetTypeManager.registerCoreFormat(BlockShape.class, new JsonBlockShapeLoader(
+                ParsedAssetCache.forAssetType("shapes", JsonBlockShapeLoader.CACHE_VERSION, rootContext.get(ModuleManager.class))));
         assetTypeManager.registerCoreAssetType(BlockSounds.class,
                 (AssetFactory<BlockSounds, BlockSoundsData>) BlockSounds::new, "blockSounds");
         assetTypeManager.registerCoreAssetType(BlockTile.class,
@@ -46,6 +46,7 @@
 import org.terasology.reflection.reflect.ReflectFactory;
 import org.terasology.registry.InjectionHelper;
 import org.terasology.util.reflection.GenericsUtil;
+import org.terasology.utilities.ParsedAssetCache;
 import org.terasology.utilities.ReflectionUtil;
 import org.terasology.world.block.family.BlockFamilyFactory;
 import org.terasology.world.block.family.BlockFamilyFactoryRegistry;
@@ -60,6 +61,7 @@ public final class EnvironmentSwitchHandler {
 
     private PrefabFormat registeredPrefabFormat;
     private PrefabDeltaFormat registeredPrefabDeltaFormat;
+    private ParsedAssetCache prefabCache;
 
     public EnvironmentSwitchHandler() {
     }
@@ -114,7 +116,10 @@ public void handleSwitchToGameEnvironment(Context context) {
          * existing then yet.
          */
         unregisterPrefabFormats(assetTypeManager);
-        registeredPrefabFormat = new PrefabFormat(componentLibrary, typeSerializationLibrary);
+        if (prefabCache == null) {
+            prefabCache = ParsedAssetCache.forAssetType("prefabs", PrefabFormat.CACHE_VERSION, moduleManager);
+        }
+        registeredPrefabFormat = new PrefabFormat(componentLibrary, typeSerializationLibrary, prefabCache);
         assetTypeManager.registerCoreFormat(Prefab.class, registeredPrefabFormat);
         registeredPrefabDeltaFormat = new PrefabDeltaFormat(componentLibrary, typeSerializationLibrary);
         assetTypeManager.registerCoreDeltaFormat(Prefab.class, registeredPrefabDeltaFormat);
@@ -16,6 +16,9 @@
 
 package org.terasology.engine.modes;
 
+import java.util.Collections;
+import java.util.Set;
+
 /**
  */
 public interface LoadProcess {
@@ -46,4 +49,26 @@ public interface LoadProcess {
      * @return A relative cost for this process. A small process would have a cost of 1, a large process a bigger cost.
      */
     int getExpectedCost();
+
+    /**
+     * Processes run on the main thread by default, one after the other in the order they were added. Processes that
+     * neither use OpenGL nor state that is unsafe to access concurrently, such as the entity manager, can instead run on
+     * a worker thread, as soon as their dependencies are finished.
+     *
+     * @return Whether this process can run on a worker thread, concurrently with other processes
+     */
+    default boolean isConcurrent() {
+        return false;
+    }
+
+    /**
+     * Main thread processes always wait for the main thread process added before them; listing dependencies is needed
+     * for the concurrent processes they rely on. Concurrent processes only wait for their dependencies.
+     *
+     * @return The types of the processes, added before this one, that must be finished before this one begins. Types
+     * that are not part of the current loading are ignored.
+     */
+    default Set<Class<? extends LoadProcess>> getDependencies() {
+        return Collections.emptySet();
+    }
 }
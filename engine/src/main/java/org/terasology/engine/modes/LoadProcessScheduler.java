@@ -0,0 +1,299 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.engine.modes;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Queues;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.utilities.concurrency.ShutdownTask;
+import org.terasology.utilities.concurrency.Task;
+import org.terasology.utilities.concurrency.TaskMaster;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the load processes of {@link StateLoading} in the order their dependencies allow, see
+ * {@link LoadProcess#isConcurrent()} and {@link LoadProcess#getDependencies()}. Main thread processes are stepped by
+ * {@link #step()}, concurrent ones run on worker threads.
+ * <br><br>
+ * Logs the wall time of each process, the total loading time and the critical path: the chain of processes that each
+ * waited for the one before, ending with the process that finished last.
+ *
+ */
+final class LoadProcessScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadProcessScheduler.class);
+
+    private static final int MAX_WORKER_THREADS = 4;
+
+    private final List<Node> nodes = Lists.newArrayList();
+    private final Map<Class<? extends LoadProcess>, Node> nodesByType = Maps.newHashMap();
+    private final Queue<Node> mainThreadNodes = Queues.newArrayDeque();
+    private final List<Node> concurrentNodes = Lists.newArrayList();
+    private Node lastMainThreadNode;
+    private Node current;
+
+    private TaskMaster<Task> workers;
+    private volatile Throwable workerFailure;
+
+    private long startTime;
+    private int totalCost;
+    private boolean allFinished;
+
+    /**
+     * Adds a process to be run after the processes it depends on.
+     *
+     * @param process The process to add
+     */
+    public void add(LoadProcess process) {
+        Node node = new Node(process);
+        for (Class<? extends LoadProcess> dependency : process.getDependencies()) {
+            Node dependencyNode = nodesByType.get(dependency);
+            if (dependencyNode != null) {
+                node.dependencies.add(dependencyNode);
+            }
+        }
+        if (process.isConcurrent()) {
+            concurrentNodes.add(node);
+        } else {
+            if (lastMainThreadNode != null) {
+                node.dependencies.add(lastMainThreadNode);
+            }
+            lastMainThreadNode = node;
+            mainThreadNodes.add(node);
+        }
+        nodes.add(node);
+        nodesByType.put(process.getClass(), node);
+        totalCost += process.getExpectedCost();
+    }
+
+    /**
+     * Starts the concurrent processes that are ready, then runs a single step of the current main thread process.
+     *
+     * @return Whether a step was run, false if the main thread has to wait for concurrent processes
+     */
+    public boolean step() {
+        if (workerFailure != null) {
+            throw Throwables.propagate(workerFailure);
+        }
+        if (startTime == 0) {
+            startTime = System.nanoTime();
+        }
+        startReadyConcurrentProcesses();
+
+        if (current == null) {
+            Node next = mainThreadNodes.peek();
+            if (next == null || !next.isReady()) {
+                return false;
+            }
+            current = mainThreadNodes.remove();
+            current.startTime = System.nanoTime();
+            current.started = true;
+            logger.debug(current.process.getMessage());
+            current.process.begin();
+        }
+        if (current.process.step()) {
+            finish(current, "main thread");
+            current = null;
+            startReadyConcurrentProcesses();
+        }
+        return true;
+    }
+
+    /**
+     * @return Whether all processes are finished
+     */
+    public boolean isFinished() {
+        if (allFinished) {
+            return true;
+        }
+        for (Node node : nodes) {
+            if (!node.finished) {
+                return false;
+            }
+        }
+        allFinished = true;
+        logSummary();
+        shutdown();
+        return true;
+    }
+
+    /**
+     * @return A message describing what is being loaded
+     */
+    public String getMessage() {
+        if (current != null) {
+            return current.process.getMessage();
+        }
+        for (Node node : concurrentNodes) {
+            if (node.started && !node.finished) {
+                return node.process.getMessage();
+            }
+        }
+        Node next = mainThreadNodes.peek();
+        return (next != null) ? next.process.getMessage() : "";
+    }
+
+    /**
+     * @return The overall progress, between 0f and 1f inclusive
+     */
+    public float getProgress() {
+        if (totalCost == 0) {
+            return 1f;
+        }
+        float progress = 0;
+        for (Node node : nodes) {
+            if (node.finished) {
+                progress += node.process.getExpectedCost();
+            } else if (node.started) {
+                progress += node.process.getExpectedCost() * node.process.getProgress();
+            }
+        }
+        return progress / totalCost;
+    }
+
+    /**
+     * Stops the worker threads. Processes still running on them are abandoned.
+     */
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdown(new ShutdownTask(), false);
+            workers = null;
+        }
+    }
+
+    private void startReadyConcurrentProcesses() {
+        for (Node node : concurrentNodes) {
+            if (!node.started && node.isReady()) {
+                node.started = true;
+                if (workers == null) {
+                    int threads = Math.max(1, Math.min(MAX_WORKER_THREADS, Runtime.getRuntime().availableProcessors() - 1));
+                    workers = TaskMaster.createFIFOTaskMaster("Loading", threads);
+                }
+                workers.offer(new ConcurrentLoadTask(node));
+            }
+        }
+    }
+
+    private void finish(Node node, String thread) {
+        node.endTime = System.nanoTime();
+        node.finished = true;
+        logger.info("{} took {} ms on {}", node.process.getMessage(), node.getDuration(), thread);
+    }
+
+    private void logSummary() {
+        long endTime = startTime;
+        Node last = null;
+        for (Node node : nodes) {
+            if (node.endTime >= endTime) {
+                endTime = node.endTime;
+                last = node;
+            }
+        }
+        logger.info("Loading took {} ms", TimeUnit.NANOSECONDS.toMillis(endTime - startTime));
+
+        List<Node> criticalPath = Lists.newArrayList();
+        for (Node node = last; node != null; node = node.getLastDependency()) {
+            criticalPath.add(0, node);
+        }
+        logger.info("Critical path: {}", criticalPath.stream()
+                .map(node -> node.process.getMessage() + " " + node.getDuration() + " ms")
+                .collect(Collectors.joining(", ")));
+    }
+
+    private static final class Node {
+        private final LoadProcess process;
+        private final List<Node> dependencies = Lists.newArrayList();
+
+        /* Written by the thread running the process, read by the main thread */
+        private volatile boolean started;
+        private volatile boolean finished;
+        private volatile long startTime;
+        private volatile long endTime;
+
+        Node(LoadProcess process) {
+            this.process = process;
+        }
+
+        boolean isReady() {
+            for (Node dependency : dependencies) {
+                if (!dependency.finished) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long getDuration() {
+            return TimeUnit.NANOSECONDS.toMillis(endTime - startTime);
+        }
+
+        /**
+         * @return The dependency this process waited for last, or null if it has none
+         */
+        Node getLastDependency() {
+            Node last = null;
+            for (Node dependency : dependencies) {
+                if (last == null || dependency.endTime > last.endTime) {
+                    last = dependency;
+                }
+            }
+            return last;
+        }
+    }
+
+    private final class ConcurrentLoadTask implements Task {
+        private final Node node;
+
+        ConcurrentLoadTask(Node node) {
+            this.node = node;
+        }
+
+        @Override
+        public String getName() {
+            return node.process.getMessage();
+        }
+
+        @Override
+        public void run() {
+            node.startTime = System.nanoTime();
+            try {
+                node.process.begin();
+                while (!node.process.step()) {
+                    // Keep stepping, nothing else competes for this thread
+                }
+            } catch (Throwable e) {
+                // Anything escaping here would leave the process unfinished, with loading waiting for it forever
+                logger.error("{} failed", node.process.getMessage(), e);
+                workerFailure = e;
+                return;
+            }
+            finish(node, Thread.currentThread().getName());
+        }
+
+        @Override
+        public boolean isTerminateSignal() {
+            return false;
+        }
+    }
+}
@@ -17,9 +17,6 @@
 package org.terasology.engine.modes;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Queues;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.terasology.context.Context;
 import org.terasology.engine.EngineTime;
 import org.terasology.engine.GameEngine;
@@ -45,6 +42,7 @@
 import org.terasology.engine.modes.loadProcesses.LoadPrefabs;
 import org.terasology.engine.modes.loadProcesses.PostBeginSystems;
 import org.terasology.engine.modes.loadProcesses.PreBeginSystems;
+import org.terasology.engine.modes.loadProcesses.PrefetchBlockAssets;
 import org.terasology.engine.modes.loadProcesses.PrepareWorld;
 import org.terasology.engine.modes.loadProcesses.ProcessBlockPrefabs;
 import org.terasology.engine.modes.loadProcesses.RegisterBiomes;
@@ -65,28 +63,20 @@
 import org.terasology.rendering.nui.internal.NUIManagerInternal;
 import org.terasology.rendering.nui.layers.mainMenu.loadingScreen.LoadingScreen;
 
-import java.util.Queue;
-
 /**
  */
 public class StateLoading implements GameState {
 
-    private static final Logger logger = LoggerFactory.getLogger(StateLoading.class);
-
     private Context context;
     private GameManifest gameManifest;
     private NetworkMode netMode;
-    private Queue<LoadProcess> loadProcesses = Queues.newArrayDeque();
-    private LoadProcess current;
+    private LoadProcessScheduler loadProcesses = new LoadProcessScheduler();
     private JoinStatus joinStatus;
 
     private NUIManager nuiManager;
 
     private LoadingScreen loadingScreen;
 
-    private int progress;
-    private int maxProgress;
-
     /**
      * Constructor for server or single player games
      *
@@ -133,26 +123,20 @@ public void init(GameEngine engine) {
                 break;
         }
 
-        progress = 0;
-        maxProgress = 0;
-        for (LoadProcess process : loadProcesses) {
-            maxProgress += process.getExpectedCost();
-        }
-
-        popStep();
         loadingScreen = nuiManager.pushScreen("engine:loadingScreen", LoadingScreen.class);
-        loadingScreen.updateStatus(current.getMessage(), current.getProgress());
+        loadingScreen.updateStatus(loadProcesses.getMessage(), loadProcesses.getProgress());
     }
 
     private void initClient() {
         loadProcesses.add(new JoinServer(context, gameManifest, joinStatus));
+        loadProcesses.add(new PrefetchBlockAssets(context));
+        loadProcesses.add(new RegisterBiomes(context, gameManifest));
         loadProcesses.add(new CacheTextures());
         loadProcesses.add(new InitialiseEntitySystem(context));
         loadProcesses.add(new RegisterBlocks(context, gameManifest));
-        loadProcesses.add(new RegisterBiomes(context, gameManifest));
+        loadProcesses.add(new LoadPrefabs(context));
         loadProcesses.add(new InitialiseGraphics(context));
         loadProcesses.add(new CacheBlocks(context));
-        loadProcesses.add(new LoadPrefabs(context));
         loadProcesses.add(new ProcessBlockPrefabs(context));
         loadProcesses.add(new InitialiseComponentSystemManager(context));
         loadProcesses.add(new RegisterInputSystem(context));
@@ -171,13 +155,14 @@ private void initClient() {
 
     private void initHost() {
         loadProcesses.add(new RegisterMods(context, gameManifest));
+        loadProcesses.add(new PrefetchBlockAssets(context));
+        loadProcesses.add(new RegisterBiomes(context, gameManifest));
         loadProcesses.add(new CacheTextures());
         loadProcesses.add(new InitialiseEntitySystem(context));
         loadProcesses.add(new RegisterBlocks(context, gameManifest));
-        loadProcesses.add(new RegisterBiomes(context, gameManifest));
+        loadProcesses.add(new LoadPrefabs(context));
         loadProcesses.add(new InitialiseGraphics(context));
         loadProcesses.add(new CacheBlocks(context));
-        loadProcesses.add(new LoadPrefabs(context));
         loadProcesses.add(new ProcessBlockPrefabs(context));
         loadProcesses.add(new InitialiseComponentSystemManager(context));
         loadProcesses.add(new RegisterInputSystem(context));
@@ -211,20 +196,9 @@ private void initHost() {
         loadProcesses.add(new PrepareWorld(context));
     }
 
-    private void popStep() {
-        if (current != null) {
-            progress += current.getExpectedCost();
-        }
-        current = null;
-        if (!loadProcesses.isEmpty()) {
-            current = loadProcesses.remove();
-            logger.debug(current.getMessage());
-            current.begin();
-        }
-    }
-
     @Override
     public void dispose(boolean shuttingDown) {
+        loadProcesses.shutdown();
         EngineTime time = (EngineTime) context.get(Time.class);
         time.setPaused(false);
     }
@@ -238,18 +212,18 @@ public void update(float delta) {
         GameEngine gameEngine = context.get(GameEngine.class);
         EngineTime time = (EngineTime) context.get(Time.class);
         long startTime = time.getRealTimeInMs();
-        while (current != null && time.getRealTimeInMs() - startTime < 20 && !gameEngine.hasPendingState()) {
-            if (current.step()) {
-                popStep();
+        while (!loadProcesses.isFinished() && time.getRealTimeInMs() - startTime < 20 && !gameEngine.hasPendingState()) {
+            if (!loadProcesses.step()) {
+                // Waiting for load processes running on worker threads
+                break;
             }
         }
-        if (current == null) {
+        if (loadProcesses.isFinished()) {
             nuiManager.closeScreen(loadingScreen);
             nuiManager.setHUDVisible(true);
             context.get(GameEngine.class).changeState(new StateIngame(gameManifest, context));
         } else {
-            float progressValue = (progress + current.getExpectedCost() * current.getProgress()) / maxProgress;
-            loadingScreen.updateStatus(current.getMessage(), progressValue);
+            loadingScreen.updateStatus(loadProcesses.getMessage(), loadProcesses.getProgress());
             nuiManager.update(delta);
         }
     }
@@ -16,9 +16,11 @@
 
 package org.terasology.engine.modes.loadProcesses;
 
+import com.google.common.collect.ImmutableSet;
 import org.terasology.context.Context;
 import org.terasology.engine.ComponentSystemManager;
 import org.terasology.engine.TerasologyConstants;
+import org.terasology.engine.modes.LoadProcess;
 import org.terasology.engine.subsystem.RenderingSubsystemFactory;
 import org.terasology.game.GameManifest;
 import org.terasology.logic.players.LocalPlayer;
@@ -39,6 +41,8 @@
 import org.terasology.world.sun.CelestialSystem;
 import org.terasology.world.sun.DefaultCelestialSystem;
 
+import java.util.Set;
+
 /**
  */
 public class InitialiseRemoteWorld extends SingleStepLoadProcess {
@@ -97,6 +101,11 @@ public boolean step() {
         return true;
     }
 
+    @Override
+    public Set<Class<? extends LoadProcess>> getDependencies() {
+        return ImmutableSet.of(RegisterBiomes.class, LoadPrefabs.class);
+    }
+
     @Override
     public int getExpectedCost() {
         return 1;
@@ -16,14 +16,18 @@
 
 package org.terasology.engine.modes.loadProcesses;
 
+import com.google.common.collect.ImmutableSet;
 import org.terasology.context.Context;
 import org.terasology.engine.ComponentSystemManager;
+import org.terasology.engine.modes.LoadProcess;
 import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.entitySystem.entity.internal.EngineEntityManager;
 import org.terasology.entitySystem.metadata.EventLibrary;
 import org.terasology.network.NetworkSystem;
 import org.terasology.world.BlockEntityRegistry;
 
+import java.util.Set;
+
 /**
  */
 public class InitialiseSystems extends SingleStepLoadProcess {
@@ -52,6 +56,11 @@ public boolean step() {
         return true;
     }
 
+    @Override
+    public Set<Class<? extends LoadProcess>> getDependencies() {
+        return ImmutableSet.of(LoadPrefabs.class);
+    }
+
     @Override
     public int getExpectedCost() {
         return 1;
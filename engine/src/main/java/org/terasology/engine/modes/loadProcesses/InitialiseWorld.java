@@ -16,13 +16,16 @@
 
 package org.terasology.engine.modes.loadProcesses;
 
+import com.google.common.collect.ImmutableSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.config.Config;
+import org.terasology.config.SystemConfig;
 import org.terasology.context.Context;
 import org.terasology.engine.ComponentSystemManager;
 import org.terasology.engine.GameEngine;
 import org.terasology.engine.TerasologyConstants;
+import org.terasology.engine.modes.LoadProcess;
 import org.terasology.engine.modes.StateMainMenu;
 import org.terasology.engine.module.ModuleManager;
 import org.terasology.engine.paths.PathManager;
@@ -63,6 +66,7 @@
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Set;
 
 public class InitialiseWorld extends SingleStepLoadProcess {
 
@@ -114,12 +118,13 @@ public boolean step() {
 
         // Init. a new world
         EngineEntityManager entityManager = (EngineEntityManager) context.get(EntityManager.class);
-        boolean writeSaveGamesEnabled = context.get(Config.class).getSystem().isWriteSaveGamesEnabled();
+        SystemConfig systemConfig = context.get(Config.class).getSystem();
         Path savePath = PathManager.getInstance().getSavePath(gameManifest.getTitle());
         StorageManager storageManager;
         try {
-            storageManager = writeSaveGamesEnabled
-                    ? new ReadWriteStorageManager(savePath, environment, entityManager, blockManager, biomeManager)
+            storageManager = systemConfig.isWriteSaveGamesEnabled()
+                    ? new ReadWriteStorageManager(savePath, environment, entityManager, blockManager, biomeManager,
+                            true, systemConfig.isSnapshotSavesEnabled())
                     : new ReadOnlyStorageManager(savePath, environment, entityManager, blockManager, biomeManager);
         } catch (IOException e) {
             logger.error("Unable to create storage manager!", e);
@@ -160,6 +165,11 @@ public boolean step() {
         return true;
     }
 
+    @Override
+    public Set<Class<? extends LoadProcess>> getDependencies() {
+        return ImmutableSet.of(RegisterBiomes.class, LoadPrefabs.class);
+    }
+
     @Override
     public int getExpectedCost() {
         return 5;
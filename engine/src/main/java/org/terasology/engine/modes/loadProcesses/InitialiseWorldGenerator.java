@@ -16,10 +16,15 @@
 
 package org.terasology.engine.modes.loadProcesses;
 
+import com.google.common.collect.ImmutableSet;
 import org.terasology.context.Context;
+import org.terasology.engine.GameThread;
+import org.terasology.engine.modes.LoadProcess;
 import org.terasology.rendering.world.WorldRenderer;
 import org.terasology.world.generator.WorldGenerator;
 
+import java.util.Set;
+
 /**
  * Initialize the world generator.
  * <br><br>
@@ -45,12 +50,23 @@ public boolean step() {
         WorldGenerator worldGenerator = context.get(WorldGenerator.class);
         worldGenerator.initialize();
 
-        WorldRenderer worldRenderer = context.get(WorldRenderer.class);
-        worldRenderer.getActiveCamera().setReflectionHeight(worldGenerator.getWorld().getSeaLevel());
+        int seaLevel = worldGenerator.getWorld().getSeaLevel();
+        // Runs on a worker thread, the camera belongs to the main thread
+        GameThread.asynch(() -> context.get(WorldRenderer.class).getActiveCamera().setReflectionHeight(seaLevel));
+
+        return true;
+    }
 
+    @Override
+    public boolean isConcurrent() {
         return true;
     }
 
+    @Override
+    public Set<Class<? extends LoadProcess>> getDependencies() {
+        return ImmutableSet.of(CreateWorldEntity.class);
+    }
+
     @Override
     public int getExpectedCost() {
         return 5;
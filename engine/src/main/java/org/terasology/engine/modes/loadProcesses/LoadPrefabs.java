@@ -16,12 +16,15 @@
 
 package org.terasology.engine.modes.loadProcesses;
 
+import com.google.common.collect.ImmutableSet;
 import org.terasology.assets.ResourceUrn;
 import org.terasology.assets.management.AssetManager;
 import org.terasology.context.Context;
+import org.terasology.engine.modes.LoadProcess;
 import org.terasology.entitySystem.prefab.Prefab;
 
 import java.util.Iterator;
+import java.util.Set;
 
 /**
  */
@@ -53,6 +56,22 @@ public void begin() {
         setTotalSteps(assetManager.getAvailableAssets(Prefab.class).size());
     }
 
+    @Override
+    public boolean isConcurrent() {
+        return true;
+    }
+
+    /**
+     * Processes that read prefabs have to depend on this one, as it runs concurrently with the main thread processes.
+     * <br><br>
+     * Deserializing prefabs builds and caches the serializers of their components, so all type handlers - including
+     * those for entity references and blocks - must be registered before.
+     */
+    @Override
+    public Set<Class<? extends LoadProcess>> getDependencies() {
+        return ImmutableSet.of(InitialiseEntitySystem.class, RegisterBlocks.class);
+    }
+
     @Override
     public int getExpectedCost() {
         return 1;
@@ -15,14 +15,17 @@
  */
 package org.terasology.engine.modes.loadProcesses;
 
+import com.google.common.collect.ImmutableSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.context.Context;
 import org.terasology.engine.ComponentSystemManager;
+import org.terasology.engine.modes.LoadProcess;
 import org.terasology.entitySystem.systems.ComponentSystem;
 
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  */
@@ -64,6 +67,11 @@ public void begin() {
         componentSystems = csm.iterateAll().iterator();
     }
 
+    @Override
+    public Set<Class<? extends LoadProcess>> getDependencies() {
+        return ImmutableSet.of(InitialiseWorldGenerator.class);
+    }
+
     @Override
     public int getExpectedCost() {
         return 1;
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.engine.modes.loadProcesses;
+
+import com.google.common.collect.ImmutableSet;
+import org.terasology.assets.ResourceUrn;
+import org.terasology.assets.management.AssetManager;
+import org.terasology.context.Context;
+import org.terasology.engine.modes.LoadProcess;
+import org.terasology.world.block.shapes.BlockShape;
+import org.terasology.world.block.tiles.BlockTile;
+
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Loads the block shapes and tiles ahead of {@link RegisterBlocks}, on a worker thread. Decoding the tile images is
+ * the bulk of building the block atlas.
+ */
+public class PrefetchBlockAssets extends StepBasedLoadProcess {
+    private final AssetManager assetManager;
+    private Iterator<ResourceUrn> shapes;
+    private Iterator<ResourceUrn> tiles;
+
+    public PrefetchBlockAssets(Context context) {
+        this.assetManager = context.get(AssetManager.class);
+    }
+
+    @Override
+    public String getMessage() {
+        return "Loading Block Assets...";
+    }
+
+    @Override
+    public boolean step() {
+        if (shapes.hasNext()) {
+            assetManager.getAsset(shapes.next(), BlockShape.class);
+            stepDone();
+        } else if (tiles.hasNext()) {
+            assetManager.getAsset(tiles.next(), BlockTile.class);
+            stepDone();
+        }
+        return !shapes.hasNext() && !tiles.hasNext();
+    }
+
+    @Override
+    public void begin() {
+        Set<ResourceUrn> shapeUrns = assetManager.getAvailableAssets(BlockShape.class);
+        Set<ResourceUrn> tileUrns = assetManager.getAvailableAssets(BlockTile.class);
+        shapes = shapeUrns.iterator();
+        tiles = tileUrns.iterator();
+        setTotalSteps(shapeUrns.size() + tileUrns.size());
+    }
+
+    @Override
+    public boolean isConcurrent() {
+        return true;
+    }
+
+    @Override
+    public Set<Class<? extends LoadProcess>> getDependencies() {
+        return ImmutableSet.of(RegisterMods.class, JoinServer.class);
+    }
+
+    @Override
+    public int getExpectedCost() {
+        return 1;
+    }
+}
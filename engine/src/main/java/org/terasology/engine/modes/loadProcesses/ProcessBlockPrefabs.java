@@ -15,12 +15,16 @@
  */
 package org.terasology.engine.modes.loadProcesses;
 
+import com.google.common.collect.ImmutableSet;
 import org.terasology.context.Context;
+import org.terasology.engine.modes.LoadProcess;
 import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.world.block.BlockManager;
 import org.terasology.world.block.internal.BlockManagerImpl;
 import org.terasology.world.block.internal.BlockPrefabManager;
 
+import java.util.Set;
+
 /**
  */
 public class ProcessBlockPrefabs extends SingleStepLoadProcess {
@@ -43,6 +47,11 @@ public boolean step() {
         return true;
     }
 
+    @Override
+    public Set<Class<? extends LoadProcess>> getDependencies() {
+        return ImmutableSet.of(LoadPrefabs.class);
+    }
+
     @Override
     public int getExpectedCost() {
         return 1;
@@ -16,7 +16,9 @@
 
 package org.terasology.engine.modes.loadProcesses;
 
+import com.google.common.collect.ImmutableSet;
 import org.terasology.context.Context;
+import org.terasology.engine.modes.LoadProcess;
 import org.terasology.engine.module.ModuleManager;
 import org.terasology.game.GameManifest;
 import org.terasology.module.ModuleEnvironment;
@@ -24,6 +26,8 @@
 import org.terasology.world.biomes.BiomeManager;
 import org.terasology.world.biomes.BiomeRegistry;
 
+import java.util.Set;
+
 /**
  */
 public class RegisterBiomes extends SingleStepLoadProcess {
@@ -60,6 +64,16 @@ public boolean step() {
         return true;
     }
 
+    @Override
+    public boolean isConcurrent() {
+        return true;
+    }
+
+    @Override
+    public Set<Class<? extends LoadProcess>> getDependencies() {
+        return ImmutableSet.of(RegisterMods.class, JoinServer.class);
+    }
+
     @Override
     public int getExpectedCost() {
         return 1;
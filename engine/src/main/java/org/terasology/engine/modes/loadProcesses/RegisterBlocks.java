@@ -16,9 +16,11 @@
 
 package org.terasology.engine.modes.loadProcesses;
 
+import com.google.common.collect.ImmutableSet;
 import org.terasology.assets.management.AssetManager;
 import org.terasology.config.Config;
 import org.terasology.context.Context;
+import org.terasology.engine.modes.LoadProcess;
 import org.terasology.game.GameManifest;
 import org.terasology.network.NetworkSystem;
 import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
@@ -31,6 +33,8 @@
 import org.terasology.world.block.tiles.WorldAtlas;
 import org.terasology.world.block.tiles.WorldAtlasImpl;
 
+import java.util.Set;
+
 /**
  */
 public class RegisterBlocks extends SingleStepLoadProcess {
@@ -69,6 +73,11 @@ public boolean step() {
         return true;
     }
 
+    @Override
+    public Set<Class<? extends LoadProcess>> getDependencies() {
+        return ImmutableSet.of(PrefetchBlockAssets.class);
+    }
+
     @Override
     public int getExpectedCost() {
         return 1;
@@ -16,14 +16,18 @@
 
 package org.terasology.engine.modes.loadProcesses;
 
+import com.google.common.collect.ImmutableSet;
 import org.terasology.context.Context;
 import org.terasology.engine.ComponentSystemManager;
 import org.terasology.engine.GameEngine;
 import org.terasology.engine.TerasologyEngine;
+import org.terasology.engine.modes.LoadProcess;
 import org.terasology.engine.module.ModuleManager;
 import org.terasology.engine.subsystem.EngineSubsystem;
 import org.terasology.network.NetworkMode;
 
+import java.util.Set;
+
 /**
  */
 public class RegisterSystems extends SingleStepLoadProcess {
@@ -56,6 +60,11 @@ public boolean step() {
     }
 
 
+    @Override
+    public Set<Class<? extends LoadProcess>> getDependencies() {
+        return ImmutableSet.of(LoadPrefabs.class);
+    }
+
     @Override
     public int getExpectedCost() {
         return 1;
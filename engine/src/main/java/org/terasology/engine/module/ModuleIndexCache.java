@@ -0,0 +1,276 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.engine.module;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.hash.Funnels;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.reflections.Reflections;
+import org.reflections.util.ConfigurationBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.paths.PathManager;
+import org.terasology.module.BaseModule;
+import org.terasology.module.Module;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the annotation and subtype index of module jars on disk, so that module environments are created from the
+ * stored index instead of scanning the classes of every module again on each launch.
+ * <br><br>
+ * The index of a module is stored in a file named after a hash of its jars, so a changed jar is scanned again. Modules
+ * loaded from directories are not cached, their content is expected to change while they are worked on.
+ *
+ */
+public final class ModuleIndexCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModuleIndexCache.class);
+
+    private static final int MAGIC = 0x544D4943;
+    private static final int VERSION = 1;
+    private static final String CACHE_DIR = "modules";
+    private static final String CACHE_EXTENSION = ".index";
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private final Path directory;
+
+    /* Guarded by this */
+    private final Map<Module, Module> indexedModules = Maps.newIdentityHashMap();
+    private int hits;
+    private int misses;
+
+    /**
+     * @param directory The directory to store the indexes in
+     */
+    public ModuleIndexCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return The module index cache in the cache directory of the game, or null if there is no cache directory
+     */
+    public static ModuleIndexCache create() {
+        Path cachePath = PathManager.getInstance().getCachePath();
+        if (cachePath == null) {
+            return null;
+        }
+        return new ModuleIndexCache(cachePath.resolve(CACHE_DIR));
+    }
+
+    /**
+     * @param module A module
+     * @return A module providing the stored index as its reflections fragment if the module is a code module loaded from
+     * jars, otherwise the module itself
+     */
+    public synchronized Module getIndexedModule(Module module) {
+        if (module instanceof IndexedModule) {
+            return module;
+        }
+        Module indexed = indexedModules.get(module);
+        if (indexed == null) {
+            List<Path> jars = getJars(module);
+            indexed = (jars.isEmpty()) ? module : new IndexedModule(module, jars);
+            indexedModules.put(module, indexed);
+        }
+        return indexed;
+    }
+
+    /**
+     * @return The number of module indexes loaded from the cache so far
+     */
+    public synchronized int getHitCount() {
+        return hits;
+    }
+
+    /**
+     * @return The number of modules scanned because their index was not in the cache so far
+     */
+    public synchronized int getMissCount() {
+        return misses;
+    }
+
+    private synchronized void recordLookup(boolean hit) {
+        if (hit) {
+            hits++;
+        } else {
+            misses++;
+        }
+    }
+
+    /**
+     * @return The jars of the module, or an empty list if it is not a code module or has classpath entries that are not
+     * jars
+     */
+    private static List<Path> getJars(Module module) {
+        if (!module.isCodeModule() || module.getClasspaths() == null || module.getClasspaths().isEmpty()) {
+            return ImmutableList.of();
+        }
+        List<Path> jars = Lists.newArrayList();
+        for (URL url : module.getClasspaths()) {
+            try {
+                Path path = Paths.get(url.toURI());
+                if (!Files.isRegularFile(path)) {
+                    return ImmutableList.of();
+                }
+                jars.add(path);
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                return ImmutableList.of();
+            }
+        }
+        return jars;
+    }
+
+    private static String hash(List<Path> jars) throws IOException {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        try (OutputStream out = Funnels.asOutputStream(hasher)) {
+            for (Path jar : jars) {
+                Files.copy(jar, out);
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    private Reflections read(Path file) throws IOException {
+        Reflections reflections = new Reflections(new ConfigurationBuilder().setScanners());
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Module index is out of date");
+            }
+            int indexCount = in.readInt();
+            for (int i = 0; i < indexCount; i++) {
+                Multimap<String, String> index = reflections.getStore().getOrCreate(in.readUTF());
+                int keyCount = in.readInt();
+                for (int j = 0; j < keyCount; j++) {
+                    String key = in.readUTF();
+                    int valueCount = in.readInt();
+                    for (int k = 0; k < valueCount; k++) {
+                        index.put(key, in.readUTF());
+                    }
+                }
+            }
+        }
+        return reflections;
+    }
+
+    private void write(Path file, Reflections reflections) throws IOException {
+        Files.createDirectories(directory);
+        Path temp = file.resolveSibling(file.getFileName() + TEMP_EXTENSION);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            Map<String, Multimap<String, String>> indexes = reflections.getStore().getStoreMap();
+            out.writeInt(indexes.size());
+            for (Map.Entry<String, Multimap<String, String>> index : indexes.entrySet()) {
+                out.writeUTF(index.getKey());
+                Map<String, Collection<String>> entries = index.getValue().asMap();
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Collection<String>> entry : entries.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().size());
+                    for (String value : entry.getValue()) {
+                        out.writeUTF(value);
+                    }
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * A code module loaded from jars, with its reflections fragment read from the cache.
+     */
+    private final class IndexedModule extends BaseModule {
+        private final Module module;
+        private final List<Path> jars;
+        private Reflections reflectionsFragment;
+
+        IndexedModule(Module module, List<Path> jars) {
+            super(module.getLocations(), module.getMetadata());
+            this.module = module;
+            this.jars = jars;
+        }
+
+        @Override
+        public ImmutableList<URL> getClasspaths() {
+            return module.getClasspaths();
+        }
+
+        @Override
+        public boolean isOnClasspath() {
+            return module.isOnClasspath();
+        }
+
+        @Override
+        public boolean isCodeModule() {
+            return true;
+        }
+
+        @Override
+        public synchronized Reflections getReflectionsFragment() {
+            if (reflectionsFragment == null) {
+                reflectionsFragment = loadReflectionsFragment();
+            }
+            return reflectionsFragment;
+        }
+
+        private Reflections loadReflectionsFragment() {
+            Path file;
+            try {
+                file = directory.resolve(hash(jars) + CACHE_EXTENSION);
+            } catch (IOException e) {
+                logger.warn("Failed to hash the jars of module {}, scanning it", getId(), e);
+                recordLookup(false);
+                return module.getReflectionsFragment();
+            }
+            if (Files.isRegularFile(file)) {
+                try {
+                    Reflections reflections = read(file);
+                    recordLookup(true);
+                    return reflections;
+                } catch (IOException e) {
+                    logger.info("Discarding module index {}", file, e);
+                }
+            }
+            recordLookup(false);
+            Reflections reflections = module.getReflectionsFragment();
+            try {
+                write(file, reflections);
+            } catch (IOException e) {
+                logger.warn("Failed to store the index of module {}", getId(), e);
+            }
+            return reflections;
+        }
+    }
+}
@@ -53,7 +53,7 @@
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 
 public class ModuleManagerImpl implements ModuleManager {
@@ -64,12 +64,14 @@ public class ModuleManagerImpl implements ModuleManager {
     private ModuleEnvironment environment;
     private ModuleMetadataJsonAdapter metadataReader;
     private ModuleInstallManager installManager;
+    private ModuleIndexCache indexCache;
 
     public ModuleManagerImpl(String masterServerAddress) {
         metadataReader = new ModuleMetadataJsonAdapter();
         for (ModuleExtension ext : StandardModuleExtension.values()) {
             metadataReader.registerExtension(ext.getKey(), ext.getValueType());
         }
+        indexCache = ModuleIndexCache.create();
         Module engineModule;
         try (Reader reader = new InputStreamReader(getClass().getResourceAsStream("/engine-module.txt"), TerasologyConstants.CHARSET)) {
             ModuleMetadata metadata = metadataReader.read(reader);
@@ -167,7 +169,7 @@ private void setupSandbox() {
                 permissionProviderFactory.getBasePermissionSet().addAPIPackage(packagee));
 
         APIScanner apiScanner = new APIScanner(permissionProviderFactory);
-        registry.stream().filter(Module::isOnClasspath).forEach(apiScanner::scan);
+        registry.stream().filter(Module::isOnClasspath).map(this::getIndexedModule).forEach(apiScanner::scan);
 
         permissionProviderFactory.getBasePermissionSet().grantPermission("com.google.gson", ReflectPermission.class);
         permissionProviderFactory.getBasePermissionSet().grantPermission("com.google.gson.internal", ReflectPermission.class);
@@ -193,15 +195,34 @@ public ModuleEnvironment getEnvironment() {
 
     @Override
     public ModuleEnvironment loadEnvironment(Set<Module> modules, boolean asPrimary) {
-        Set<Module> finalModules = Sets.newLinkedHashSet(modules);
-        finalModules.addAll(registry.stream().filter(Module::isOnClasspath).collect(Collectors.toList()));
+        long startTime = System.nanoTime();
+        int hitsBefore = (indexCache != null) ? indexCache.getHitCount() : 0;
+        int missesBefore = (indexCache != null) ? indexCache.getMissCount() : 0;
+        Set<Module> finalModules = Sets.newLinkedHashSet();
+        modules.stream().map(this::getIndexedModule).forEach(finalModules::add);
+        registry.stream().filter(Module::isOnClasspath).map(this::getIndexedModule).forEach(finalModules::add);
         ModuleEnvironment newEnvironment = new ModuleEnvironment(finalModules, permissionProviderFactory, Collections.<BytecodeInjector>emptyList());
+        if (indexCache != null) {
+            logger.info("Created environment of {} modules in {} ms, {} module indexes loaded from cache, {} scanned", finalModules.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime),
+                    indexCache.getHitCount() - hitsBefore, indexCache.getMissCount() - missesBefore);
+        } else {
+            logger.info("Created environment of {} modules in {} ms", finalModules.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        }
         if (asPrimary) {
             environment = newEnvironment;
         }
         return newEnvironment;
     }
 
+    /**
+     * @return The module, providing its class index from the cache if it is a code module loaded from jars
+     */
+    private Module getIndexedModule(Module module) {
+        return (indexCache != null) ? indexCache.getIndexedModule(module) : module;
+    }
+
     @Override
     public ModuleMetadataJsonAdapter getModuleMetadataReader() {
         return metadataReader;
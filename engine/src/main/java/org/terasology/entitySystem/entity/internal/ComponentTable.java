@@ -16,6 +16,7 @@
 package org.terasology.entitySystem.entity.internal;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
 import gnu.trove.iterator.TLongIterator;
 import gnu.trove.iterator.TLongObjectIterator;
@@ -24,21 +25,42 @@
 import gnu.trove.set.TLongSet;
 import gnu.trove.set.hash.TLongHashSet;
 import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.metadata.ComponentLibrary;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A table for storing entities and components. Focused on allowing iteration across a components of a given type
+ * <br><br>
+ * A table can hand out a snapshot of its content, see {@link #createSnapshot(ComponentLibrary)}.
  *
  */
 class ComponentTable {
     private Map<Class<?>, TLongObjectMap<Component>> store = Maps.newConcurrentMap();
 
+    /**
+     * The entity maps of the active snapshot, by component class. They never get modified.
+     */
+    private Map<Class<?>, TLongObjectMap<Component>> frozen;
+    /**
+     * The copies read by the active snapshot, see {@link #pinnedCopies}.
+     */
+    private ConcurrentMap<Component, Component> frozenPins;
+    private ComponentLibrary componentLibrary;
+
+    /**
+     * Only set on a snapshot: copies of the shared components that got saved while the snapshot is in use, keyed by
+     * identity of the shared instance. Written by the table the snapshot was created from, read in place of the
+     * instance.
+     */
+    private ConcurrentMap<Component, Component> pinnedCopies;
+
     public <T extends Component> T get(long entityId, Class<T> componentClass) {
         TLongObjectMap<Component> entityMap = store.get(componentClass);
         if (entityMap != null) {
-            return componentClass.cast(entityMap.get(entityId));
+            return componentClass.cast(pinnedOrSelf(entityMap.get(entityId)));
         }
         return null;
     }
@@ -49,9 +71,50 @@ public Component put(long entityId, Component component) {
             entityMap = new TLongObjectHashMap<>();
             store.put(component.getClass(), entityMap);
         }
+        pinIfFrozen(entityId, component);
         return entityMap.put(entityId, component);
     }
 
+    /**
+     * Creates a table holding the components this table holds right now. The component instances are shared rather
+     * than copied, and reading them copies nothing. Until {@link #releaseSnapshot()} gets called, a shared component
+     * that is put back into this table, i.e. saved after being modified in place, gets copied once for the snapshot.
+     * The snapshot reads that copy from then on, so later modifications of the instance no longer reach it.
+     * <br><br>
+     * Replacing, adding or removing components does not affect the snapshot. Modifications of a shared instance
+     * made before it is put back are seen by the snapshot.
+     * <br><br>
+     * The snapshot may be used by another thread. Only one snapshot can be active at a time, creating a new one
+     * releases the previous one.
+     *
+     * @param library The component library used to copy shared components
+     * @return The snapshot
+     */
+    public ComponentTable createSnapshot(ComponentLibrary library) {
+        ComponentTable snapshot = new ComponentTable();
+        Map<Class<?>, TLongObjectMap<Component>> frozenMaps = Maps.newHashMap();
+        for (Map.Entry<Class<?>, TLongObjectMap<Component>> entry : store.entrySet()) {
+            TLongObjectMap<Component> entityMap = new TLongObjectHashMap<>(entry.getValue());
+            frozenMaps.put(entry.getKey(), entityMap);
+            snapshot.store.put(entry.getKey(), entityMap);
+        }
+        // Weak keys are compared by identity
+        snapshot.pinnedCopies = new MapMaker().weakKeys().makeMap();
+        this.frozen = frozenMaps;
+        this.componentLibrary = library;
+        this.frozenPins = snapshot.pinnedCopies;
+        return snapshot;
+    }
+
+    /**
+     * Stops copying components shared with the last snapshot. The snapshot must no longer be used afterwards.
+     */
+    public void releaseSnapshot() {
+        frozen = null;
+        frozenPins = null;
+        componentLibrary = null;
+    }
+
     /**
      *
      * @return removes the component with the specified class from the entity and returns it.
@@ -69,9 +132,8 @@ public <T extends Component> Component remove(long entityId, Class<T> componentC
     public List<Component> removeAndReturnComponentsOf(long entityId) {
         List<Component> componentList = Lists.newArrayList();
         for (TLongObjectMap<Component> entityMap : store.values()) {
-            Component component = entityMap.remove(entityId);
-            if (component != null) {
-                componentList.add(component);
+            if (entityMap.containsKey(entityId)) {
+                componentList.add(entityMap.remove(entityId));
             }
         }
         return componentList;
@@ -112,7 +174,7 @@ public List<Component> getComponentsInNewList(long entityId) {
         for (TLongObjectMap<Component> componentMap : store.values()) {
             Component comp = componentMap.get(entityId);
             if (comp != null) {
-                components.add(comp);
+                components.add(pinnedOrSelf(comp));
             }
         }
         return components;
@@ -121,6 +183,9 @@ public List<Component> getComponentsInNewList(long entityId) {
     public <T extends Component> TLongObjectIterator<T> componentIterator(Class<T> componentClass) {
         TLongObjectMap<T> entityMap = (TLongObjectMap<T>) store.get(componentClass);
         if (entityMap != null) {
+            if (pinnedCopies != null) {
+                return new PinnedCopyIterator<>(entityMap);
+            }
             return entityMap.iterator();
         }
         return null;
@@ -149,4 +214,72 @@ public int numEntities() {
         return idSet.size();
     }
 
+    /**
+     * Copies the component for the active snapshot if the snapshot shares it, unless it got copied before.
+     */
+    private void pinIfFrozen(long entityId, Component component) {
+        if (frozen != null) {
+            TLongObjectMap<Component> frozenMap = frozen.get(component.getClass());
+            if (frozenMap != null && frozenMap.get(entityId) == component && !frozenPins.containsKey(component)) {
+                Component copy = componentLibrary.copy(component);
+                if (copy != null) {
+                    frozenPins.put(component, copy);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The copy this snapshot reads in place of the component, or the component itself
+     */
+    private <T extends Component> T pinnedOrSelf(T component) {
+        if (pinnedCopies != null && component != null) {
+            Component copy = pinnedCopies.get(component);
+            if (copy != null) {
+                return (T) copy;
+            }
+        }
+        return component;
+    }
+
+    /**
+     * Iterates over the components of a type in a snapshot, handing out the copies of components saved since.
+     */
+    private final class PinnedCopyIterator<T extends Component> implements TLongObjectIterator<T> {
+        private final TLongObjectIterator<T> inner;
+
+        private PinnedCopyIterator(TLongObjectMap<T> entityMap) {
+            this.inner = entityMap.iterator();
+        }
+
+        @Override
+        public long key() {
+            return inner.key();
+        }
+
+        @Override
+        public T value() {
+            return pinnedOrSelf(inner.value());
+        }
+
+        @Override
+        public T setValue(T val) {
+            return inner.setValue(val);
+        }
+
+        @Override
+        public void advance() {
+            inner.advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return inner.hasNext();
+        }
+
+        @Override
+        public void remove() {
+            inner.remove();
+        }
+    }
 }
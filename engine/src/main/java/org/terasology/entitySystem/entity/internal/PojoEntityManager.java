@@ -501,6 +501,40 @@ public void setNextId(long id) {
         nextEntityId = id;
     }
 
+    /**
+     * Creates a copy of all entities that another thread can read, e.g. to save them, while this entity manager keeps
+     * being used. The component instances are shared instead of copied, and reading components copies nothing. Until
+     * {@link #releaseSnapshot()} gets called, a shared component that gets saved through
+     * {@link #saveComponent(long, Component)} is copied once for the snapshot, which reads that copy from then on. So
+     * the memory used by a snapshot grows with the number of components saved while it is in use, not with the number
+     * of entities or of components read.
+     * <br><br>
+     * Adding, replacing and removing components does not affect the snapshot. A shared component that is modified in
+     * place is seen by the snapshot with the modification made before it got saved, so the snapshot holds each
+     * entity as of its creation or as of its first save afterwards. The snapshot has no event system and no
+     * subscribers. Only one snapshot can be in use at a time.
+     *
+     * @return An entity manager holding the snapshot
+     */
+    public PojoEntityManager createSnapshot() {
+        PojoEntityManager snapshot = new PojoEntityManager();
+        snapshot.setComponentLibrary(componentLibrary);
+        snapshot.setTypeSerializerLibrary(typeSerializerLibrary);
+        snapshot.setPrefabManager(prefabManager);
+        snapshot.nextEntityId = nextEntityId;
+        snapshot.loadedIds = new TLongHashSet(loadedIds);
+        snapshot.store = store.createSnapshot(componentLibrary);
+        return snapshot;
+    }
+
+    /**
+     * Stops copying the saved components shared with the snapshot created by {@link #createSnapshot()}. The snapshot
+     * must not be used afterwards.
+     */
+    public void releaseSnapshot() {
+        store.releaseSnapshot();
+    }
+
 
     /*
      * For use by Entity Refs
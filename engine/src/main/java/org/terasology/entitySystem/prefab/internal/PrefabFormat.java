@@ -16,6 +16,7 @@
 package org.terasology.entitySystem.prefab.internal;
 
 import com.google.common.base.Charsets;
+import com.google.protobuf.CodedInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.assets.ResourceUrn;
@@ -27,35 +28,83 @@
 import org.terasology.persistence.serializers.PrefabSerializer;
 import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
 import org.terasology.protobuf.EntityData;
+import org.terasology.utilities.ParsedAssetCache;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 public class PrefabFormat extends AbstractAssetFileFormat<PrefabData> {
+    /**
+     * The version of the prefab data stored in a {@link ParsedAssetCache}: the prefab messages read from the JSON files.
+     */
+    public static final int CACHE_VERSION = 1;
+
     private static final Logger logger = LoggerFactory.getLogger(PrefabFormat.class);
 
     private ComponentLibrary componentLibrary;
     private TypeSerializationLibrary typeSerializationLibrary;
+    private ParsedAssetCache cache;
 
     public PrefabFormat(ComponentLibrary componentLibrary, TypeSerializationLibrary typeSerializationLibrary) {
+        this(componentLibrary, typeSerializationLibrary, null);
+    }
+
+    /**
+     * @param componentLibrary         The component library
+     * @param typeSerializationLibrary The type serialization library
+     * @param cache                    The cache to skip reading the JSON of unchanged prefabs with, or null
+     */
+    public PrefabFormat(ComponentLibrary componentLibrary, TypeSerializationLibrary typeSerializationLibrary, ParsedAssetCache cache) {
         super("prefab");
         this.componentLibrary = componentLibrary;
         this.typeSerializationLibrary = typeSerializationLibrary;
+        this.cache = cache;
     }
 
     @Override
     public PrefabData load(ResourceUrn resourceUrn, List<AssetDataFile> inputs) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputs.get(0).openStream(), Charsets.UTF_8))) {
+        EntityData.Prefab prefabData;
+        if (cache != null) {
+            byte[] content = ParsedAssetCache.read(inputs.get(0));
+            String key = cache.key(resourceUrn, content);
+            prefabData = readCached(resourceUrn, key);
+            if (prefabData == null) {
+                prefabData = readJson(resourceUrn, new ByteArrayInputStream(content));
+                cache.put(resourceUrn, key, prefabData.toByteArray());
+            }
+        } else {
+            prefabData = readJson(resourceUrn, inputs.get(0).openStream());
+        }
+        logger.info("Attempting to deserialize prefab {} with inputs {}", resourceUrn, inputs);
+        PrefabSerializer serializer = new PrefabSerializer(componentLibrary, typeSerializationLibrary);
+        return serializer.deserialize(prefabData);
+    }
+
+    private EntityData.Prefab readCached(ResourceUrn resourceUrn, String key) {
+        ByteBuffer cached = cache.get(resourceUrn, key);
+        if (cached == null) {
+            return null;
+        }
+        try {
+            return EntityData.Prefab.parseFrom(CodedInputStream.newInstance(cached));
+        } catch (IOException e) {
+            logger.warn("Failed to read cached prefab {}, reading it again", resourceUrn, e);
+            return null;
+        }
+    }
+
+    private EntityData.Prefab readJson(ResourceUrn resourceUrn, InputStream stream) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, Charsets.UTF_8))) {
             EntityData.Prefab prefabData = EntityDataJSONFormat.readPrefab(reader);
-            if (prefabData != null) {
-                logger.info("Attempting to deserialize prefab {} with inputs {}", resourceUrn, inputs);
-                PrefabSerializer serializer = new PrefabSerializer(componentLibrary, typeSerializationLibrary);
-                return serializer.deserialize(prefabData);
-            } else {
+            if (prefabData == null) {
                 throw new IOException("Failed to read prefab for '" + resourceUrn + "'");
             }
+            return prefabData;
         }
     }
 
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.characters;
+
+import org.terasology.math.geom.Vector3f;
+
+/**
+ * A fixed size history of the states of a single character, used for interpolating remote characters and for lag
+ * compensation. States are kept in struct-of-arrays primitive ring buffers rather than as event objects, so that
+ * sampling the position of a character at a past time touches only a few arrays and allocates nothing.
+ * <br><br>
+ * States must be added in non-decreasing time order, which is how the prediction system produces them.
+ *
+ */
+public final class CharacterStateHistory {
+    private static final MovementMode[] MODES = MovementMode.values();
+
+    private final int capacity;
+    private final long[] times;
+    private final float[] positions;
+    private final float[] rotations;
+    private final float[] velocities;
+    private final float[] footstepDeltas;
+    private final byte[] modes;
+    private final boolean[] grounded;
+
+    private int start;
+    private int size;
+    private CharacterStateEvent last;
+
+    public CharacterStateHistory(int capacity) {
+        this.capacity = capacity;
+        this.times = new long[capacity];
+        this.positions = new float[capacity * 3];
+        this.rotations = new float[capacity * 4];
+        this.velocities = new float[capacity * 3];
+        this.footstepDeltas = new float[capacity];
+        this.modes = new byte[capacity];
+        this.grounded = new boolean[capacity];
+    }
+
+    /**
+     * Adds a state to the end of the history, dropping the oldest state if the history is full.
+     * The event itself is retained only as the latest state, see {@link #getLast()}.
+     *
+     * @param state The new state
+     */
+    public void add(CharacterStateEvent state) {
+        int slot;
+        if (size < capacity) {
+            slot = (start + size) % capacity;
+            size++;
+        } else {
+            slot = start;
+            start = (start + 1) % capacity;
+        }
+        times[slot] = state.getTime();
+        Vector3f position = state.getPosition();
+        positions[slot * 3] = position.x;
+        positions[slot * 3 + 1] = position.y;
+        positions[slot * 3 + 2] = position.z;
+        rotations[slot * 4] = state.getRotation().x;
+        rotations[slot * 4 + 1] = state.getRotation().y;
+        rotations[slot * 4 + 2] = state.getRotation().z;
+        rotations[slot * 4 + 3] = state.getRotation().w;
+        Vector3f velocity = state.getVelocity();
+        velocities[slot * 3] = velocity.x;
+        velocities[slot * 3 + 1] = velocity.y;
+        velocities[slot * 3 + 2] = velocity.z;
+        footstepDeltas[slot] = state.getFootstepDelta();
+        modes[slot] = (byte) state.getMode().ordinal();
+        grounded[slot] = state.isGrounded();
+        last = state;
+    }
+
+    /**
+     * @return The most recently added state, or null if the history is empty
+     */
+    public CharacterStateEvent getLast() {
+        return last;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTime(int index) {
+        return times[slot(index)];
+    }
+
+    /**
+     * @param time The time to look up
+     * @return The index of the last state at or before the given time, or -1 if every state is later
+     */
+    public int indexAtOrBefore(long time) {
+        int low = 0;
+        int high = size - 1;
+        int result = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (times[slot(mid)] <= time) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Copies the recorded values of a state into an existing event. Only the values kept by the history are written:
+     * time, position, rotation, velocity, movement mode, grounded and footstep delta.
+     *
+     * @param index The index of the state, 0 being the oldest
+     * @param out   The event to write into
+     * @return out
+     */
+    public CharacterStateEvent getState(int index, CharacterStateEvent out) {
+        int slot = slot(index);
+        out.setTime(times[slot]);
+        out.getPosition().set(positions[slot * 3], positions[slot * 3 + 1], positions[slot * 3 + 2]);
+        out.getRotation().set(rotations[slot * 4], rotations[slot * 4 + 1], rotations[slot * 4 + 2], rotations[slot * 4 + 3]);
+        out.getVelocity().set(velocities[slot * 3], velocities[slot * 3 + 1], velocities[slot * 3 + 2]);
+        out.setFootstepDelta(footstepDeltas[slot]);
+        out.setMode(MODES[modes[slot]]);
+        out.setGrounded(grounded[slot]);
+        return out;
+    }
+
+    /**
+     * Determines where the character was at the given time, interpolating between the surrounding states or
+     * extrapolating from the latest one in the same way as {@link CharacterMovementSystemUtility}.
+     *
+     * @param time The time to sample at
+     * @param out  The vector to write the position into
+     * @return Whether a position could be determined, false if the history has no state at or before the time
+     */
+    public boolean samplePosition(long time, Vector3f out) {
+        int index = indexAtOrBefore(time);
+        if (index < 0) {
+            return false;
+        }
+        int a = slot(index);
+        if (index + 1 < size) {
+            int b = slot(index + 1);
+            float t = (float) (time - times[a]) / (times[b] - times[a]);
+            out.set(positions[a * 3] + t * (positions[b * 3] - positions[a * 3]),
+                    positions[a * 3 + 1] + t * (positions[b * 3 + 1] - positions[a * 3 + 1]),
+                    positions[a * 3 + 2] + t * (positions[b * 3 + 2] - positions[a * 3 + 2]));
+        } else {
+            float t = (time - times[a]) * 0.0001f;
+            out.set(positions[a * 3] + t * velocities[a * 3],
+                    positions[a * 3 + 1] + t * velocities[a * 3 + 1],
+                    positions[a * 3 + 2] + t * velocities[a * 3 + 2]);
+        }
+        return true;
+    }
+
+    private int slot(int index) {
+        return (start + index) % capacity;
+    }
+}
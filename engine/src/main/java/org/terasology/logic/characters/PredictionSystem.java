@@ -31,5 +31,17 @@ public interface PredictionSystem {
      */
     void lagCompensate(EntityRef client, long timeMs);
 
+    /**
+     * Rewinds time for the specified client, for an event that reaches no further than the given range from the
+     * client's character. May be called again before {@link #restoreToPresent()} to rewind for a greater range.
+     *
+     * @param client The client entity to rewind for
+     * @param timeMs The time to rewind to
+     * @param range  The range of the event, or infinity if it is not known
+     */
+    default void lagCompensate(EntityRef client, long timeMs, float range) {
+        lagCompensate(client, timeMs);
+    }
+
     void restoreToPresent();
 }
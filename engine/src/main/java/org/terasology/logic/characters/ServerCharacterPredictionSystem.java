@@ -17,6 +17,7 @@
 package org.terasology.logic.characters;
 
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.engine.Time;
@@ -37,10 +38,10 @@
 import org.terasology.physics.engine.PhysicsEngine;
 import org.terasology.registry.In;
 import org.terasology.registry.Share;
-import org.terasology.utilities.collection.CircularBuffer;
 import org.terasology.world.WorldProvider;
 
 import java.util.Map;
+import java.util.Set;
 
 @RegisterSystem(RegisterMode.AUTHORITY)
 @Share(PredictionSystem.class)
@@ -53,6 +54,11 @@ public class ServerCharacterPredictionSystem extends BaseComponentSystem impleme
 
     private static final int BUFFER_SIZE = 128;
     private static final int TIME_BETWEEN_STATE_REPLICATE = 50;
+    /**
+     * Added to a character's interaction range when deciding which other characters to rewind, to allow for the
+     * size of their colliders.
+     */
+    private static final float LAG_COMPENSATION_MARGIN = 2f;
 
     @In
     private Time time;
@@ -70,8 +76,12 @@ public class ServerCharacterPredictionSystem extends BaseComponentSystem impleme
     private NetworkSystem networkSystem;
 
     private CharacterMover characterMover;
-    private Map<EntityRef, CircularBuffer<CharacterStateEvent>> characterStates = Maps.newHashMap();
+    private Map<EntityRef, CharacterStateHistory> characterStates = Maps.newHashMap();
     private Map<EntityRef, CharacterMoveInputEvent> lastInputEvent = Maps.newHashMap();
+    private Set<EntityRef> rewoundCharacters = Sets.newHashSet();
+    private final CharacterStateEvent previousState = new CharacterStateEvent();
+    private final CharacterStateEvent nextState = new CharacterStateEvent();
+    private final Vector3f rewoundPosition = new Vector3f();
     private long nextSendState;
     private CharacterMovementSystemUtility characterMovementSystemUtility;
 
@@ -85,9 +95,9 @@ public void initialise() {
     @ReceiveEvent(components = {CharacterMovementComponent.class, LocationComponent.class, AliveCharacterComponent.class})
     public void onCreate(final OnActivatedComponent event, final EntityRef entity) {
         physics.getCharacterCollider(entity);
-        CircularBuffer<CharacterStateEvent> stateBuffer = CircularBuffer.create(BUFFER_SIZE);
-        stateBuffer.add(createInitialState(entity));
-        characterStates.put(entity, stateBuffer);
+        CharacterStateHistory history = new CharacterStateHistory(BUFFER_SIZE);
+        history.add(createInitialState(entity));
+        characterStates.put(entity, history);
     }
 
     @ReceiveEvent(components = {CharacterMovementComponent.class, LocationComponent.class, AliveCharacterComponent.class})
@@ -99,7 +109,7 @@ public void onDestroy(final BeforeDeactivateComponent event, final EntityRef ent
 
     @ReceiveEvent(components = {AliveCharacterComponent.class})
     public void onSetMovementModeEvent(SetMovementModeEvent event, EntityRef character, CharacterMovementComponent movementComponent) {
-        CircularBuffer<CharacterStateEvent> stateBuffer = characterStates.get(character);
+        CharacterStateHistory stateBuffer = characterStates.get(character);
         CharacterStateEvent lastState = stateBuffer.getLast();
         CharacterStateEvent newState = new CharacterStateEvent(lastState);
         newState.setSequenceNumber(lastState.getSequenceNumber());
@@ -119,7 +129,7 @@ public void onPlayerInput(CharacterMoveInputEvent input, EntityRef entity) {
             logger.debug("Skipping input, collision not yet established");
             return;
         }
-        CircularBuffer<CharacterStateEvent> stateBuffer = characterStates.get(entity);
+        CharacterStateHistory stateBuffer = characterStates.get(entity);
         CharacterStateEvent lastState = stateBuffer.getLast();
         if (input.getDelta() + lastState.getTime() < time.getGameTimeInMs() + MAX_INPUT_OVERFLOW) {
             CharacterStateEvent newState = stepState(input, lastState, entity);
@@ -134,7 +144,7 @@ public void onPlayerInput(CharacterMoveInputEvent input, EntityRef entity) {
 
     @ReceiveEvent(components = {CharacterMovementComponent.class, LocationComponent.class, AliveCharacterComponent.class})
     public void onTeleport(CharacterTeleportEvent event, EntityRef entity) {
-        CircularBuffer<CharacterStateEvent> stateBuffer = characterStates.get(entity);
+        CharacterStateHistory stateBuffer = characterStates.get(entity);
         CharacterStateEvent lastState = stateBuffer.getLast();
         CharacterStateEvent newState = new CharacterStateEvent(lastState);
         newState.setPosition(new Vector3f(event.getTargetPosition()));
@@ -148,7 +158,7 @@ public void onTeleport(CharacterTeleportEvent event, EntityRef entity) {
     public void onImpulse(CharacterImpulseEvent event, EntityRef entity) {
         Vector3f impulse = event.getDirection();
 
-        CircularBuffer<CharacterStateEvent> stateBuffer = characterStates.get(entity);
+        CharacterStateHistory stateBuffer = characterStates.get(entity);
         CharacterStateEvent lastState = stateBuffer.getLast();
         CharacterStateEvent newState = new CharacterStateEvent(lastState);
         newState.setVelocity(impulse.add(newState.getVelocity()));
@@ -171,7 +181,7 @@ private CharacterStateEvent stepState(CharacterMoveInputEvent input, CharacterSt
     public void update(float delta) {
         if (nextSendState < time.getGameTimeInMs()) {
             long lastSendTime = nextSendState - TIME_BETWEEN_STATE_REPLICATE;
-            for (Map.Entry<EntityRef, CircularBuffer<CharacterStateEvent>> entry : characterStates.entrySet()) {
+            for (Map.Entry<EntityRef, CharacterStateHistory> entry : characterStates.entrySet()) {
                 if (entry.getValue().size() > 0) {
                     CharacterStateEvent state = entry.getValue().getLast();
                     if (state.getTime() >= lastSendTime) {
@@ -190,7 +200,7 @@ public void update(float delta) {
             nextSendState += TIME_BETWEEN_STATE_REPLICATE;
         }
         long renderTime = time.getGameTimeInMs() - RENDER_DELAY;
-        for (Map.Entry<EntityRef, CircularBuffer<CharacterStateEvent>> entry : characterStates.entrySet()) {
+        for (Map.Entry<EntityRef, CharacterStateHistory> entry : characterStates.entrySet()) {
             if (entry.getKey().equals(localPlayer.getCharacterEntity())) {
                 continue;
             }
@@ -199,33 +209,59 @@ public void update(float delta) {
         }
     }
 
-    private void setToTime(long renderTime, EntityRef entity, CircularBuffer<CharacterStateEvent> buffer) {
-        CharacterStateEvent previous = null;
-        CharacterStateEvent next = null;
-        for (CharacterStateEvent state : buffer) {
-            if (state.getTime() <= renderTime) {
-                previous = state;
-            } else {
-                next = state;
-                break;
-            }
+    private void setToTime(long renderTime, EntityRef entity, CharacterStateHistory history) {
+        int index = history.indexAtOrBefore(renderTime);
+        if (index < 0) {
+            return;
         }
-        if (previous != null) {
-            if (next != null) {
-                characterMovementSystemUtility.setToInterpolateState(entity, previous, next, renderTime);
-            } else {
-                characterMovementSystemUtility.setToExtrapolateState(entity, previous, renderTime);
-            }
+        history.getState(index, previousState);
+        if (index + 1 < history.size()) {
+            history.getState(index + 1, nextState);
+            characterMovementSystemUtility.setToInterpolateState(entity, previousState, nextState, renderTime);
+        } else {
+            characterMovementSystemUtility.setToExtrapolateState(entity, previousState, renderTime);
         }
     }
 
+    /**
+     * Rewinds all characters, as the range of the event is not known.
+     */
     @Override
     public void lagCompensate(EntityRef client, long timeMs) {
-        for (Map.Entry<EntityRef, CircularBuffer<CharacterStateEvent>> entry : characterStates.entrySet()) {
+        lagCompensate(client, timeMs, Float.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Rewinds the characters the client could be interacting with. The client's own character is set to its latest
+     * state, while other characters are rewound to where the client saw them - but only those within the range of the
+     * event from the client's character, as found by sampling their history. Rewinding a character means writing its
+     * components and moving its collider, so with many players this is far cheaper than rewinding everyone. Characters
+     * rewound by an earlier call are left as they are until {@link #restoreToPresent()}.
+     */
+    @Override
+    public void lagCompensate(EntityRef client, long timeMs, float range) {
+        Vector3f center = null;
+        for (Map.Entry<EntityRef, CharacterStateHistory> entry : characterStates.entrySet()) {
             if (networkSystem.getOwnerEntity(entry.getKey()).equals(client)) {
-                characterMovementSystemUtility.setToState(entry.getKey(), entry.getValue().getLast());
-            } else {
-                setToTime(timeMs - RENDER_DELAY, entry.getKey(), entry.getValue());
+                CharacterStateEvent last = entry.getValue().getLast();
+                if (rewoundCharacters.add(entry.getKey())) {
+                    characterMovementSystemUtility.setToState(entry.getKey(), last);
+                }
+                center = last.getPosition();
+            }
+        }
+
+        long rewindTime = timeMs - RENDER_DELAY;
+        float maxDistanceSquared = (range + LAG_COMPENSATION_MARGIN) * (range + LAG_COMPENSATION_MARGIN);
+        for (Map.Entry<EntityRef, CharacterStateHistory> entry : characterStates.entrySet()) {
+            if (rewoundCharacters.contains(entry.getKey())) {
+                continue;
+            }
+            // Without a character of its own there is nothing to centre the query on, so fall back to rewinding all
+            if (center == null || Float.isInfinite(range)
+                    || entry.getValue().samplePosition(rewindTime, rewoundPosition) && rewoundPosition.distanceSquared(center) <= maxDistanceSquared) {
+                setToTime(rewindTime, entry.getKey(), entry.getValue());
+                rewoundCharacters.add(entry.getKey());
             }
         }
     }
@@ -233,8 +269,12 @@ public void lagCompensate(EntityRef client, long timeMs) {
     @Override
     public void restoreToPresent() {
         long renderTime = time.getGameTimeInMs() - RENDER_DELAY;
-        for (Map.Entry<EntityRef, CircularBuffer<CharacterStateEvent>> entry : characterStates.entrySet()) {
-            setToTime(renderTime, entry.getKey(), entry.getValue());
+        for (EntityRef character : rewoundCharacters) {
+            CharacterStateHistory history = characterStates.get(character);
+            if (history != null) {
+                setToTime(renderTime, character, history);
+            }
         }
+        rewoundCharacters.clear();
     }
 }
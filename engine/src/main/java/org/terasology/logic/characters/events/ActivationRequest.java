@@ -19,12 +19,13 @@
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.math.geom.Vector3f;
 import org.terasology.network.NetworkEvent;
+import org.terasology.network.RangedEvent;
 import org.terasology.network.ServerEvent;
 
 /**
  */
 @ServerEvent(lagCompensate = true)
-public class ActivationRequest extends NetworkEvent {
+public class ActivationRequest extends NetworkEvent implements RangedEvent {
     /**
      * The field is used to preserve the fact that an item got used, even when the item is no more at the target server.
      */
@@ -99,4 +100,15 @@ public Vector3f getHitNormal() {
     public int getActivationId() {
         return activationId;
     }
+
+    /**
+     * @return The distance from the origin to the hit position, or infinity if either is missing
+     */
+    @Override
+    public float getRange() {
+        if (origin == null || hitPosition == null) {
+            return Float.POSITIVE_INFINITY;
+        }
+        return (float) Math.sqrt(origin.distanceSquared(hitPosition));
+    }
 }
@@ -140,6 +140,26 @@ public static TObjectDoubleMap<String> getAllocationMean() {
         return instance.getAllocationMean();
     }
 
+    /**
+     * Sets the current value of a counter, such as the length of a queue. Unlike the metrics of activities, counters
+     * are reported as they were last set, without averaging.
+     * <br><br>
+     * Like activities, counters can only be set from the main thread.
+     *
+     * @param counterName the name of the counter.
+     * @param value the current value of the counter.
+     */
+    public static void setCounter(String counterName, double value) {
+        instance.setCounter(counterName, value);
+    }
+
+    /**
+     * @return a mapping from counter name to the value it was last set to.
+     */
+    public static TObjectDoubleMap<String> getCounters() {
+        return instance.getCounters();
+    }
+
     /**
      * Enables or disables the Performance Monitoring system.
      * <br><br>
@@ -36,7 +36,7 @@ public ChunkMeshInfo(ChunkMesh mesh) {
         if (!mesh.isGenerated()) {
             for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
                 final ChunkMesh.VertexElements element = mesh.getVertexElements(type);
-                vertices += element.finalVertices.limit();
+                vertices += element.finalVertices.limit() / ChunkMesh.VERTEX_SIZE;
                 indices += element.finalIndices.limit();
             }
         }
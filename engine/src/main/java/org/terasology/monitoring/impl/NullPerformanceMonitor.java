@@ -53,4 +53,13 @@ public TObjectDoubleMap<String> getAllocationMean() {
         return metrics;
     }
 
+    @Override
+    public void setCounter(String counter, double value) {
+    }
+
+    @Override
+    public TObjectDoubleMap<String> getCounters() {
+        return metrics;
+    }
+
 }
@@ -34,4 +34,8 @@ public interface PerformanceMonitorInternal {
     TObjectDoubleMap<String> getDecayingSpikes();
 
     TObjectDoubleMap<String> getAllocationMean();
+
+    void setCounter(String counter, double value);
+
+    TObjectDoubleMap<String> getCounters();
 }
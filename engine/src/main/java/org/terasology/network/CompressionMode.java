@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.network;
+
+/**
+ * The compression applied to messages sent from the server to its clients. The mode is offered by the server and
+ * confirmed by the client during the handshake.
+ *
+ */
+public enum CompressionMode {
+    /**
+     * Messages are sent uncompressed. Cheapest on CPU, most expensive on bandwidth.
+     */
+    NONE(0),
+
+    /**
+     * Messages are compressed as a single zlib stream per connection, with a configurable level.
+     */
+    ZLIB(1),
+
+    /**
+     * Each message is compressed independently with a fast LZ77 codec. Much cheaper than zlib, at a lower ratio.
+     */
+    LZ(2);
+
+    private final int id;
+
+    CompressionMode(int id) {
+        this.id = id;
+    }
+
+    /**
+     * @return The id used to identify this mode on the wire
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @param id The wire id of a compression mode
+     * @return The matching compression mode, or null if the id is unknown
+     */
+    public static CompressionMode fromId(int id) {
+        for (CompressionMode mode : values()) {
+            if (mode.id == id) {
+                return mode;
+            }
+        }
+        return null;
+    }
+}
@@ -42,4 +42,19 @@ public interface NetMetricSource {
      * @return The amount of bytes sent since last time this method was called
      */
     int getSentBytesSinceLastCall();
+
+    /**
+     * @return The amount of bytes sent or received since last time this method was called, measured before compression
+     */
+    int getUncompressedBytesSinceLastCall();
+
+    /**
+     * @return The amount of bytes sent or received since last time this method was called, measured after compression
+     */
+    int getCompressedBytesSinceLastCall();
+
+    /**
+     * @return The time in nanoseconds spent compressing and decompressing messages since last time this method was called
+     */
+    long getCompressionTimeSinceLastCall();
 }
@@ -65,6 +65,12 @@ public interface NetworkSystem extends BlockRegistrationListener {
 
     int getOutgoingBytesDelta();
 
+    int getUncompressedBytesDelta();
+
+    int getCompressedBytesDelta();
+
+    long getCompressionTimeDelta();
+
     void forceDisconnect(Client client);
 
     void setContext(Context context);
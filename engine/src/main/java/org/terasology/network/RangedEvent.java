@@ -0,0 +1,30 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network;
+
+/**
+ * A lag compensated server event that knows how far it reaches. Only the characters within that distance of the
+ * instigating client's character need to be rewound to process it, see {@link ServerEvent#lagCompensate()}. For lag
+ * compensated events without a known range, all characters are rewound.
+ *
+ */
+public interface RangedEvent {
+
+    /**
+     * @return The greatest distance from the instigating character at which the event can affect another character
+     */
+    float getRange();
+}
@@ -32,6 +32,9 @@
 import org.terasology.identity.IdentityConstants;
 import org.terasology.identity.PrivateIdentityCertificate;
 import org.terasology.identity.PublicIdentityCertificate;
+import org.terasology.network.internal.compression.CompressionDecoder;
+import org.terasology.network.internal.compression.CompressionNegotiation;
+import org.terasology.network.internal.compression.CompressionSettings;
 import org.terasology.protobuf.NetData;
 
 import javax.crypto.BadPaddingException;
@@ -64,9 +67,22 @@ public class ClientHandshakeHandler extends SimpleChannelUpstreamHandler {
     private boolean requestedCertificate;
     private ClientIdentity identity;
     private PublicIdentityCertificate serverCertificate;
+    private CompressionSettings selectedCompression;
+    private final boolean persistIdentity;
 
     public ClientHandshakeHandler(JoinStatusImpl joinStatus) {
+        this(joinStatus, true);
+    }
+
+    /**
+     * @param joinStatus      The join status to report progress and failures to
+     * @param persistIdentity Whether to use and store the identity held in the config. If false a fresh identity is
+     *                        requested from the server and discarded with the connection, so that several clients
+     *                        sharing one config (such as simulated load test clients) each join as a different player.
+     */
+    public ClientHandshakeHandler(JoinStatusImpl joinStatus, boolean persistIdentity) {
         this.joinStatus = joinStatus;
+        this.persistIdentity = persistIdentity;
     }
 
     @Override
@@ -79,10 +95,15 @@ public void channelOpen(ChannelHandlerContext ctx, ChannelStateEvent e) throws E
     public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) {
         NetData.NetMessage message = (NetData.NetMessage) e.getMessage();
         if (message.hasHandshakeHello()) {
+            if (serverHello == null) {
+                selectedCompression = CompressionNegotiation.selectFromOffer(message);
+            }
             processServerHello(message.getHandshakeHello(), ctx);
         } else if (message.hasProvisionIdentity()) {
+            switchCompression(ctx);
             processNewIdentity(message.getProvisionIdentity(), ctx);
         } else if (message.hasHandshakeVerification()) {
+            switchCompression(ctx);
             processHandshakeVerification(message.getHandshakeVerification(), ctx);
         }
     }
@@ -148,13 +169,15 @@ private void processNewIdentity(NetData.ProvisionIdentity provisionIdentity, Cha
 
             // Store identity for later use
             identity = new ClientIdentity(publicCert, privateCert);
-            config.getSecurity().addIdentity(serverCertificate, identity);
-            config.save();
-
-            //Try to upload the new identity to the identity storage service (if user is logged in)
-            StorageServiceWorker storageServiceWorker = CoreRegistry.get(StorageServiceWorker.class);
-            if (storageServiceWorker != null && storageServiceWorker.getStatus() == StorageServiceWorkerStatus.LOGGED_IN) {
-                storageServiceWorker.putIdentity(serverCertificate, identity);
+            if (persistIdentity) {
+                config.getSecurity().addIdentity(serverCertificate, identity);
+                config.save();
+
+                //Try to upload the new identity to the identity storage service (if user is logged in)
+                StorageServiceWorker storageServiceWorker = CoreRegistry.get(StorageServiceWorker.class);
+                if (storageServiceWorker != null && storageServiceWorker.getStatus() == StorageServiceWorkerStatus.LOGGED_IN) {
+                    storageServiceWorker.putIdentity(serverCertificate, identity);
+                }
             }
 
             // And we're authenticated.
@@ -190,7 +213,9 @@ private void processServerHello(NetData.HandshakeHello helloMessage, ChannelHand
 
             clientRandom = new byte[IdentityConstants.SERVER_CLIENT_RANDOM_LENGTH];
 
-            identity = config.getSecurity().getIdentity(serverCertificate);
+            if (persistIdentity) {
+                identity = config.getSecurity().getIdentity(serverCertificate);
+            }
             if (identity == null) {
                 requestIdentity(ctx);
             } else {
@@ -218,7 +243,7 @@ private void sendCertificate(NetData.HandshakeHello helloMessage, ChannelHandler
         byte[] dataToSign = Bytes.concat(helloMessage.toByteArray(), clientHello.toByteArray());
         byte[] signature = identity.getPlayerPrivateCertificate().sign(dataToSign);
 
-        ctx.getChannel().write(NetData.NetMessage.newBuilder()
+        ctx.getChannel().write(withCompressionSelection(NetData.NetMessage.newBuilder())
                 .setHandshakeHello(clientHello)
                 .setHandshakeVerification(NetData.HandshakeVerification.newBuilder()
                         .setSignature(ByteString.copyFrom(signature)))
@@ -234,7 +259,7 @@ private void requestIdentity(ChannelHandlerContext ctx) {
 
         masterSecret = HandshakeCommon.generateMasterSecret(preMasterSecret, clientRandom, serverRandom);
 
-        ctx.getChannel().write(NetData.NetMessage.newBuilder()
+        ctx.getChannel().write(withCompressionSelection(NetData.NetMessage.newBuilder())
                 .setNewIdentityRequest(NetData.NewIdentityRequest.newBuilder()
                         .setPreMasterSecret(ByteString.copyFrom(encryptedPreMasterSecret))
                         .setRandom(ByteString.copyFrom(clientRandom)))
@@ -242,5 +267,24 @@ private void requestIdentity(ChannelHandlerContext ctx) {
         requestedCertificate = true;
     }
 
+    private NetData.NetMessage.Builder withCompressionSelection(NetData.NetMessage.Builder message) {
+        if (selectedCompression != null) {
+            return CompressionNegotiation.addSelection(message, selectedCompression);
+        }
+        return message;
+    }
 
+    /**
+     * Switches to the selected compression, if any. The server switches straight after sending its final handshake
+     * message, so this must happen on receiving it, before any following frame is decoded.
+     *
+     * @param ctx The channel handler context
+     */
+    private void switchCompression(ChannelHandlerContext ctx) {
+        if (selectedCompression != null) {
+            logger.info("Switching to {} compression", selectedCompression);
+            ctx.getPipeline().get(CompressionDecoder.class).setDecompressor(selectedCompression.createDecompressor());
+            selectedCompression = null;
+        }
+    }
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.entitySystem.Component;
+import org.terasology.network.serialization.ServerComponentFieldCheck;
+import org.terasology.persistence.serializers.DecodedEntityData;
+import org.terasology.persistence.serializers.DecodedEvent;
+import org.terasology.persistence.serializers.EventSerializer;
+import org.terasology.persistence.serializers.FieldSerializeCheck;
+import org.terasology.persistence.serializers.NetworkEntitySerializer;
+import org.terasology.persistence.typeHandling.DeserializationException;
+import org.terasology.protobuf.NetData;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A message received from a client, with its entity updates and events deserialized as far as is possible on the netty
+ * thread that received it. The rest of the work is done on the main thread when the message is applied.
+ *
+ */
+final class IncomingMessage {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncomingMessage.class);
+    private static final FieldSerializeCheck<Component> ENTITY_UPDATE_CHECK = new ServerComponentFieldCheck(false, true);
+
+    private final NetData.NetMessage message;
+    private List<DecodedEntityData> entityUpdates;
+    private List<DecodedEvent> events;
+
+    IncomingMessage(NetData.NetMessage message) {
+        this.message = message;
+    }
+
+    /**
+     * Decodes the entity updates and events of the message. Does nothing if the message is already decoded.
+     * <br><br>
+     * Updates and events that fail to decode are logged and left as null.
+     *
+     * @param entitySerializer The serializer for the entity updates
+     * @param eventSerializer  The serializer for the events
+     */
+    void decode(NetworkEntitySerializer entitySerializer, EventSerializer eventSerializer) {
+        if (events != null) {
+            return;
+        }
+
+        List<DecodedEntityData> decodedUpdates = Collections.emptyList();
+        if (message.getUpdateEntityCount() > 0) {
+            decodedUpdates = Lists.newArrayListWithCapacity(message.getUpdateEntityCount());
+            for (NetData.UpdateEntityMessage updateMessage : message.getUpdateEntityList()) {
+                DecodedEntityData decoded = null;
+                try {
+                    decoded = entitySerializer.decode(updateMessage.getEntity(), ENTITY_UPDATE_CHECK);
+                } catch (RuntimeException e) {
+                    logger.error("Error decoding entity update", e);
+                }
+                decodedUpdates.add(decoded);
+            }
+        }
+
+        List<DecodedEvent> decodedEvents = Collections.emptyList();
+        if (message.getEventCount() > 0) {
+            decodedEvents = Lists.newArrayListWithCapacity(message.getEventCount());
+            for (NetData.EventMessage eventMessage : message.getEventList()) {
+                DecodedEvent decoded = null;
+                try {
+                    decoded = eventSerializer.decode(eventMessage.getEvent());
+                } catch (DeserializationException e) {
+                    logger.error("Failed to deserialize event", e);
+                } catch (RuntimeException e) {
+                    logger.error("Error decoding event", e);
+                }
+                decodedEvents.add(decoded);
+            }
+        }
+
+        entityUpdates = decodedUpdates;
+        events = decodedEvents;
+    }
+
+    boolean isDecoded() {
+        return events != null;
+    }
+
+    NetData.NetMessage getMessage() {
+        return message;
+    }
+
+    /**
+     * @return The decoded entity updates, in the same order as {@link NetData.NetMessage#getUpdateEntityList()}
+     */
+    List<DecodedEntityData> getEntityUpdates() {
+        return entityUpdates;
+    }
+
+    /**
+     * @return The decoded events, in the same order as {@link NetData.NetMessage#getEventList()}
+     */
+    List<DecodedEvent> getEvents() {
+        return events;
+    }
+}
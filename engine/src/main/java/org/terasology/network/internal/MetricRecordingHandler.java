@@ -23,6 +23,7 @@
 import org.terasology.network.NetMetricSource;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A generic Netty handler for recording metrics on sent and received bytes and messages.
@@ -36,6 +37,9 @@ public class MetricRecordingHandler extends SimpleChannelHandler implements NetM
     private AtomicInteger receivedBytes = new AtomicInteger();
     private AtomicInteger sentMessages = new AtomicInteger();
     private AtomicInteger sentBytes = new AtomicInteger();
+    private AtomicInteger uncompressedBytes = new AtomicInteger();
+    private AtomicInteger compressedBytes = new AtomicInteger();
+    private AtomicLong compressionTime = new AtomicLong();
 
     @Override
     public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
@@ -53,6 +57,19 @@ public void writeRequested(ChannelHandlerContext ctx, MessageEvent e) throws Exc
         ctx.sendDownstream(e);
     }
 
+    /**
+     * Records the compression or decompression of a single frame.
+     *
+     * @param uncompressedSize The size of the frame before compression
+     * @param compressedSize   The size of the frame after compression
+     * @param nanos            The time spent compressing or decompressing the frame
+     */
+    public void recordCompression(int uncompressedSize, int compressedSize, long nanos) {
+        uncompressedBytes.addAndGet(uncompressedSize);
+        compressedBytes.addAndGet(compressedSize);
+        compressionTime.addAndGet(nanos);
+    }
+
     @Override
     public int getReceivedMessagesSinceLastCall() {
         return receivedMessages.getAndSet(0);
@@ -72,4 +89,19 @@ public int getSentMessagesSinceLastCall() {
     public int getSentBytesSinceLastCall() {
         return sentBytes.getAndSet(0);
     }
+
+    @Override
+    public int getUncompressedBytesSinceLastCall() {
+        return uncompressedBytes.getAndSet(0);
+    }
+
+    @Override
+    public int getCompressedBytesSinceLastCall() {
+        return compressedBytes.getAndSet(0);
+    }
+
+    @Override
+    public long getCompressionTimeSinceLastCall() {
+        return compressionTime.getAndSet(0);
+    }
 }
@@ -17,14 +17,13 @@
 package org.terasology.network.internal;
 
 import com.google.common.base.Objects;
-import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Queues;
-import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 
 import gnu.trove.iterator.TIntIterator;
+import gnu.trove.iterator.TIntObjectIterator;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
 
@@ -50,7 +49,10 @@
 import org.terasology.network.ColorComponent;
 import org.terasology.network.NetMetricSource;
 import org.terasology.network.NetworkComponent;
+import org.terasology.network.RangedEvent;
 import org.terasology.network.serialization.ServerComponentFieldCheck;
+import org.terasology.persistence.serializers.DecodedEntityData;
+import org.terasology.persistence.serializers.DecodedEvent;
 import org.terasology.persistence.serializers.EventSerializer;
 import org.terasology.persistence.serializers.NetworkEntitySerializer;
 import org.terasology.persistence.typeHandling.DeserializationException;
@@ -74,6 +76,7 @@
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -89,8 +92,8 @@ public class NetClient extends AbstractClient implements WorldChangeListener {
     private Time time;
     private NetworkSystemImpl networkSystem;
     private Channel channel;
-    private NetworkEntitySerializer entitySerializer;
-    private EventSerializer eventSerializer;
+    private volatile NetworkEntitySerializer entitySerializer;
+    private volatile EventSerializer eventSerializer;
     private EventLibrary eventLibrary;
     private NetMetricSource metricSource;
     private BiomeManager biomeManager;
@@ -101,11 +104,8 @@ public class NetClient extends AbstractClient implements WorldChangeListener {
 
     // Entity replication data
     private TIntSet netInitial = new TIntHashSet();
-    private TIntSet netDirty = new TIntHashSet();
     private TIntSet netRemoved = new TIntHashSet();
-    private SetMultimap<Integer, Class<? extends Component>> dirtyComponents = LinkedHashMultimap.create();
-    private SetMultimap<Integer, Class<? extends Component>> addedComponents = LinkedHashMultimap.create();
-    private SetMultimap<Integer, Class<? extends Component>> removedComponents = LinkedHashMultimap.create();
+    private ReplicationState replicationState = new ReplicationState();
 
     private String preferredName = "Player";
     private long lastReceivedTime;
@@ -126,8 +126,8 @@ public class NetClient extends AbstractClient implements WorldChangeListener {
     private Set<Vector3i> invalidatedChunks = Sets.newLinkedHashSet();
 
 
-    // Incoming messages
-    private BlockingQueue<NetData.NetMessage> queuedIncomingMessage = Queues.newLinkedBlockingQueue();
+    // Incoming messages, decoded on the netty thread that received them where possible
+    private Queue<IncomingMessage> queuedIncomingMessages = Queues.newConcurrentLinkedQueue();
 
     // Metrics
     private AtomicInteger receivedMessages = new AtomicInteger();
@@ -227,7 +227,6 @@ public void update(boolean netTick) {
             sendEvents(message);
             send(message.build());
         }
-        processReceivedMessages();
     }
 
     private void sendRegisteredBlocks(NetData.NetMessage.Builder message) {
@@ -291,42 +290,49 @@ public void setNetRemoved(int netId) {
         if (!netInitial.remove(netId)) {
             netRemoved.add(netId);
         }
-        dirtyComponents.keySet().remove(netId);
-        addedComponents.keySet().remove(netId);
-        removedComponents.keySet().remove(netId);
-        netDirty.remove(netId);
+        replicationState.remove(netId);
         netRelevant.remove(netId);
     }
 
     public void setComponentAdded(int networkId, Class<? extends Component> component) {
         if (netRelevant.contains(networkId) && !netInitial.contains(networkId)) {
-            if (removedComponents.remove(networkId, component)) {
-                dirtyComponents.put(networkId, component);
-            } else {
-                addedComponents.put(networkId, component);
-                netDirty.add(networkId);
+            int componentId = getComponentId(component);
+            if (componentId >= 0) {
+                replicationState.componentAdded(networkId, componentId);
             }
         }
     }
 
     public void setComponentRemoved(int networkId, Class<? extends Component> component) {
         if (netRelevant.contains(networkId) && !netInitial.contains(networkId)) {
-            if (!addedComponents.remove(networkId, component)) {
-                removedComponents.put(networkId, component);
-                if (!dirtyComponents.remove(networkId, component)) {
-                    netDirty.add(networkId);
-                }
+            int componentId = getComponentId(component);
+            if (componentId >= 0) {
+                replicationState.componentRemoved(networkId, componentId);
             }
         }
     }
 
     public void setComponentDirty(int netId, Class<? extends Component> componentType) {
-        if (netRelevant.contains(netId) && !netInitial.contains(netId) && !addedComponents.get(netId).contains(componentType)) {
-            dirtyComponents.put(netId, componentType);
-            netDirty.add(netId);
+        if (netRelevant.contains(netId) && !netInitial.contains(netId)) {
+            int componentId = getComponentId(componentType);
+            if (componentId >= 0) {
+                replicationState.componentChanged(netId, componentId);
+            }
         }
     }
 
+    private int getComponentId(Class<? extends Component> componentType) {
+        NetworkEntitySerializer serializer = entitySerializer;
+        if (serializer == null) {
+            return -1;
+        }
+        int componentId = serializer.getComponentId(componentType);
+        if (componentId < 0) {
+            logger.error("Component {} has no network id, changes will not be replicated", componentType);
+        }
+        return componentId;
+    }
+
     public void connected(EntityManager entityManager, NetworkEntitySerializer newEntitySerializer,
                           EventSerializer newEventSerializer, EventLibrary newEventLibrary) {
         this.entitySerializer = newEntitySerializer;
@@ -412,17 +418,27 @@ public void onBiomeChanged(Vector3i pos, Biome newBiome, Biome originalBiome) {
         }
     }
 
-    private void processReceivedMessages() {
-        List<NetData.NetMessage> messages = Lists.newArrayListWithExpectedSize(queuedIncomingMessage.size());
-        queuedIncomingMessage.drainTo(messages);
-        for (NetData.NetMessage message : messages) {
-            if (message.hasTime() && message.getTime() > lastReceivedTime) {
-                lastReceivedTime = message.getTime();
-            }
-            processEntityUpdates(message);
-            processEvents(message);
+    /**
+     * Applies the oldest message received from this client, if any. Received messages are applied by the network
+     * system in turn across all clients, within a time budget, so that a flooding client cannot stall the tick.
+     *
+     * @return Whether a message was applied
+     */
+    boolean applyIncomingMessage() {
+        IncomingMessage incoming = queuedIncomingMessages.poll();
+        if (incoming == null) {
+            return false;
+        }
+        // Messages received before this client was connected could not be decoded on arrival
+        incoming.decode(entitySerializer, eventSerializer);
 
+        NetData.NetMessage message = incoming.getMessage();
+        if (message.hasTime() && message.getTime() > lastReceivedTime) {
+            lastReceivedTime = message.getTime();
         }
+        processEntityUpdates(incoming);
+        processEvents(incoming);
+        return true;
     }
 
     private void sendEvents(NetData.NetMessage.Builder message) {
@@ -438,35 +454,39 @@ private void sendEvents(NetData.NetMessage.Builder message) {
         queuedOutgoingEvents.clear();
     }
 
-    private void processEntityUpdates(NetData.NetMessage message) {
-        for (NetData.UpdateEntityMessage updateMessage : message.getUpdateEntityList()) {
-
-            EntityRef currentEntity = networkSystem.getEntity(updateMessage.getNetId());
+    private void processEntityUpdates(IncomingMessage incoming) {
+        List<NetData.UpdateEntityMessage> updateMessages = incoming.getMessage().getUpdateEntityList();
+        List<DecodedEntityData> updates = incoming.getEntityUpdates();
+        for (int i = 0; i < updateMessages.size(); ++i) {
+            DecodedEntityData update = updates.get(i);
+            if (update == null) {
+                continue;
+            }
+            EntityRef currentEntity = networkSystem.getEntity(updateMessages.get(i).getNetId());
             if (networkSystem.getOwner(currentEntity) == this) {
-                entitySerializer.deserializeOnto(currentEntity, updateMessage.getEntity(), new ServerComponentFieldCheck(false, true));
+                update.applyTo(currentEntity);
             }
         }
     }
 
     private void sendDirtyEntities(NetData.NetMessage.Builder message) {
-        TIntIterator dirtyIterator = netDirty.iterator();
+        TIntObjectIterator<ReplicationState.EntityChanges> dirtyIterator = replicationState.iterator();
         while (dirtyIterator.hasNext()) {
-            int netId = dirtyIterator.next();
+            dirtyIterator.advance();
+            int netId = dirtyIterator.key();
+            ReplicationState.EntityChanges changes = dirtyIterator.value();
             EntityRef entity = networkSystem.getEntity(netId);
             if (!entity.exists()) {
                 logger.error("Sending non-existent entity update for netId {}", netId);
             }
             boolean isOwner = networkSystem.getOwner(entity) == this;
-            EntityData.PackedEntity entityData = entitySerializer.serialize(entity, addedComponents.get(netId), dirtyComponents.get(netId), removedComponents.get(netId),
+            EntityData.PackedEntity entityData = entitySerializer.serialize(entity, changes.getAdded(), changes.getChanged(), changes.getRemoved(),
                     new ServerComponentFieldCheck(isOwner, false));
             if (entityData != null) {
                 message.addUpdateEntity(NetData.UpdateEntityMessage.newBuilder().setEntity(entityData).setNetId(netId));
             }
         }
-        netDirty.clear();
-        addedComponents.clear();
-        removedComponents.clear();
-        dirtyComponents.clear();
+        replicationState.clear();
     }
 
     private void sendRemovedEntities(NetData.NetMessage.Builder message) {
@@ -501,20 +521,31 @@ private void sendInitialEntities(NetData.NetMessage.Builder message) {
 
     }
 
-    private void processEvents(NetData.NetMessage message) {
+    private void processEvents(IncomingMessage incoming) {
         boolean lagCompensated = false;
+        float lagCompensatedRange = -1;
         PredictionSystem predictionSystem = CoreRegistry.get(PredictionSystem.class);
-        for (NetData.EventMessage eventMessage : message.getEventList()) {
+        List<NetData.EventMessage> eventMessages = incoming.getMessage().getEventList();
+        List<DecodedEvent> events = incoming.getEvents();
+        for (int i = 0; i < eventMessages.size(); ++i) {
+            NetData.EventMessage eventMessage = eventMessages.get(i);
+            DecodedEvent decodedEvent = events.get(i);
+            if (decodedEvent == null) {
+                continue;
+            }
             try {
-                Event event = eventSerializer.deserialize(eventMessage.getEvent());
-                EventMetadata<?> metadata = eventLibrary.getMetadata(event.getClass());
+                EventMetadata<?> metadata = eventLibrary.getMetadata(decodedEvent.getType());
                 if (metadata.getNetworkEventType() != NetworkEventType.SERVER) {
                     logger.warn("Received non-server event '{}' from client '{}'", metadata, getName());
                     continue;
                 }
-                if (!lagCompensated && metadata.isLagCompensated()) {
-                    if (predictionSystem != null) {
-                        predictionSystem.lagCompensate(getEntity(), lastReceivedTime);
+                Event event = decodedEvent.complete();
+                if (metadata.isLagCompensated()) {
+                    // Rewind again only if this event reaches further than the ones already rewound for
+                    float range = (event instanceof RangedEvent) ? ((RangedEvent) event).getRange() : Float.POSITIVE_INFINITY;
+                    if (predictionSystem != null && range > lagCompensatedRange) {
+                        predictionSystem.lagCompensate(getEntity(), lastReceivedTime, range);
+                        lagCompensatedRange = range;
                     }
                     lagCompensated = true;
                 }
@@ -544,7 +575,13 @@ public void messageReceived(NetData.NetMessage message) {
         int serializedSize = message.getSerializedSize();
         receivedBytes.addAndGet(serializedSize);
         receivedMessages.incrementAndGet();
-        queuedIncomingMessage.offer(message);
+        IncomingMessage incoming = new IncomingMessage(message);
+        NetworkEntitySerializer currentEntitySerializer = entitySerializer;
+        EventSerializer currentEventSerializer = eventSerializer;
+        if (currentEntitySerializer != null && currentEventSerializer != null) {
+            incoming.decode(currentEntitySerializer, currentEventSerializer);
+        }
+        queuedIncomingMessages.offer(incoming);
     }
 
     public NetMetricSource getMetrics() {
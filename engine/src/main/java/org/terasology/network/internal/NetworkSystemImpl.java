@@ -17,6 +17,7 @@
 package org.terasology.network.internal;
 
 import com.google.common.base.Objects;
+import com.google.common.base.Strings;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -44,6 +45,7 @@
 import org.terasology.engine.ComponentSystemManager;
 import org.terasology.engine.SimpleUri;
 import org.terasology.engine.Time;
+import org.terasology.engine.paths.PathManager;
 import org.terasology.engine.module.ModuleManager;
 import org.terasology.engine.module.StandardModuleExtension;
 import org.terasology.engine.subsystem.common.hibernation.HibernationManager;
@@ -61,6 +63,7 @@
 import org.terasology.monitoring.PerformanceMonitor;
 import org.terasology.network.Client;
 import org.terasology.network.JoinStatus;
+import org.terasology.network.NetMetricSource;
 import org.terasology.network.NetworkComponent;
 import org.terasology.network.NetworkMode;
 import org.terasology.network.NetworkSystem;
@@ -68,6 +71,9 @@
 import org.terasology.network.events.ConnectedEvent;
 import org.terasology.network.events.DisconnectedEvent;
 import org.terasology.network.exceptions.HostingFailedException;
+import org.terasology.network.internal.compression.CompressionDictionary;
+import org.terasology.network.internal.compression.CompressionDictionaryTrainer;
+import org.terasology.network.internal.compression.CompressionSettings;
 import org.terasology.network.internal.pipelineFactory.TerasologyClientPipelineFactory;
 import org.terasology.network.internal.pipelineFactory.TerasologyServerPipelineFactory;
 import org.terasology.network.serialization.NetComponentSerializeCheck;
@@ -92,12 +98,15 @@
 import org.terasology.world.chunks.remoteChunkProvider.RemoteChunkProvider;
 import org.terasology.world.generator.WorldGenerator;
 
+import java.io.IOException;
 import java.net.BindException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.InterfaceAddress;
 import java.net.NetworkInterface;
 import java.net.SocketException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Enumeration;
 import java.util.List;
@@ -106,6 +115,8 @@
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
 
 /**
  * Implementation of the Network System using Netty and TCP/IP
@@ -116,6 +127,8 @@ public class NetworkSystemImpl implements EntityChangeSubscriber, NetworkSystem
     private static final int OWNER_DEPTH_LIMIT = 50;
     private static final int NET_TICK_RATE = 50;
     private static final int NULL_NET_ID = 0;
+    private static final int COMPRESSION_SAMPLE_COUNT = 4096;
+    private static final long INCOMING_MESSAGE_BUDGET = TimeUnit.MILLISECONDS.toNanos(4);
 
     // Shared
     private Context context;
@@ -150,6 +163,9 @@ public class NetworkSystemImpl implements EntityChangeSubscriber, NetworkSystem
     private Map<EntityRef, EntityRef> ownerLookup = Maps.newHashMap();
     private SetMultimap<EntityRef, EntityRef> ownedLookup = HashMultimap.create();
     private StorageManager storageManager;
+    private CompressionSettings compressionSettings = CompressionSettings.LEGACY;
+    private CompressionDictionaryTrainer compressionDictionaryTrainer;
+    private int incomingMessageRotation;
 
     // Client only
     private ServerImpl server;
@@ -172,6 +188,10 @@ public void host(int port, boolean dedicatedServer) throws HostingFailedExceptio
                     registerNetworkEntity(entity);
                 }
                 generateSerializationTables();
+                compressionSettings = loadCompressionSettings();
+                if (config.isTrainCompressionDictionary()) {
+                    compressionDictionaryTrainer = new CompressionDictionaryTrainer(COMPRESSION_SAMPLE_COUNT);
+                }
 
                 factory = new NioServerSocketChannelFactory(Executors.newCachedThreadPool(), Executors.newCachedThreadPool());
                 ServerBootstrap bootstrap = new ServerBootstrap(factory);
@@ -263,6 +283,7 @@ public void shutdown() {
         }
         processPendingDisconnects();
         clientList.forEach(this::processRemovedClient);
+        saveCompressionDictionary();
         server = null;
         nextNetId = 1;
         netIdToEntityId.clear();
@@ -293,6 +314,59 @@ public void shutdown() {
         logger.info("Network shutdown");
     }
 
+    private CompressionSettings loadCompressionSettings() {
+        CompressionDictionary dictionary = null;
+        Path dictionaryPath = getCompressionDictionaryPath();
+        if (dictionaryPath != null && Files.isRegularFile(dictionaryPath)) {
+            try {
+                dictionary = CompressionDictionary.load(dictionaryPath);
+            } catch (IOException e) {
+                logger.warn("Failed to load compression dictionary {}", dictionaryPath, e);
+            }
+        }
+        CompressionSettings settings = new CompressionSettings(config.getCompressionMode(), config.getCompressionLevel(), dictionary);
+        logger.info("Offering {} compression to clients", settings);
+        return settings;
+    }
+
+    private void saveCompressionDictionary() {
+        Path dictionaryPath = getCompressionDictionaryPath();
+        if (compressionDictionaryTrainer != null && dictionaryPath != null) {
+            CompressionDictionary dictionary = compressionDictionaryTrainer.train(CompressionDictionary.MAX_SIZE);
+            if (dictionary != null) {
+                try {
+                    dictionary.save(dictionaryPath);
+                    logger.info("Saved {} byte compression dictionary trained on {} messages", dictionary.size(), compressionDictionaryTrainer.getSampleCount());
+                } catch (IOException e) {
+                    logger.error("Failed to save compression dictionary {}", dictionaryPath, e);
+                }
+            }
+        }
+        compressionDictionaryTrainer = null;
+        compressionSettings = CompressionSettings.LEGACY;
+    }
+
+    private Path getCompressionDictionaryPath() {
+        if (Strings.isNullOrEmpty(config.getCompressionDictionary())) {
+            return null;
+        }
+        return PathManager.getInstance().getHomePath().resolve(config.getCompressionDictionary());
+    }
+
+    /**
+     * @return The compression offered to connecting clients
+     */
+    public CompressionSettings getCompressionSettings() {
+        return compressionSettings;
+    }
+
+    /**
+     * @return The trainer sampling outgoing messages, or null if no dictionary is being trained
+     */
+    public CompressionDictionaryTrainer getCompressionDictionaryTrainer() {
+        return compressionDictionaryTrainer;
+    }
+
     @Override
     public Client joinLocal(String preferredName, Color color) {
         Client localClient = new LocalClient(preferredName, color, entityManager);
@@ -319,6 +393,9 @@ public void update() {
                     client.update(netTick);
                 }
                 PerformanceMonitor.endActivity();
+                PerformanceMonitor.startActivity("Apply client messages");
+                applyIncomingMessages();
+                PerformanceMonitor.endActivity();
                 if (server != null) {
                     server.update(netTick);
                 }
@@ -326,6 +403,29 @@ public void update() {
         }
     }
 
+    /**
+     * Applies the messages received from clients, taking one from each client in turn so that a client sending more than
+     * its share cannot hold up the others. Stops once the budget for the tick is spent, leaving the remaining messages
+     * for the next tick - but every client with pending messages gets at least one applied each tick.
+     */
+    private void applyIncomingMessages() {
+        if (netClientList.isEmpty()) {
+            return;
+        }
+        NetClient[] clients = netClientList.toArray(new NetClient[netClientList.size()]);
+        int first = Math.floorMod(incomingMessageRotation++, clients.length);
+        long deadline = System.nanoTime() + INCOMING_MESSAGE_BUDGET;
+        boolean applied = true;
+        boolean firstRound = true;
+        while (applied && (firstRound || System.nanoTime() < deadline)) {
+            applied = false;
+            for (int i = 0; i < clients.length; ++i) {
+                applied |= clients[(first + i) % clients.length].applyIncomingMessage();
+            }
+            firstRound = false;
+        }
+    }
+
     private void processPendingDisconnects() {
         if (!disconnectedClients.isEmpty()) {
             List<NetClient> removedPlayers = Lists.newArrayListWithExpectedSize(disconnectedClients.size());
@@ -726,6 +826,40 @@ public int getOutgoingBytesDelta() {
         }
     }
 
+    @Override
+    public int getUncompressedBytesDelta() {
+        return (int) sumMetrics(NetMetricSource::getUncompressedBytesSinceLastCall);
+    }
+
+    @Override
+    public int getCompressedBytesDelta() {
+        return (int) sumMetrics(NetMetricSource::getCompressedBytesSinceLastCall);
+    }
+
+    @Override
+    public long getCompressionTimeDelta() {
+        return sumMetrics(NetMetricSource::getCompressionTimeSinceLastCall);
+    }
+
+    private long sumMetrics(ToLongFunction<NetMetricSource> metric) {
+        switch (mode) {
+            case LISTEN_SERVER:
+            case DEDICATED_SERVER:
+                long total = 0;
+                for (NetClient client : netClientList) {
+                    total += metric.applyAsLong(client.getMetrics());
+                }
+                return total;
+            case CLIENT:
+                if (server != null) {
+                    return metric.applyAsLong(server.getMetrics());
+                }
+                return 0;
+            default:
+                return 0;
+        }
+    }
+
     long getEntityId(int netId) {
         return netIdToEntityId.get(netId);
     }
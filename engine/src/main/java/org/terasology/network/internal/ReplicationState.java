@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import gnu.trove.iterator.TIntObjectIterator;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+
+/**
+ * Tracks which components of which network entities have been added, changed or removed since the last update was
+ * sent to a client. Entities are keyed by network id and components by the id assigned to their type by the entity
+ * serializer, so marking a change is a primitive map lookup and a bit set, with no boxing. The per-entity bit sets
+ * are pooled and reused between updates.
+ *
+ */
+final class ReplicationState {
+
+    private final TIntObjectMap<EntityChanges> changes = new TIntObjectHashMap<>();
+    private final Deque<EntityChanges> pool = new ArrayDeque<>();
+
+    /**
+     * @return Whether any entity has been marked since the last {@link #clear()}
+     */
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    public void componentAdded(int netId, int componentId) {
+        EntityChanges entityChanges = getOrCreate(netId);
+        if (entityChanges.removed.get(componentId)) {
+            entityChanges.removed.clear(componentId);
+            entityChanges.changed.set(componentId);
+        } else {
+            entityChanges.added.set(componentId);
+        }
+    }
+
+    public void componentRemoved(int netId, int componentId) {
+        EntityChanges entityChanges = getOrCreate(netId);
+        if (entityChanges.added.get(componentId)) {
+            entityChanges.added.clear(componentId);
+        } else {
+            entityChanges.removed.set(componentId);
+            entityChanges.changed.clear(componentId);
+        }
+    }
+
+    public void componentChanged(int netId, int componentId) {
+        EntityChanges entityChanges = getOrCreate(netId);
+        if (!entityChanges.added.get(componentId)) {
+            entityChanges.changed.set(componentId);
+        }
+    }
+
+    /**
+     * Forgets all changes to an entity, for when it stops being relevant to the client.
+     *
+     * @param netId The network id of the entity
+     */
+    public void remove(int netId) {
+        EntityChanges entityChanges = changes.remove(netId);
+        if (entityChanges != null) {
+            release(entityChanges);
+        }
+    }
+
+    /**
+     * @return An iterator over the marked entities, by network id
+     */
+    public TIntObjectIterator<EntityChanges> iterator() {
+        return changes.iterator();
+    }
+
+    public void clear() {
+        TIntObjectIterator<EntityChanges> iterator = changes.iterator();
+        while (iterator.hasNext()) {
+            iterator.advance();
+            release(iterator.value());
+        }
+        changes.clear();
+    }
+
+    private EntityChanges getOrCreate(int netId) {
+        EntityChanges entityChanges = changes.get(netId);
+        if (entityChanges == null) {
+            entityChanges = pool.isEmpty() ? new EntityChanges() : pool.pop();
+            changes.put(netId, entityChanges);
+        }
+        return entityChanges;
+    }
+
+    private void release(EntityChanges entityChanges) {
+        entityChanges.added.clear();
+        entityChanges.changed.clear();
+        entityChanges.removed.clear();
+        pool.push(entityChanges);
+    }
+
+    /**
+     * The components of a single entity that have changed, as bit sets indexed by component id.
+     */
+    static final class EntityChanges {
+        private final BitSet added = new BitSet();
+        private final BitSet changed = new BitSet();
+        private final BitSet removed = new BitSet();
+
+        public BitSet getAdded() {
+            return added;
+        }
+
+        public BitSet getChanged() {
+            return changed;
+        }
+
+        public BitSet getRemoved() {
+            return removed;
+        }
+    }
+}
@@ -29,6 +29,9 @@
 import org.terasology.identity.CertificatePair;
 import org.terasology.identity.IdentityConstants;
 import org.terasology.identity.PublicIdentityCertificate;
+import org.terasology.network.internal.compression.CompressionEncoder;
+import org.terasology.network.internal.compression.CompressionNegotiation;
+import org.terasology.network.internal.compression.CompressionSettings;
 import org.terasology.protobuf.NetData;
 
 import javax.crypto.BadPaddingException;
@@ -50,6 +53,15 @@ public class ServerHandshakeHandler extends SimpleChannelUpstreamHandler {
     private ServerConnectionHandler serverConnectionHandler;
     private byte[] serverRandom = new byte[IdentityConstants.SERVER_CLIENT_RANDOM_LENGTH];
     private NetData.HandshakeHello serverHello;
+    private CompressionSettings offeredCompression;
+    private CompressionSettings selectedCompression;
+
+    /**
+     * @param offeredCompression The compression offered to the client
+     */
+    public ServerHandshakeHandler(CompressionSettings offeredCompression) {
+        this.offeredCompression = offeredCompression;
+    }
 
     @Override
     public void channelOpen(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
@@ -70,7 +82,7 @@ public void channelConnected(ChannelHandlerContext ctx, ChannelStateEvent e) thr
                 .setTimestamp(System.currentTimeMillis())
                 .build();
 
-        e.getChannel().write(NetData.NetMessage.newBuilder()
+        e.getChannel().write(CompressionNegotiation.addOffer(NetData.NetMessage.newBuilder(), offeredCompression)
                 .setHandshakeHello(serverHello)
                 .build());
     }
@@ -78,6 +90,7 @@ public void channelConnected(ChannelHandlerContext ctx, ChannelStateEvent e) thr
     @Override
     public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) {
         NetData.NetMessage message = (NetData.NetMessage) e.getMessage();
+        selectedCompression = CompressionNegotiation.readSelection(message, offeredCompression);
         if (message.hasNewIdentityRequest()) {
             processNewIdentityRequest(message.getNewIdentityRequest(), ctx);
         } else if (message.hasHandshakeHello() && message.hasHandshakeVerification()) {
@@ -108,6 +121,7 @@ private void processClientHandshake(NetData.HandshakeHello clientHello, NetData.
         ctx.getChannel().write(NetData.NetMessage.newBuilder()
                 .setHandshakeVerification(NetData.HandshakeVerification.newBuilder()
                         .setSignature(ByteString.copyFrom(serverSignature))).build());
+        switchCompression(ctx);
 
         // Identity has been established, inform the server handler and withdraw from the pipeline
         ctx.getPipeline().remove(this);
@@ -144,6 +158,7 @@ private void processNewIdentityRequest(NetData.NewIdentityRequest newIdentityReq
                     .setProvisionIdentity(NetData.ProvisionIdentity.newBuilder()
                             .setEncryptedCertificates(ByteString.copyFrom(encryptedCert)))
                     .build());
+            switchCompression(ctx);
 
             // Identity has been established, inform the server handler and withdraw from the pipeline
             ctx.getPipeline().remove(this);
@@ -153,4 +168,17 @@ private void processNewIdentityRequest(NetData.NewIdentityRequest newIdentityReq
             ctx.getChannel().close();
         }
     }
+
+    /**
+     * Switches to the compression the client selected, if any. Must be called straight after sending the final
+     * handshake message, as the client switches on receiving it.
+     *
+     * @param ctx The channel handler context
+     */
+    private void switchCompression(ChannelHandlerContext ctx) {
+        if (selectedCompression != null) {
+            logger.info("Switching to {} compression", selectedCompression);
+            ctx.getPipeline().get(CompressionEncoder.class).setCompressor(selectedCompression.createCompressor());
+        }
+    }
 }
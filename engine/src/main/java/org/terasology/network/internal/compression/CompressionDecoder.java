@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal.compression;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.codec.oneone.OneToOneDecoder;
+import org.terasology.network.internal.MetricRecordingHandler;
+
+/**
+ * Decompresses each incoming frame with a {@link MessageDecompressor} that can be replaced once the compression has
+ * been negotiated. Frames are decoded one at a time on the channel's I/O thread, so a switch made while handling a
+ * message applies from the following frame on.
+ *
+ */
+public class CompressionDecoder extends OneToOneDecoder {
+
+    public static final String NAME = "compressionDecoder";
+
+    private MessageDecompressor decompressor;
+    private MetricRecordingHandler metrics;
+
+    /**
+     * @param decompressor The decompressor to start with, or null if frames arrive uncompressed
+     */
+    public CompressionDecoder(MessageDecompressor decompressor) {
+        this.decompressor = decompressor;
+    }
+
+    /**
+     * @param newDecompressor The decompressor for all following frames, or null if they arrive uncompressed
+     */
+    public void setDecompressor(MessageDecompressor newDecompressor) {
+        this.decompressor = newDecompressor;
+    }
+
+    @Override
+    protected Object decode(ChannelHandlerContext ctx, Channel channel, Object msg) throws Exception {
+        if (!(msg instanceof ChannelBuffer)) {
+            return msg;
+        }
+        ChannelBuffer frame = (ChannelBuffer) msg;
+        if (metrics == null) {
+            metrics = ctx.getPipeline().get(MetricRecordingHandler.class);
+        }
+
+        int compressedSize = frame.readableBytes();
+        if (decompressor == null) {
+            if (metrics != null) {
+                metrics.recordCompression(compressedSize, compressedSize, 0);
+            }
+            return frame;
+        }
+        long start = System.nanoTime();
+        ChannelBuffer result = decompressor.decompress(frame);
+        if (metrics != null) {
+            metrics.recordCompression(result.readableBytes(), compressedSize, System.nanoTime() - start);
+        }
+        return result;
+    }
+}
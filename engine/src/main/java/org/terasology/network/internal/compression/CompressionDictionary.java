@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal.compression;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.Adler32;
+
+/**
+ * A preset dictionary shared by both ends of a connection. Priming the compressor with bytes that commonly appear in
+ * messages (component names, field layouts, common values) greatly improves the compression of small messages.
+ *
+ */
+public final class CompressionDictionary {
+
+    /**
+     * The largest dictionary that can be used. Both zlib and {@link LzCodec} can only refer back this far.
+     */
+    public static final int MAX_SIZE = 32 * 1024;
+
+    private final byte[] data;
+    private final int id;
+
+    public CompressionDictionary(byte[] data) {
+        if (data.length > MAX_SIZE) {
+            this.data = Arrays.copyOfRange(data, data.length - MAX_SIZE, data.length);
+        } else {
+            this.data = data.clone();
+        }
+        Adler32 checksum = new Adler32();
+        checksum.update(this.data);
+        this.id = (int) checksum.getValue();
+    }
+
+    public static CompressionDictionary load(Path path) throws IOException {
+        return new CompressionDictionary(Files.readAllBytes(path));
+    }
+
+    public void save(Path path) throws IOException {
+        Files.write(path, data);
+    }
+
+    /**
+     * @return The dictionary content. Must not be modified.
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    public int size() {
+        return data.length;
+    }
+
+    /**
+     * @return The Adler-32 checksum of the dictionary, as used by zlib to identify it
+     */
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj instanceof CompressionDictionary) {
+            CompressionDictionary other = (CompressionDictionary) obj;
+            return id == other.id && Arrays.equals(data, other.data);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return id;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal.compression;
+
+import com.google.common.collect.Lists;
+import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds a {@link CompressionDictionary} from samples of real message traffic.
+ * <br><br>
+ * Samples are kept in a fixed size reservoir so recording can be left on for a whole session. Training picks the
+ * byte sequences that appear in the most samples and concatenates them, most common last so they sit closest to
+ * the data being compressed.
+ *
+ */
+public class CompressionDictionaryTrainer {
+
+    private static final int GRAM_LENGTH = 8;
+    private static final int SEGMENT_LENGTH = 32;
+    private static final int MAX_SAMPLE_LENGTH = 4096;
+
+    private final int maxSamples;
+    private final List<byte[]> samples;
+    private final Random random = new Random();
+    private long seen;
+
+    public CompressionDictionaryTrainer(int maxSamples) {
+        this.maxSamples = maxSamples;
+        this.samples = Lists.newArrayListWithCapacity(maxSamples);
+    }
+
+    /**
+     * Offers a frame as a sample. The frame's reader index is left unchanged.
+     *
+     * @param frame An uncompressed frame
+     */
+    public void addSample(ChannelBuffer frame) {
+        int length = Math.min(frame.readableBytes(), MAX_SAMPLE_LENGTH);
+        if (length < GRAM_LENGTH) {
+            return;
+        }
+        synchronized (samples) {
+            seen++;
+            int index;
+            if (samples.size() < maxSamples) {
+                index = samples.size();
+                samples.add(null);
+            } else {
+                long slot = (long) (random.nextDouble() * seen);
+                if (slot >= maxSamples) {
+                    return;
+                }
+                index = (int) slot;
+            }
+            byte[] sample = new byte[length];
+            frame.getBytes(frame.readerIndex(), sample);
+            samples.set(index, sample);
+        }
+    }
+
+    public int getSampleCount() {
+        synchronized (samples) {
+            return samples.size();
+        }
+    }
+
+    /**
+     * @param maxSize The maximum size of the dictionary, at most {@link CompressionDictionary#MAX_SIZE}
+     * @return A dictionary trained on the recorded samples, or null if no sequence is shared between samples
+     */
+    public CompressionDictionary train(int maxSize) {
+        List<byte[]> currentSamples;
+        synchronized (samples) {
+            currentSamples = Lists.newArrayList(samples);
+        }
+
+        // Count the number of samples each sequence appears in, and remember where it was first seen
+        TIntIntMap sampleCounts = new TIntIntHashMap();
+        List<Candidate> candidates = Lists.newArrayList();
+        for (byte[] sample : currentSamples) {
+            TIntSet inSample = new TIntHashSet();
+            for (int i = 0; i + GRAM_LENGTH <= sample.length; i++) {
+                int gram = hashGram(sample, i);
+                if (inSample.add(gram)) {
+                    if (sampleCounts.adjustOrPutValue(gram, 1, 1) == 1) {
+                        candidates.add(new Candidate(gram, sample, i));
+                    }
+                }
+            }
+        }
+        for (Candidate candidate : candidates) {
+            candidate.count = sampleCounts.get(candidate.gram);
+        }
+        candidates.sort(Comparator.comparingInt((Candidate c) -> c.count).reversed());
+
+        int limit = Math.min(maxSize, CompressionDictionary.MAX_SIZE);
+        List<byte[]> segments = Lists.newArrayList();
+        TIntSet covered = new TIntHashSet();
+        int size = 0;
+        for (Candidate candidate : candidates) {
+            if (candidate.count < 2 || size >= limit) {
+                break;
+            }
+            if (covered.contains(candidate.gram)) {
+                continue;
+            }
+            int end = Math.min(candidate.sample.length, candidate.position + Math.min(SEGMENT_LENGTH, limit - size));
+            for (int i = candidate.position; i + GRAM_LENGTH <= end; i++) {
+                covered.add(hashGram(candidate.sample, i));
+            }
+            byte[] segment = new byte[end - candidate.position];
+            System.arraycopy(candidate.sample, candidate.position, segment, 0, segment.length);
+            segments.add(segment);
+            size += segment.length;
+        }
+        if (segments.isEmpty()) {
+            return null;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+        for (byte[] segment : Lists.reverse(segments)) {
+            out.write(segment, 0, segment.length);
+        }
+        return new CompressionDictionary(out.toByteArray());
+    }
+
+    private static int hashGram(byte[] data, int offset) {
+        int hash = 17;
+        for (int i = offset; i < offset + GRAM_LENGTH; i++) {
+            hash = hash * 31 + data[i];
+        }
+        return hash;
+    }
+
+    private static final class Candidate {
+        private final int gram;
+        private final byte[] sample;
+        private final int position;
+        private int count;
+
+        Candidate(int gram, byte[] sample, int position) {
+            this.gram = gram;
+            this.sample = sample;
+            this.position = position;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal.compression;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelEvent;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.codec.oneone.OneToOneEncoder;
+import org.terasology.network.internal.MetricRecordingHandler;
+
+/**
+ * Compresses each outgoing frame with a {@link MessageCompressor} that can be replaced once the compression has been
+ * negotiated.
+ *
+ */
+public class CompressionEncoder extends OneToOneEncoder {
+
+    public static final String NAME = "compressionEncoder";
+
+    private volatile MessageCompressor compressor;
+    private final CompressionDictionaryTrainer dictionaryTrainer;
+    private MetricRecordingHandler metrics;
+
+    /**
+     * @param compressor        The compressor to start with, or null to send frames uncompressed
+     * @param dictionaryTrainer If not null, receives samples of all outgoing frames
+     */
+    public CompressionEncoder(MessageCompressor compressor, CompressionDictionaryTrainer dictionaryTrainer) {
+        this.compressor = compressor;
+        this.dictionaryTrainer = dictionaryTrainer;
+    }
+
+    /**
+     * Switches compression. All frames written after this call are compressed with the new compressor.
+     *
+     * @param newCompressor The new compressor, or null to send frames uncompressed
+     */
+    public void setCompressor(MessageCompressor newCompressor) {
+        synchronized (this) {
+            this.compressor = newCompressor;
+        }
+    }
+
+    /**
+     * Compression and the hand off to the next handler happen under one lock, so that frames from different threads
+     * reach the wire in the order their (possibly stateful) compression assumed.
+     */
+    @Override
+    public synchronized void handleDownstream(ChannelHandlerContext ctx, ChannelEvent evt) throws Exception {
+        super.handleDownstream(ctx, evt);
+    }
+
+    @Override
+    protected Object encode(ChannelHandlerContext ctx, Channel channel, Object msg) throws Exception {
+        if (!(msg instanceof ChannelBuffer)) {
+            return msg;
+        }
+        ChannelBuffer frame = (ChannelBuffer) msg;
+        if (dictionaryTrainer != null) {
+            dictionaryTrainer.addSample(frame);
+        }
+        if (metrics == null) {
+            metrics = ctx.getPipeline().get(MetricRecordingHandler.class);
+        }
+
+        int uncompressedSize = frame.readableBytes();
+        if (compressor == null) {
+            if (metrics != null) {
+                metrics.recordCompression(uncompressedSize, uncompressedSize, 0);
+            }
+            return frame;
+        }
+        long start = System.nanoTime();
+        ChannelBuffer result = compressor.compress(frame);
+        if (metrics != null) {
+            metrics.recordCompression(uncompressedSize, result.readableBytes(), System.nanoTime() - start);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal.compression;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnknownFieldSet;
+import org.terasology.network.CompressionMode;
+import org.terasology.protobuf.NetData;
+
+import java.util.zip.Deflater;
+
+/**
+ * Negotiation of the server to client compression during the authentication handshake.
+ * <br><br>
+ * The server offers its preferred modes (and dictionary, if it has one) alongside its hello. The client picks one and
+ * states its choice alongside its reply. Both ends start with {@link CompressionSettings#LEGACY} and switch once the
+ * server's final handshake message has been sent. An end that does not understand the fields ignores them, and the
+ * connection keeps the legacy compression.
+ * <br><br>
+ * The fields are carried in the extension range of {@link NetData.NetMessage} so they do not change the generated
+ * message classes.
+ *
+ */
+public final class CompressionNegotiation {
+
+    private static final int OFFERED_MODES_FIELD = 5000;
+    private static final int DICTIONARY_FIELD = 5001;
+    private static final int SELECTED_MODE_FIELD = 5002;
+    private static final int USE_DICTIONARY_FIELD = 5003;
+
+    private CompressionNegotiation() {
+    }
+
+    /**
+     * Adds the server's offer to its hello message. The preferred mode is offered first, followed by the other modes.
+     *
+     * @param message   The message carrying the server hello
+     * @param preferred The server's configured compression
+     * @return The message builder
+     */
+    public static NetData.NetMessage.Builder addOffer(NetData.NetMessage.Builder message, CompressionSettings preferred) {
+        UnknownFieldSet.Field.Builder modes = UnknownFieldSet.Field.newBuilder().addVarint(preferred.getMode().getId());
+        for (CompressionMode mode : CompressionMode.values()) {
+            if (mode != preferred.getMode()) {
+                modes.addVarint(mode.getId());
+            }
+        }
+        UnknownFieldSet.Builder fields = UnknownFieldSet.newBuilder().addField(OFFERED_MODES_FIELD, modes.build());
+        if (preferred.getDictionary() != null) {
+            fields.addField(DICTIONARY_FIELD, UnknownFieldSet.Field.newBuilder()
+                    .addLengthDelimited(ByteString.copyFrom(preferred.getDictionary().getData())).build());
+        }
+        return message.mergeUnknownFields(fields.build());
+    }
+
+    /**
+     * Picks the compression to use from the server's offer.
+     *
+     * @param serverHello The message carrying the server hello
+     * @return The chosen compression, or null if the server made no offer
+     */
+    public static CompressionSettings selectFromOffer(NetData.NetMessage serverHello) {
+        UnknownFieldSet fields = serverHello.getUnknownFields();
+        if (!fields.hasField(OFFERED_MODES_FIELD)) {
+            return null;
+        }
+        for (long id : fields.getField(OFFERED_MODES_FIELD).getVarintList()) {
+            CompressionMode mode = CompressionMode.fromId((int) id);
+            if (mode != null) {
+                CompressionDictionary dictionary = null;
+                if (fields.hasField(DICTIONARY_FIELD) && !fields.getField(DICTIONARY_FIELD).getLengthDelimitedList().isEmpty()) {
+                    dictionary = new CompressionDictionary(fields.getField(DICTIONARY_FIELD).getLengthDelimitedList().get(0).toByteArray());
+                }
+                return new CompressionSettings(mode, Deflater.DEFAULT_COMPRESSION, dictionary);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds the client's choice to its reply to the server hello.
+     *
+     * @param message  The message carrying the client's reply
+     * @param selected The compression chosen by {@link #selectFromOffer(NetData.NetMessage)}
+     * @return The message builder
+     */
+    public static NetData.NetMessage.Builder addSelection(NetData.NetMessage.Builder message, CompressionSettings selected) {
+        return message.mergeUnknownFields(UnknownFieldSet.newBuilder()
+                .addField(SELECTED_MODE_FIELD, UnknownFieldSet.Field.newBuilder().addVarint(selected.getMode().getId()).build())
+                .addField(USE_DICTIONARY_FIELD, UnknownFieldSet.Field.newBuilder().addVarint(selected.getDictionary() != null ? 1 : 0).build())
+                .build());
+    }
+
+    /**
+     * Reads the client's choice from its reply to the server hello.
+     *
+     * @param clientReply The message carrying the client's reply
+     * @param offered     The compression the server offered
+     * @return The compression the server should switch to, or null if the client made no valid choice
+     */
+    public static CompressionSettings readSelection(NetData.NetMessage clientReply, CompressionSettings offered) {
+        UnknownFieldSet fields = clientReply.getUnknownFields();
+        if (!fields.hasField(SELECTED_MODE_FIELD) || fields.getField(SELECTED_MODE_FIELD).getVarintList().isEmpty()) {
+            return null;
+        }
+        CompressionMode mode = CompressionMode.fromId(fields.getField(SELECTED_MODE_FIELD).getVarintList().get(0).intValue());
+        if (mode == null) {
+            return null;
+        }
+        boolean useDictionary = fields.hasField(USE_DICTIONARY_FIELD)
+                && !fields.getField(USE_DICTIONARY_FIELD).getVarintList().isEmpty()
+                && fields.getField(USE_DICTIONARY_FIELD).getVarintList().get(0) != 0;
+        return new CompressionSettings(mode, offered.getLevel(), useDictionary ? offered.getDictionary() : null);
+    }
+}
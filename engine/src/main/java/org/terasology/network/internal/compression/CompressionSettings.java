@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal.compression;
+
+import org.terasology.network.CompressionMode;
+
+import java.util.zip.Deflater;
+
+/**
+ * The compression used by one connection: the mode, the zlib level and the optional preset dictionary.
+ *
+ */
+public final class CompressionSettings {
+
+    /**
+     * The compression every connection starts with, and keeps if the other end does not take part in negotiation.
+     */
+    public static final CompressionSettings LEGACY = new CompressionSettings(CompressionMode.ZLIB, Deflater.DEFAULT_COMPRESSION, null);
+
+    private final CompressionMode mode;
+    private final int level;
+    private final CompressionDictionary dictionary;
+
+    /**
+     * @param mode       The compression mode
+     * @param level      The deflate level, only used by {@link CompressionMode#ZLIB}
+     * @param dictionary An optional preset dictionary, may be null
+     */
+    public CompressionSettings(CompressionMode mode, int level, CompressionDictionary dictionary) {
+        this.mode = mode;
+        this.level = level;
+        this.dictionary = dictionary;
+    }
+
+    public CompressionMode getMode() {
+        return mode;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public CompressionDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * @return A new compressor for a single connection, or null if frames should be sent as they are
+     */
+    public MessageCompressor createCompressor() {
+        switch (mode) {
+            case ZLIB:
+                return new ZlibMessageCompressor(level, dictionary);
+            case LZ:
+                return new LzMessageCompressor(dictionary);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return A new decompressor for a single connection, or null if frames are received as they are
+     */
+    public MessageDecompressor createDecompressor() {
+        switch (mode) {
+            case ZLIB:
+                return new ZlibMessageDecompressor(dictionary);
+            case LZ:
+                return new LzMessageDecompressor(dictionary);
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (dictionary != null) {
+            return mode + " with " + dictionary.size() + " byte dictionary";
+        }
+        return mode.toString();
+    }
+}
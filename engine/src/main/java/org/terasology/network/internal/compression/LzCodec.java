@@ -0,0 +1,230 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal.compression;
+
+import org.jboss.netty.handler.codec.compression.CompressionException;
+
+import java.util.Arrays;
+
+/**
+ * A small, fast LZ77 block codec in the style of LZ4. A block is a sequence of (literals, match) pairs:
+ * <ul>
+ * <li>a token byte - the high nibble is the literal length, the low nibble the match length minus {@link #MIN_MATCH}</li>
+ * <li>extra literal length bytes when the nibble is 15, each adding up to 255</li>
+ * <li>the literals</li>
+ * <li>a two byte little-endian offset back to the start of the match</li>
+ * <li>extra match length bytes when the nibble is 15</li>
+ * </ul>
+ * The final sequence contains literals only.
+ * <br><br>
+ * Both directions work on a buffer whose leading bytes may be a preset dictionary: matches may refer back into it but
+ * it is never emitted itself.
+ *
+ */
+public final class LzCodec {
+
+    public static final int MAX_OFFSET = 0xFFFF;
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MATCH_FIND_LIMIT = 12;
+    private static final int HASH_LOG = 14;
+    private static final int HASH_TABLE_SIZE = 1 << HASH_LOG;
+    private static final int RUN_MASK = 0xF;
+
+    private LzCodec() {
+    }
+
+    /**
+     * @return A hash table suitable for passing to {@link #compress}. It can be reused between calls.
+     */
+    public static int[] createHashTable() {
+        return new int[HASH_TABLE_SIZE];
+    }
+
+    /**
+     * Hashes a preset dictionary once, so that it does not have to be hashed again for every block compressed with it.
+     *
+     * @param buf              The buffer starting with the dictionary
+     * @param dictionaryLength The length of the dictionary
+     * @return A hash table of the dictionary, suitable for passing to {@link #compress}. It must not be modified.
+     */
+    public static int[] createDictionaryTable(byte[] buf, int dictionaryLength) {
+        int[] dictionaryTable = createHashTable();
+        Arrays.fill(dictionaryTable, -1);
+        for (int i = Math.max(0, dictionaryLength - MAX_OFFSET); i + MIN_MATCH <= dictionaryLength; i++) {
+            dictionaryTable[hash(readInt(buf, i))] = i;
+        }
+        return dictionaryTable;
+    }
+
+    /**
+     * @param length The number of bytes to compress
+     * @return The worst case size of the compressed block
+     */
+    public static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses buf[start, end), allowing matches against buf[0, start).
+     *
+     * @param buf             The buffer holding the dictionary followed by the data to compress
+     * @param start           The start of the data to compress, and so the length of the dictionary
+     * @param end             The end of the data to compress
+     * @param dst             The buffer to write the compressed block to
+     * @param dstOffset       The offset in dst to start writing at
+     * @param hashTable       A table from {@link #createHashTable()}
+     * @param dictionaryTable The table of buf[0, start) from {@link #createDictionaryTable(byte[], int)}
+     * @return The offset in dst after the end of the compressed block
+     */
+    public static int compress(byte[] buf, int start, int end, byte[] dst, int dstOffset, int[] hashTable, int[] dictionaryTable) {
+        System.arraycopy(dictionaryTable, 0, hashTable, 0, HASH_TABLE_SIZE);
+
+        int anchor = start;
+        int ip = start;
+        int op = dstOffset;
+        int matchLimit = end - LAST_LITERALS;
+        int findLimit = end - MATCH_FIND_LIMIT;
+        while (ip < findLimit) {
+            int sequence = readInt(buf, ip);
+            int h = hash(sequence);
+            int ref = hashTable[h];
+            hashTable[h] = ip;
+            if (ref < 0 || ip - ref > MAX_OFFSET || readInt(buf, ref) != sequence) {
+                ip++;
+                continue;
+            }
+            while (ip > anchor && ref > 0 && buf[ip - 1] == buf[ref - 1]) {
+                ip--;
+                ref--;
+            }
+            int matchLength = MIN_MATCH;
+            while (ip + matchLength < matchLimit && buf[ref + matchLength] == buf[ip + matchLength]) {
+                matchLength++;
+            }
+            op = writeSequence(buf, anchor, ip - anchor, ip - ref, matchLength, dst, op);
+            ip += matchLength;
+            anchor = ip;
+        }
+
+        int literalLength = end - anchor;
+        dst[op++] = (byte) (Math.min(literalLength, RUN_MASK) << 4);
+        op = writeLength(literalLength, dst, op);
+        System.arraycopy(buf, anchor, dst, op, literalLength);
+        return op + literalLength;
+    }
+
+    /**
+     * Decompresses a block into out[start, end). out[0, start) must already hold the dictionary used to compress it.
+     *
+     * @param src    The compressed block
+     * @param offset The offset of the block in src
+     * @param length The length of the block
+     * @param out    The buffer to decompress into
+     * @param start  The offset to start writing at, and so the length of the dictionary
+     * @param end    The expected end of the decompressed data
+     * @throws CompressionException If the block is corrupt or does not decompress to exactly end - start bytes
+     */
+    public static void decompress(byte[] src, int offset, int length, byte[] out, int start, int end) {
+        int ip = offset;
+        int srcEnd = offset + length;
+        int op = start;
+        while (ip < srcEnd) {
+            int token = src[ip++] & 0xFF;
+
+            int literalLength = token >>> 4;
+            if (literalLength == RUN_MASK) {
+                int b;
+                do {
+                    checkAvailable(ip, 1, srcEnd);
+                    b = src[ip++] & 0xFF;
+                    literalLength += b;
+                } while (b == 255);
+            }
+            checkAvailable(ip, literalLength, srcEnd);
+            checkAvailable(op, literalLength, end);
+            System.arraycopy(src, ip, out, op, literalLength);
+            ip += literalLength;
+            op += literalLength;
+            if (ip == srcEnd) {
+                break;
+            }
+
+            checkAvailable(ip, 2, srcEnd);
+            int matchOffset = (src[ip] & 0xFF) | ((src[ip + 1] & 0xFF) << 8);
+            ip += 2;
+            if (matchOffset == 0 || matchOffset > op) {
+                throw new CompressionException("Invalid match offset " + matchOffset);
+            }
+            int matchLength = (token & RUN_MASK);
+            if (matchLength == RUN_MASK) {
+                int b;
+                do {
+                    checkAvailable(ip, 1, srcEnd);
+                    b = src[ip++] & 0xFF;
+                    matchLength += b;
+                } while (b == 255);
+            }
+            matchLength += MIN_MATCH;
+            checkAvailable(op, matchLength, end);
+            int ref = op - matchOffset;
+            for (int i = 0; i < matchLength; i++) {
+                out[op++] = out[ref++];
+            }
+        }
+        if (op != end) {
+            throw new CompressionException("Decompressed " + (op - start) + " bytes, expected " + (end - start));
+        }
+    }
+
+    private static int writeSequence(byte[] buf, int literalStart, int literalLength, int matchOffset, int matchLength, byte[] dst, int op) {
+        int extraMatch = matchLength - MIN_MATCH;
+        dst[op++] = (byte) ((Math.min(literalLength, RUN_MASK) << 4) | Math.min(extraMatch, RUN_MASK));
+        op = writeLength(literalLength, dst, op);
+        System.arraycopy(buf, literalStart, dst, op, literalLength);
+        op += literalLength;
+        dst[op++] = (byte) matchOffset;
+        dst[op++] = (byte) (matchOffset >>> 8);
+        return writeLength(extraMatch, dst, op);
+    }
+
+    private static int writeLength(int length, byte[] dst, int op) {
+        if (length >= RUN_MASK) {
+            int remaining = length - RUN_MASK;
+            while (remaining >= 255) {
+                dst[op++] = (byte) 255;
+                remaining -= 255;
+            }
+            dst[op++] = (byte) remaining;
+        }
+        return op;
+    }
+
+    private static void checkAvailable(int position, int count, int limit) {
+        if (count < 0 || position + count > limit) {
+            throw new CompressionException("Corrupt compressed block");
+        }
+    }
+
+    private static int readInt(byte[] buf, int i) {
+        return (buf[i] & 0xFF) | ((buf[i + 1] & 0xFF) << 8) | ((buf[i + 2] & 0xFF) << 16) | ((buf[i + 3] & 0xFF) << 24);
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal.compression;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+/**
+ * Compresses each frame independently with {@link LzCodec}. Frames are prefixed with their uncompressed length.
+ *
+ */
+public class LzMessageCompressor implements MessageCompressor {
+
+    private final int[] hashTable = LzCodec.createHashTable();
+    private final int[] dictionaryTable;
+    private final int dictionaryLength;
+    private byte[] work;
+
+    /**
+     * @param dictionary An optional preset dictionary, may be null
+     */
+    public LzMessageCompressor(CompressionDictionary dictionary) {
+        dictionaryLength = (dictionary != null) ? dictionary.size() : 0;
+        work = new byte[dictionaryLength + 1024];
+        if (dictionary != null) {
+            System.arraycopy(dictionary.getData(), 0, work, 0, dictionaryLength);
+        }
+        dictionaryTable = LzCodec.createDictionaryTable(work, dictionaryLength);
+    }
+
+    @Override
+    public ChannelBuffer compress(ChannelBuffer frame) {
+        int length = frame.readableBytes();
+        if (work.length < dictionaryLength + length) {
+            byte[] newWork = new byte[dictionaryLength + Math.max(length, 2 * (work.length - dictionaryLength))];
+            System.arraycopy(work, 0, newWork, 0, dictionaryLength);
+            work = newWork;
+        }
+        frame.readBytes(work, dictionaryLength, length);
+
+        byte[] compressed = new byte[4 + LzCodec.maxCompressedLength(length)];
+        compressed[0] = (byte) (length >>> 24);
+        compressed[1] = (byte) (length >>> 16);
+        compressed[2] = (byte) (length >>> 8);
+        compressed[3] = (byte) length;
+        int end = LzCodec.compress(work, dictionaryLength, dictionaryLength + length, compressed, 4, hashTable, dictionaryTable);
+        return ChannelBuffers.wrappedBuffer(compressed, 0, end);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal.compression;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.handler.codec.compression.CompressionException;
+
+/**
+ * Decompresses frames produced by a {@link LzMessageCompressor}.
+ *
+ */
+public class LzMessageDecompressor implements MessageDecompressor {
+
+    /**
+     * Guards against corrupt or malicious length prefixes. Matches the largest frame the client pipeline accepts.
+     */
+    private static final int MAX_FRAME_LENGTH = 8388608;
+
+    private final int dictionaryLength;
+    private byte[] input = new byte[1024];
+    private byte[] work;
+
+    /**
+     * @param dictionary The preset dictionary the frames were compressed with, may be null
+     */
+    public LzMessageDecompressor(CompressionDictionary dictionary) {
+        dictionaryLength = (dictionary != null) ? dictionary.size() : 0;
+        work = new byte[dictionaryLength + 1024];
+        if (dictionary != null) {
+            System.arraycopy(dictionary.getData(), 0, work, 0, dictionaryLength);
+        }
+    }
+
+    @Override
+    public ChannelBuffer decompress(ChannelBuffer frame) {
+        if (frame.readableBytes() < 4) {
+            throw new CompressionException("Truncated frame");
+        }
+        int uncompressedLength = frame.readInt();
+        if (uncompressedLength < 0 || uncompressedLength > MAX_FRAME_LENGTH) {
+            throw new CompressionException("Invalid frame length " + uncompressedLength);
+        }
+        int length = frame.readableBytes();
+        if (input.length < length) {
+            input = new byte[Math.max(length, input.length * 2)];
+        }
+        frame.readBytes(input, 0, length);
+
+        if (work.length < dictionaryLength + uncompressedLength) {
+            byte[] newWork = new byte[dictionaryLength + Math.max(uncompressedLength, 2 * (work.length - dictionaryLength))];
+            System.arraycopy(work, 0, newWork, 0, dictionaryLength);
+            work = newWork;
+        }
+        LzCodec.decompress(input, 0, length, work, dictionaryLength, dictionaryLength + uncompressedLength);
+        return ChannelBuffers.copiedBuffer(work, dictionaryLength, uncompressedLength);
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal.compression;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+/**
+ * Compresses the frames sent over a single connection. Implementations may keep state between frames, so frames must
+ * be compressed in the order they are sent, and decompressed in that same order by the matching
+ * {@link MessageDecompressor}.
+ *
+ */
+public interface MessageCompressor {
+
+    /**
+     * @param frame The uncompressed frame. Its readable bytes are consumed.
+     * @return The compressed frame
+     */
+    ChannelBuffer compress(ChannelBuffer frame);
+}
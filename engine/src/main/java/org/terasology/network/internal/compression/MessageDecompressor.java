@@ -0,0 +1,34 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal.compression;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.handler.codec.compression.CompressionException;
+
+/**
+ * Decompresses the frames received over a single connection, in the order they were compressed by the matching
+ * {@link MessageCompressor}.
+ *
+ */
+public interface MessageDecompressor {
+
+    /**
+     * @param frame The compressed frame. Its readable bytes are consumed.
+     * @return The uncompressed frame
+     * @throws CompressionException If the frame could not be decompressed
+     */
+    ChannelBuffer decompress(ChannelBuffer frame);
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal.compression;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import java.util.zip.Deflater;
+
+/**
+ * Compresses all frames of a connection as a single zlib stream, sync flushing after each frame so it can be
+ * decompressed as soon as it is received. This is compatible with netty's ZlibDecoder.
+ *
+ */
+public class ZlibMessageCompressor implements MessageCompressor {
+
+    private final Deflater deflater;
+    private byte[] input = new byte[1024];
+    private final byte[] output = new byte[8192];
+
+    /**
+     * @param level      The deflate level, from 0 (none) to 9 (best), or -1 for the default
+     * @param dictionary An optional preset dictionary, may be null
+     */
+    public ZlibMessageCompressor(int level, CompressionDictionary dictionary) {
+        deflater = new Deflater(level);
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary.getData());
+        }
+    }
+
+    @Override
+    public ChannelBuffer compress(ChannelBuffer frame) {
+        int length = frame.readableBytes();
+        if (input.length < length) {
+            input = new byte[Math.max(length, input.length * 2)];
+        }
+        frame.readBytes(input, 0, length);
+        deflater.setInput(input, 0, length);
+
+        ChannelBuffer result = ChannelBuffers.dynamicBuffer(length / 2 + 16);
+        int written;
+        do {
+            written = deflater.deflate(output, 0, output.length, Deflater.SYNC_FLUSH);
+            result.writeBytes(output, 0, written);
+        } while (written == output.length);
+        return result;
+    }
+}
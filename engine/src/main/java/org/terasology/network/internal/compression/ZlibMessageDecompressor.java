@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal.compression;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.handler.codec.compression.CompressionException;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decompresses frames produced by a {@link ZlibMessageCompressor}, or by netty's ZlibEncoder.
+ *
+ */
+public class ZlibMessageDecompressor implements MessageDecompressor {
+
+    private final Inflater inflater = new Inflater();
+    private final CompressionDictionary dictionary;
+    private byte[] input = new byte[1024];
+    private final byte[] output = new byte[8192];
+
+    /**
+     * @param dictionary The preset dictionary the stream was compressed with, may be null
+     */
+    public ZlibMessageDecompressor(CompressionDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public ChannelBuffer decompress(ChannelBuffer frame) {
+        int length = frame.readableBytes();
+        if (input.length < length) {
+            input = new byte[Math.max(length, input.length * 2)];
+        }
+        frame.readBytes(input, 0, length);
+        inflater.setInput(input, 0, length);
+
+        ChannelBuffer result = ChannelBuffers.dynamicBuffer(length * 2 + 16);
+        try {
+            while (true) {
+                int written = inflater.inflate(output);
+                if (written > 0) {
+                    result.writeBytes(output, 0, written);
+                } else if (inflater.needsDictionary()) {
+                    if (dictionary == null || dictionary.getId() != inflater.getAdler()) {
+                        throw new CompressionException("Stream requires an unknown preset dictionary");
+                    }
+                    inflater.setDictionary(dictionary.getData());
+                } else {
+                    break;
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new CompressionException("Corrupt zlib stream", e);
+        }
+        return result;
+    }
+}
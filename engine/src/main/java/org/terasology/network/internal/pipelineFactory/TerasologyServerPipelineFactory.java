@@ -18,7 +18,6 @@
 
 import org.jboss.netty.channel.ChannelPipeline;
 import org.jboss.netty.channel.ChannelPipelineFactory;
-import org.jboss.netty.handler.codec.compression.ZlibEncoder;
 import org.jboss.netty.handler.codec.frame.LengthFieldPrepender;
 import org.jboss.netty.handler.codec.protobuf.ProtobufDecoder;
 import org.jboss.netty.handler.codec.protobuf.ProtobufEncoder;
@@ -29,6 +28,8 @@
 import org.terasology.network.internal.ServerConnectionHandler;
 import org.terasology.network.internal.ServerHandler;
 import org.terasology.network.internal.ServerHandshakeHandler;
+import org.terasology.network.internal.compression.CompressionEncoder;
+import org.terasology.network.internal.compression.CompressionSettings;
 import org.terasology.protobuf.NetData;
 
 import static org.jboss.netty.channel.Channels.pipeline;
@@ -54,11 +55,12 @@ public ChannelPipeline getPipeline() throws Exception {
         p.addLast("protobufDecoder", new ProtobufDecoder(NetData.NetMessage.getDefaultInstance()));
 
         p.addLast("frameLengthEncoder", new LengthFieldPrepender(3));
-        p.addLast("deflateEncoder", new ZlibEncoder());
+        p.addLast(CompressionEncoder.NAME, new CompressionEncoder(CompressionSettings.LEGACY.createCompressor(),
+                networkSystem.getCompressionDictionaryTrainer()));
         p.addLast("frameEncoder", new ProtobufVarint32LengthFieldPrepender());
         p.addLast("protobufEncoder", new ProtobufEncoder());
 
-        p.addLast("authenticationHandler", new ServerHandshakeHandler());
+        p.addLast("authenticationHandler", new ServerHandshakeHandler(networkSystem.getCompressionSettings()));
         p.addLast("connectionHandler", new ServerConnectionHandler(networkSystem));
         p.addLast("handler", new ServerHandler(networkSystem));
         return p;
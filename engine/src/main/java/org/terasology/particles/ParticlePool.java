@@ -103,6 +103,23 @@ public int reviveParticle() {
         return firstDeadParticleIndex - 1;
     }
 
+    /**
+     * Revives a contiguous range of particles at once, so that generators can initialise them in bulk.
+     *
+     * @param count The number of particles to revive, at most {@link #deadParticles()}
+     * @return The index of the first revived particle
+     */
+    public int reviveParticles(final int count) {
+        Preconditions.checkArgument(count >= 0 && count <= deadParticles(), "Can not revive %s particles", count);
+        final int first = firstDeadParticleIndex;
+        for (int i = first; i < first + count; i++) {
+            resetParticleData(i);
+        }
+        firstDeadParticleIndex += count;
+
+        return first;
+    }
+
     public void moveDeceasedParticle(final int index) {
         firstDeadParticleIndex--;
         // First dead particle now points to the last living particle and there is a dead particle in the living pool.
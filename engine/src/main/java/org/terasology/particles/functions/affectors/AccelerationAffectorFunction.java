@@ -17,6 +17,7 @@
 
 import org.terasology.particles.ParticleData;
 import org.terasology.particles.ParticleDataMask;
+import org.terasology.particles.ParticlePool;
 import org.terasology.particles.components.affectors.AccelerationAffectorComponent;
 import org.terasology.utilities.random.Random;
 
@@ -40,4 +41,23 @@ public void update(final AccelerationAffectorComponent component,
                 component.acceleration.z() * delta
         );
     }
+
+    @Override
+    public void updateRange(final AccelerationAffectorComponent component,
+                            final ParticlePool pool,
+                            final int from,
+                            final int to,
+                            final Random random,
+                            final float delta
+    ) {
+        final float[] velocity = pool.velocity;
+        final float dx = component.acceleration.x() * delta;
+        final float dy = component.acceleration.y() * delta;
+        final float dz = component.acceleration.z() * delta;
+        for (int i = from * 3; i < to * 3; i += 3) {
+            velocity[i] += dx;
+            velocity[i + 1] += dy;
+            velocity[i + 2] += dz;
+        }
+    }
 }
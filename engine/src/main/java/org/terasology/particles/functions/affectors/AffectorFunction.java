@@ -19,6 +19,7 @@
 import org.terasology.module.sandbox.API;
 import org.terasology.particles.ParticleData;
 import org.terasology.particles.ParticleDataMask;
+import org.terasology.particles.ParticlePool;
 import org.terasology.particles.functions.ParticleSystemFunction;
 import org.terasology.utilities.random.Random;
 
@@ -34,6 +35,22 @@ public AffectorFunction(Class<T> affectorComponent, ParticleDataMask dataMask, P
 
     public abstract void update(T component, ParticleData particleData, Random random, float delta);
 
+    /**
+     * Applies this affector to the particles [from, to) of a pool, working on the arrays of the pool directly.
+     * <br><br>
+     * The default implementation copies each particle in turn to the temporary data of the pool and calls
+     * {@link #update}. Affectors should override it with plain loops over the arrays, which the JIT can vectorise.
+     * Particle systems are updated in parallel, so this must not change state shared with other particle systems.
+     */
+    public void updateRange(T component, ParticlePool pool, int from, int to, Random random, float delta) {
+        final int mask = ParticleDataMask.ALL.toInt();
+        for (int i = from; i < to; i++) {
+            pool.loadTemporaryDataFrom(i, mask);
+            update(component, pool.temporaryParticleData, random, delta);
+            pool.storeTemporaryDataAt(i, mask);
+        }
+    }
+
     public void beforeUpdates(T component, Random random, float delta) {
         // does nothing by default
     }
@@ -17,6 +17,7 @@
 
 import org.terasology.particles.ParticleData;
 import org.terasology.particles.ParticleDataMask;
+import org.terasology.particles.ParticlePool;
 import org.terasology.particles.components.affectors.VelocityAffectorComponent;
 import org.terasology.utilities.random.Random;
 
@@ -40,4 +41,19 @@ public void update(final VelocityAffectorComponent component,
                 particleData.velocity.z() * delta
         );
     }
+
+    @Override
+    public void updateRange(final VelocityAffectorComponent component,
+                            final ParticlePool pool,
+                            final int from,
+                            final int to,
+                            final Random random,
+                            final float delta
+    ) {
+        final float[] position = pool.position;
+        final float[] velocity = pool.velocity;
+        for (int i = from * 3; i < to * 3; i++) {
+            position[i] += velocity[i] * delta;
+        }
+    }
 }
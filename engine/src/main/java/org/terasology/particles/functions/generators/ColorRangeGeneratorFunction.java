@@ -17,6 +17,7 @@
 
 import org.terasology.particles.ParticleData;
 import org.terasology.particles.ParticleDataMask;
+import org.terasology.particles.ParticlePool;
 import org.terasology.particles.components.generators.ColorRangeGeneratorComponent;
 import org.terasology.utilities.random.Random;
 
@@ -39,4 +40,20 @@ public void onEmission(final ColorRangeGeneratorComponent component,
         particleData.color.setZ(random.nextFloat(component.minColorComponents.z(), component.maxColorComponents.z()));
         particleData.color.setW(random.nextFloat(component.minColorComponents.w(), component.maxColorComponents.w()));
     }
+
+    @Override
+    public void onEmissionRange(final ColorRangeGeneratorComponent component,
+                                final ParticlePool pool,
+                                final int from,
+                                final int to,
+                                final Random random
+    ) {
+        final float[] color = pool.color;
+        for (int i = from * 4; i < to * 4; i += 4) {
+            color[i] = random.nextFloat(component.minColorComponents.x(), component.maxColorComponents.x());
+            color[i + 1] = random.nextFloat(component.minColorComponents.y(), component.maxColorComponents.y());
+            color[i + 2] = random.nextFloat(component.minColorComponents.z(), component.maxColorComponents.z());
+            color[i + 3] = random.nextFloat(component.minColorComponents.w(), component.maxColorComponents.w());
+        }
+    }
 }
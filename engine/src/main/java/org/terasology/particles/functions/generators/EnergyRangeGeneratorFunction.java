@@ -17,6 +17,7 @@
 
 import org.terasology.particles.ParticleData;
 import org.terasology.particles.ParticleDataMask;
+import org.terasology.particles.ParticlePool;
 import org.terasology.particles.components.generators.EnergyRangeGeneratorComponent;
 import org.terasology.utilities.random.Random;
 
@@ -33,4 +34,12 @@ public EnergyRangeGeneratorFunction() {
     public void onEmission(EnergyRangeGeneratorComponent component, ParticleData particleData, Random random) {
         particleData.energy = random.nextFloat(component.minEnergy, component.maxEnergy);
     }
+
+    @Override
+    public void onEmissionRange(EnergyRangeGeneratorComponent component, ParticlePool pool, int from, int to, Random random) {
+        final float[] energy = pool.energy;
+        for (int i = from; i < to; i++) {
+            energy[i] = random.nextFloat(component.minEnergy, component.maxEnergy);
+        }
+    }
 }
@@ -19,6 +19,7 @@
 import org.terasology.module.sandbox.API;
 import org.terasology.particles.ParticleData;
 import org.terasology.particles.ParticleDataMask;
+import org.terasology.particles.ParticlePool;
 import org.terasology.particles.functions.ParticleSystemFunction;
 import org.terasology.utilities.random.Random;
 
@@ -32,4 +33,20 @@ public GeneratorFunction(Class<T> component, ParticleDataMask dataMask, Particle
     }
 
     public abstract void onEmission(T component, ParticleData particleData, Random random);
+
+    /**
+     * Initialises the newly emitted particles [from, to) of a pool, working on the arrays of the pool directly.
+     * <br><br>
+     * The default implementation copies each particle in turn to the temporary data of the pool and calls
+     * {@link #onEmission}. Generators should override it with plain loops over the arrays. Particle systems are
+     * updated in parallel, so this must not change state shared with other particle systems.
+     */
+    public void onEmissionRange(T component, ParticlePool pool, int from, int to, Random random) {
+        final int mask = ParticleDataMask.ALL.toInt();
+        for (int i = from; i < to; i++) {
+            pool.loadTemporaryDataFrom(i, mask);
+            onEmission(component, pool.temporaryParticleData, random);
+            pool.storeTemporaryDataAt(i, mask);
+        }
+    }
 }
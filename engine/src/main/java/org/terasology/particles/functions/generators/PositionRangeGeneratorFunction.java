@@ -17,6 +17,7 @@
 
 import org.terasology.particles.ParticleData;
 import org.terasology.particles.ParticleDataMask;
+import org.terasology.particles.ParticlePool;
 import org.terasology.particles.components.generators.PositionRangeGeneratorComponent;
 import org.terasology.utilities.random.Random;
 
@@ -40,4 +41,19 @@ public void onEmission(final PositionRangeGeneratorComponent component,
                 random.nextFloat(component.minPosition.z(), component.maxPosition.z())
         );
     }
+
+    @Override
+    public void onEmissionRange(final PositionRangeGeneratorComponent component,
+                                final ParticlePool pool,
+                                final int from,
+                                final int to,
+                                final Random random
+    ) {
+        final float[] position = pool.position;
+        for (int i = from * 3; i < to * 3; i += 3) {
+            position[i] = random.nextFloat(component.minPosition.x(), component.maxPosition.x());
+            position[i + 1] = random.nextFloat(component.minPosition.y(), component.maxPosition.y());
+            position[i + 2] = random.nextFloat(component.minPosition.z(), component.maxPosition.z());
+        }
+    }
 }
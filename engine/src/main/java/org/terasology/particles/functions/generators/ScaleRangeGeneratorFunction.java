@@ -17,6 +17,7 @@
 
 import org.terasology.particles.ParticleData;
 import org.terasology.particles.ParticleDataMask;
+import org.terasology.particles.ParticlePool;
 import org.terasology.particles.components.generators.ScaleRangeGeneratorComponent;
 import org.terasology.utilities.random.Random;
 
@@ -39,4 +40,19 @@ public void onEmission(final ScaleRangeGeneratorComponent component,
                 random.nextFloat(component.minScale.z(), component.maxScale.z())
         );
     }
+
+    @Override
+    public void onEmissionRange(final ScaleRangeGeneratorComponent component,
+                                final ParticlePool pool,
+                                final int from,
+                                final int to,
+                                final Random random
+    ) {
+        final float[] scale = pool.scale;
+        for (int i = from * 3; i < to * 3; i += 3) {
+            scale[i] = random.nextFloat(component.minScale.x(), component.maxScale.x());
+            scale[i + 1] = random.nextFloat(component.minScale.y(), component.maxScale.y());
+            scale[i + 2] = random.nextFloat(component.minScale.z(), component.maxScale.z());
+        }
+    }
 }
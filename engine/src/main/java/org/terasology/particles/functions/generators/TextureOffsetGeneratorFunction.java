@@ -18,6 +18,7 @@
 import org.terasology.math.geom.Vector2f;
 import org.terasology.particles.ParticleData;
 import org.terasology.particles.ParticleDataMask;
+import org.terasology.particles.ParticlePool;
 import org.terasology.particles.components.generators.TextureOffsetGeneratorComponent;
 import org.terasology.utilities.random.Random;
 
@@ -40,4 +41,18 @@ public void onEmission(TextureOffsetGeneratorComponent component, ParticleData p
         final Vector2f randomOffset = component.validOffsets.get(randomOffsetIndex);
         particleData.textureOffset.set(randomOffset.getX(), randomOffset.getY());
     }
+
+    @Override
+    public void onEmissionRange(TextureOffsetGeneratorComponent component, ParticlePool pool, int from, int to, Random random) {
+        if (component.validOffsets.size() == 0) {
+            return;
+        }
+
+        final float[] textureOffset = pool.textureOffset;
+        for (int i = from * 2; i < to * 2; i += 2) {
+            final Vector2f randomOffset = component.validOffsets.get(random.nextInt(component.validOffsets.size()));
+            textureOffset[i] = randomOffset.getX();
+            textureOffset[i + 1] = randomOffset.getY();
+        }
+    }
 }
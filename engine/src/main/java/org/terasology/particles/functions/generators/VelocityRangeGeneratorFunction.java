@@ -17,6 +17,7 @@
 
 import org.terasology.particles.ParticleData;
 import org.terasology.particles.ParticleDataMask;
+import org.terasology.particles.ParticlePool;
 import org.terasology.particles.components.generators.VelocityRangeGeneratorComponent;
 import org.terasology.utilities.random.Random;
 
@@ -36,4 +37,19 @@ public void onEmission(final VelocityRangeGeneratorComponent component,
         particleData.velocity.setY(random.nextFloat(component.minVelocity.y(), component.maxVelocity.y()));
         particleData.velocity.setZ(random.nextFloat(component.minVelocity.z(), component.maxVelocity.z()));
     }
+
+    @Override
+    public void onEmissionRange(final VelocityRangeGeneratorComponent component,
+                                final ParticlePool pool,
+                                final int from,
+                                final int to,
+                                final Random random
+    ) {
+        final float[] velocity = pool.velocity;
+        for (int i = from * 3; i < to * 3; i += 3) {
+            velocity[i] = random.nextFloat(component.minVelocity.x(), component.maxVelocity.x());
+            velocity[i + 1] = random.nextFloat(component.minVelocity.y(), component.maxVelocity.y());
+            velocity[i + 2] = random.nextFloat(component.minVelocity.z(), component.maxVelocity.z());
+        }
+    }
 }
@@ -22,7 +22,6 @@
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.math.TeraMath;
 import org.terasology.math.geom.Vector3f;
-import org.terasology.particles.ParticleDataMask;
 import org.terasology.particles.ParticlePool;
 import org.terasology.particles.components.ParticleEmitterComponent;
 import org.terasology.particles.functions.affectors.AffectorFunction;
@@ -33,7 +32,10 @@
 import org.terasology.utilities.random.FastRandom;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * See ParticleUpdater for more information.
@@ -42,6 +44,11 @@ class ParticleUpdaterImpl implements ParticleUpdater {
 
     private static final int PHYSICS_SKIP_NR = 100;
 
+    /**
+     * Below this number of living particles in all systems together, particle systems are updated on the calling thread
+     */
+    private static final int MIN_PARALLEL_PARTICLES = 4096;
+
     /**
      * Set of all particle emitters
      */
@@ -52,7 +59,10 @@ class ParticleUpdaterImpl implements ParticleUpdater {
      */
     //private final Map<Class<? extends ParticleDataComponent>, ParticleEmitterComponent> particleSystemsLookup = new HashMap<>();
 
-    private final FastRandom random = new FastRandom();
+    /**
+     * Particle systems are updated in parallel, and random number generators are not thread safe
+     */
+    private final ThreadLocal<FastRandom> random = ThreadLocal.withInitial(FastRandom::new);
     private final Physics physics;
     private float movingAvgDelta = 1.0f / 60.0f; //Starting guess average physics updateParticleSystem delta
 
@@ -96,8 +106,28 @@ public void dispose(final EntityRef emitter) {
     public void update(final float delta) {
         movingAvgDelta = TeraMath.lerp(movingAvgDelta, delta, 0.05f);
 
-        for (ParticleEmitterComponent registeredParticleSystem : ImmutableList.copyOf(registeredParticleSystems)) {
-            updateParticleSystem(registeredParticleSystem, delta);
+        List<ParticleEmitterComponent> particleSystems = ImmutableList.copyOf(registeredParticleSystems);
+        // The world position walks the location hierarchy through the entity manager, which has to happen on this thread
+        Vector3f[] origins = new Vector3f[particleSystems.size()];
+        int livingParticles = 0;
+        for (int i = 0; i < origins.length; i++) {
+            ParticleEmitterComponent particleSystem = particleSystems.get(i);
+            origins[i] = particleSystem.locationComponent.getWorldPosition();
+            livingParticles += particleSystem.particlePool.livingParticles();
+        }
+
+        // Emission and affectors only touch the particle system's own pool, so independent systems run in parallel
+        if (particleSystems.size() > 1 && livingParticles >= MIN_PARALLEL_PARTICLES) {
+            ForkJoinPool.commonPool().invoke(new SimulateParticleSystems(particleSystems, origins, 0, particleSystems.size(), delta));
+        } else {
+            for (int i = 0; i < origins.length; i++) {
+                simulateParticleSystem(particleSystems.get(i), origins[i], delta);
+            }
+        }
+
+        // Collisions use the physics engine and lifetime changes entities, which has to happen on this thread
+        for (ParticleEmitterComponent particleSystem : particleSystems) {
+            updateParticleSystem(particleSystem, delta);
         }
     }
 
@@ -161,78 +191,89 @@ private void updateLifeRemaining(final ParticlePool pool, final float delta) {
     /*
     * Updates particle life and processes particle affectors
     * */
+    @SuppressWarnings("unchecked")
     private void updateParticles(final ParticleEmitterComponent particleSystem, final float delta) {
-        updateLifeRemaining(particleSystem.particlePool, delta);
+        final ParticlePool pool = particleSystem.particlePool;
+        final FastRandom rng = random.get();
+        updateLifeRemaining(pool, delta);
 
         particleSystem.affectorFunctionMap.forEach(
-                (component, affector) -> affector.beforeUpdates(component, random, delta)
+                (component, affector) -> affector.beforeUpdates(component, rng, delta)
         );
 
-        for (int i = 0; i < particleSystem.particlePool.livingParticles(); i++) {
-            particleSystem.particlePool.loadTemporaryDataFrom(i, ParticleDataMask.ALL.toInt());
-
-            particleSystem.affectorFunctionMap.forEach(
-                    (component, affector) ->
-                            affector.update(component, particleSystem.particlePool.temporaryParticleData, random, delta)
-            );
-
-            particleSystem.particlePool.storeTemporaryDataAt(i, ParticleDataMask.ALL.toInt());
-        }
+        final int living = pool.livingParticles();
+        particleSystem.affectorFunctionMap.forEach(
+                (component, affector) -> affector.updateRange(component, pool, 0, living, rng, delta)
+        );
     }
 
     //== emission ======================================================================================================
 
-    private void emitParticle(final ParticleEmitterComponent particleEmitter) {
-        int index = particleEmitter.particlePool.reviveParticle();
-
-        particleEmitter.particlePool.loadTemporaryDataFrom(index, ParticleDataMask.ALL.toInt());
+    @SuppressWarnings("unchecked")
+    private void emitParticles(final ParticleEmitterComponent particleEmitter, final Vector3f origin, final int count) {
+        final ParticlePool pool = particleEmitter.particlePool;
+        final FastRandom rng = random.get();
+        final int from = pool.reviveParticles(count);
+        final int to = from + count;
 
         particleEmitter.generatorFunctionMap.forEach(
-                (component, generator) ->
-                        generator.onEmission(component, particleEmitter.particlePool.temporaryParticleData, random)
-        );
-
-        particleEmitter.particlePool.temporaryParticleData.position.add(
-                particleEmitter.locationComponent.getWorldPosition()
+                (component, generator) -> generator.onEmissionRange(component, pool, from, to, rng)
         );
 
-        particleEmitter.particlePool.storeTemporaryDataAt(index, ParticleDataMask.ALL.toInt());
+        for (int i = from * 3; i < to * 3; i += 3) {
+            pool.position[i] += origin.x();
+            pool.position[i + 1] += origin.y();
+            pool.position[i + 2] += origin.z();
+        }
     }
 
     /*
     * Emits particles from emitter
     * */
-    private void updateEmitter(final ParticleEmitterComponent particleEmitter, final int particleReviveLimit, final float delta) {
+    private void updateEmitter(final ParticleEmitterComponent particleEmitter, final Vector3f origin, final int particleReviveLimit,
+                               final float delta) {
+        final FastRandom rng = random.get();
         float deltaLeft = delta;
+        int emissions = 0;
 
-        while (deltaLeft > 0 && particleEmitter.particlePool.deadParticles() > particleReviveLimit) {
+        while (deltaLeft > 0 && particleEmitter.particlePool.deadParticles() - emissions > particleReviveLimit) {
             if (particleEmitter.nextEmission < deltaLeft) {
                 deltaLeft -= particleEmitter.nextEmission;
                 float freq1 = 1.0f / particleEmitter.spawnRateMax;
                 float freq2 = 1.0f / particleEmitter.spawnRateMin;
-                particleEmitter.nextEmission = random.nextFloat(freq1, freq2);
+                particleEmitter.nextEmission = rng.nextFloat(freq1, freq2);
 
                 if (particleEmitter.particleSpawnsLeft != ParticleEmitterComponent.INFINITE_PARTICLE_SPAWNS) {
                     particleEmitter.particleSpawnsLeft--;
                 }
 
-                emitParticle(particleEmitter);
+                emissions++;
             } else {
                 particleEmitter.nextEmission -= deltaLeft;
                 deltaLeft = 0;
             }
         }
+
+        if (emissions > 0) {
+            emitParticles(particleEmitter, origin, emissions);
+        }
     }
 
     //== general =======================================================================================================
 
-    private void updateParticleSystem(final ParticleEmitterComponent partSys, final float delta) {
+    /*
+    * Emits particles at the given world position and applies affectors. Only touches the particle system's own data, so
+    * may run on any thread.
+    * */
+    private void simulateParticleSystem(final ParticleEmitterComponent partSys, final Vector3f origin, final float delta) {
         if (partSys.enabled && (partSys.particleSpawnsLeft == ParticleEmitterComponent.INFINITE_PARTICLE_SPAWNS || partSys.particleSpawnsLeft > 0)) {
-            updateEmitter(partSys, 0, delta); // Emit particles
+            updateEmitter(partSys, origin, 0, delta); // Emit particles
         }
 
         updateParticles(partSys, delta); // Update particle lifetime and Affectors
+    }
 
+    private void updateParticleSystem(final ParticleEmitterComponent partSys, final float delta) {
         if (partSys.particleCollision) {
             checkCollision(partSys.particlePool, partSys.collisionUpdateIteration);
             partSys.collisionUpdateIteration = (partSys.collisionUpdateIteration + 1) % PHYSICS_SKIP_NR;
@@ -255,4 +296,34 @@ private void updateParticleSystem(final ParticleEmitterComponent partSys, final
             }
         }
     }
+
+    /**
+     * Simulates a range of particle systems, splitting it in halves until each task has a single system.
+     */
+    private final class SimulateParticleSystems extends RecursiveAction {
+        private final List<ParticleEmitterComponent> particleSystems;
+        private final Vector3f[] origins;
+        private final int from;
+        private final int to;
+        private final float delta;
+
+        SimulateParticleSystems(List<ParticleEmitterComponent> particleSystems, Vector3f[] origins, int from, int to, float delta) {
+            this.particleSystems = particleSystems;
+            this.origins = origins;
+            this.from = from;
+            this.to = to;
+            this.delta = delta;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                simulateParticleSystem(particleSystems.get(from), origins[from], delta);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SimulateParticleSystems(particleSystems, origins, from, middle, delta),
+                        new SimulateParticleSystems(particleSystems, origins, middle, to, delta));
+            }
+        }
+    }
 }
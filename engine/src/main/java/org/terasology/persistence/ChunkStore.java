@@ -35,8 +35,27 @@ public interface ChunkStore {
     Chunk getChunk();
 
     /**
-     * Restores all the entities stored with this chunk
+     * Decodes the entities stored with this chunk as far as possible without the entity system, so that less work is
+     * left for restoring them. May be called from any thread, before the chunk store is handed to the main thread.
+     */
+    void prepareEntities();
+
+    /**
+     * Restores all the entities stored with this chunk that have not been restored yet
      */
     void restoreEntities();
 
+    /**
+     * Restores the next entity stored with this chunk that has not been restored yet, allowing the restoration to be
+     * spread over several frames.
+     *
+     * @return Whether there are more entities left to restore
+     */
+    boolean restoreNextEntity();
+
+    /**
+     * @return The number of entities stored with this chunk that have not been restored yet
+     */
+    int getUnrestoredEntityCount();
+
 }
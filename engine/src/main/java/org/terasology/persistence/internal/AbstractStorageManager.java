@@ -37,16 +37,17 @@
 import org.terasology.world.chunks.Chunk;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Collection;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
 
 /**
  * An abstract implementation of {@link StorageManager} that is able
@@ -58,13 +59,13 @@ public abstract class AbstractStorageManager implements StorageManager {
     private static final Logger logger = LoggerFactory.getLogger(AbstractStorageManager.class);
 
     private final StoragePathProvider storagePathProvider;
-    private final BlockManager blockManager;
-    private final BiomeManager biomeManager;
+    private final GlobalStoreJournal globalStoreJournal;
 
     private final ModuleEnvironment environment;
     private final EngineEntityManager entityManager;
     private final PrefabSerializer prefabSerializer;
     private final OwnershipHelper helper;
+    private final ChunkStoreDecoder chunkStoreDecoder;
 
     private boolean storeChunksInZips = true;
 
@@ -74,22 +75,19 @@ public AbstractStorageManager(Path savePath, ModuleEnvironment environment, Engi
         this.environment = environment;
         this.storeChunksInZips = storeChunksInZips;
         this.prefabSerializer = new PrefabSerializer(entityManager.getComponentLibrary(), entityManager.getTypeSerializerLibrary());
-        this.blockManager = blockManager;
-        this.biomeManager = biomeManager;
 
         this.storagePathProvider = new StoragePathProvider(savePath);
+        this.globalStoreJournal = new GlobalStoreJournal(storagePathProvider);
         this.helper = new OwnershipHelper(entityManager.getComponentLibrary());
+        this.chunkStoreDecoder = new ChunkStoreDecoder(entityManager, blockManager, biomeManager);
     }
 
     @Override
     public void loadGlobalStore() throws IOException {
-        Path globalDataFile = storagePathProvider.getGlobalEntityStorePath();
-        if (Files.isRegularFile(globalDataFile)) {
-            try (InputStream in = new BufferedInputStream(Files.newInputStream(globalDataFile))) {
-                EntityData.GlobalStore store = EntityData.GlobalStore.parseFrom(in);
-                GlobalStoreLoader loader = new GlobalStoreLoader(environment, entityManager, prefabSerializer);
-                loader.load(store);
-            }
+        List<GlobalStoreJournal.Entry> entries = globalStoreJournal.read();
+        if (!entries.isEmpty()) {
+            GlobalStoreLoader loader = new GlobalStoreLoader(environment, entityManager, prefabSerializer);
+            loader.load(entries);
         }
     }
 
@@ -104,35 +102,62 @@ public PlayerStore loadPlayerStore(String playerId) {
 
     @Override
     public ChunkStore loadChunkStore(Vector3i chunkPos) {
-        byte[] chunkData = loadCompressedChunk(chunkPos);
-        ChunkStore store = null;
-        if (chunkData != null) {
-            ByteArrayInputStream bais = new ByteArrayInputStream(chunkData);
-            try (GZIPInputStream gzipIn = new GZIPInputStream(bais)) {
-                EntityData.ChunkStore storeData = EntityData.ChunkStore.parseFrom(gzipIn);
-                store = new ChunkStoreInternal(storeData, entityManager, blockManager, biomeManager);
+        if (isStoreChunksInZips()) {
+            return loadChunkStoreFromZip(chunkPos);
+        }
+        Path chunkPath = storagePathProvider.getChunkPath(chunkPos);
+        if (Files.isRegularFile(chunkPath)) {
+            try (FileChannel channel = FileChannel.open(chunkPath, StandardOpenOption.READ)) {
+                return readChunkStore(chunkPos, channel);
             } catch (IOException e) {
-                logger.error("Failed to read existing saved chunk {}", chunkPos);
+                logger.error("Failed to load chunk {}", chunkPos, e);
             }
         }
-        return store;
+        return null;
     }
 
-    protected byte[] loadChunkZip(Vector3i chunkPos) {
-        byte[] chunkData = null;
+    private ChunkStore loadChunkStoreFromZip(Vector3i chunkPos) {
         Vector3i chunkZipPos = storagePathProvider.getChunkZipPosition(chunkPos);
         Path chunkPath = storagePathProvider.getChunkZipPath(chunkZipPos);
         if (Files.isRegularFile(chunkPath)) {
             try (FileSystem chunkZip = FileSystems.newFileSystem(chunkPath, null)) {
                 Path targetChunk = chunkZip.getPath(storagePathProvider.getChunkFilename(chunkPos));
                 if (Files.isRegularFile(targetChunk)) {
-                    chunkData = Files.readAllBytes(targetChunk);
+                    try (ReadableByteChannel channel = Files.newByteChannel(targetChunk)) {
+                        return readChunkStore(chunkPos, channel);
+                    }
                 }
             } catch (IOException e) {
                 logger.error("Failed to load chunk zip {}", chunkPath, e);
             }
         }
-        return chunkData;
+        return null;
+    }
+
+    /**
+     * Decodes a compressed chunk while it is read from the channel.
+     *
+     * @return The chunk store, or null if the chunk could not be decoded
+     */
+    protected ChunkStore readChunkStore(Vector3i chunkPos, ReadableByteChannel compressedChunk) {
+        try (InputStream in = new PooledGzipInputStream(compressedChunk)) {
+            return chunkStoreDecoder.decode(in);
+        } catch (IOException e) {
+            logger.error("Failed to read existing saved chunk {}", chunkPos, e);
+        }
+        return null;
+    }
+
+    /**
+     * @return The chunk store, or null if the chunk could not be decoded
+     */
+    protected ChunkStore readChunkStore(Vector3i chunkPos, byte[] compressedChunk) {
+        try (InputStream in = new PooledGzipInputStream(compressedChunk)) {
+            return chunkStoreDecoder.decode(in);
+        } catch (IOException e) {
+            logger.error("Failed to read existing saved chunk {}", chunkPos, e);
+        }
+        return null;
     }
 
     @Override
@@ -150,23 +175,6 @@ void setStoreChunksInZips(boolean storeChunksInZips) {
         this.storeChunksInZips = storeChunksInZips;
     }
 
-    protected byte[] loadCompressedChunk(Vector3i chunkPos) {
-        if (isStoreChunksInZips()) {
-            return loadChunkZip(chunkPos);
-        } else {
-            Path chunkPath = storagePathProvider.getChunkPath(chunkPos);
-            if (Files.isRegularFile(chunkPath)) {
-                try {
-                    return Files.readAllBytes(chunkPath);
-                } catch (IOException e) {
-                    logger.error("Failed to load chunk {}", chunkPos, e);
-                }
-            }
-        }
-
-        return null;
-    }
-
     protected EntityData.PlayerStore loadPlayerStoreData(String playerId) {
         Path storePath = storagePathProvider.getPlayerFilePath(playerId);
         if (Files.isRegularFile(storePath)) {
@@ -213,6 +221,10 @@ protected void deactivateOrDestroyEntityRecursive(EntityRef entity) {
         }
     }
 
+    protected GlobalStoreJournal getGlobalStoreJournal() {
+        return globalStoreJournal;
+    }
+
     protected StoragePathProvider getStoragePathProvider() {
         return storagePathProvider;
     }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.ExtensionRegistryLite;
+import com.google.protobuf.WireFormat;
+import org.terasology.entitySystem.entity.internal.EngineEntityManager;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.protobuf.EntityData;
+import org.terasology.world.biomes.BiomeManager;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.blockdata.TeraArray;
+import org.terasology.world.chunks.blockdata.TeraSparseArray16Bit;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.chunks.internal.ChunkSerializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes stored chunks field by field from a stream, without building an {@link EntityData.ChunkStore} message. The
+ * run length encoded block, liquid and biome data is decoded straight into the arrays of the chunk, see
+ * {@link ChunkSerializer#decodeRunLengths16(CodedInputStream)}.
+ *
+ */
+final class ChunkStoreDecoder {
+
+    private final EngineEntityManager entityManager;
+    private final BlockManager blockManager;
+    private final BiomeManager biomeManager;
+
+    ChunkStoreDecoder(EngineEntityManager entityManager, BlockManager blockManager, BiomeManager biomeManager) {
+        this.entityManager = entityManager;
+        this.blockManager = blockManager;
+        this.biomeManager = biomeManager;
+    }
+
+    /**
+     * @param inputStream The uncompressed chunk store
+     * @return The decoded chunk store
+     * @throws IOException If the stream could not be read or does not contain a valid chunk store
+     */
+    ChunkStoreInternal decode(InputStream inputStream) throws IOException {
+        CodedInputStream input = CodedInputStream.newInstance(inputStream);
+        EntityData.EntityStore.Builder entityStore = EntityData.EntityStore.newBuilder();
+        int x = 0;
+        int y = 0;
+        int z = 0;
+        int positionFields = 0;
+        TeraArray blockData = null;
+        TeraArray liquidData = null;
+        TeraArray biomeData = null;
+        while (true) {
+            int tag = input.readTag();
+            if (tag == 0) {
+                break;
+            }
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case EntityData.ChunkStore.STORE_FIELD_NUMBER:
+                    input.readMessage(entityStore, ExtensionRegistryLite.getEmptyRegistry());
+                    break;
+                case EntityData.ChunkStore.X_FIELD_NUMBER:
+                    x = input.readSInt32();
+                    positionFields |= 1;
+                    break;
+                case EntityData.ChunkStore.Y_FIELD_NUMBER:
+                    y = input.readSInt32();
+                    positionFields |= 2;
+                    break;
+                case EntityData.ChunkStore.Z_FIELD_NUMBER:
+                    z = input.readSInt32();
+                    positionFields |= 4;
+                    break;
+                case EntityData.ChunkStore.BLOCK_DATA_FIELD_NUMBER:
+                    blockData = ChunkSerializer.decodeRunLengths16(input);
+                    break;
+                case EntityData.ChunkStore.LIQUID_DATA_FIELD_NUMBER:
+                    liquidData = ChunkSerializer.decodeRunLengths8(input);
+                    break;
+                case EntityData.ChunkStore.BIOME_DATA_FIELD_NUMBER:
+                    biomeData = ChunkSerializer.decodeRunLengths16(input);
+                    break;
+                default:
+                    input.skipField(tag);
+                    break;
+            }
+        }
+        if (positionFields != 7) {
+            throw new IOException("Ill-formed protobuf message. Missing chunk position.");
+        }
+        if (blockData == null) {
+            throw new IOException("Ill-formed protobuf message. Missing block data.");
+        }
+        if (liquidData == null) {
+            throw new IOException("Ill-formed protobuf message. Missing liquid data.");
+        }
+        if (biomeData == null) {
+            biomeData = new TeraSparseArray16Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z, (short) 0);
+        }
+        Vector3i position = new Vector3i(x, y, z);
+        ChunkImpl chunk = new ChunkImpl(position, blockData, liquidData, biomeData, blockManager, biomeManager);
+        return new ChunkStoreInternal(position, chunk, entityStore.build(), entityManager);
+    }
+}
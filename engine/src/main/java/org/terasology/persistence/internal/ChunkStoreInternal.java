@@ -15,14 +15,16 @@
  */
 package org.terasology.persistence.internal;
 
+import com.google.common.collect.Lists;
 import org.terasology.entitySystem.entity.internal.EngineEntityManager;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.persistence.ChunkStore;
+import org.terasology.persistence.serializers.DecodedEntity;
+import org.terasology.persistence.serializers.EntitySerializer;
 import org.terasology.protobuf.EntityData;
-import org.terasology.world.biomes.BiomeManager;
-import org.terasology.world.block.BlockManager;
 import org.terasology.world.chunks.Chunk;
-import org.terasology.world.chunks.internal.ChunkSerializer;
+
+import java.util.List;
 
 /**
  */
@@ -33,14 +35,15 @@ final class ChunkStoreInternal implements ChunkStore {
 
     private EngineEntityManager entityManager;
     private EntityData.EntityStore entityStore;
+    private EntitySerializer serializer;
+    private List<DecodedEntity> decodedEntities;
+    private int restoredEntities;
 
-    ChunkStoreInternal(EntityData.ChunkStore chunkData, EngineEntityManager entityManager,
-            BlockManager blockManager, BiomeManager biomeManager) {
-        this.chunkPosition = new Vector3i(chunkData.getX(), chunkData.getY(), chunkData.getZ());
+    ChunkStoreInternal(Vector3i chunkPosition, Chunk chunk, EntityData.EntityStore entityStore, EngineEntityManager entityManager) {
+        this.chunkPosition = chunkPosition;
+        this.chunk = chunk;
+        this.entityStore = entityStore;
         this.entityManager = entityManager;
-
-        this.chunk = ChunkSerializer.decode(chunkData, blockManager, biomeManager);
-        this.entityStore = chunkData.getStore();
     }
 
     @Override
@@ -54,8 +57,42 @@ public Chunk getChunk() {
         return chunk;
     }
 
+    @Override
+    public void prepareEntities() {
+        if (decodedEntities == null) {
+            serializer = new EntityRestorer(entityManager).createSerializer(entityStore);
+            List<DecodedEntity> entities = Lists.newArrayListWithCapacity(entityStore.getEntityCount());
+            for (EntityData.Entity entityData : entityStore.getEntityList()) {
+                entities.add(serializer.decode(entityData));
+            }
+            decodedEntities = entities;
+        }
+    }
+
     @Override
     public void restoreEntities() {
-        new EntityRestorer(entityManager).restore(entityStore);
+        prepareEntities();
+        while (restoredEntities < decodedEntities.size()) {
+            restoreNextEntity();
+        }
+    }
+
+    @Override
+    public boolean restoreNextEntity() {
+        prepareEntities();
+        if (restoredEntities < decodedEntities.size()) {
+            serializer.deserialize(decodedEntities.get(restoredEntities));
+            // The restored entity holds the components now, so the decoded data can go
+            decodedEntities.set(restoredEntities++, null);
+        }
+        return restoredEntities < decodedEntities.size();
+    }
+
+    @Override
+    public int getUnrestoredEntityCount() {
+        if (decodedEntities == null) {
+            return entityStore.getEntityCount();
+        }
+        return decodedEntities.size() - restoredEntities;
     }
 }
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
+import org.terasology.math.geom.Vector3i;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes the chunks of a save transaction to its temporary directory. Chunks are compressed in parallel on a fork-join
+ * pool and written in order by the calling thread, with a bounded number of compressed chunks in flight at any time.
+ * <br><br>
+ * When chunks are stored in zips, the chunks of each region are written together. Chunk data is already gzip
+ * compressed, so entries are stored without further compression. Entries of the previous zip of a region that were not
+ * changed are copied over byte for byte, rather than being decompressed and compressed again.
+ *
+ */
+public class ChunkStoreWriter {
+    private static final int CHUNKS_IN_FLIGHT_PER_THREAD = 4;
+
+    private final StoragePathProvider storagePathProvider;
+    private final boolean storeChunksInZips;
+    private final ForkJoinPool compressionPool;
+
+    private final LongAdder compressNanos = new LongAdder();
+    private long waitNanos;
+    private long writeNanos;
+    private long copyNanos;
+    private int chunksWritten;
+    private int entriesCopied;
+    private int regionsWritten;
+
+    /**
+     * @param storagePathProvider The provider of the paths to write to
+     * @param storeChunksInZips   Whether chunks are grouped into region zips, or stored in a file each
+     * @param compressionPool     The pool to compress chunks on
+     */
+    public ChunkStoreWriter(StoragePathProvider storagePathProvider, boolean storeChunksInZips, ForkJoinPool compressionPool) {
+        this.storagePathProvider = storagePathProvider;
+        this.storeChunksInZips = storeChunksInZips;
+        this.compressionPool = compressionPool;
+    }
+
+    /**
+     * Compresses and writes the given chunks. Chunks are removed from the map once they are handed over for compression,
+     * so their data can be collected as soon as it has been written.
+     *
+     * @param chunks The chunks to write, by position
+     * @throws IOException If a chunk could not be written
+     */
+    public void write(Map<Vector3i, CompressedChunkBuilder> chunks) throws IOException {
+        List<Vector3i> positions = Lists.newArrayList(chunks.keySet());
+        if (storeChunksInZips) {
+            positions.sort(Comparator.comparing(storagePathProvider::getChunkZipPosition, ChunkStoreWriter::compare));
+        }
+
+        int maxInFlight = compressionPool.getParallelism() * CHUNKS_IN_FLIGHT_PER_THREAD;
+        Deque<PendingChunk> pending = new ArrayDeque<>(maxInFlight);
+        int next = 0;
+        RegionWriter region = null;
+        try {
+            while (next < positions.size() || !pending.isEmpty()) {
+                while (pending.size() < maxInFlight && next < positions.size()) {
+                    Vector3i chunkPos = positions.get(next++);
+                    CompressedChunkBuilder builder = chunks.remove(chunkPos);
+                    pending.add(new PendingChunk(chunkPos, compressionPool.submit(() -> compress(builder))));
+                }
+                PendingChunk chunk = pending.poll();
+                long waitStart = System.nanoTime();
+                EncodedChunk encoded = chunk.task.join();
+                waitNanos += System.nanoTime() - waitStart;
+
+                long writeStart = System.nanoTime();
+                if (storeChunksInZips) {
+                    Vector3i regionPos = storagePathProvider.getChunkZipPosition(chunk.position);
+                    if (region == null || !region.position.equals(regionPos)) {
+                        if (region != null) {
+                            region.close();
+                        }
+                        region = new RegionWriter(regionPos);
+                    }
+                    region.write(storagePathProvider.getChunkFilename(chunk.position), encoded);
+                } else {
+                    Files.write(storagePathProvider.getChunkTempPath(chunk.position), encoded.data);
+                }
+                chunksWritten++;
+                writeNanos += System.nanoTime() - writeStart;
+            }
+            if (region != null) {
+                RegionWriter lastRegion = region;
+                region = null;
+                lastRegion.close();
+            }
+        } finally {
+            pending.forEach(chunk -> chunk.task.cancel(false));
+            if (region != null) {
+                region.abort();
+            }
+        }
+    }
+
+    private EncodedChunk compress(CompressedChunkBuilder builder) {
+        long start = System.nanoTime();
+        byte[] data = builder.buildEncodedChunk();
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        compressNanos.add(System.nanoTime() - start);
+        return new EncodedChunk(data, crc.getValue());
+    }
+
+    private static int compare(Vector3i a, Vector3i b) {
+        if (a.x != b.x) {
+            return Integer.compare(a.x, b.x);
+        }
+        if (a.y != b.y) {
+            return Integer.compare(a.y, b.y);
+        }
+        return Integer.compare(a.z, b.z);
+    }
+
+    /**
+     * @return A summary of the work done and the time spent on it, for logging
+     */
+    public String getSummary() {
+        return String.format("%d chunks in %d regions, %d unchanged entries copied; compress %d ms (all threads), "
+                        + "wait %d ms, write %d ms, copy %d ms",
+                chunksWritten, regionsWritten, entriesCopied, TimeUnit.NANOSECONDS.toMillis(compressNanos.sum()),
+                TimeUnit.NANOSECONDS.toMillis(waitNanos), TimeUnit.NANOSECONDS.toMillis(writeNanos),
+                TimeUnit.NANOSECONDS.toMillis(copyNanos));
+    }
+
+    private static final class EncodedChunk {
+        private final byte[] data;
+        private final long crc;
+
+        EncodedChunk(byte[] data, long crc) {
+            this.data = data;
+            this.crc = crc;
+        }
+    }
+
+    private static final class PendingChunk {
+        private final Vector3i position;
+        private final ForkJoinTask<EncodedChunk> task;
+
+        PendingChunk(Vector3i position, ForkJoinTask<EncodedChunk> task) {
+            this.position = position;
+            this.task = task;
+        }
+    }
+
+    /**
+     * Writes the zip of one region.
+     */
+    private final class RegionWriter {
+        private final Vector3i position;
+        private final ZipOutputStream output;
+        private final Set<String> writtenEntries = Sets.newHashSet();
+
+        RegionWriter(Vector3i position) throws IOException {
+            this.position = position;
+            Path targetPath = storagePathProvider.getChunkZipTempPath(position);
+            Files.deleteIfExists(targetPath);
+            this.output = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(targetPath)));
+        }
+
+        void write(String name, EncodedChunk chunk) throws IOException {
+            output.putNextEntry(createStoredEntry(name, chunk.data.length, chunk.crc));
+            output.write(chunk.data);
+            output.closeEntry();
+            writtenEntries.add(name);
+        }
+
+        /**
+         * Copies the unchanged entries of the previous zip of the region and finishes the zip.
+         */
+        void close() throws IOException {
+            long copyStart = System.nanoTime();
+            Path oldZipPath = storagePathProvider.getChunkZipPath(position);
+            try {
+                if (Files.isRegularFile(oldZipPath)) {
+                    try (ZipFile oldZip = new ZipFile(oldZipPath.toFile())) {
+                        Enumeration<? extends ZipEntry> entries = oldZip.entries();
+                        while (entries.hasMoreElements()) {
+                            ZipEntry entry = entries.nextElement();
+                            if (!entry.isDirectory() && !writtenEntries.contains(entry.getName())) {
+                                copyEntry(oldZip, entry);
+                            }
+                        }
+                    }
+                }
+            } finally {
+                output.close();
+            }
+            regionsWritten++;
+            copyNanos += System.nanoTime() - copyStart;
+        }
+
+        void abort() {
+            try {
+                output.close();
+            } catch (IOException e) {
+                // The transaction has failed already, its directory gets cleaned up on the next save
+            }
+        }
+
+        private void copyEntry(ZipFile oldZip, ZipEntry entry) throws IOException {
+            try (InputStream in = oldZip.getInputStream(entry)) {
+                if (entry.getMethod() == ZipEntry.STORED) {
+                    output.putNextEntry(createStoredEntry(entry.getName(), entry.getSize(), entry.getCrc()));
+                    ByteStreams.copy(in, output);
+                } else {
+                    // Written by an older version with compression, store it from now on
+                    byte[] data = ByteStreams.toByteArray(in);
+                    CRC32 crc = new CRC32();
+                    crc.update(data, 0, data.length);
+                    output.putNextEntry(createStoredEntry(entry.getName(), data.length, crc.getValue()));
+                    output.write(data);
+                }
+                output.closeEntry();
+                entriesCopied++;
+            }
+        }
+
+        private ZipEntry createStoredEntry(String name, long size, long crc) {
+            ZipEntry entry = new ZipEntry(name);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(size);
+            entry.setCompressedSize(size);
+            entry.setCrc(crc);
+            return entry;
+        }
+    }
+}
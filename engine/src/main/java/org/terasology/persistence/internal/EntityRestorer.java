@@ -36,6 +36,21 @@ final class EntityRestorer {
     }
 
     public Map<String, EntityRef> restore(EntityData.EntityStore store) {
+        EntitySerializer serializer = createSerializer(store);
+        store.getEntityList().forEach(serializer::deserialize);
+
+        Map<String, EntityRef> namedEntities = Maps.newHashMap();
+        for (int i = 0; i < store.getEntityNameCount() && i < store.getEntityNamedCount(); ++i) {
+            namedEntities.put(store.getEntityName(i), entityManager.getEntity(store.getEntityNamed(i)));
+        }
+        return namedEntities;
+    }
+
+    /**
+     * @param store The entity store to restore entities from
+     * @return A serializer for the entities of the store, using its component id mapping
+     */
+    EntitySerializer createSerializer(EntityData.EntityStore store) {
         EntitySerializer serializer = new EntitySerializer(entityManager);
         Map<Class<? extends Component>, Integer> idMap = Maps.newHashMap();
         for (int i = 0; i < store.getComponentClassCount(); ++i) {
@@ -45,12 +60,6 @@ public Map<String, EntityRef> restore(EntityData.EntityStore store) {
             }
         }
         serializer.setComponentIdMapping(idMap);
-        store.getEntityList().forEach(serializer::deserialize);
-
-        Map<String, EntityRef> namedEntities = Maps.newHashMap();
-        for (int i = 0; i < store.getEntityNameCount() && i < store.getEntityNamedCount(); ++i) {
-            namedEntities.put(store.getEntityName(i), entityManager.getEntity(store.getEntityNamed(i)));
-        }
-        return namedEntities;
+        return serializer;
     }
 }
@@ -35,12 +35,14 @@
  */
 final class EntityStorer {
 
+    private final EngineEntityManager entityManager;
     private final EntitySerializer serializer;
     private final EntityData.EntityStore.Builder entityStoreBuilder;
     private final OwnershipHelper helper;
     private Set<EntityRef> storedEntities = Sets.newHashSet();
 
     EntityStorer(EngineEntityManager entityManager) {
+        this.entityManager = entityManager;
         this.entityStoreBuilder = EntityData.EntityStore.newBuilder();
         this.serializer = new EntitySerializer(entityManager);
         this.helper = new OwnershipHelper(entityManager.getComponentLibrary());
@@ -59,7 +61,9 @@ public void store(EntityRef entity) {
 
     public void store(EntityRef entity, String name) {
         if (entity.isActive()) {
-            for (EntityRef ownedEntity : helper.listOwnedEntities(entity)) {
+            for (EntityRef ref : helper.listOwnedEntities(entity)) {
+                // The ref may belong to another entity manager when storing an entity snapshot
+                EntityRef ownedEntity = entityManager.getEntity(ref.getId());
                 if (!ownedEntity.isAlwaysRelevant() && ownedEntity.isPersistent()) {
                     store(ownedEntity);
                 }
@@ -42,14 +42,6 @@ final class GlobalStoreBuilder {
     }
     
     public EntityData.GlobalStore build(EngineEntityManager entityManager, Iterable<EntityRef> entities) {
-        EntityData.GlobalStore.Builder store = EntityData.GlobalStore.newBuilder();
-
-        Map<Class<? extends Component>, Integer> componentIdTable = Maps.newHashMap();
-        for (ComponentMetadata<?> componentMetadata : entityManager.getComponentLibrary().iterateComponentMetadata()) {
-            store.addComponentClass(componentMetadata.getUri().toString());
-            componentIdTable.put(componentMetadata.getType(), componentIdTable.size());
-        }
-        prefabSerializer.setComponentIdMapping(componentIdTable);
         /*
          * The prefabs can't be obtained from  entityManager.getPrefabManager().listPrefabs() as that might not
          * be thread save.
@@ -61,7 +53,41 @@ public EntityData.GlobalStore build(EngineEntityManager entityManager, Iterable<
                 prefabsRequiredForEntityStorage.add(prefab);
             }
         }
-        for (Prefab prefab: prefabsRequiredForEntityStorage) {
+        return build(entityManager, entities, prefabsRequiredForEntityStorage);
+    }
+
+    /**
+     * Builds a store holding only the given entities, for appending to the global store journal. Only the prefabs of
+     * those entities that the journal does not already hold are included.
+     *
+     * @param entityManager The entity manager the entities belong to
+     * @param entities      The entities that changed since the last save
+     * @param storedPrefabs The names of the prefabs already held by the snapshot or journal
+     * @return The delta store
+     */
+    public EntityData.GlobalStore buildDelta(EngineEntityManager entityManager, Iterable<EntityRef> entities,
+                                             Set<String> storedPrefabs) {
+        Set<Prefab> prefabsRequiredForEntityStorage = new HashSet<>();
+        for (EntityRef entityRef : entities) {
+            Prefab prefab = entityRef.getParentPrefab();
+            if (prefab != null && !storedPrefabs.contains(prefab.getName())) {
+                prefabsRequiredForEntityStorage.add(prefab);
+            }
+        }
+        return build(entityManager, entities, prefabsRequiredForEntityStorage);
+    }
+
+    private EntityData.GlobalStore build(EngineEntityManager entityManager, Iterable<EntityRef> entities,
+                                         Set<Prefab> prefabs) {
+        EntityData.GlobalStore.Builder store = EntityData.GlobalStore.newBuilder();
+
+        Map<Class<? extends Component>, Integer> componentIdTable = Maps.newHashMap();
+        for (ComponentMetadata<?> componentMetadata : entityManager.getComponentLibrary().iterateComponentMetadata()) {
+            store.addComponentClass(componentMetadata.getUri().toString());
+            componentIdTable.put(componentMetadata.getType(), componentIdTable.size());
+        }
+        prefabSerializer.setComponentIdMapping(componentIdTable);
+        for (Prefab prefab: prefabs) {
             store.addPrefab(prefabSerializer.serialize(prefab));
         }
 
@@ -75,6 +101,4 @@ public EntityData.GlobalStore build(EngineEntityManager entityManager, Iterable<
         store.setNextEntityId(nextEntityId);
         return store.build();
     }
-
-
 }
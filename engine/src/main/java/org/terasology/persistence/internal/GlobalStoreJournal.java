@@ -0,0 +1,367 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import gnu.trove.list.TLongList;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.protobuf.EntityData;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Keeps the global entity store as a snapshot (global.dat) plus a journal of delta segments in the global-journal
+ * directory. A save writes either a new snapshot or one new segment holding only the entities that changed since the
+ * last save, so the cost of most saves scales with the amount of change rather than with the number of entities.
+ * <br><br>
+ * Every segment records a checksum of the snapshot it was based on. Segments that do not match the current snapshot
+ * are left over from before a compaction and get ignored, which keeps an interrupted merge safe.
+ * <br><br>
+ * Segments are written and merged by the save transaction, the journal only tracks what has been stored so far.
+ * {@link #commit(Update)} must be called with the world directory write lock held once the merge finished.
+ *
+ */
+final class GlobalStoreJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(GlobalStoreJournal.class);
+
+    private static final int BASE_CHECKSUM_FIELD = 1;
+    private static final int STORE_FIELD = 2;
+    private static final int REMOVED_ENTITIES_FIELD = 3;
+    private static final int MAX_SEGMENTS = 256;
+    private static final String SEGMENT_EXTENSION = ".journal";
+
+    private final StoragePathProvider storagePathProvider;
+
+    private TLongSet storedEntities = new TLongHashSet();
+    private Set<String> storedPrefabs = Sets.newHashSet();
+    private boolean snapshotRequired = true;
+    private long snapshotChecksum;
+    private long snapshotSize;
+    private long journalSize;
+    private int segmentCount;
+    private long nextSegment;
+
+    GlobalStoreJournal(StoragePathProvider storagePathProvider) {
+        this.storagePathProvider = storagePathProvider;
+    }
+
+    /**
+     * Reads the snapshot followed by every journal segment based on it, in the order they were written.
+     *
+     * @return The stores to replay, snapshot first. Empty if there is no global store yet.
+     * @throws IOException If the snapshot or a segment could not be read
+     */
+    synchronized List<Entry> read() throws IOException {
+        storedEntities.clear();
+        storedPrefabs.clear();
+        snapshotRequired = true;
+        journalSize = 0;
+        segmentCount = 0;
+
+        List<Long> segments = listSegments();
+        nextSegment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1) + 1;
+
+        Path snapshotPath = storagePathProvider.getGlobalEntityStorePath();
+        if (!Files.isRegularFile(snapshotPath)) {
+            return Collections.emptyList();
+        }
+        List<Entry> entries = Lists.newArrayList();
+        EntityData.GlobalStore snapshot;
+        CRC32 crc = new CRC32();
+        try (InputStream in = new CheckedInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)), crc)) {
+            snapshot = EntityData.GlobalStore.parseFrom(in);
+        }
+        snapshotSize = Files.size(snapshotPath);
+        snapshotChecksum = checksum(snapshotSize, crc);
+        snapshotRequired = false;
+        record(snapshot, new long[0]);
+        entries.add(new Entry(snapshot, new long[0]));
+
+        for (long segment : segments) {
+            Path segmentPath = storagePathProvider.getGlobalEntityJournalSegmentPath(segment);
+            byte[] data = Files.readAllBytes(segmentPath);
+            Entry entry = readSegment(data);
+            if (entry.baseChecksum != snapshotChecksum) {
+                logger.debug("Ignoring global store journal segment {} as it belongs to an older snapshot", segment);
+                continue;
+            }
+            record(entry.store, entry.removedEntities);
+            entries.add(entry);
+            journalSize += data.length;
+            segmentCount++;
+        }
+        return entries;
+    }
+
+    /**
+     * @param changedEntities The number of entities that would go into a journal segment
+     * @param totalEntities   The number of entities in the global store
+     * @return Whether the next save should write a full snapshot instead of a journal segment
+     */
+    synchronized boolean isSnapshotDue(int changedEntities, int totalEntities) {
+        return snapshotRequired || segmentCount >= MAX_SEGMENTS || journalSize >= snapshotSize
+                || changedEntities * 2 >= totalEntities;
+    }
+
+    /**
+     * @return A copy of the ids of the entities held by the snapshot and journal
+     */
+    synchronized TLongSet getStoredEntities() {
+        return new TLongHashSet(storedEntities);
+    }
+
+    /**
+     * @return A copy of the names of the prefabs held by the snapshot and journal
+     */
+    synchronized Set<String> getStoredPrefabs() {
+        return Sets.newHashSet(storedPrefabs);
+    }
+
+    /**
+     * Writes a complete snapshot to the save transaction directory.
+     *
+     * @param store    The complete global store
+     * @param entities The ids of all entities in the store
+     * @return The update to {@link #commit(Update)} once the snapshot got merged
+     */
+    Update writeSnapshot(EntityData.GlobalStore store, TLongSet entities) throws IOException {
+        Path path = storagePathProvider.getGlobalEntityStoreTempPath();
+        CRC32 crc = new CRC32();
+        try (OutputStream out = new CheckedOutputStream(new BufferedOutputStream(Files.newOutputStream(path)), crc)) {
+            store.writeTo(out);
+        }
+        long size = Files.size(path);
+        return new Update(true, checksum(size, crc), size, -1, entities, store);
+    }
+
+    /**
+     * Writes a journal segment to the save transaction directory.
+     *
+     * @param delta           The entities that changed or were added since the last save
+     * @param removedEntities The ids of the entities that left the global store since the last save
+     * @param entities        The ids of all entities in the global store after this save
+     * @return The update to {@link #commit(Update)} once the segment got merged
+     */
+    Update writeSegment(EntityData.GlobalStore delta, TLongSet removedEntities, TLongSet entities) throws IOException {
+        long segment;
+        long baseChecksum;
+        synchronized (this) {
+            segment = nextSegment;
+            baseChecksum = snapshotChecksum;
+        }
+        Files.createDirectories(storagePathProvider.getGlobalEntityJournalTempPath());
+        Path path = storagePathProvider.getGlobalEntityJournalSegmentTempPath(segment);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+            CodedOutputStream output = CodedOutputStream.newInstance(out);
+            output.writeFixed64(BASE_CHECKSUM_FIELD, baseChecksum);
+            output.writeMessage(STORE_FIELD, delta);
+            if (!removedEntities.isEmpty()) {
+                long[] removed = removedEntities.toArray();
+                int size = 0;
+                for (long id : removed) {
+                    size += CodedOutputStream.computeInt64SizeNoTag(id);
+                }
+                output.writeTag(REMOVED_ENTITIES_FIELD, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+                output.writeRawVarint32(size);
+                for (long id : removed) {
+                    output.writeInt64NoTag(id);
+                }
+            }
+            output.flush();
+        }
+        return new Update(false, baseChecksum, Files.size(path), segment, entities, delta);
+    }
+
+    /**
+     * Records a merged update. After a snapshot the segments of the previous snapshot are deleted.
+     * <br><br>
+     * The world directory write lock must be held while calling this method.
+     */
+    synchronized void commit(Update update) throws IOException {
+        storedEntities = update.entities;
+        if (update.snapshot) {
+            storedPrefabs.clear();
+            snapshotChecksum = update.checksum;
+            snapshotSize = update.size;
+            journalSize = 0;
+            segmentCount = 0;
+            snapshotRequired = false;
+            for (long segment : listSegments()) {
+                Files.deleteIfExists(storagePathProvider.getGlobalEntityJournalSegmentPath(segment));
+            }
+        } else {
+            journalSize += update.size;
+            segmentCount++;
+            nextSegment = update.segment + 1;
+        }
+        storedPrefabs.addAll(update.prefabs);
+    }
+
+    /**
+     * Forces the next save to write a snapshot, e.g. after a save failed and the stored state is unknown.
+     */
+    synchronized void invalidate() {
+        snapshotRequired = true;
+    }
+
+    private void record(EntityData.GlobalStore store, long[] removedEntities) {
+        storedEntities.removeAll(removedEntities);
+        for (EntityData.Entity entity : store.getEntityList()) {
+            storedEntities.add(entity.getId());
+        }
+        for (EntityData.Prefab prefab : store.getPrefabList()) {
+            storedPrefabs.add(prefab.getName());
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> segments = Lists.newArrayList();
+        Path journalPath = storagePathProvider.getGlobalEntityJournalPath();
+        if (!Files.isDirectory(journalPath)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(journalPath, "*" + SEGMENT_EXTENSION)) {
+            for (Path path : stream) {
+                String fileName = path.getFileName().toString();
+                try {
+                    segments.add(Long.parseLong(fileName.substring(0, fileName.length() - SEGMENT_EXTENSION.length())));
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring unexpected file {} in the global store journal", path);
+                }
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static Entry readSegment(byte[] data) throws IOException {
+        CodedInputStream input = CodedInputStream.newInstance(data);
+        input.setSizeLimit(Integer.MAX_VALUE);
+        long baseChecksum = 0;
+        EntityData.GlobalStore store = EntityData.GlobalStore.getDefaultInstance();
+        TLongList removed = new TLongArrayList();
+        int tag;
+        while ((tag = input.readTag()) != 0) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case BASE_CHECKSUM_FIELD:
+                    baseChecksum = input.readFixed64();
+                    break;
+                case STORE_FIELD:
+                    store = EntityData.GlobalStore.parseFrom(input.readBytes());
+                    break;
+                case REMOVED_ENTITIES_FIELD:
+                    int oldLimit = input.pushLimit(input.readRawVarint32());
+                    while (input.getBytesUntilLimit() > 0) {
+                        removed.add(input.readInt64());
+                    }
+                    input.popLimit(oldLimit);
+                    break;
+                default:
+                    input.skipField(tag);
+                    break;
+            }
+        }
+        return new Entry(store, removed.toArray(), baseChecksum);
+    }
+
+    private static long checksum(long size, CRC32 crc) {
+        return (size << 32) ^ crc.getValue();
+    }
+
+    /**
+     * A global store read from the snapshot or a journal segment.
+     */
+    static final class Entry {
+        private final EntityData.GlobalStore store;
+        private final long[] removedEntities;
+        private final long baseChecksum;
+
+        private Entry(EntityData.GlobalStore store, long[] removedEntities) {
+            this(store, removedEntities, 0);
+        }
+
+        private Entry(EntityData.GlobalStore store, long[] removedEntities, long baseChecksum) {
+            this.store = store;
+            this.removedEntities = removedEntities;
+            this.baseChecksum = baseChecksum;
+        }
+
+        EntityData.GlobalStore getStore() {
+            return store;
+        }
+
+        /**
+         * @return The ids of entities that were removed from the global store before this entry was written
+         */
+        long[] getRemovedEntities() {
+            return removedEntities;
+        }
+    }
+
+    /**
+     * A snapshot or segment that has been written but not yet merged.
+     */
+    static final class Update {
+        private final boolean snapshot;
+        private final long checksum;
+        private final long size;
+        private final long segment;
+        private final TLongSet entities;
+        private final Set<String> prefabs = Sets.newHashSet();
+
+        private Update(boolean snapshot, long checksum, long size, long segment, TLongSet entities,
+                       EntityData.GlobalStore store) {
+            this.snapshot = snapshot;
+            this.checksum = checksum;
+            this.size = size;
+            this.segment = segment;
+            this.entities = entities;
+            for (EntityData.Prefab prefab : store.getPrefabList()) {
+                prefabs.add(prefab.getName());
+            }
+        }
+
+        boolean isSnapshot() {
+            return snapshot;
+        }
+
+        long getSize() {
+            return size;
+        }
+    }
+}
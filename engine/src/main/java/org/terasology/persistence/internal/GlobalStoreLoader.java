@@ -16,6 +16,8 @@
 package org.terasology.persistence.internal;
 
 import com.google.common.collect.Maps;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TLongIntHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.utilities.Assets;
@@ -35,6 +37,7 @@
 import org.terasology.persistence.serializers.PrefabSerializer;
 import org.terasology.protobuf.EntityData;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -60,15 +63,38 @@ final class GlobalStoreLoader {
         this.prefabSerializer = prefabSerializer;
     }
 
-    public void load(EntityData.GlobalStore globalStore) {
+    /**
+     * Replays a snapshot and its journal segments. Only the latest stored version of each entity gets deserialized,
+     * and entities removed by a later segment are skipped.
+     *
+     * @param entries The snapshot followed by its journal segments, as returned by {@link GlobalStoreJournal#read()}
+     */
+    public void load(List<GlobalStoreJournal.Entry> entries) {
         entityManager.clear();
-        entityManager.setNextId(globalStore.getNextEntityId());
 
-        loadComponentMapping(globalStore);
-        loadMissingPrefabs(globalStore);
+        TLongIntMap latestEntry = new TLongIntHashMap();
+        long nextEntityId = 0;
+        for (int index = 0; index < entries.size(); ++index) {
+            GlobalStoreJournal.Entry entry = entries.get(index);
+            for (long removedEntity : entry.getRemovedEntities()) {
+                latestEntry.remove(removedEntity);
+            }
+            for (EntityData.Entity entityData : entry.getStore().getEntityList()) {
+                latestEntry.put(entityData.getId(), index);
+            }
+            nextEntityId = Math.max(nextEntityId, entry.getStore().getNextEntityId());
+        }
+        entityManager.setNextId(nextEntityId);
 
-        for (EntityData.Entity entityData : globalStore.getEntityList()) {
-            entitySerializer.deserialize(entityData);
+        for (int index = 0; index < entries.size(); ++index) {
+            EntityData.GlobalStore globalStore = entries.get(index).getStore();
+            loadComponentMapping(globalStore);
+            loadMissingPrefabs(globalStore);
+            for (EntityData.Entity entityData : globalStore.getEntityList()) {
+                if (latestEntry.containsKey(entityData.getId()) && latestEntry.get(entityData.getId()) == index) {
+                    entitySerializer.deserialize(entityData);
+                }
+            }
         }
     }
 
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decompresses a single member gzip stream, as written by {@link java.util.zip.GZIPOutputStream} for chunk stores,
+ * reading the compressed data directly from a channel or an array.
+ * <br><br>
+ * Unlike {@link java.util.zip.GZIPInputStream}, the inflater and the input buffer are taken from a pool and returned to
+ * it on {@link #close()}, so loading many chunks does not allocate native inflater state and buffers for each of them.
+ *
+ */
+final class PooledGzipInputStream extends InputStream {
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_POOLED = 16;
+    private static final BlockingQueue<Inflater> INFLATER_POOL = new ArrayBlockingQueue<>(MAX_POOLED);
+    private static final BlockingQueue<ByteBuffer> BUFFER_POOL = new ArrayBlockingQueue<>(MAX_POOLED);
+
+    private final ReadableByteChannel channel;
+    private final CRC32 crc = new CRC32();
+    private final byte[] singleByte = new byte[1];
+    private Inflater inflater;
+    private ByteBuffer buffer;
+    private boolean finished;
+
+    /**
+     * @param channel The channel to read the compressed data from, left open on close
+     * @throws IOException If the gzip header could not be read or is invalid
+     */
+    PooledGzipInputStream(ReadableByteChannel channel) throws IOException {
+        this.channel = channel;
+        this.inflater = takeInflater();
+        this.buffer = takeBuffer();
+        buffer.flip();
+        start();
+    }
+
+    /**
+     * @param data The compressed data
+     * @throws IOException If the gzip header is invalid
+     */
+    PooledGzipInputStream(byte[] data) throws IOException {
+        this.channel = null;
+        this.inflater = takeInflater();
+        this.buffer = ByteBuffer.wrap(data);
+        start();
+    }
+
+    @Override
+    public int read() throws IOException {
+        return (read(singleByte, 0, 1) == -1) ? -1 : singleByte[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (inflater == null) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        while (!finished) {
+            if (inflater.needsInput()) {
+                fill();
+                inflater.setInput(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                buffer.position(buffer.limit());
+            }
+            int count;
+            try {
+                count = inflater.inflate(b, off, len);
+            } catch (DataFormatException e) {
+                throw new ZipException(e.getMessage());
+            }
+            if (count > 0) {
+                crc.update(b, off, count);
+                return count;
+            }
+            if (inflater.finished()) {
+                finished = true;
+                // Bytes the inflater was given but did not need belong to the trailer
+                buffer.position(buffer.limit() - inflater.getRemaining());
+                readTrailer();
+            } else if (inflater.needsDictionary()) {
+                throw new ZipException("Unexpected preset dictionary");
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the inflater and buffer to the pool. The channel is left open.
+     */
+    @Override
+    public void close() {
+        if (inflater != null) {
+            inflater.reset();
+            if (!INFLATER_POOL.offer(inflater)) {
+                inflater.end();
+            }
+            inflater = null;
+        }
+        if (channel != null && buffer != null) {
+            buffer.clear();
+            BUFFER_POOL.offer(buffer);
+        }
+        buffer = null;
+    }
+
+    private void start() throws IOException {
+        try {
+            readHeader();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private void readHeader() throws IOException {
+        if (readUnsignedShort() != GZIP_MAGIC) {
+            throw new ZipException("Not in GZIP format");
+        }
+        if (readUnsignedByte() != 8) {
+            throw new ZipException("Unsupported compression method");
+        }
+        int flags = readUnsignedByte();
+        // Modification time, extra flags and operating system
+        skipBytes(6);
+        if ((flags & FEXTRA) == FEXTRA) {
+            skipBytes(readUnsignedShort());
+        }
+        if ((flags & FNAME) == FNAME) {
+            while (readUnsignedByte() != 0) {
+                // Skip the file name
+            }
+        }
+        if ((flags & FCOMMENT) == FCOMMENT) {
+            while (readUnsignedByte() != 0) {
+                // Skip the comment
+            }
+        }
+        if ((flags & FHCRC) == FHCRC) {
+            skipBytes(2);
+        }
+    }
+
+    private void readTrailer() throws IOException {
+        long expectedCrc = readUnsignedInt();
+        long expectedSize = readUnsignedInt();
+        if (expectedCrc != crc.getValue() || expectedSize != (inflater.getBytesWritten() & 0xFFFFFFFFL)) {
+            throw new ZipException("Corrupt GZIP trailer");
+        }
+    }
+
+    private long readUnsignedInt() throws IOException {
+        return readUnsignedShort() | ((long) readUnsignedShort() << 16);
+    }
+
+    private int readUnsignedShort() throws IOException {
+        return readUnsignedByte() | (readUnsignedByte() << 8);
+    }
+
+    private int readUnsignedByte() throws IOException {
+        if (!buffer.hasRemaining()) {
+            fill();
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    private void skipBytes(int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            readUnsignedByte();
+        }
+    }
+
+    /**
+     * Refills the buffer from the channel.
+     *
+     * @throws EOFException If there is no more data
+     */
+    private void fill() throws IOException {
+        if (channel == null) {
+            if (!buffer.hasRemaining()) {
+                throw new EOFException("Unexpected end of GZIP stream");
+            }
+            return;
+        }
+        buffer.compact();
+        int count = 0;
+        while (count == 0) {
+            count = channel.read(buffer);
+        }
+        buffer.flip();
+        if (count < 0) {
+            throw new EOFException("Unexpected end of GZIP stream");
+        }
+    }
+
+    private static Inflater takeInflater() {
+        Inflater pooled = INFLATER_POOL.poll();
+        return (pooled != null) ? pooled : new Inflater(true);
+    }
+
+    private static ByteBuffer takeBuffer() {
+        ByteBuffer pooled = BUFFER_POOL.poll();
+        return (pooled != null) ? pooled : ByteBuffer.allocate(BUFFER_SIZE);
+    }
+}
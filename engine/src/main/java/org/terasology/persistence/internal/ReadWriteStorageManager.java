@@ -17,6 +17,8 @@
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.config.Config;
@@ -42,6 +44,7 @@
 import org.terasology.network.Client;
 import org.terasology.network.ClientComponent;
 import org.terasology.network.NetworkSystem;
+import org.terasology.persistence.ChunkStore;
 import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
 import org.terasology.protobuf.EntityData;
 import org.terasology.registry.CoreRegistry;
@@ -106,6 +109,15 @@ public final class ReadWriteStorageManager extends AbstractStorageManager implem
     private ConcurrentMap<String, EntityData.PlayerStore> unloadedAndSavingPlayerMap = Maps.newConcurrentMap();
 
 
+    /**
+     * Set when saves are made from snapshots of the entity manager, instead of from the private entity manager.
+     */
+    private final PojoEntityManager snapshotEntityManager;
+    /**
+     * The ids of the entities changed since the last save, when saving from snapshots.
+     */
+    private TLongSet changedEntities = new TLongHashSet();
+
     private EngineEntityManager privateEntityManager;
     private EntitySetDeltaRecorder entitySetDeltaRecorder;
     /**
@@ -121,20 +133,39 @@ public ReadWriteStorageManager(Path savePath, ModuleEnvironment environment, Eng
 
     public ReadWriteStorageManager(Path savePath, ModuleEnvironment environment, EngineEntityManager entityManager,
                                    BlockManager blockManager, BiomeManager biomeManager, boolean storeChunksInZips) throws IOException {
+        this(savePath, environment, entityManager, blockManager, biomeManager, storeChunksInZips, false);
+    }
+
+    /**
+     * @param snapshotSaves If true, saves are made from a snapshot of the entity manager (see
+     *                      {@link PojoEntityManager#createSnapshot()}) instead of from a private copy of all entities
+     *                      that gets kept up to date. This roughly halves the memory needed for entities, but an
+     *                      entity saved while the save runs may be stored as of that change.
+     */
+    public ReadWriteStorageManager(Path savePath, ModuleEnvironment environment, EngineEntityManager entityManager,
+                                   BlockManager blockManager, BiomeManager biomeManager, boolean storeChunksInZips,
+                                   boolean snapshotSaves) throws IOException {
         super(savePath, environment, entityManager, blockManager, biomeManager, storeChunksInZips);
 
         entityManager.subscribeForDestruction(this);
         entityManager.subscribeForChanges(this);
-        // TODO Ensure that the component library and the type serializer library are thread save (e.g. immutable)
-        this.privateEntityManager = createPrivateEntityManager(entityManager.getComponentLibrary());
+        if (snapshotSaves && !(entityManager instanceof PojoEntityManager)) {
+            logger.warn("Saving from snapshots is not supported by {}, keeping a private copy of the entities instead",
+                    entityManager.getClass().getSimpleName());
+        }
+        this.snapshotEntityManager = snapshotSaves && entityManager instanceof PojoEntityManager
+                ? (PojoEntityManager) entityManager : null;
         Files.createDirectories(getStoragePathProvider().getStoragePathDirectory());
         this.saveTransactionHelper = new SaveTransactionHelper(getStoragePathProvider());
         this.saveThreadManager = TaskMaster.createFIFOTaskMaster("Saving", 1);
         this.config = CoreRegistry.get(Config.class);
-        this.entityRefReplacingComponentLibrary = privateEntityManager.getComponentLibrary()
-                .createCopyUsingCopyStrategy(EntityRef.class, new DelayedEntityRefCopyStrategy(this));
-        this.entitySetDeltaRecorder = new EntitySetDeltaRecorder(this.entityRefReplacingComponentLibrary);
-
+        if (snapshotEntityManager == null) {
+            // TODO Ensure that the component library and the type serializer library are thread save (e.g. immutable)
+            this.privateEntityManager = createPrivateEntityManager(entityManager.getComponentLibrary());
+            this.entityRefReplacingComponentLibrary = privateEntityManager.getComponentLibrary()
+                    .createCopyUsingCopyStrategy(EntityRef.class, new DelayedEntityRefCopyStrategy(this));
+            this.entitySetDeltaRecorder = new EntitySetDeltaRecorder(this.entityRefReplacingComponentLibrary);
+        }
     }
 
     private static EngineEntityManager createPrivateEntityManager(ComponentLibrary componentLibrary) {
@@ -154,6 +185,9 @@ private void checkSaveTransactionAndClearUpIfItIsDone() {
         if (saveTransaction != null) {
             SaveTransactionResult result = saveTransaction.getResult();
             if (result != null) {
+                if (snapshotEntityManager != null) {
+                    snapshotEntityManager.releaseSnapshot();
+                }
                 Throwable t = saveTransaction.getResult().getCatchedThrowable();
                 if (t != null) {
                     throw new RuntimeException("Saving failed", t);
@@ -168,6 +202,7 @@ private void checkSaveTransactionAndClearUpIfItIsDone() {
     private void addGlobalStoreBuilderToSaveTransaction(SaveTransactionBuilder transactionBuilder) {
         GlobalStoreBuilder globalStoreBuilder = new GlobalStoreBuilder(getEntityManager(), getPrefabSerializer());
         transactionBuilder.setGlobalStoreBuilder(globalStoreBuilder);
+        transactionBuilder.setGlobalStoreJournal(getGlobalStoreJournal());
     }
 
     @Override
@@ -244,10 +279,19 @@ private void waitForCompletionOfPreviousSave() {
     }
 
     private SaveTransaction createSaveTransaction() {
-        SaveTransactionBuilder saveTransactionBuilder = new SaveTransactionBuilder(privateEntityManager,
-                entitySetDeltaRecorder, isStoreChunksInZips(), getStoragePathProvider(), worldDirectoryWriteLock);
-
         ChunkProvider chunkProvider = CoreRegistry.get(ChunkProvider.class);
+        chunkProvider.finishRestoringEntities();
+
+        SaveTransactionBuilder saveTransactionBuilder;
+        if (snapshotEntityManager != null) {
+            saveTransactionBuilder = new SaveTransactionBuilder(createEntitySnapshot(), changedEntities,
+                    isStoreChunksInZips(), getStoragePathProvider(), worldDirectoryWriteLock);
+            changedEntities = new TLongHashSet();
+        } else {
+            saveTransactionBuilder = new SaveTransactionBuilder(privateEntityManager, entitySetDeltaRecorder,
+                    isStoreChunksInZips(), getStoragePathProvider(), worldDirectoryWriteLock);
+        }
+
         NetworkSystem networkSystem = CoreRegistry.get(NetworkSystem.class);
 
         addChunksToSaveTransaction(saveTransactionBuilder, chunkProvider);
@@ -259,6 +303,18 @@ private SaveTransaction createSaveTransaction() {
     }
 
 
+    /**
+     * @return A snapshot of the entity manager, with entity refs getting serialized as they were when it got taken.
+     */
+    private EngineEntityManager createEntitySnapshot() {
+        PojoEntityManager snapshot = snapshotEntityManager.createSnapshot();
+        TypeSerializationLibrary snapshotSerializationLibrary =
+                new TypeSerializationLibrary(snapshotEntityManager.getTypeSerializerLibrary());
+        snapshotSerializationLibrary.add(EntityRef.class, new SnapshotEntityRefTypeHandler(snapshot));
+        snapshot.setTypeSerializerLibrary(snapshotSerializationLibrary);
+        return snapshot;
+    }
+
     private void addPlayersToSaveTransaction(SaveTransactionBuilder saveTransactionBuilder,
                                              NetworkSystem networkSystem) {
         unloadedAndSavingPlayerMap.clear();
@@ -314,19 +370,19 @@ public void deactivateChunk(Chunk chunk) {
     }
 
     @Override
-    protected byte[] loadCompressedChunk(Vector3i chunkPos) {
+    public ChunkStore loadChunkStore(Vector3i chunkPos) {
         CompressedChunkBuilder disposedUnsavedChunk = unloadedAndUnsavedChunkMap.get(chunkPos);
         if (disposedUnsavedChunk != null) {
-            return disposedUnsavedChunk.buildEncodedChunk();
+            return readChunkStore(chunkPos, disposedUnsavedChunk.buildEncodedChunk());
         }
         CompressedChunkBuilder disposedSavingChunk = unloadedAndSavingChunkMap.get(chunkPos);
         if (disposedSavingChunk != null) {
-            return disposedSavingChunk.buildEncodedChunk();
+            return readChunkStore(chunkPos, disposedSavingChunk.buildEncodedChunk());
         }
 
         worldDirectoryReadLock.lock();
         try {
-            return super.loadCompressedChunk(chunkPos);
+            return super.loadChunkStore(chunkPos);
         } finally {
             worldDirectoryReadLock.unlock();
         }
@@ -334,7 +390,9 @@ protected byte[] loadCompressedChunk(Vector3i chunkPos) {
 
     @Override
     public void onEntityDestroyed(EntityRef entity) {
-        entitySetDeltaRecorder.onEntityDestroyed(entity);
+        if (entitySetDeltaRecorder != null) {
+            entitySetDeltaRecorder.onEntityDestroyed(entity);
+        }
     }
 
     private void addGameManifestToSaveTransaction(SaveTransactionBuilder saveTransactionBuilder) {
@@ -406,7 +464,7 @@ private void startSaving() {
             sys.postSave();
         }
         PerformanceMonitor.endActivity();
-        entitySetDeltaRecorder = new EntitySetDeltaRecorder(this.entityRefReplacingComponentLibrary);
+        resetEntitySetDeltaRecorder();
         logger.info("Saving - Snapshot created: Writing phase starts");
     }
 
@@ -427,10 +485,16 @@ private void startAutoSaving() {
 
         scheduleNextAutoSave();
         PerformanceMonitor.endActivity();
-        entitySetDeltaRecorder = new EntitySetDeltaRecorder(this.entityRefReplacingComponentLibrary);
+        resetEntitySetDeltaRecorder();
         logger.info("Auto Saving - Snapshot created: Writing phase starts");
     }
 
+    private void resetEntitySetDeltaRecorder() {
+        if (entitySetDeltaRecorder != null) {
+            entitySetDeltaRecorder = new EntitySetDeltaRecorder(this.entityRefReplacingComponentLibrary);
+        }
+    }
+
     private boolean isSavingNecessary() {
         ChunkProvider chunkProvider = CoreRegistry.get(ChunkProvider.class);
         int unloadedChunkCount = unloadedAndUnsavedChunkMap.size();
@@ -485,29 +549,45 @@ public void deleteWorld() {
 
     @Override
     public void onEntityComponentAdded(EntityRef entity, Class<? extends Component> component) {
-        entitySetDeltaRecorder.onEntityComponentAdded(entity, component);
+        if (entitySetDeltaRecorder != null) {
+            entitySetDeltaRecorder.onEntityComponentAdded(entity, component);
+        } else {
+            changedEntities.add(entity.getId());
+        }
     }
 
     @Override
     public void onEntityComponentChange(EntityRef entity, Class<? extends Component> component) {
-        entitySetDeltaRecorder.onEntityComponentChange(entity, component);
+        if (entitySetDeltaRecorder != null) {
+            entitySetDeltaRecorder.onEntityComponentChange(entity, component);
+        } else {
+            changedEntities.add(entity.getId());
+        }
     }
 
     @Override
     public void onEntityComponentRemoved(EntityRef entity, Class<? extends Component> component) {
-        entitySetDeltaRecorder.onEntityComponentRemoved(entity, component);
+        if (entitySetDeltaRecorder != null) {
+            entitySetDeltaRecorder.onEntityComponentRemoved(entity, component);
+        } else {
+            changedEntities.add(entity.getId());
+        }
     }
 
     @Override
     public void onReactivation(EntityRef entity, Collection<Component> components) {
-        entitySetDeltaRecorder.onReactivation(entity, components);
-
+        if (entitySetDeltaRecorder != null) {
+            entitySetDeltaRecorder.onReactivation(entity, components);
+        } else {
+            changedEntities.add(entity.getId());
+        }
     }
 
     @Override
     public void onBeforeDeactivation(EntityRef entity, Collection<Component> components) {
-        entitySetDeltaRecorder.onBeforeDeactivation(entity, components);
-
+        if (entitySetDeltaRecorder != null) {
+            entitySetDeltaRecorder.onBeforeDeactivation(entity, components);
+        }
     }
 
     @Override
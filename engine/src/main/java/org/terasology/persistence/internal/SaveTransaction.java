@@ -15,9 +15,11 @@
  */
 package org.terasology.persistence.internal;
 
-import com.google.common.collect.ImmutableMap;
+import com.google.common.base.Stopwatch;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.entitySystem.Component;
@@ -36,23 +38,19 @@
 import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.net.URI;
 import java.nio.file.AccessDeniedException;
 import java.nio.file.AtomicMoveNotSupportedException;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
-import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 
 /**
@@ -64,12 +62,13 @@
 public class SaveTransaction extends AbstractTask {
     private static final Logger logger = LoggerFactory.getLogger(SaveTransaction.class);
 
-    private static final ImmutableMap<String, String> CREATE_ZIP_OPTIONS = ImmutableMap.of("create", "true", "encoding", "UTF-8");
     private final GameManifest gameManifest;
     private final Lock worldDirectoryWriteLock;
     private final EngineEntityManager privateEntityManager;
     private final EntitySetDeltaRecorder deltaToSave;
+    private final TLongSet changedEntities;
     private volatile SaveTransactionResult result;
+    private final Map<String, Long> phaseTimes = Maps.newLinkedHashMap();
 
     // Unprocessed data to save:
     private final Map<String, EntityData.PlayerStore> unloadedPlayers;
@@ -77,9 +76,13 @@ public class SaveTransaction extends AbstractTask {
     private final Map<Vector3i, CompressedChunkBuilder> unloadedChunks;
     private final Map<Vector3i, ChunkImpl> loadedChunks;
     private final GlobalStoreBuilder globalStoreBuilder;
+    private final GlobalStoreJournal globalStoreJournal;
 
     // processed data:
     private EntityData.GlobalStore globalStore;
+    private TLongSet globalStoreEntities;
+    private TLongSet removedGlobalStoreEntities;
+    private GlobalStoreJournal.Update globalStoreUpdate;
     private Map<String, EntityData.PlayerStore> allPlayers;
     private Map<Vector3i, CompressedChunkBuilder> allChunks;
 
@@ -92,19 +95,27 @@ public class SaveTransaction extends AbstractTask {
     private final SaveTransactionHelper saveTransactionHelper;
 
 
+    /**
+     * @param privateEntityManager The entity manager holding the entities to save. Either a private copy that
+     *                             deltaToSave gets applied to, or a snapshot of the live entity manager.
+     * @param deltaToSave          The changes to apply to the private entity manager, or null if it is a snapshot
+     * @param changedEntities      The ids of the entities that changed since the previous save
+     */
     public SaveTransaction(EngineEntityManager privateEntityManager, EntitySetDeltaRecorder deltaToSave,
-                           Map<String, EntityData.PlayerStore> unloadedPlayers,
+                           TLongSet changedEntities, Map<String, EntityData.PlayerStore> unloadedPlayers,
                            Map<String, PlayerStoreBuilder> loadedPlayers, GlobalStoreBuilder globalStoreBuilder,
-                           Map<Vector3i, CompressedChunkBuilder> unloadedChunks, Map<Vector3i, ChunkImpl> loadedChunks,
+                           GlobalStoreJournal globalStoreJournal, Map<Vector3i, CompressedChunkBuilder> unloadedChunks, Map<Vector3i, ChunkImpl> loadedChunks,
                            GameManifest gameManifest, boolean storeChunksInZips,
                            StoragePathProvider storagePathProvider, Lock worldDirectoryWriteLock) {
         this.privateEntityManager = privateEntityManager;
         this.deltaToSave = deltaToSave;
+        this.changedEntities = changedEntities;
         this.unloadedPlayers = unloadedPlayers;
         this.loadedPlayers = loadedPlayers;
         this.unloadedChunks = unloadedChunks;
         this.loadedChunks = loadedChunks;
         this.globalStoreBuilder = globalStoreBuilder;
+        this.globalStoreJournal = globalStoreJournal;
         this.gameManifest = gameManifest;
         this.storeChunksInZips = storeChunksInZips;
         this.storagePathProvider = storagePathProvider;
@@ -125,24 +136,39 @@ public void run() {
                 // should not happen, as initialization should clean it up
                 throw new IOException("Save rand while there were unmerged changes");
             }
+            Stopwatch phase = Stopwatch.createStarted();
             saveTransactionHelper.cleanupSaveTransactionDirectory();
-            applyDeltaToPrivateEntityManager();
+            if (deltaToSave != null) {
+                applyDeltaToPrivateEntityManager();
+            }
+            recordPhase("apply delta", phase);
             prepareChunksPlayersAndGlobalStore();
+            recordPhase("prepare", phase);
             createSaveTransactionDirectory();
             writePlayerStores();
+            recordPhase("players", phase);
             writeGlobalStore();
+            recordPhase("global store", phase);
             writeChunkStores();
+            recordPhase("chunks", phase);
             saveGameManifest();
             perpareChangesForMerge();
             mergeChanges();
+            recordPhase("merge", phase);
             result = SaveTransactionResult.createSuccessResult();
-            logger.info("Save game finished");
+            logger.info("Save game finished, phase times in ms: {}", phaseTimes);
         } catch (IOException | RuntimeException t) {
             logger.error("Save game creation failed", t);
+            globalStoreJournal.invalidate();
             result = SaveTransactionResult.createFailureResult(t);
         }
     }
 
+    private void recordPhase(String name, Stopwatch phase) {
+        phaseTimes.put(name, phase.elapsed(TimeUnit.MILLISECONDS));
+        phase.reset().start();
+    }
+
     private void prepareChunksPlayersAndGlobalStore() {
         /**
          * Currently loaded persistent entities without owner that have not been saved yet.
@@ -155,7 +181,35 @@ private void prepareChunksPlayersAndGlobalStore() {
         }
         preparePlayerStores(unsavedEntities);
         prepareCompressedChunkBuilders(unsavedEntities);
-        this.globalStore = globalStoreBuilder.build(privateEntityManager, unsavedEntities);
+        prepareGlobalStore(unsavedEntities);
+    }
+
+    /**
+     * Builds either a full snapshot of the global store or, when the journal allows it, a delta holding only the
+     * entities that changed or joined the global store since the last save.
+     *
+     * @param unsavedEntities the persistent entities that belong in the global store.
+     */
+    private void prepareGlobalStore(Set<EntityRef> unsavedEntities) {
+        TLongSet storedEntities = globalStoreJournal.getStoredEntities();
+        globalStoreEntities = new TLongHashSet(unsavedEntities.size());
+        List<EntityRef> journaledEntities = Lists.newArrayList();
+        for (EntityRef entity : unsavedEntities) {
+            long id = entity.getId();
+            globalStoreEntities.add(id);
+            if (changedEntities.contains(id) || !storedEntities.contains(id)) {
+                journaledEntities.add(entity);
+            }
+        }
+
+        if (globalStoreJournal.isSnapshotDue(journaledEntities.size(), unsavedEntities.size())) {
+            globalStore = globalStoreBuilder.build(privateEntityManager, unsavedEntities);
+        } else {
+            globalStore = globalStoreBuilder.buildDelta(privateEntityManager, journaledEntities,
+                    globalStoreJournal.getStoredPrefabs());
+            storedEntities.removeAll(globalStoreEntities);
+            removedGlobalStoreEntities = storedEntities;
+        }
     }
 
 
@@ -339,67 +393,26 @@ private void writePlayerStores() throws IOException {
     }
 
     private void writeGlobalStore() throws IOException {
-        Path path = storagePathProvider.getGlobalEntityStoreTempPath();
-        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
-            globalStore.writeTo(out);
+        if (removedGlobalStoreEntities == null) {
+            globalStoreUpdate = globalStoreJournal.writeSnapshot(globalStore, globalStoreEntities);
+        } else {
+            globalStoreUpdate = globalStoreJournal.writeSegment(globalStore, removedGlobalStoreEntities,
+                    globalStoreEntities);
         }
+        logger.info("Saved global store {} with {} entities, {} bytes",
+                globalStoreUpdate.isSnapshot() ? "snapshot" : "journal segment", globalStore.getEntityCount(),
+                globalStoreUpdate.getSize());
     }
 
     private void writeChunkStores() throws IOException {
-        Path chunksPath = storagePathProvider.getWorldTempPath();
-        Files.createDirectories(chunksPath);
-        if (storeChunksInZips) {
-            Map<Vector3i, FileSystem> newChunkZips = Maps.newHashMap();
-            for (Map.Entry<Vector3i, CompressedChunkBuilder> entry : allChunks.entrySet()) {
-                Vector3i chunkPos = entry.getKey();
-                Vector3i chunkZipPos = storagePathProvider.getChunkZipPosition(chunkPos);
-                FileSystem zip = newChunkZips.get(chunkZipPos);
-                if (zip == null) {
-                    Path targetPath = storagePathProvider.getChunkZipTempPath(chunkZipPos);
-                    Files.deleteIfExists(targetPath);
-                    zip = FileSystems.newFileSystem(URI.create("jar:" + targetPath.toUri()), CREATE_ZIP_OPTIONS);
-                    newChunkZips.put(chunkZipPos, zip);
-                }
-                Path chunkPath = zip.getPath(storagePathProvider.getChunkFilename(chunkPos));
-                CompressedChunkBuilder compressedChunkBuilder = entry.getValue();
-                byte[] compressedChunk = compressedChunkBuilder.buildEncodedChunk();
-                try (BufferedOutputStream bos = new BufferedOutputStream(Files.newOutputStream(chunkPath))) {
-                    bos.write(compressedChunk);
-                }
-            }
-            // Copy existing, unmodified content into the zips and close them
-            for (Map.Entry<Vector3i, FileSystem> chunkZipEntry : newChunkZips.entrySet()) {
-                Vector3i chunkZipPos = chunkZipEntry.getKey();
-                Path oldChunkZipPath = storagePathProvider.getChunkZipPath(chunkZipPos);
-                final FileSystem zip = chunkZipEntry.getValue();
-                if (Files.isRegularFile(oldChunkZipPath)) {
-                    try (FileSystem oldZip = FileSystems.newFileSystem(oldChunkZipPath, null)) {
-                        for (Path root : oldZip.getRootDirectories()) {
-                            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
-                                @Override
-                                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
-                                        throws IOException {
-                                    if (!Files.isRegularFile(zip.getPath(file.toString()))) {
-                                        Files.copy(file, zip.getPath(file.toString()));
-                                    }
-                                    return FileVisitResult.CONTINUE;
-                                }
-                            });
-                        }
-                    }
-                }
-                zip.close();
-            }
-        } else {
-            for (Map.Entry<Vector3i, CompressedChunkBuilder> entry : allChunks.entrySet()) {
-                Vector3i chunkPos = entry.getKey();
-                CompressedChunkBuilder compressedChunkBuilder = entry.getValue();
-                byte[] compressedChunk = compressedChunkBuilder.buildEncodedChunk();
-                Path chunkPath = storagePathProvider.getChunkTempPath(chunkPos);
-                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(chunkPath))) {
-                    out.write(compressedChunk);
-                }
-            }
+        Files.createDirectories(storagePathProvider.getWorldTempPath());
+        ForkJoinPool compressionPool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        try {
+            ChunkStoreWriter chunkStoreWriter = new ChunkStoreWriter(storagePathProvider, storeChunksInZips, compressionPool);
+            chunkStoreWriter.write(allChunks);
+            logger.info("Saved chunks: {}", chunkStoreWriter.getSummary());
+        } finally {
+            compressionPool.shutdownNow();
         }
     }
 
@@ -424,6 +437,7 @@ private void mergeChanges() throws IOException {
         worldDirectoryWriteLock.lock();
         try {
             saveTransactionHelper.mergeChanges();
+            globalStoreJournal.commit(globalStoreUpdate);
         } finally {
             worldDirectoryWriteLock.unlock();
         }
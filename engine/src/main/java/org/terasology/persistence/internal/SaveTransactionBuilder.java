@@ -16,6 +16,7 @@
 package org.terasology.persistence.internal;
 
 import com.google.common.collect.Maps;
+import gnu.trove.set.TLongSet;
 import org.terasology.entitySystem.entity.internal.EngineEntityManager;
 import org.terasology.game.GameManifest;
 import org.terasology.math.geom.Vector3i;
@@ -33,20 +34,42 @@ class SaveTransactionBuilder {
     private final Lock worldDirectoryWriteLock;
     private final EngineEntityManager privateEntityManager;
     private final EntitySetDeltaRecorder deltaToSave;
+    private final TLongSet changedEntities;
     private Map<String, EntityData.PlayerStore> unloadedPlayers = Maps.newHashMap();
     private Map<String, PlayerStoreBuilder> loadedPlayers = Maps.newHashMap();
     private Map<Vector3i, CompressedChunkBuilder> unloadedChunks = Maps.newHashMap();
     private Map<Vector3i, ChunkImpl> loadedChunks = Maps.newHashMap();
     private GlobalStoreBuilder globalStoreBuilder;
+    private GlobalStoreJournal globalStoreJournal;
     private final boolean storeChunksInZips;
     private final StoragePathProvider storagePathProvider;
     private GameManifest gameManifest;
 
+    /**
+     * Creates a builder for a transaction that applies the recorded delta to the private entity manager and saves it.
+     */
     SaveTransactionBuilder(EngineEntityManager privateEntityManager, EntitySetDeltaRecorder deltaToSave,
                            boolean storeChunksInZips, StoragePathProvider storagePathProvider,
                            Lock worldDirectoryWriteLock) {
+        this(privateEntityManager, deltaToSave, deltaToSave.getEntityDeltas().keySet(), storeChunksInZips,
+                storagePathProvider, worldDirectoryWriteLock);
+    }
+
+    /**
+     * Creates a builder for a transaction that saves an entity snapshot as it is.
+     */
+    SaveTransactionBuilder(EngineEntityManager entitySnapshot, TLongSet changedEntities,
+                           boolean storeChunksInZips, StoragePathProvider storagePathProvider,
+                           Lock worldDirectoryWriteLock) {
+        this(entitySnapshot, null, changedEntities, storeChunksInZips, storagePathProvider, worldDirectoryWriteLock);
+    }
+
+    private SaveTransactionBuilder(EngineEntityManager privateEntityManager, EntitySetDeltaRecorder deltaToSave,
+                                   TLongSet changedEntities, boolean storeChunksInZips,
+                                   StoragePathProvider storagePathProvider, Lock worldDirectoryWriteLock) {
         this.privateEntityManager = privateEntityManager;
         this.deltaToSave = deltaToSave;
+        this.changedEntities = changedEntities;
         this.storeChunksInZips = storeChunksInZips;
         this.storagePathProvider = storagePathProvider;
         this.worldDirectoryWriteLock = worldDirectoryWriteLock;
@@ -64,6 +87,10 @@ public void setGlobalStoreBuilder(GlobalStoreBuilder globalStoreBuilder) {
         this.globalStoreBuilder = globalStoreBuilder;
     }
 
+    public void setGlobalStoreJournal(GlobalStoreJournal globalStoreJournal) {
+        this.globalStoreJournal = globalStoreJournal;
+    }
+
     public void addUnloadedChunk(final Vector3i chunkPosition, final CompressedChunkBuilder b) {
         unloadedChunks.put(chunkPosition, b);
     }
@@ -74,9 +101,9 @@ public void addLoadedChunk(final Vector3i chunkPosition, final ChunkImpl chunk)
     }
 
     public SaveTransaction build() {
-        return new SaveTransaction(privateEntityManager, deltaToSave, unloadedPlayers, loadedPlayers, globalStoreBuilder,
-                unloadedChunks, loadedChunks, gameManifest, storeChunksInZips, storagePathProvider,
-                worldDirectoryWriteLock);
+        return new SaveTransaction(privateEntityManager, deltaToSave, changedEntities, unloadedPlayers, loadedPlayers,
+                globalStoreBuilder, globalStoreJournal, unloadedChunks, loadedChunks, gameManifest, storeChunksInZips,
+                storagePathProvider, worldDirectoryWriteLock);
 
     }
 
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.internal;
+
+import gnu.trove.list.TLongList;
+import gnu.trove.list.array.TLongArrayList;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.EngineEntityManager;
+import org.terasology.entitySystem.entity.internal.PojoEntityManager;
+import org.terasology.persistence.typeHandling.PersistedData;
+import org.terasology.persistence.typeHandling.SerializationContext;
+import org.terasology.persistence.typeHandling.extensionTypes.EntityRefTypeHandler;
+
+import java.util.Collection;
+
+/**
+ * Serializes the entity refs found in the components of an entity snapshot (see
+ * {@link PojoEntityManager#createSnapshot()}). Those refs belong to the live entity manager, so they get resolved
+ * by id against the snapshot instead: the save thread must not query the live entity manager, and an entity destroyed
+ * after the snapshot got taken still needs to be saved as it was.
+ *
+ */
+final class SnapshotEntityRefTypeHandler extends EntityRefTypeHandler {
+
+    private final EngineEntityManager snapshot;
+
+    SnapshotEntityRefTypeHandler(EngineEntityManager snapshot) {
+        super(snapshot);
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    public PersistedData serialize(EntityRef value, SerializationContext context) {
+        long id = resolve(value);
+        if (id != PojoEntityManager.NULL_ID) {
+            return context.create(id);
+        }
+        return context.createNull();
+    }
+
+    @Override
+    public PersistedData serializeCollection(Collection<EntityRef> value, SerializationContext context) {
+        TLongList items = new TLongArrayList();
+        for (EntityRef ref : value) {
+            items.add(resolve(ref));
+        }
+        return context.create(items.iterator());
+    }
+
+    /**
+     * @return The id to store for the ref, or the null id if the entity does not exist or should not be saved
+     */
+    private long resolve(EntityRef ref) {
+        long id = ref.getId();
+        if (snapshot.isActiveEntity(id)) {
+            return snapshot.getEntity(id).isPersistent() ? id : PojoEntityManager.NULL_ID;
+        }
+        // Entities that are not active are stored in chunks or player stores, and always persistent
+        return ref.exists() ? id : PojoEntityManager.NULL_ID;
+    }
+}
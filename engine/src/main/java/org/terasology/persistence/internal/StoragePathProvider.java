@@ -28,6 +28,7 @@ public class StoragePathProvider {
     private static final String WORLDS_PATH = "worlds";
     private static final String PLAYER_STORE_EXTENSION = ".player";
     private static final String GLOBAL_ENTITY_STORE = "global.dat";
+    private static final String GLOBAL_ENTITY_JOURNAL = "global-journal";
     private static final String UNFINISHED_SAVE_TRANSACTION = "unfinished-save-transaction";
     private static final String UNMERGED_CHANGED = "unmerged-changes";
     private static final int CHUNK_ZIP_DIM = 32;
@@ -37,6 +38,7 @@ public class StoragePathProvider {
     private final Path worldsPath;
     private Path worldPath;
     private Path globalEntityStorePath;
+    private Path globalEntityJournalPath;
     private Path unfinishedSaveTransactionPath;
     private Path unmergedChangesPath;
 
@@ -47,6 +49,7 @@ public StoragePathProvider(Path storagePathDirectory) {
         this.worldsPath = storagePathDirectory.resolve(WORLDS_PATH);
         this.worldPath = worldsPath.resolve(TerasologyConstants.MAIN_WORLD);
         this.globalEntityStorePath = storagePathDirectory.resolve(GLOBAL_ENTITY_STORE);
+        this.globalEntityJournalPath = storagePathDirectory.resolve(GLOBAL_ENTITY_JOURNAL);
         this.unfinishedSaveTransactionPath = storagePathDirectory.resolve(UNFINISHED_SAVE_TRANSACTION);
         this.unmergedChangesPath = storagePathDirectory.resolve(UNMERGED_CHANGED);
     }
@@ -98,6 +101,26 @@ public Path getGlobalEntityStoreTempPath() {
         return unfinishedSaveTransactionPath.resolve(GLOBAL_ENTITY_STORE);
     }
 
+    public Path getGlobalEntityJournalPath() {
+        return globalEntityJournalPath;
+    }
+
+    public Path getGlobalEntityJournalTempPath() {
+        return unfinishedSaveTransactionPath.resolve(GLOBAL_ENTITY_JOURNAL);
+    }
+
+    public Path getGlobalEntityJournalSegmentPath(long segment) {
+        return globalEntityJournalPath.resolve(getJournalSegmentFilename(segment));
+    }
+
+    public Path getGlobalEntityJournalSegmentTempPath(long segment) {
+        return getGlobalEntityJournalTempPath().resolve(getJournalSegmentFilename(segment));
+    }
+
+    private String getJournalSegmentFilename(long segment) {
+        return String.format("%010d.journal", segment);
+    }
+
     public String getChunkFilename(Vector3i pos) {
         return String.format("%d.%d.%d.chunk", pos.x, pos.y, pos.z);
     }
@@ -187,22 +187,47 @@ private <T extends Component> Component deserializeOnto(Component targetComponen
         DeserializationContext context = new ProtobufDeserializationContext(typeSerializationLibrary);
         Map<FieldMetadata<?, ?>, PersistedData> dataMap = Maps.newHashMapWithExpectedSize(componentData.getFieldCount());
         for (EntityData.NameValue field : componentData.getFieldList()) {
-            FieldMetadata<?, ?> fieldInfo = null;
-            if (field.hasNameIndex()) {
-                fieldInfo = componentMetadata.getField(field.getNameIndex());
-            } else if (field.hasName()) {
-                fieldInfo = componentMetadata.getField(field.getName());
-            }
+            FieldMetadata<?, ?> fieldInfo = getFieldMetadata(componentMetadata, field);
             if (fieldInfo != null) {
                 dataMap.put(fieldInfo, new ProtobufPersistedData(field.getValue()));
-            } else if (field.hasName()) {
-                logger.warn("Cannot deserialize unknown field '{}' onto '{}'", field.getName(), componentMetadata.getUri());
             }
         }
         serializer.deserializeOnto(targetComponent, dataMap, context, fieldCheck);
         return targetComponent;
     }
 
+    /**
+     * Decodes the fields of a component into a decoded entity, deserializing the values that hold plain data. Unlike
+     * deserializing the component, this may be done on any thread.
+     *
+     * @param target            The decoded entity to add the component to
+     * @param componentData
+     * @param componentMetadata The metadata of the component, as given by {@link #getComponentMetadata(EntityData.Component)}
+     */
+    void decodeOnto(DecodedEntityData target, EntityData.Component componentData, ComponentMetadata<?> componentMetadata) {
+        DecodedEntityData.ComponentChange change = target.addChangedComponent(componentMetadata,
+                typeSerializationLibrary.getSerializerFor(componentMetadata));
+        for (EntityData.NameValue field : componentData.getFieldList()) {
+            FieldMetadata<?, ?> fieldInfo = getFieldMetadata(componentMetadata, field);
+            if (fieldInfo != null) {
+                change.addField(fieldInfo, new ProtobufPersistedData(field.getValue()));
+            }
+        }
+    }
+
+    private FieldMetadata<?, ?> getFieldMetadata(ComponentMetadata<?> componentMetadata, EntityData.NameValue field) {
+        FieldMetadata<?, ?> fieldInfo = null;
+        if (field.hasNameIndex()) {
+            fieldInfo = componentMetadata.getField(field.getNameIndex());
+        } else if (field.hasName()) {
+            fieldInfo = componentMetadata.getField(field.getName());
+        }
+        if (fieldInfo == null && field.hasName()) {
+            logger.warn("Cannot deserialize unknown field '{}' onto '{}'", field.getName(), componentMetadata.getUri());
+        }
+        return fieldInfo;
+    }
+
 
     /**
      * Serializes a component.
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.serializers;
+
+import org.terasology.protobuf.EntityData;
+
+/**
+ * A stored entity whose components were decoded by {@link EntitySerializer#decode(EntityData.Entity)}, ready to be
+ * created by {@link EntitySerializer#deserialize(DecodedEntity)} on the main thread.
+ *
+ */
+public final class DecodedEntity {
+
+    private final EntityData.Entity entityData;
+    private final DecodedEntityData components;
+
+    DecodedEntity(EntityData.Entity entityData, DecodedEntityData components) {
+        this.entityData = entityData;
+        this.components = components;
+    }
+
+    /**
+     * @return The id the entity was stored with
+     */
+    public long getId() {
+        return entityData.getId();
+    }
+
+    EntityData.Entity getEntityData() {
+        return entityData;
+    }
+
+    DecodedEntityData getComponents() {
+        return components;
+    }
+}
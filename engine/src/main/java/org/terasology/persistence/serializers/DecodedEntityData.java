@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.serializers;
+
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.MutableComponentContainer;
+import org.terasology.entitySystem.metadata.ComponentMetadata;
+import org.terasology.persistence.typeHandling.DeserializationContext;
+import org.terasology.persistence.typeHandling.DeserializationException;
+import org.terasology.persistence.typeHandling.PersistedData;
+import org.terasology.persistence.typeHandling.Serializer;
+import org.terasology.persistence.typeHandling.TypeHandler;
+import org.terasology.reflection.metadata.FieldMetadata;
+
+import java.util.List;
+
+/**
+ * Changes to the components of an entity, decoded from a packed entity by
+ * {@link NetworkEntitySerializer#decode(org.terasology.protobuf.EntityData.PackedEntity, FieldSerializeCheck)}.
+ * Field values that hold plain data are deserialized when decoding, which may happen on any thread. The remaining
+ * values, which may refer to entities or assets, are deserialized by {@link #applyTo(MutableComponentContainer)} on
+ * the main thread.
+ *
+ */
+public final class DecodedEntityData {
+
+    private static final Logger logger = LoggerFactory.getLogger(DecodedEntityData.class);
+
+    private final DeserializationContext context;
+    private final List<ComponentChange> changedComponents = Lists.newArrayList();
+    private final List<Class<? extends Component>> removedComponents = Lists.newArrayList();
+
+    DecodedEntityData(DeserializationContext context) {
+        this.context = context;
+    }
+
+    ComponentChange addChangedComponent(ComponentMetadata<?> metadata, Serializer serializer) {
+        ComponentChange change = new ComponentChange(metadata, serializer);
+        changedComponents.add(change);
+        return change;
+    }
+
+    void addRemovedComponent(Class<? extends Component> componentClass) {
+        removedComponents.add(componentClass);
+    }
+
+    /**
+     * Applies the changes to an entity. Must be called on the main thread.
+     *
+     * @param entity The entity to change
+     */
+    public void applyTo(MutableComponentContainer entity) {
+        for (ComponentChange change : changedComponents) {
+            change.applyTo(entity);
+        }
+        for (Class<? extends Component> componentClass : removedComponents) {
+            entity.removeComponent(componentClass);
+        }
+    }
+
+    final class ComponentChange {
+        private final ComponentMetadata<?> metadata;
+        private final Serializer serializer;
+        private final List<FieldMetadata<?, ?>> fields = Lists.newArrayList();
+        private final List<Object> values = Lists.newArrayList();
+        private final List<PersistedData> deferredValues = Lists.newArrayList();
+
+        private ComponentChange(ComponentMetadata<?> metadata, Serializer serializer) {
+            this.metadata = metadata;
+            this.serializer = serializer;
+        }
+
+        void addField(FieldMetadata<?, ?> field, PersistedData data) {
+            if (!DetachedDeserialization.isDetachable(field)) {
+                fields.add(field);
+                values.add(null);
+                deferredValues.add(data);
+                return;
+            }
+            TypeHandler<?> handler = serializer.getHandlerFor(field);
+            if (handler == null) {
+                logger.error("No type handler for type {} used by {}::{}", field.getType(), metadata, field);
+                return;
+            }
+            try {
+                Object value = handler.deserialize(data, context);
+                fields.add(field);
+                values.add(value);
+                deferredValues.add(null);
+            } catch (DeserializationException e) {
+                logger.error("Unable to deserialize field '{}' from '{}'", field.getName(), data.toString(), e);
+            }
+        }
+
+        private void applyTo(MutableComponentContainer entity) {
+            Component component = entity.getComponent(metadata.getType());
+            boolean createdNewComponent = false;
+            if (component == null) {
+                createdNewComponent = true;
+                component = metadata.newInstance();
+            }
+            for (int i = 0; i < fields.size(); ++i) {
+                PersistedData deferredValue = deferredValues.get(i);
+                if (deferredValue != null) {
+                    serializer.deserializeOnto(component, fields.get(i), deferredValue, context);
+                } else {
+                    fields.get(i).setValue(component, values.get(i));
+                }
+            }
+            if (createdNewComponent) {
+                entity.addComponent(component);
+            } else {
+                entity.saveComponent(component);
+            }
+        }
+    }
+}
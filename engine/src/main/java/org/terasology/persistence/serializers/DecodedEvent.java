@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.serializers;
+
+import com.google.common.collect.Lists;
+import org.terasology.entitySystem.event.Event;
+import org.terasology.persistence.typeHandling.DeserializationContext;
+import org.terasology.persistence.typeHandling.PersistedData;
+import org.terasology.persistence.typeHandling.Serializer;
+import org.terasology.reflection.metadata.FieldMetadata;
+
+import java.util.List;
+
+/**
+ * An event that has been deserialized as far as is possible away from the main thread, by
+ * {@link EventSerializer#decode(org.terasology.protobuf.EntityData.Event)}. The fields that may refer to entities or
+ * assets are only deserialized by {@link #complete()}, which must be called on the main thread.
+ *
+ */
+public final class DecodedEvent {
+
+    private final Event event;
+    private final Serializer serializer;
+    private final DeserializationContext context;
+    private List<FieldMetadata<?, ?>> deferredFields;
+    private List<PersistedData> deferredValues;
+
+    DecodedEvent(Event event, Serializer serializer, DeserializationContext context) {
+        this.event = event;
+        this.serializer = serializer;
+        this.context = context;
+    }
+
+    void defer(FieldMetadata<?, ?> field, PersistedData value) {
+        if (deferredFields == null) {
+            deferredFields = Lists.newArrayList();
+            deferredValues = Lists.newArrayList();
+        }
+        deferredFields.add(field);
+        deferredValues.add(value);
+    }
+
+    /**
+     * @return The type of the event
+     */
+    public Class<? extends Event> getType() {
+        return event.getClass();
+    }
+
+    /**
+     * @return Whether the event still has fields to deserialize on the main thread
+     */
+    public boolean isComplete() {
+        return deferredFields == null;
+    }
+
+    /**
+     * Deserializes the remaining fields of the event. Must be called on the main thread.
+     *
+     * @return The fully deserialized event
+     */
+    public Event complete() {
+        if (deferredFields != null) {
+            for (int i = 0; i < deferredFields.size(); ++i) {
+                serializer.deserializeOnto(event, deferredFields.get(i), deferredValues.get(i), context);
+            }
+            deferredFields = null;
+            deferredValues = null;
+        }
+        return event;
+    }
+}
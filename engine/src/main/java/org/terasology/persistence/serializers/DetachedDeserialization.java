@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.serializers;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Primitives;
+import org.terasology.naming.Name;
+import org.terasology.reflection.metadata.FieldMetadata;
+import org.terasology.rendering.nui.Color;
+import org.terasology.utilities.ReflectionUtil;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides which fields may be deserialized away from the main thread. Only plain data qualifies - values whose type
+ * handlers neither look up entities nor go through the asset, block or prefab managers, none of which are safe to
+ * read while the main thread is changing them.
+ *
+ */
+final class DetachedDeserialization {
+
+    private static final Set<Class<?>> PLAIN_TYPES = ImmutableSet.of(String.class, Color.class, Name.class);
+    private static final String MATH_PACKAGE = "org.terasology.math";
+
+    private static final Map<Field, Boolean> DETACHABLE_FIELDS = Maps.newConcurrentMap();
+
+    private DetachedDeserialization() {
+    }
+
+    /**
+     * @param field The field to check
+     * @return Whether the values of the field can be deserialized on any thread
+     */
+    static boolean isDetachable(FieldMetadata<?, ?> field) {
+        return DETACHABLE_FIELDS.computeIfAbsent(field.getField(), f -> isPlainData(f.getGenericType()));
+    }
+
+    private static boolean isPlainData(Type type) {
+        Class<?> rawType = ReflectionUtil.getClassOfType(type);
+        if (rawType == null) {
+            return false;
+        }
+        if (rawType.isPrimitive() || Primitives.isWrapperType(rawType) || rawType.isEnum() || PLAIN_TYPES.contains(rawType)) {
+            return true;
+        }
+        if (rawType.isArray()) {
+            return isPlainData(rawType.getComponentType());
+        }
+        if (Collection.class.isAssignableFrom(rawType) || Map.class.isAssignableFrom(rawType)) {
+            for (int i = 0; i < rawType.getTypeParameters().length; ++i) {
+                Type parameter = ReflectionUtil.getTypeParameter(type, i);
+                if (parameter == null || !isPlainData(parameter)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return rawType.getPackage() != null && rawType.getPackage().getName().startsWith(MATH_PACKAGE);
+    }
+}
@@ -19,6 +19,7 @@
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.entity.EntityBuilder;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.entity.internal.EngineEntityManager;
 import org.terasology.entitySystem.entity.internal.EntityInfoComponent;
@@ -27,6 +28,7 @@
 import org.terasology.entitySystem.prefab.Prefab;
 import org.terasology.entitySystem.prefab.PrefabManager;
 import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
+import org.terasology.persistence.typeHandling.protobuf.ProtobufDeserializationContext;
 import org.terasology.protobuf.EntityData;
 
 import java.util.Map;
@@ -47,6 +49,7 @@ public class EntitySerializer {
     private PrefabManager prefabManager;
     private ComponentLibrary componentLibrary;
     private ComponentSerializer componentSerializer;
+    private TypeSerializationLibrary typeSerializationLibrary;
 
     private ComponentSerializeCheck componentSerializeCheck = ComponentSerializeCheck.NullCheck.create();
     private boolean ignoringEntityId;
@@ -63,6 +66,7 @@ public EntitySerializer(EngineEntityManager entityManager, ComponentLibrary comp
         this.prefabManager = entityManager.getPrefabManager();
         this.componentLibrary = componentLibrary;
         this.componentSerializer = new ComponentSerializer(componentLibrary, typeSerializationLibrary);
+        this.typeSerializationLibrary = typeSerializationLibrary;
     }
 
     /**
@@ -164,13 +168,44 @@ public EntityData.Entity serialize(EntityRef entityRef, boolean deltaAgainstPref
      * @return The deserialized entity
      */
     public EntityRef deserialize(EntityData.Entity entityData) {
-        Map<Class<? extends Component>, Component> componentMap = createInitialComponents(entityData);
-        deserializeOntoComponents(entityData, componentMap);
+        return deserialize(decode(entityData));
+    }
+
+    /**
+     * Creates a stored entity from its decoded components. Must be called on the main thread.
+     *
+     * @param entity The entity, as decoded by {@link #decode(EntityData.Entity)}
+     * @return The deserialized entity
+     */
+    public EntityRef deserialize(DecodedEntity entity) {
+        EntityData.Entity entityData = entity.getEntityData();
+        EntityBuilder builder = new EntityBuilder(entityManager);
+        createInitialComponents(entityData).values().forEach(builder::addComponent);
+        deserializeEntityInfo(entityData, builder);
+        entity.getComponents().applyTo(builder);
         if (ignoringEntityId) {
-            return entityManager.create(componentMap.values());
+            return entityManager.create(builder.iterateComponents());
         } else {
-            return entityManager.createEntityWithId(entityData.getId(), componentMap.values());
+            return entityManager.createEntityWithId(entityData.getId(), builder.iterateComponents());
+        }
+    }
+
+    /**
+     * Decodes the components of a stored entity, deserializing as much as can be done without touching the entity
+     * system. Unlike {@link #deserialize(EntityData.Entity)} this may be called from any thread.
+     *
+     * @param entityData The stored entity
+     * @return The decoded entity, to be created by {@link #deserialize(DecodedEntity)} on the main thread
+     */
+    public DecodedEntity decode(EntityData.Entity entityData) {
+        DecodedEntityData components = new DecodedEntityData(new ProtobufDeserializationContext(typeSerializationLibrary));
+        for (EntityData.Component componentData : entityData.getComponentList()) {
+            ComponentMetadata<? extends Component> metadata = componentSerializer.getComponentMetadata(componentData);
+            if (metadata != null && componentSerializeCheck.serialize(metadata)) {
+                componentSerializer.decodeOnto(components, componentData, metadata);
+            }
         }
+        return new DecodedEntity(entityData, components);
     }
 
     /**
@@ -203,16 +238,16 @@ private Map<Class<? extends Component>, Component> createInitialComponents(Entit
     }
 
     /**
-     * Deserializes the components from an EntityData onto a map of components
+     * Deserializes the entity info of an EntityData onto the components of the entity being deserialized
      *
      * @param entityData
-     * @param componentMap
+     * @param entity
      */
-    private void deserializeOntoComponents(EntityData.Entity entityData, Map<Class<? extends Component>, Component> componentMap) {
-        EntityInfoComponent entityInfo = (EntityInfoComponent) componentMap.get(EntityInfoComponent.class);
+    private void deserializeEntityInfo(EntityData.Entity entityData, EntityBuilder entity) {
+        EntityInfoComponent entityInfo = entity.getComponent(EntityInfoComponent.class);
         if (entityInfo == null) {
             entityInfo = new EntityInfoComponent();
-            componentMap.put(EntityInfoComponent.class, entityInfo);
+            entity.addComponent(entityInfo);
         }
         if (entityData.hasOwner()) {
             entityInfo.owner = entityManager.getEntity(entityData.getOwner());
@@ -220,21 +255,6 @@ private void deserializeOntoComponents(EntityData.Entity entityData, Map<Class<?
         if (entityData.hasAlwaysRelevant()) {
             entityInfo.alwaysRelevant = entityData.getAlwaysRelevant();
         }
-
-        for (EntityData.Component componentData : entityData.getComponentList()) {
-            ComponentMetadata<? extends Component> metadata = componentSerializer.getComponentMetadata(componentData);
-            if (metadata == null || !componentSerializeCheck.serialize(metadata)) {
-                continue;
-            }
-
-            Component existingComponent = componentMap.get(metadata.getType());
-            if (existingComponent == null) {
-                Component newComponent = componentSerializer.deserialize(componentData);
-                componentMap.put(metadata.getType(), newComponent);
-            } else {
-                componentSerializer.deserializeOnto(existingComponent, componentData, FieldSerializeCheck.NullCheck.<Component>newInstance());
-            }
-        }
     }
 
     private EntityData.Entity serializeEntityFull(EntityRef entityRef, FieldSerializeCheck<Component> fieldCheck) {
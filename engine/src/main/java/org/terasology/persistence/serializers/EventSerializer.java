@@ -85,23 +85,30 @@ public void removeIdMapping() {
      * @throws org.terasology.persistence.typeHandling.DeserializationException if an error occurs when deserializing
      */
     public Event deserialize(EntityData.Event eventData) {
+        return decode(eventData).complete();
+    }
+
+    /**
+     * Deserializes the fields of an event that hold plain data, leaving those that may refer to entities or assets for
+     * {@link DecodedEvent#complete()}. Unlike {@link #deserialize(EntityData.Event)} this may be called from any thread.
+     *
+     * @param eventData
+     * @return The partially deserialized event
+     * @throws org.terasology.persistence.typeHandling.DeserializationException if an error occurs when deserializing
+     */
+    public DecodedEvent decode(EntityData.Event eventData) {
         Class<? extends Event> eventClass = getEventClass(eventData);
-        if (eventClass != null) {
-            EventMetadata<?> eventMetadata = eventLibrary.getMetadata(eventClass);
-            if (!eventMetadata.isConstructable()) {
-                throw new DeserializationException("Cannot deserialize " + eventMetadata + " - lacks default constructor");
-            } else {
-                Event event = eventMetadata.newInstance();
-                return deserializeOnto(event, eventData, eventMetadata);
-            }
-        } else {
+        if (eventClass == null) {
             throw new DeserializationException("Unable to deserialize unknown event type: " + eventData.getType());
         }
-    }
-
+        EventMetadata<?> eventMetadata = eventLibrary.getMetadata(eventClass);
+        if (!eventMetadata.isConstructable()) {
+            throw new DeserializationException("Cannot deserialize " + eventMetadata + " - lacks default constructor");
+        }
 
-    private Event deserializeOnto(Event targetEvent, EntityData.Event eventData, EventMetadata<? extends Event> eventMetadata) {
+        Event event = eventMetadata.newInstance();
         Serializer serializer = typeSerializationLibrary.getSerializerFor(eventMetadata);
+        DecodedEvent result = new DecodedEvent(event, serializer, deserializationContext);
         for (int i = 0; i < eventData.getFieldIds().size(); ++i) {
             byte fieldId = eventData.getFieldIds().byteAt(i);
             ReplicatedFieldMetadata<?, ?> fieldInfo = eventMetadata.getField(fieldId);
@@ -110,10 +117,15 @@ private Event deserializeOnto(Event targetEvent, EntityData.Event eventData, Eve
                 continue;
             }
             if (fieldInfo.isReplicated()) {
-                serializer.deserializeOnto(targetEvent, fieldInfo, new ProtobufPersistedData(eventData.getFieldValue(i)), deserializationContext);
+                ProtobufPersistedData value = new ProtobufPersistedData(eventData.getFieldValue(i));
+                if (DetachedDeserialization.isDetachable(fieldInfo)) {
+                    serializer.deserializeOnto(event, fieldInfo, value, deserializationContext);
+                } else {
+                    result.defer(fieldInfo, value);
+                }
             }
         }
-        return targetEvent;
+        return result;
     }
 
     /**
@@ -42,6 +42,7 @@
 import org.terasology.persistence.typeHandling.protobuf.ProtobufSerializationContext;
 import org.terasology.protobuf.EntityData;
 
+import java.util.BitSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -57,6 +58,7 @@ public class NetworkEntitySerializer {
     private ProtobufSerializationContext serializationContext;
     private ProtobufDeserializationContext deserializationContext;
     private BiMap<Class<? extends Component>, Integer> idTable = ImmutableBiMap.<Class<? extends Component>, Integer>builder().build();
+    private Class<? extends Component>[] componentsById = new Class[0];
 
     public NetworkEntitySerializer(EngineEntityManager entityManager, ComponentLibrary componentLibrary, TypeSerializationLibrary typeSerializationLibrary) {
         this.entityManager = entityManager;
@@ -80,6 +82,24 @@ public Map<Class<? extends Component>, Integer> getIdMapping() {
 
     public void setIdMapping(Map<Class<? extends Component>, Integer> componentIdMapping) {
         this.idTable = ImmutableBiMap.copyOf(componentIdMapping);
+        int maxId = -1;
+        for (int id : idTable.values()) {
+            maxId = Math.max(maxId, id);
+        }
+        Class<? extends Component>[] newComponentsById = new Class[maxId + 1];
+        for (Map.Entry<Class<? extends Component>, Integer> entry : idTable.entrySet()) {
+            newComponentsById[entry.getValue()] = entry.getKey();
+        }
+        this.componentsById = newComponentsById;
+    }
+
+    /**
+     * @param componentType The type of component
+     * @return The id of the component type in the current id mapping, or -1 if it has none
+     */
+    public int getComponentId(Class<? extends Component> componentType) {
+        Integer id = idTable.get(componentType);
+        return (id != null) ? id : -1;
     }
 
     public EntityData.PackedEntity.Builder serialize(EntityRef entity, boolean deltaAgainstPrefab, FieldSerializeCheck<Component> fieldCheck) {
@@ -207,6 +227,20 @@ public void deserializeOnto(MutableComponentContainer entity, EntityData.PackedE
     }
 
     public void deserializeOnto(MutableComponentContainer entity, EntityData.PackedEntity entityData, FieldSerializeCheck<Component> fieldCheck) {
+        decode(entityData, fieldCheck).applyTo(entity);
+    }
+
+    /**
+     * Decodes the component changes held by a packed entity, deserializing as much as can be done without touching the
+     * entity system. Unlike {@link #deserializeOnto(MutableComponentContainer, EntityData.PackedEntity, FieldSerializeCheck)}
+     * this may be called from any thread.
+     *
+     * @param entityData The packed entity
+     * @param fieldCheck Filters which fields are deserialized
+     * @return The decoded changes, to be applied on the main thread
+     */
+    public DecodedEntityData decode(EntityData.PackedEntity entityData, FieldSerializeCheck<Component> fieldCheck) {
+        DecodedEntityData result = new DecodedEntityData(deserializationContext);
         int fieldPos = 0;
         for (int componentIndex = 0; componentIndex < entityData.getComponentIdCount(); ++componentIndex) {
             Integer componentId = entityData.getComponentId(componentIndex);
@@ -222,37 +256,26 @@ public void deserializeOnto(MutableComponentContainer entity, EntityData.PackedE
                 continue;
             }
 
-            Component component = entity.getComponent(metadata.getType());
-            boolean createdNewComponent = false;
-            if (component == null) {
-                createdNewComponent = true;
-                component = metadata.newInstance();
-            }
-            Serializer serializer = typeSerializationLibrary.getSerializerFor(metadata);
+            DecodedEntityData.ComponentChange change = result.addChangedComponent(metadata, typeSerializationLibrary.getSerializerFor(metadata));
             for (int fieldIndex = 0; fieldIndex < UnsignedBytes.toInt(entityData.getComponentFieldCounts().byteAt(componentIndex)); ++fieldIndex) {
                 byte fieldId = entityData.getFieldIds().byteAt(fieldPos);
                 ReplicatedFieldMetadata fieldMetadata = metadata.getField(fieldId);
                 if (fieldMetadata != null && fieldCheck.shouldDeserialize(metadata, fieldMetadata)) {
                     logger.trace("Deserializing field {} of component {} as value {}", fieldMetadata, metadata, entityData.getFieldValue(fieldPos));
-                    serializer.deserializeOnto(component, fieldMetadata, new ProtobufPersistedData(entityData.getFieldValue(fieldPos)), deserializationContext);
+                    change.addField(fieldMetadata, new ProtobufPersistedData(entityData.getFieldValue(fieldPos)));
                 }
                 fieldPos++;
             }
-            if (createdNewComponent) {
-                entity.addComponent(component);
-            } else {
-                entity.saveComponent(component);
-            }
-
         }
 
         for (int componentId : entityData.getRemovedComponentList()) {
             Class<? extends Component> componentClass = idTable.inverse().get(componentId);
             ComponentMetadata<?> metadata = componentLibrary.getMetadata(componentClass);
             if (componentSerializeCheck.serialize(metadata)) {
-                entity.removeComponent(metadata.getType());
+                result.addRemovedComponent(metadata.getType());
             }
         }
+        return result;
     }
 
     public EntityRef deserialize(EntityData.PackedEntity entityData) {
@@ -271,6 +294,44 @@ public EntityRef deserialize(EntityData.PackedEntity entityData) {
     }
 
 
+    /**
+     * Serializes the changes to an entity, with the added, changed and removed components given as sets of component
+     * ids from the current id mapping.
+     *
+     * @return The packed changes, or null if there is nothing to send
+     */
+    public EntityData.PackedEntity serialize(EntityRef entityRef, BitSet added, BitSet changed, BitSet removed, FieldSerializeCheck<Component> fieldCheck) {
+        EntityData.PackedEntity.Builder entity = EntityData.PackedEntity.newBuilder();
+
+        ByteString.Output fieldIds = ByteString.newOutput();
+        ByteString.Output componentFieldCounts = ByteString.newOutput();
+        for (int id = added.nextSetBit(0); id >= 0; id = added.nextSetBit(id + 1)) {
+            Component component = entityRef.getComponent(componentsById[id]);
+            if (component == null) {
+                logger.error("Non-existent component marked as added: {}", componentsById[id]);
+            }
+            serializeComponentFull(component, false, fieldCheck, entity, fieldIds, componentFieldCounts, true);
+        }
+        for (int id = changed.nextSetBit(0); id >= 0; id = changed.nextSetBit(id + 1)) {
+            Component component = entityRef.getComponent(componentsById[id]);
+            if (component != null) {
+                serializeComponentFull(component, true, fieldCheck, entity, fieldIds, componentFieldCounts, false);
+            } else {
+                logger.error("Non-existent component marked as changed: {}", componentsById[id]);
+            }
+        }
+        for (int id = removed.nextSetBit(0); id >= 0; id = removed.nextSetBit(id + 1)) {
+            entity.addRemovedComponent(id);
+        }
+        entity.setFieldIds(fieldIds.toByteString());
+        entity.setComponentFieldCounts(componentFieldCounts.toByteString());
+        if (entity.getFieldIds().isEmpty() && entity.getRemovedComponentCount() == 0) {
+            return null;
+        } else {
+            return entity.build();
+        }
+    }
+
     public EntityData.PackedEntity serialize(EntityRef entityRef, Set<Class<? extends Component>> added, Set<Class<? extends Component>> changed,
                                              Set<Class<? extends Component>> removed, FieldSerializeCheck<Component> fieldCheck) {
         EntityData.PackedEntity.Builder entity = EntityData.PackedEntity.newBuilder();
@@ -31,6 +31,8 @@ public class ViewFrustum {
 
     private final FrustumPlane[] planes = new FrustumPlane[6];
     private final FloatBuffer clip = BufferUtils.createFloatBuffer(16);
+    private final float[] previousClip = new float[16];
+    private int version;
 
     /**
      * Init. a new view frustum.
@@ -122,6 +124,25 @@ public void updateFrustum(FloatBuffer modelViewMatrix, FloatBuffer projectionMat
         planes[5].setC(clip.get(11) + clip.get(10));
         planes[5].setD(clip.get(15) + clip.get(14));
         planes[5].normalize();
+
+        boolean changed = false;
+        for (int i = 0; i < previousClip.length; i++) {
+            if (previousClip[i] != clip.get(i)) {
+                previousClip[i] = clip.get(i);
+                changed = true;
+            }
+        }
+        if (changed) {
+            version++;
+        }
+    }
+
+    /**
+     * @return A number that changes whenever an update actually moves the frustum, so that results of intersection
+     * tests can be cached while it does not
+     */
+    public int getVersion() {
+        return version;
     }
 
     /**
@@ -16,10 +16,12 @@
 package org.terasology.rendering.logic;
 
 import com.bulletphysics.linearmath.Transform;
-import com.google.common.collect.HashMultimap;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
 import java.nio.FloatBuffer;
-import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 import org.lwjgl.BufferUtils;
 import org.slf4j.Logger;
@@ -44,8 +46,10 @@
 import org.terasology.math.geom.Vector3f;
 import org.terasology.network.ClientComponent;
 import org.terasology.network.NetworkSystem;
+import org.terasology.monitoring.PerformanceMonitor;
 import org.terasology.registry.In;
 import org.terasology.rendering.assets.material.Material;
+import org.terasology.rendering.cameras.Camera;
 import org.terasology.rendering.opengl.OpenGLMesh;
 import org.terasology.rendering.world.WorldRenderer;
 import org.terasology.world.WorldProvider;
@@ -72,21 +76,24 @@ public class MeshRenderer extends BaseComponentSystem implements RenderSystem {
     @In
     private WorldProvider worldProvider;
 
-    private NearestSortingList opaqueMeshSorter = new NearestSortingList();
-    private NearestSortingList translucentMeshSorter = new NearestSortingList();
+    private SpatialRenderIndex<EntityRef> opaqueMeshes = new SpatialRenderIndex<>();
+    private SpatialRenderIndex<EntityRef> translucentMeshes = new SpatialRenderIndex<>();
 
-    private int lastRendered;
+    /**
+     * Meshes attached to another entity move with it without a change of their own location, so they are re-indexed
+     * every frame.
+     */
+    private Set<EntityRef> attachedMeshes = Sets.newHashSet();
 
-    @Override
-    public void initialise() {
-        opaqueMeshSorter.initialise(worldRenderer.getActiveCamera());
-        translucentMeshSorter.initialise(worldRenderer.getActiveCamera());
-    }
+    private List<EntityRef> visibleMeshes = Lists.newArrayList();
+
+    private int lastRendered;
 
     @Override
     public void shutdown() {
-        opaqueMeshSorter.stop();
-        translucentMeshSorter.stop();
+        opaqueMeshes.clear();
+        translucentMeshes.clear();
+        attachedMeshes.clear();
     }
 
     @ReceiveEvent(components = {MeshComponent.class, LocationComponent.class})
@@ -94,6 +101,16 @@ public void onNewMesh(OnActivatedComponent event, EntityRef entity) {
         addMesh(entity);
     }
 
+    /**
+     * Only listens to the location, so that changes of the mesh component go to {@link #onChangeMesh} alone.
+     */
+    @ReceiveEvent(components = LocationComponent.class)
+    public void onMoveMesh(OnChangedComponent event, EntityRef entity) {
+        if (opaqueMeshes.contains(entity) || translucentMeshes.contains(entity)) {
+            addMesh(entity);
+        }
+    }
+
 
     private boolean isHidden(EntityRef entity, MeshComponent mesh) {
         if (!mesh.hideFromOwner) {
@@ -103,34 +120,42 @@ private boolean isHidden(EntityRef entity, MeshComponent mesh) {
         return (owner != null && owner.local);
     }
 
+    /**
+     * Adds the mesh of the entity to the index of its kind, or updates its position there.
+     */
     private void addMesh(EntityRef entity) {
         MeshComponent meshComponent = entity.getComponent(MeshComponent.class);
-        if (meshComponent != null && meshComponent.material != null) {
-            if (meshComponent.translucent) {
-                translucentMeshSorter.add(entity);
-            } else {
-                opaqueMeshSorter.add(entity);
-            }
+        LocationComponent location = entity.getComponent(LocationComponent.class);
+        if (meshComponent == null || meshComponent.material == null || location == null) {
+            return;
+        }
+        float radius = 0;
+        if (meshComponent.mesh != null && !meshComponent.mesh.isDisposed()) {
+            AABB aabb = meshComponent.mesh.getAABB();
+            radius = aabb.getCenter().length() + aabb.getExtents().length();
+        }
+        radius *= location.getWorldScale();
+
+        SpatialRenderIndex<EntityRef> index = meshComponent.translucent ? translucentMeshes : opaqueMeshes;
+        index.update(entity, location.getWorldPosition(), radius);
+        if (location.getParent().exists()) {
+            attachedMeshes.add(entity);
+        } else {
+            attachedMeshes.remove(entity);
         }
     }
 
     @ReceiveEvent(components = MeshComponent.class)
     public void onChangeMesh(OnChangedComponent event, EntityRef entity) {
         removeMesh(entity);
-        if (entity.hasComponent(LocationComponent.class)) {
-            addMesh(entity);
-        }
+        addMesh(entity);
     }
 
     private void removeMesh(EntityRef entity) {
-        MeshComponent meshComponent = entity.getComponent(MeshComponent.class);
-        if (meshComponent != null && meshComponent.material != null) {
-            if (meshComponent.translucent) {
-                translucentMeshSorter.remove(entity);
-            } else {
-                opaqueMeshSorter.remove(entity);
-            }
-        }
+        // The mesh component may have changed from translucent to opaque already, so check both
+        opaqueMeshes.remove(entity);
+        translucentMeshes.remove(entity);
+        attachedMeshes.remove(entity);
     }
 
     @ReceiveEvent(components = {MeshComponent.class, LocationComponent.class})
@@ -140,23 +165,33 @@ public void onDestroyMesh(BeforeDeactivateComponent event, EntityRef entity) {
 
     @Override
     public void renderAlphaBlend() {
-        if (config.getRendering().isRenderNearest()) {
-            renderEntities(Arrays.asList(translucentMeshSorter.getNearest(config.getRendering().getMeshLimit())));
-        } else {
-            renderEntities(translucentMeshSorter.getEntities());
-        }
+        renderEntities(collectVisibleMeshes(translucentMeshes));
     }
 
     public void renderOpaque() {
-        if (config.getRendering().isRenderNearest()) {
-            renderEntities(Arrays.asList(opaqueMeshSorter.getNearest(config.getRendering().getMeshLimit())));
-        } else {
-            renderEntities(opaqueMeshSorter.getEntities());
+        renderEntities(collectVisibleMeshes(opaqueMeshes));
+    }
+
+    /**
+     * @return The meshes in chunks in sight of the camera, nearest chunk first
+     */
+    private List<EntityRef> collectVisibleMeshes(SpatialRenderIndex<EntityRef> index) {
+        PerformanceMonitor.startActivity("Collect Visible Meshes");
+        for (EntityRef entity : Lists.newArrayList(attachedMeshes)) {
+            addMesh(entity);
         }
+
+        int limit = config.getRendering().isRenderNearest() ? config.getRendering().getMeshLimit() : Integer.MAX_VALUE;
+        Camera camera = worldRenderer.getActiveCamera();
+        visibleMeshes.clear();
+        index.collectVisible(camera.getViewFrustum(), camera.getPosition(), limit, visibleMeshes);
+        PerformanceMonitor.endActivity();
+        return visibleMeshes;
     }
 
     private void renderEntities(Iterable<EntityRef> entityRefs) {
-        SetMultimap<Material, EntityRef> entitiesToRender = HashMultimap.create();
+        // Keeps the near to far order of the entities within each material
+        SetMultimap<Material, EntityRef> entitiesToRender = LinkedHashMultimap.create();
         for (EntityRef entity : entityRefs) {
             MeshComponent meshComponent = entity.getComponent(MeshComponent.class);
             if (meshComponent != null && meshComponent.material != null) {
@@ -18,6 +18,7 @@
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
@@ -27,7 +28,9 @@
 import org.terasology.config.Config;
 import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
 import org.terasology.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.entitySystem.entity.lifecycleEvents.OnChangedComponent;
 import org.terasology.entitySystem.event.ReceiveEvent;
 import org.terasology.entitySystem.systems.BaseComponentSystem;
 import org.terasology.entitySystem.systems.RegisterMode;
@@ -44,6 +47,7 @@
 import org.terasology.math.geom.Quat4f;
 import org.terasology.math.geom.Vector3f;
 import org.terasology.registry.In;
+import org.terasology.rendering.cameras.Camera;
 import org.terasology.rendering.assets.animation.MeshAnimation;
 import org.terasology.rendering.assets.animation.MeshAnimationFrame;
 import org.terasology.rendering.assets.material.Material;
@@ -54,6 +58,7 @@
 import java.nio.FloatBuffer;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 
 import static org.lwjgl.opengl.GL11.GL_DEPTH_TEST;
 import static org.lwjgl.opengl.GL11.glBegin;
@@ -83,6 +88,22 @@ public class SkeletonRenderer extends BaseComponentSystem implements RenderSyste
 
     private Random random = new Random();
 
+    private SpatialRenderIndex<EntityRef> skeletons = new SpatialRenderIndex<>();
+
+    /**
+     * Skeletons attached to another entity move with it without a change of their own location, so they are re-indexed
+     * every frame.
+     */
+    private Set<EntityRef> attachedSkeletons = Sets.newHashSet();
+
+    private List<EntityRef> visibleSkeletons = Lists.newArrayList();
+
+    @Override
+    public void shutdown() {
+        skeletons.clear();
+        attachedSkeletons.clear();
+    }
+
     @ReceiveEvent(components = {SkeletalMeshComponent.class, LocationComponent.class})
     public void newSkeleton(OnActivatedComponent event, EntityRef entity) {
         SkeletalMeshComponent skeleton = entity.getComponent(SkeletalMeshComponent.class);
@@ -107,6 +128,46 @@ public void newSkeleton(OnActivatedComponent event, EntityRef entity) {
             }
             entity.saveComponent(skeleton);
         }
+        indexSkeleton(entity);
+    }
+
+    @ReceiveEvent(components = {SkeletalMeshComponent.class, LocationComponent.class})
+    public void onChangeSkeleton(OnChangedComponent event, EntityRef entity) {
+        indexSkeleton(entity);
+    }
+
+    @ReceiveEvent(components = {SkeletalMeshComponent.class, LocationComponent.class})
+    public void onDestroySkeleton(BeforeDeactivateComponent event, EntityRef entity) {
+        skeletons.remove(entity);
+        attachedSkeletons.remove(entity);
+    }
+
+    /**
+     * Adds the skeleton of the entity to the index, or updates its position there.
+     */
+    private void indexSkeleton(EntityRef entity) {
+        SkeletalMeshComponent skeletalMesh = entity.getComponent(SkeletalMeshComponent.class);
+        LocationComponent location = entity.getComponent(LocationComponent.class);
+        if (skeletalMesh == null || location == null) {
+            return;
+        }
+        float radius = 0;
+        if (skeletalMesh.mesh != null) {
+            radius = boundingRadius(skeletalMesh.mesh.getStaticAabb());
+        }
+        if (skeletalMesh.animation != null) {
+            radius = Math.max(radius, boundingRadius(skeletalMesh.animation.getAabb()));
+        }
+        skeletons.update(entity, location.getWorldPosition(), radius * location.getWorldScale());
+        if (location.getParent().exists()) {
+            attachedSkeletons.add(entity);
+        } else {
+            attachedSkeletons.remove(entity);
+        }
+    }
+
+    private static float boundingRadius(AABB aabb) {
+        return aabb.getCenter().length() + aabb.getExtents().length();
     }
 
     @Override
@@ -220,7 +281,14 @@ public void renderOpaque() {
         FloatBuffer tempMatrixBuffer44 = BufferUtils.createFloatBuffer(16);
         FloatBuffer tempMatrixBuffer33 = BufferUtils.createFloatBuffer(12);
 
-        for (EntityRef entity : entityManager.getEntitiesWith(SkeletalMeshComponent.class, LocationComponent.class)) {
+        for (EntityRef entity : Lists.newArrayList(attachedSkeletons)) {
+            indexSkeleton(entity);
+        }
+        Camera camera = worldRenderer.getActiveCamera();
+        visibleSkeletons.clear();
+        skeletons.collectVisible(camera.getViewFrustum(), camera.getPosition(), Integer.MAX_VALUE, visibleSkeletons);
+
+        for (EntityRef entity : visibleSkeletons) {
 
             SkeletalMeshComponent skeletalMesh = entity.getComponent(SkeletalMeshComponent.class);
             if (skeletalMesh.mesh == null || skeletalMesh.material == null || skeletalMesh.boneEntities == null || !skeletalMesh.material.isRenderable()) {
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.logic;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.rendering.cameras.ViewFrustum;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps renderable objects in buckets by the chunk their position lies in, so that the objects to draw can be found
+ * without visiting every object each frame.
+ * <br><br>
+ * Visibility is decided per bucket: a bucket is visible when the sphere around its chunk, grown by the largest radius
+ * of the objects in it, intersects the view frustum. The objects of visible buckets are returned nearest bucket first,
+ * so the result is sorted by distance up to the size of a chunk. Per frame this costs one sphere test per occupied
+ * chunk, a sort of the visible chunks and a copy of the visible objects.
+ * <br><br>
+ * Positions are not tracked: {@link #update} has to be called whenever an object moves. Objects that stay in the same
+ * chunk are not moved between buckets, so updating moving objects is cheap.
+ * <br><br>
+ * This class is not thread safe.
+ *
+ * @param <T> The type of objects to index, used as keys so they need consistent equals and hashCode methods
+ */
+public class SpatialRenderIndex<T> {
+
+    private static final float CHUNK_RADIUS = 0.5f * (float) Math.sqrt(ChunkConstants.SIZE_X * ChunkConstants.SIZE_X
+            + ChunkConstants.SIZE_Y * ChunkConstants.SIZE_Y + ChunkConstants.SIZE_Z * ChunkConstants.SIZE_Z);
+
+    private final TLongObjectMap<Bucket<T>> buckets = new TLongObjectHashMap<>();
+    private final Map<T, Entry<T>> entries = Maps.newHashMap();
+
+    private final Vector3f relativeCenter = new Vector3f();
+    private long[] visibleKeys = new long[64];
+    private Bucket<?>[] visibleBuckets = new Bucket<?>[64];
+    private int lastVisibleBuckets;
+
+    /**
+     * Adds an object to the index, or updates its position if it is indexed already.
+     *
+     * @param object        The object to index
+     * @param worldPosition The position of the object
+     * @param radius        The radius of a sphere around the position that bounds the object
+     */
+    public void update(T object, Vector3f worldPosition, float radius) {
+        Preconditions.checkNotNull(object);
+        int chunkX = (int) Math.floor(worldPosition.x / ChunkConstants.SIZE_X);
+        int chunkY = (int) Math.floor(worldPosition.y / ChunkConstants.SIZE_Y);
+        int chunkZ = (int) Math.floor(worldPosition.z / ChunkConstants.SIZE_Z);
+        long key = key(chunkX, chunkY, chunkZ);
+
+        Entry<T> entry = entries.get(object);
+        if (entry == null) {
+            entry = new Entry<>(object);
+            entries.put(object, entry);
+        } else if (entry.bucket.key == key) {
+            entry.bucket.maxRadius = Math.max(entry.bucket.maxRadius, radius);
+            return;
+        } else {
+            removeFromBucket(entry);
+        }
+
+        Bucket<T> bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = new Bucket<>(key, chunkX, chunkY, chunkZ);
+            buckets.put(key, bucket);
+        }
+        bucket.maxRadius = Math.max(bucket.maxRadius, radius);
+        entry.bucket = bucket;
+        entry.index = bucket.entries.size();
+        bucket.entries.add(entry);
+    }
+
+    /**
+     * @param object The object to remove
+     * @return Whether the object was indexed
+     */
+    public boolean remove(T object) {
+        Entry<T> entry = entries.remove(object);
+        if (entry == null) {
+            return false;
+        }
+        removeFromBucket(entry);
+        return true;
+    }
+
+    public boolean contains(T object) {
+        return entries.containsKey(object);
+    }
+
+    /**
+     * @return The number of indexed objects
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+        buckets.clear();
+    }
+
+    /**
+     * Adds the objects in chunks that intersect the view frustum to the output, nearest chunk first.
+     *
+     * @param frustum        The view frustum, relative to the camera position as the frustum of a camera is
+     * @param cameraPosition The position of the camera
+     * @param limit          The maximum number of objects to add
+     * @param output         The list to add the objects to
+     * @return The number of objects added
+     */
+    @SuppressWarnings("unchecked")
+    public int collectVisible(ViewFrustum frustum, Vector3f cameraPosition, int limit, List<? super T> output) {
+        int visibleCount = 0;
+        for (Bucket<T> bucket : buckets.valueCollection()) {
+            relativeCenter.set(bucket.centerX - cameraPosition.x, bucket.centerY - cameraPosition.y,
+                    bucket.centerZ - cameraPosition.z);
+            if (!frustum.intersects(relativeCenter, CHUNK_RADIUS + bucket.maxRadius)) {
+                continue;
+            }
+            if (visibleCount == visibleBuckets.length) {
+                visibleBuckets = Arrays.copyOf(visibleBuckets, visibleCount * 2);
+                visibleKeys = Arrays.copyOf(visibleKeys, visibleCount * 2);
+            }
+            // Squared distances are positive, so their float bits sort like the floats themselves
+            float distance = relativeCenter.lengthSquared();
+            visibleKeys[visibleCount] = ((long) Float.floatToIntBits(distance) << 32) | visibleCount;
+            visibleBuckets[visibleCount] = bucket;
+            visibleCount++;
+        }
+        lastVisibleBuckets = visibleCount;
+        Arrays.sort(visibleKeys, 0, visibleCount);
+
+        int added = 0;
+        for (int i = 0; i < visibleCount && added < limit; i++) {
+            Bucket<T> bucket = (Bucket<T>) visibleBuckets[(int) visibleKeys[i]];
+            for (int j = 0; j < bucket.entries.size() && added < limit; j++) {
+                output.add(bucket.entries.get(j).object);
+                added++;
+            }
+        }
+        Arrays.fill(visibleBuckets, 0, visibleCount, null);
+        return added;
+    }
+
+    /**
+     * @return The number of chunks that were found to be visible by the last call to {@link #collectVisible}
+     */
+    public int getLastVisibleChunks() {
+        return lastVisibleBuckets;
+    }
+
+    /**
+     * @return The number of chunks that contain at least one object
+     */
+    public int getOccupiedChunks() {
+        return buckets.size();
+    }
+
+    private void removeFromBucket(Entry<T> entry) {
+        Bucket<T> bucket = entry.bucket;
+        Entry<T> last = bucket.entries.remove(bucket.entries.size() - 1);
+        if (last != entry) {
+            bucket.entries.set(entry.index, last);
+            last.index = entry.index;
+        }
+        if (bucket.entries.isEmpty()) {
+            buckets.remove(bucket.key);
+        }
+        entry.bucket = null;
+    }
+
+    private static long key(int x, int y, int z) {
+        return ((long) (x & 0x1FFFFF) << 42) | ((long) (y & 0x1FFFFF) << 21) | (z & 0x1FFFFF);
+    }
+
+    private static final class Entry<T> {
+        private final T object;
+        private Bucket<T> bucket;
+        private int index;
+
+        Entry(T object) {
+            this.object = object;
+        }
+    }
+
+    private static final class Bucket<T> {
+        private final long key;
+        private final float centerX;
+        private final float centerY;
+        private final float centerZ;
+        private final List<Entry<T>> entries = Lists.newArrayList();
+
+        /**
+         * Only ever grows while the chunk is occupied, so it may overestimate after large objects leave
+         */
+        private float maxRadius;
+
+        Bucket(long key, int chunkX, int chunkY, int chunkZ) {
+            this.key = key;
+            this.centerX = (chunkX + 0.5f) * ChunkConstants.SIZE_X;
+            this.centerY = (chunkY + 0.5f) * ChunkConstants.SIZE_Y;
+            this.centerZ = (chunkZ + 0.5f) * ChunkConstants.SIZE_Z;
+        }
+    }
+}
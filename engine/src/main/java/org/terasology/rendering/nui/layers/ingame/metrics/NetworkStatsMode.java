@@ -51,6 +51,12 @@ public String getMetrics() {
             builder.append(String.format("In Bytes: %d%n", networkSystem.getIncomingBytesDelta()));
             builder.append(String.format("Out Msg: %d%n", networkSystem.getOutgoingMessagesDelta()));
             builder.append(String.format("Out Bytes: %d%n", networkSystem.getOutgoingBytesDelta()));
+            int uncompressedBytes = networkSystem.getUncompressedBytesDelta();
+            int compressedBytes = networkSystem.getCompressedBytesDelta();
+            if (uncompressedBytes > 0) {
+                builder.append(String.format("Compression: %.1f%%%n", 100f * compressedBytes / uncompressedBytes));
+            }
+            builder.append(String.format("Compression Time: %.2fms%n", networkSystem.getCompressionTimeDelta() / 1000000.0));
             if (lastTime != 0) {
                 // ignore the first update as it will not have useful data
                 lastMetric = builder.toString();
@@ -66,6 +66,8 @@ public class GLSLShader extends Shader {
 
     private static final Logger logger = LoggerFactory.getLogger(GLSLShader.class);
 
+    private static final String TEXTURE_LOD_EXTENSION = "GL_ARB_shader_texture_lod";
+
     private static String includedFunctionsVertex = "";
     private static String includedFunctionsFragment = "";
     private static String includedDefines = "";
@@ -274,6 +276,12 @@ private void registerAllShaderPermutations() {
     private String assembleShader(int type, Set<ShaderProgramFeature> features) {
         StringBuilder shader = createShaderBuilder();
 
+        // Allows sampling with explicit derivatives where supported, only in the programs that test for it
+        String program = (type == GL20.GL_FRAGMENT_SHADER) ? shaderProgramBase.getFragmentProgram() : shaderProgramBase.getVertexProgram();
+        if (program.contains(TEXTURE_LOD_EXTENSION)) {
+            shader.append("#extension ").append(TEXTURE_LOD_EXTENSION).append(" : enable\n");
+        }
+
         // Add the activated features for this shader
         for (ShaderProgramFeature feature : features) {
             shader.append("#define ").append(feature.name()).append("\n");
@@ -73,21 +73,7 @@ public void generateChunkMesh(ChunkView view, ChunkMesh chunkMesh, int x, int y,
 
         BlockAppearance blockAppearance = selfBlock.getAppearance(adjacentBlocks);
 
-        /*
-         * Determine the render process.
-         */
-        ChunkMesh.RenderType renderType = ChunkMesh.RenderType.TRANSLUCENT;
-
-        if (!selfBlock.isTranslucent()) {
-            renderType = ChunkMesh.RenderType.OPAQUE;
-        }
-        // TODO: Review special case, or alternatively compare uris.
-        if (selfBlock.isWater() || selfBlock.isIce()) {
-            renderType = ChunkMesh.RenderType.WATER_AND_ICE;
-        }
-        if (selfBlock.isDoubleSided()) {
-            renderType = ChunkMesh.RenderType.BILLBOARD;
-        }
+        ChunkMesh.RenderType renderType = getRenderType(selfBlock);
 
         if (blockAppearance.getPart(BlockPart.CENTER) != null) {
             Vector4f colorOffset = selfBlock.calcColorOffsetFor(BlockPart.CENTER, selfBiome);
@@ -153,6 +139,28 @@ public void generateChunkMesh(ChunkView view, ChunkMesh chunkMesh, int x, int y,
         }
     }
 
+    /**
+     * Determines the render process for a block.
+     *
+     * @param block The block to render
+     * @return The render type the block's mesh belongs to
+     */
+    static ChunkMesh.RenderType getRenderType(Block block) {
+        ChunkMesh.RenderType renderType = ChunkMesh.RenderType.TRANSLUCENT;
+
+        if (!block.isTranslucent()) {
+            renderType = ChunkMesh.RenderType.OPAQUE;
+        }
+        // TODO: Review special case, or alternatively compare uris.
+        if (block.isWater() || block.isIce()) {
+            renderType = ChunkMesh.RenderType.WATER_AND_ICE;
+        }
+        if (block.isDoubleSided()) {
+            renderType = ChunkMesh.RenderType.BILLBOARD;
+        }
+        return renderType;
+    }
+
     /**
      * Returns true if the side should be rendered adjacent to the second side provided.
      *
@@ -160,7 +168,7 @@ public void generateChunkMesh(ChunkView view, ChunkMesh chunkMesh, int x, int y,
      * @param currentBlock The current block
      * @return True if the side is visible for the given block types
      */
-    private boolean isSideVisibleForBlockTypes(Block blockToCheck, Block currentBlock, Side side) {
+    static boolean isSideVisibleForBlockTypes(Block blockToCheck, Block currentBlock, Side side) {
         // Liquids can be transparent but there should be no visible adjacent faces
         if (currentBlock.isLiquid() && blockToCheck.isLiquid()) {
             return false;
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import org.terasology.math.Side;
+import org.terasology.world.ChunkView;
+import org.terasology.world.block.BlockTable;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.util.BitSet;
+
+/**
+ * Records which faces of a chunk are connected to each other through blocks that do not occlude, so that chunks can be
+ * culled when they can only be seen through solid terrain. It is computed when the chunk is tessellated, by flood
+ * filling the non-occluding blocks from the chunk's boundary.
+ *
+ */
+public final class ChunkFaceConnectivity {
+
+    /**
+     * The connectivity of a chunk that has not been analysed yet: every face can be seen from every other face.
+     */
+    public static final ChunkFaceConnectivity ALL_CONNECTED = new ChunkFaceConnectivity(-1L);
+
+    private static final Side[] SIDES = Side.values();
+    private static final long ALL_CONNECTIONS = (1L << (SIDES.length * SIDES.length)) - 1;
+
+    private static final int SIZE_X = ChunkConstants.SIZE_X;
+    private static final int SIZE_Y = ChunkConstants.SIZE_Y;
+    private static final int SIZE_Z = ChunkConstants.SIZE_Z;
+    private static final int VOLUME = SIZE_X * SIZE_Y * SIZE_Z;
+
+    private final long connections;
+
+    private ChunkFaceConnectivity(long connections) {
+        this.connections = connections;
+    }
+
+    /**
+     * @param connections A value previously returned by {@link #getConnections()}
+     * @return The connectivity with the given connections
+     */
+    static ChunkFaceConnectivity fromConnections(long connections) {
+        return connections == ALL_CONNECTED.connections ? ALL_CONNECTED : new ChunkFaceConnectivity(connections);
+    }
+
+    /**
+     * @return The connections between the faces as a bit set, suitable for storing
+     */
+    long getConnections() {
+        return connections;
+    }
+
+    /**
+     * @param from The face through which the chunk is entered
+     * @param to   The face through which it is left
+     * @return Whether there is a path of non-occluding blocks between the two faces
+     */
+    public boolean isConnected(Side from, Side to) {
+        return (connections & bit(from.ordinal(), to.ordinal())) != 0;
+    }
+
+    /**
+     * @param chunkView A view on the chunk, in chunk-local coordinates
+     * @return The connectivity between the faces of the chunk
+     */
+    public static ChunkFaceConnectivity compute(ChunkView chunkView) {
+        BitSet occluding = new BitSet(VOLUME);
+        BlockTable blockTable = chunkView.getBlockTable();
+        for (int y = 0; y < SIZE_Y; y++) {
+            for (int z = 0; z < SIZE_Z; z++) {
+                for (int x = 0; x < SIZE_X; x++) {
+                    if (blockTable.isOccluding(chunkView.getBlockId(x, y, z))) {
+                        occluding.set(index(x, y, z));
+                    }
+                }
+            }
+        }
+        return compute(occluding);
+    }
+
+    /**
+     * @param occluding The occluding blocks of a chunk, by {@link #index(int, int, int)}. Used as scratch space.
+     * @return The connectivity between the faces of the chunk
+     */
+    static ChunkFaceConnectivity compute(BitSet occluding) {
+        long connections = 0;
+        int[] stack = new int[VOLUME];
+        // Only regions that touch the boundary can connect faces, so the flood fills start from there
+        for (int y = 0; y < SIZE_Y; y++) {
+            for (int z = 0; z < SIZE_Z; z++) {
+                boolean boundary = y == 0 || y == SIZE_Y - 1 || z == 0 || z == SIZE_Z - 1;
+                int step = boundary ? 1 : SIZE_X - 1;
+                for (int x = 0; x < SIZE_X; x += step) {
+                    int start = index(x, y, z);
+                    if (!occluding.get(start)) {
+                        connections |= connectAll(floodFill(occluding, start, stack));
+                        if (connections == ALL_CONNECTIONS) {
+                            return ALL_CONNECTED;
+                        }
+                    }
+                }
+            }
+        }
+        return new ChunkFaceConnectivity(connections);
+    }
+
+    static int index(int x, int y, int z) {
+        return (y * SIZE_Z + z) * SIZE_X + x;
+    }
+
+    /**
+     * Marks the region of non-occluding blocks containing start as occluding, so it is only visited once.
+     *
+     * @return The sides of the chunk the region touches, as a bit per side ordinal
+     */
+    private static int floodFill(BitSet occluding, int start, int[] stack) {
+        int sides = 0;
+        int size = 0;
+        occluding.set(start);
+        stack[size++] = start;
+        while (size > 0) {
+            int current = stack[--size];
+            int x = current % SIZE_X;
+            int z = (current / SIZE_X) % SIZE_Z;
+            int y = current / (SIZE_X * SIZE_Z);
+
+            if (x == 0) {
+                sides |= 1 << Side.LEFT.ordinal();
+            } else {
+                size = visit(occluding, current - 1, stack, size);
+            }
+            if (x == SIZE_X - 1) {
+                sides |= 1 << Side.RIGHT.ordinal();
+            } else {
+                size = visit(occluding, current + 1, stack, size);
+            }
+            if (z == 0) {
+                sides |= 1 << Side.FRONT.ordinal();
+            } else {
+                size = visit(occluding, current - SIZE_X, stack, size);
+            }
+            if (z == SIZE_Z - 1) {
+                sides |= 1 << Side.BACK.ordinal();
+            } else {
+                size = visit(occluding, current + SIZE_X, stack, size);
+            }
+            if (y == 0) {
+                sides |= 1 << Side.BOTTOM.ordinal();
+            } else {
+                size = visit(occluding, current - SIZE_X * SIZE_Z, stack, size);
+            }
+            if (y == SIZE_Y - 1) {
+                sides |= 1 << Side.TOP.ordinal();
+            } else {
+                size = visit(occluding, current + SIZE_X * SIZE_Z, stack, size);
+            }
+        }
+        return sides;
+    }
+
+    private static int visit(BitSet occluding, int index, int[] stack, int size) {
+        if (occluding.get(index)) {
+            return size;
+        }
+        occluding.set(index);
+        stack[size] = index;
+        return size + 1;
+    }
+
+    private static long connectAll(int sides) {
+        long connections = 0;
+        for (int from = 0; from < SIDES.length; from++) {
+            if ((sides & (1 << from)) != 0) {
+                for (int to = 0; to < SIDES.length; to++) {
+                    if ((sides & (1 << to)) != 0) {
+                        connections |= bit(from, to);
+                    }
+                }
+            }
+        }
+        return connections;
+    }
+
+    private static long bit(int from, int to) {
+        return 1L << (from * SIDES.length + to);
+    }
+}
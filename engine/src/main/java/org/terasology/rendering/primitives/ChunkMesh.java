@@ -22,8 +22,10 @@
 import gnu.trove.list.array.TIntArrayList;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL13;
+import org.lwjgl.opengl.GL14;
 import org.lwjgl.opengl.GL15;
 import org.terasology.engine.subsystem.lwjgl.GLBufferPool;
+import org.terasology.math.TeraMath;
 import org.terasology.math.geom.Vector3f;
 import org.terasology.rendering.VertexBufferObjectUtil;
 import org.terasology.rendering.assets.material.Material;
@@ -80,22 +82,36 @@ public enum RenderPhase {
         Z_PRE_PASS
     }
 
+    /**
+     * Chunk-local vertex positions are quantised to 1/POSITION_SCALE of a block and stored as shorts. The scale itself
+     * is stored as the w component, so the homogeneous position is unchanged for shaders that use gl_Vertex as it is.
+     */
+    public static final int POSITION_SCALE = 256;
+
     // some constants
-    private static final int SIZE_VERTEX = 3;   // vertices have 3 positional components, x,y,z
-    private static final int SIZE_TEX0 = 3;     // the first texture has 3 color components, r,g,b
-    private static final int SIZE_TEX1 = 3;     // the second texture is the same
-    private static final int SIZE_COLOR = 1;    // the color field has 4 components, r,g,b,a
-    private static final int SIZE_NORMAL = 3;   // normals are 3-dimensional vectors with u,v,t components
+    private static final int SIZE_VERTEX = 4;   // vertices have 4 positional components, x,y,z,w, stored as shorts
+    private static final int SIZE_TEX0 = 3;     // the first texture has 3 float components, u,v and the flags
+    private static final int SIZE_TEX1 = 3;     // the lighting data has 3 byte components, passed as secondary color
+    private static final int SIZE_COLOR = 4;    // the color field has 4 byte components, r,g,b,a
+    private static final int SIZE_NORMAL = 3;   // normals are 3-dimensional vectors stored as signed bytes
 
     // offset to the beginning of each data field, from the start of the data regarding an individual vertex
     private static final int OFFSET_VERTEX = 0;
-    private static final int OFFSET_TEX_0 = OFFSET_VERTEX + SIZE_VERTEX * 4;
+    private static final int OFFSET_TEX_0 = OFFSET_VERTEX + SIZE_VERTEX * 2;
     private static final int OFFSET_TEX_1 = OFFSET_TEX_0 + SIZE_TEX0 * 4;
-    private static final int OFFSET_COLOR = OFFSET_TEX_1 + SIZE_TEX1 * 4;
-    private static final int OFFSET_NORMAL = OFFSET_COLOR + SIZE_COLOR * 4;
-    private static final int STRIDE = OFFSET_NORMAL + SIZE_NORMAL * 4;
+    private static final int OFFSET_COLOR = OFFSET_TEX_1 + SIZE_TEX1 + 1;   // padded to a multiple of four bytes
+    private static final int OFFSET_NORMAL = OFFSET_COLOR + SIZE_COLOR;
+    private static final int STRIDE = OFFSET_NORMAL + SIZE_NORMAL + 1;      // as above
     // the STRIDE, above, is the gap between the beginnings of the data regarding two consecutive vertices
 
+    /**
+     * The number of ints a single vertex occupies in {@link VertexElements#finalVertices}.
+     */
+    public static final int VERTEX_SIZE = STRIDE / 4;
+
+    /* BUFFERS */
+    static final IntBufferPool BUFFER_POOL = new IntBufferPool(4);
+
     /* VERTEX DATA */
     private final int[] vertexBuffers = new int[4];
     private final int[] idxBuffers = new int[4];
@@ -103,12 +119,19 @@ public enum RenderPhase {
 
     /* STATS */
     private int triangleCount = -1;
+    private int bufferedBytes;
 
     /* TEMPORARY DATA */
     private Map<RenderType, VertexElements> vertexElements = Maps.newEnumMap(RenderType.class);
 
     private boolean disposed;
 
+    /* CULLING */
+    private ChunkFaceConnectivity faceConnectivity = ChunkFaceConnectivity.ALL_CONNECTED;
+
+    /* LEVEL OF DETAIL */
+    private int lodScale = 1;
+
     /* CONCURRENCY */
     private ReentrantLock lock = new ReentrantLock();
 
@@ -129,6 +152,48 @@ public VertexElements getVertexElements(RenderType renderType) {
         return vertexElements.get(renderType);
     }
 
+    /**
+     * @return Which faces of the chunk can be seen from each other through the chunk
+     */
+    public ChunkFaceConnectivity getFaceConnectivity() {
+        return faceConnectivity;
+    }
+
+    void setFaceConnectivity(ChunkFaceConnectivity faceConnectivity) {
+        this.faceConnectivity = faceConnectivity;
+    }
+
+    /**
+     * @return The size in blocks of the cells the chunk was tessellated in: 1 for a full detail mesh
+     */
+    public int getLodScale() {
+        return lodScale;
+    }
+
+    void setLodScale(int lodScale) {
+        this.lodScale = lodScale;
+    }
+
+    /**
+     * @return The size in bytes of the vertex and index data waiting to be uploaded, 0 once the mesh is generated
+     */
+    public int getPendingBytes() {
+        lock.lock();
+        try {
+            int bytes = 0;
+            if (vertexElements != null) {
+                for (VertexElements elements : vertexElements.values()) {
+                    if (elements.finalVertices != null && elements.finalIndices != null) {
+                        bytes += (elements.finalVertices.limit() + elements.finalIndices.limit()) * 4;
+                    }
+                }
+            }
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public boolean isGenerated() {
         return vertexElements == null;
     }
@@ -171,6 +236,7 @@ private void generateVBO(RenderType type) {
             vertexBuffers[id] = bufferPool.get("chunkMesh");
             idxBuffers[id] = bufferPool.get("chunkMesh");
             vertexCount[id] = elements.finalIndices.limit();
+            bufferedBytes += (elements.finalVertices.limit() + elements.finalIndices.limit()) * 4;
 
             VertexBufferObjectUtil.bufferVboElementData(idxBuffers[id], elements.finalIndices, GL15.GL_STATIC_DRAW);
             VertexBufferObjectUtil.bufferVboData(vertexBuffers[id], elements.finalVertices, GL15.GL_STATIC_DRAW);
@@ -179,7 +245,18 @@ private void generateVBO(RenderType type) {
             idxBuffers[id] = 0;
             vertexCount[id] = 0;
         }
+        releaseBuffers(elements);
+    }
 
+    private static void releaseBuffers(VertexElements elements) {
+        if (elements.finalVertices != null) {
+            BUFFER_POOL.release(elements.finalVertices);
+            elements.finalVertices = null;
+        }
+        if (elements.finalIndices != null) {
+            BUFFER_POOL.release(elements.finalIndices);
+            elements.finalIndices = null;
+        }
     }
 
     private void renderVbo(int id) {
@@ -192,22 +269,22 @@ private void renderVbo(int id) {
                 glEnableClientState(GL_VERTEX_ARRAY);
                 glEnableClientState(GL_TEXTURE_COORD_ARRAY);
                 glEnableClientState(GL_COLOR_ARRAY);
+                glEnableClientState(GL14.GL_SECONDARY_COLOR_ARRAY);
                 glEnableClientState(GL_NORMAL_ARRAY);
 
                 GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, idxBuffers[id]);
                 GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vertexBuffers[id]);
 
-                glVertexPointer(SIZE_VERTEX, GL11.GL_FLOAT, STRIDE, OFFSET_VERTEX);
+                glVertexPointer(SIZE_VERTEX, GL11.GL_SHORT, STRIDE, OFFSET_VERTEX);
 
                 GL13.glClientActiveTexture(GL13.GL_TEXTURE0);
                 glTexCoordPointer(SIZE_TEX0, GL11.GL_FLOAT, STRIDE, OFFSET_TEX_0);
 
-                GL13.glClientActiveTexture(GL13.GL_TEXTURE1);
-                glTexCoordPointer(SIZE_TEX1, GL11.GL_FLOAT, STRIDE, OFFSET_TEX_1);
+                GL14.glSecondaryColorPointer(SIZE_TEX1, GL11.GL_UNSIGNED_BYTE, STRIDE, OFFSET_TEX_1);
 
-                glColorPointer(SIZE_COLOR * 4, GL11.GL_UNSIGNED_BYTE, STRIDE, OFFSET_COLOR);
+                glColorPointer(SIZE_COLOR, GL11.GL_UNSIGNED_BYTE, STRIDE, OFFSET_COLOR);
 
-                glNormalPointer(GL11.GL_FLOAT, STRIDE, OFFSET_NORMAL);
+                glNormalPointer(GL11.GL_BYTE, STRIDE, OFFSET_NORMAL);
 
                 GL11.glDrawElements(GL11.GL_TRIANGLES, vertexCount[id], GL11.GL_UNSIGNED_INT, 0);
 
@@ -216,6 +293,7 @@ private void renderVbo(int id) {
                 GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
 
                 glDisableClientState(GL_NORMAL_ARRAY);
+                glDisableClientState(GL14.GL_SECONDARY_COLOR_ARRAY);
                 glDisableClientState(GL_COLOR_ARRAY);
                 glDisableClientState(GL_TEXTURE_COORD_ARRAY);
                 glDisableClientState(GL_VERTEX_ARRAY);
@@ -312,7 +390,12 @@ public void dispose() {
                 }
 
                 disposed = true;
-                vertexElements = null;
+                if (vertexElements != null) {
+                    for (VertexElements elements : vertexElements.values()) {
+                        releaseBuffers(elements);
+                    }
+                    vertexElements = null;
+                }
             }
         } finally {
             lock.unlock();
@@ -333,6 +416,13 @@ public int triangleCount(RenderPhase phase) {
         }
     }
 
+    /**
+     * @return The size in bytes of the vertex and index buffers of this mesh, once generated
+     */
+    public int getBufferedBytes() {
+        return bufferedBytes;
+    }
+
     private int triangleCount() {
         return triangleCount;
     }
@@ -362,6 +452,53 @@ public int getTimeToGenerateOptimizedBuffers() {
         return timeToGenerateOptimizedBuffers;
     }
 
+    /**
+     * Writes a single vertex in the compact layout rendered by this class, without allocating.
+     *
+     * @param buffer      The buffer to write {@link #VERTEX_SIZE} ints to
+     * @param x           The chunk-local x coordinate
+     * @param y           The chunk-local y coordinate
+     * @param z           The chunk-local z coordinate
+     * @param u           The texture u coordinate
+     * @param v           The texture v coordinate
+     * @param flags       The block hint flags
+     * @param sunlight    The sunlight, between 0 and 1
+     * @param blockLight  The block light, between 0 and 1
+     * @param occlusion   The ambient occlusion, between 0 and 1
+     * @param packedColor The color, as packed by {@link org.terasology.rendering.RenderMath#packColor}
+     * @param nx          The x component of the unit normal
+     * @param ny          The y component of the unit normal
+     * @param nz          The z component of the unit normal
+     */
+    static void putVertex(IntBuffer buffer, float x, float y, float z, float u, float v, int flags,
+                          float sunlight, float blockLight, float occlusion, int packedColor, float nx, float ny, float nz) {
+        // Components are packed low byte first, matching the little endian layout RenderMath.packColor assumes
+        buffer.put((quantisePosition(x) & 0xFFFF) | (quantisePosition(y) << 16));
+        buffer.put((quantisePosition(z) & 0xFFFF) | (POSITION_SCALE << 16));
+
+        buffer.put(Float.floatToIntBits(u));
+        buffer.put(Float.floatToIntBits(v));
+        buffer.put(Float.floatToIntBits(flags));
+
+        buffer.put(toUnsignedByte(sunlight) | (toUnsignedByte(blockLight) << 8) | (toUnsignedByte(occlusion) << 16));
+
+        buffer.put(packedColor);
+
+        buffer.put(toSignedByte(nx) | (toSignedByte(ny) << 8) | (toSignedByte(nz) << 16));
+    }
+
+    private static int quantisePosition(float value) {
+        return Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(value * POSITION_SCALE)));
+    }
+
+    private static int toUnsignedByte(float value) {
+        return Math.round(TeraMath.clamp(value, 0.0f, 1.0f) * 255.0f);
+    }
+
+    private static int toSignedByte(float value) {
+        return Math.round(TeraMath.clamp(value, -1.0f, 1.0f) * 127.0f) & 0xFF;
+    }
+
     /**
      * Data structure for storing vertex data. Abused like a "struct" in C/C++. Just sad.
      */
@@ -0,0 +1,478 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.subsystem.lwjgl.GLBufferPool;
+import org.terasology.math.geom.Vector2f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.ChunkView;
+import org.terasology.world.biomes.Biome;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockAppearance;
+import org.terasology.world.block.BlockPart;
+import org.terasology.world.block.shapes.BlockMeshPart;
+import org.terasology.world.block.tiles.WorldAtlas;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the final vertex and index buffers of chunk meshes on disk, so that chunks which have not changed since they
+ * were last tessellated - in this or an earlier session - can be loaded instead of tessellated again.
+ * <br><br>
+ * Each chunk and level of detail has one file. A cached mesh is only used if the content hash it was stored with
+ * matches the current one, see {@link #contentHash(ChunkView, int)}. Files are read onto the heap in one piece and
+ * copied into the buffers handed to the GPU. They are not mapped: entries are replaced and evicted all the time, and a
+ * mapped file can't be deleted or replaced on every platform until the mapping is garbage collected. The total size of
+ * the files is bounded: the least recently used ones are deleted first. The index recording their order is written by
+ * {@link #close()}. Files written since then, for instance before a crash, are recovered from their headers when the
+ * cache is opened.
+ * <br><br>
+ * The cache is used from the chunk update threads, so it is thread safe.
+ *
+ */
+public final class ChunkMeshCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkMeshCache.class);
+
+    private static final int MAGIC = 0x54434D43;
+    private static final int VERSION = 3;
+    private static final String INDEX_FILE = "index";
+    private static final String ENTRY_EXTENSION = ".mesh";
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private static final ChunkMesh.RenderType[] RENDER_TYPES = ChunkMesh.RenderType.values();
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4 + 8 + RENDER_TYPES.length * 2 * 4;
+
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final long salt;
+    private final GLBufferPool bufferPool;
+
+    /* Guarded by this. Iterates from the least to the most recently used entry. */
+    private final Map<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    /**
+     * Opens the cache in the given directory, deleting the files that were stored with a different salt.
+     *
+     * @param directory  The directory of the cache, usually one per world
+     * @param maxBytes   The total size the cache files may occupy
+     * @param salt       A value covering everything besides the chunk content that affects meshes, see {@link #salt}
+     * @param bufferPool The buffer pool of the meshes loaded from the cache
+     * @throws IOException If the directory cannot be created
+     */
+    public ChunkMeshCache(Path directory, long maxBytes, long salt, GLBufferPool bufferPool) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.salt = salt;
+        this.bufferPool = bufferPool;
+        Files.createDirectories(directory);
+        readIndex();
+        recoverUnindexedFiles();
+    }
+
+    /**
+     * The texture coordinates of the block mesh parts are covered as well as the blocks themselves, as they depend on
+     * the layout of the tiles in the world atlas, which changes with the installed modules and the atlas resolution.
+     *
+     * @param blocks        The registered blocks
+     * @param atlas         The world atlas the blocks are textured from
+     * @param greedyMeshing Whether meshes are tessellated with greedy meshing
+     * @return A salt that changes whenever meshes of the same chunk content would differ
+     */
+    public static long salt(Collection<Block> blocks, WorldAtlas atlas, boolean greedyMeshing) {
+        List<Block> sorted = Lists.newArrayList(blocks);
+        sorted.sort(Comparator.comparingInt(Block::getId));
+        long hash = mix(FNV_OFFSET, VERSION);
+        hash = mix(hash, ChunkMesh.VERTEX_SIZE);
+        hash = mix(hash, greedyMeshing ? 1 : 0);
+        hash = mix(hash, atlas.getAtlasSize());
+        hash = mix(hash, atlas.getTileSize());
+        for (Block block : sorted) {
+            hash = mix(hash, block.getId());
+            hash = mix(hash, block.getURI().toString().hashCode());
+            BlockAppearance appearance = block.getPrimaryAppearance();
+            for (BlockPart part : BlockPart.values()) {
+                BlockMeshPart meshPart = appearance.getPart(part);
+                if (meshPart != null) {
+                    Vector2f tilePos = appearance.getTextureAtlasPos(part);
+                    hash = mix(hash, Float.floatToIntBits(tilePos.x));
+                    hash = mix(hash, Float.floatToIntBits(tilePos.y));
+                    for (int i = 0; i < meshPart.size(); i++) {
+                        Vector2f texCoord = meshPart.getTexCoord(i);
+                        hash = mix(hash, Float.floatToIntBits(texCoord.x));
+                        hash = mix(hash, Float.floatToIntBits(texCoord.y));
+                    }
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Hashes everything the mesh of a chunk is built from: the blocks, light and biomes of the chunk and of the border
+     * around it that tessellation samples. That is one block at full detail and one cell at a reduced level of detail.
+     * Biomes are hashed at every height, as block colors are looked up with the biome of each block.
+     *
+     * @param chunkView A view on the chunk and its neighbours, in chunk-local coordinates
+     * @param lodScale  The level of detail scale of the mesh, 1 for full detail
+     * @return The content hash to look up and store the mesh of the chunk with
+     */
+    public long contentHash(ChunkView chunkView, int lodScale) {
+        int border = Math.max(1, lodScale);
+        long hash = mix(salt, lodScale);
+        for (int y = -border; y < ChunkConstants.SIZE_Y + border; y++) {
+            for (int z = -border; z < ChunkConstants.SIZE_Z + border; z++) {
+                for (int x = -border; x < ChunkConstants.SIZE_X + border; x++) {
+                    hash = mix(hash, chunkView.getBlockId(x, y, z));
+                    hash = mix(hash, (chunkView.getSunlight(x, y, z) & 0xFF) | (chunkView.getLight(x, y, z) & 0xFF) << 8);
+                    Biome biome = chunkView.getBiome(x, y, z);
+                    hash = mix(hash, (biome == null) ? 0 : biome.getId().hashCode());
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * @param position    The position of the chunk
+     * @param lodScale    The level of detail scale of the mesh, 1 for full detail
+     * @param contentHash The current content hash of the chunk
+     * @return The cached mesh, ready for upload, or null if there is none for this content
+     */
+    public ChunkMesh load(Vector3i position, int lodScale, long contentHash) {
+        String name = entryName(position, lodScale);
+        synchronized (this) {
+            Entry entry = entries.get(name);
+            if (entry == null || entry.contentHash != contentHash) {
+                misses.incrementAndGet();
+                return null;
+            }
+        }
+
+        ChunkMesh mesh = new ChunkMesh(bufferPool);
+        try (FileChannel channel = FileChannel.open(directory.resolve(name), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid mesh cache entry size " + size);
+            }
+            ByteBuffer data = ByteBuffer.allocate((int) size).order(ByteOrder.nativeOrder());
+            while (data.hasRemaining()) {
+                if (channel.read(data) < 0) {
+                    throw new IOException("Truncated mesh cache entry");
+                }
+            }
+            data.flip();
+            if (data.getInt() != MAGIC || data.getInt() != VERSION || data.getLong() != salt || data.getLong() != contentHash
+                    || data.getInt() != lodScale) {
+                throw new IOException("Stale mesh cache entry");
+            }
+            mesh.setLodScale(lodScale);
+            mesh.setFaceConnectivity(ChunkFaceConnectivity.fromConnections(data.getLong()));
+            int[] counts = new int[RENDER_TYPES.length * 2];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = data.getInt();
+            }
+            IntBuffer ints = data.asIntBuffer();
+            for (int i = 0; i < RENDER_TYPES.length; i++) {
+                ChunkMesh.VertexElements elements = mesh.getVertexElements(RENDER_TYPES[i]);
+                elements.vertexCount = counts[i * 2] / ChunkMesh.VERTEX_SIZE;
+                elements.finalVertices = copy(ints, counts[i * 2]);
+                elements.finalIndices = copy(ints, counts[i * 2 + 1]);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Discarding mesh cache entry {}", name, e);
+            mesh.dispose();
+            remove(name);
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return mesh;
+    }
+
+    /**
+     * Stores a freshly tessellated mesh. Must be called before the mesh is uploaded, which releases its buffers.
+     *
+     * @param position    The position of the chunk
+     * @param mesh        The mesh of the chunk
+     * @param contentHash The content hash of the chunk the mesh was tessellated from
+     */
+    public void store(Vector3i position, ChunkMesh mesh, long contentHash) {
+        String name = entryName(position, mesh.getLodScale());
+        int size = HEADER_BYTES;
+        for (ChunkMesh.RenderType type : RENDER_TYPES) {
+            ChunkMesh.VertexElements elements = mesh.getVertexElements(type);
+            size += (elements.finalVertices.limit() + elements.finalIndices.limit()) * 4;
+        }
+        if (size > maxBytes) {
+            return;
+        }
+
+        ByteBuffer data = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+        data.putInt(MAGIC).putInt(VERSION).putLong(salt).putLong(contentHash).putInt(mesh.getLodScale());
+        data.putLong(mesh.getFaceConnectivity().getConnections());
+        for (ChunkMesh.RenderType type : RENDER_TYPES) {
+            ChunkMesh.VertexElements elements = mesh.getVertexElements(type);
+            data.putInt(elements.finalVertices.limit()).putInt(elements.finalIndices.limit());
+        }
+        IntBuffer ints = data.asIntBuffer();
+        for (ChunkMesh.RenderType type : RENDER_TYPES) {
+            ChunkMesh.VertexElements elements = mesh.getVertexElements(type);
+            ints.put(elements.finalVertices.duplicate());
+            ints.put(elements.finalIndices.duplicate());
+        }
+        data.clear();
+
+        Path temp = directory.resolve(name + TEMP_EXTENSION + Thread.currentThread().getId());
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            }
+            Files.move(temp, directory.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.debug("Failed to store mesh cache entry {}", name, e);
+            delete(temp);
+            remove(name);
+            return;
+        }
+
+        List<String> evicted = Lists.newArrayList();
+        synchronized (this) {
+            Entry previous = entries.put(name, new Entry(contentHash, size));
+            totalBytes += size - ((previous == null) ? 0 : previous.size);
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && iterator.hasNext()) {
+                Map.Entry<String, Entry> eldest = iterator.next();
+                if (!eldest.getKey().equals(name)) {
+                    totalBytes -= eldest.getValue().size;
+                    evicted.add(eldest.getKey());
+                    iterator.remove();
+                }
+            }
+        }
+        for (String evictedName : evicted) {
+            delete(directory.resolve(evictedName));
+        }
+    }
+
+    /**
+     * Writes the index, so that the cached meshes can be used in later sessions.
+     */
+    public synchronized void close() {
+        Path temp = directory.resolve(INDEX_FILE + TEMP_EXTENSION);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(salt);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue().contentHash);
+                    out.writeInt(entry.getValue().size);
+                }
+            }
+            Files.move(temp, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to write mesh cache index in {}", directory, e);
+        }
+    }
+
+    /**
+     * @return The number of meshes loaded from the cache so far
+     */
+    public int getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return The number of meshes looked up but not found in the cache so far
+     */
+    public int getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return The total size of the cached meshes in bytes
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private synchronized void readIndex() {
+        Path indexFile = directory.resolve(INDEX_FILE);
+        if (!Files.isRegularFile(indexFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != salt) {
+                logger.info("Mesh cache in {} is out of date, discarding it", directory);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                Entry entry = new Entry(in.readLong(), in.readInt());
+                entries.put(name, entry);
+                totalBytes += entry.size;
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to read mesh cache index in {}, discarding it", directory, e);
+            entries.clear();
+            totalBytes = 0;
+        }
+    }
+
+    /**
+     * Adds the files missing from the index, oldest first, if their headers show they were stored with the current
+     * salt. All other files besides the index are deleted.
+     */
+    private void recoverUnindexedFiles() throws IOException {
+        List<Path> unindexed = Lists.newArrayList();
+        synchronized (this) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    if (!name.equals(INDEX_FILE) && !entries.containsKey(name)) {
+                        unindexed.add(file);
+                    }
+                }
+            }
+        }
+        unindexed.sort(Comparator.comparingLong(file -> file.toFile().lastModified()));
+        for (Path file : unindexed) {
+            Entry entry = readHeader(file);
+            if (entry == null) {
+                delete(file);
+            } else {
+                synchronized (this) {
+                    entries.put(file.getFileName().toString(), entry);
+                    totalBytes += entry.size;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param file A file in the cache directory
+     * @return The entry of the file, or null if it is not a mesh stored with the current salt
+     */
+    private Entry readHeader(Path file) {
+        if (!file.getFileName().toString().endsWith(ENTRY_EXTENSION)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            ByteBuffer header = ByteBuffer.allocate(4 + 4 + 8 + 8).order(ByteOrder.nativeOrder());
+            while (header.hasRemaining()) {
+                if (channel.read(header) < 0) {
+                    return null;
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION || header.getLong() != salt) {
+                return null;
+            }
+            return new Entry(header.getLong(), (int) size);
+        } catch (IOException e) {
+            logger.debug("Failed to read mesh cache file {}", file, e);
+            return null;
+        }
+    }
+
+    private void remove(String name) {
+        synchronized (this) {
+            Entry entry = entries.remove(name);
+            if (entry != null) {
+                totalBytes -= entry.size;
+            }
+        }
+        delete(directory.resolve(name));
+    }
+
+    private static IntBuffer copy(IntBuffer source, int count) {
+        IntBuffer result = ChunkMesh.BUFFER_POOL.acquire(count);
+        IntBuffer slice = source.slice();
+        slice.limit(count);
+        result.put(slice);
+        result.flip();
+        source.position(source.position() + count);
+        return result;
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.debug("Failed to delete mesh cache file {}", file, e);
+        }
+    }
+
+    private static String entryName(Vector3i position, int lodScale) {
+        return position.x + "_" + position.y + "_" + position.z + "_" + lodScale + ENTRY_EXTENSION;
+    }
+
+    private static long mix(long hash, int value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+
+    private static final class Entry {
+        private final long contentHash;
+        private final int size;
+
+        Entry(long contentHash, int size) {
+            this.contentHash = contentHash;
+            this.size = size;
+        }
+    }
+}
@@ -16,8 +16,6 @@
 package org.terasology.rendering.primitives;
 
 import com.google.common.base.Stopwatch;
-import gnu.trove.iterator.TIntIterator;
-import org.lwjgl.BufferUtils;
 import org.terasology.engine.subsystem.lwjgl.GLBufferPool;
 import org.terasology.math.Direction;
 import org.terasology.math.TeraMath;
@@ -26,9 +24,12 @@
 import org.terasology.rendering.RenderMath;
 import org.terasology.world.ChunkView;
 import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockTable;
 import org.terasology.world.chunks.ChunkConstants;
 
+import java.nio.IntBuffer;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 /**
  * Generates tessellated chunk meshes from chunks.
@@ -36,12 +37,29 @@
  */
 public final class ChunkTessellator {
 
+    // The offsets of the four corners sampled around a vertex, within the plane of its face
+    private static final float[] CORNER_OFFSETS_U = {0.1f, 0.1f, -0.1f, -0.1f};
+    private static final float[] CORNER_OFFSETS_V = {0.1f, -0.1f, -0.1f, 0.1f};
+
     private static int statVertexArrayUpdateCount;
 
     private GLBufferPool bufferPool;
+    private GreedyFaceMesher greedyFaceMesher;
+    private final LodChunkMesher lodChunkMesher = new LodChunkMesher();
 
     public ChunkTessellator(GLBufferPool bufferPool) {
+        this(bufferPool, false);
+    }
+
+    /**
+     * @param bufferPool    The pool to take vertex buffers from
+     * @param greedyMeshing Whether to merge the coplanar faces of simple cube blocks into larger quads
+     */
+    public ChunkTessellator(GLBufferPool bufferPool, boolean greedyMeshing) {
         this.bufferPool = bufferPool;
+        if (greedyMeshing) {
+            greedyFaceMesher = new GreedyFaceMesher();
+        }
     }
 
     public ChunkMesh generateMesh(ChunkView chunkView, int meshHeight, int verticalOffset) {
@@ -50,16 +68,141 @@ public ChunkMesh generateMesh(ChunkView chunkView, int meshHeight, int verticalO
 
         final Stopwatch watch = Stopwatch.createStarted();
 
+        tessellate(chunkView, mesh, meshHeight, verticalOffset);
+        finishMesh(chunkView, mesh, watch);
+
+        PerformanceMonitor.endActivity();
+        return mesh;
+    }
+
+    /**
+     * Generates the mesh of a whole chunk like {@link #generateMesh}, split into vertical slices which are tessellated
+     * in parallel on the common fork-join pool and then concatenated. This is meant for chunks edited by the player,
+     * where the new mesh is on the critical path of the edit becoming visible.
+     * <br><br>
+     * With greedy meshing, faces are not merged across slices, so the mesh may have a few more quads.
+     *
+     * @param chunkView  A view on the chunk and its neighbours
+     * @param sliceCount The number of slices, which must divide the height of a chunk
+     * @return The mesh of the whole chunk
+     */
+    public ChunkMesh generateMeshInSlices(ChunkView chunkView, int sliceCount) {
+        if (sliceCount <= 1) {
+            return generateMesh(chunkView, ChunkConstants.SIZE_Y, 0);
+        }
+        if (ChunkConstants.SIZE_Y % sliceCount != 0) {
+            throw new IllegalArgumentException("Chunk height " + ChunkConstants.SIZE_Y + " is not divisible into " + sliceCount + " slices");
+        }
+        PerformanceMonitor.startActivity("GenerateMeshInSlices");
+        final int sliceHeight = ChunkConstants.SIZE_Y / sliceCount;
+        final ChunkMesh[] slices = new ChunkMesh[sliceCount];
+
+        final Stopwatch watch = Stopwatch.createStarted();
+        IntStream.range(0, sliceCount).parallel().forEach(i -> {
+            ChunkMesh slice = new ChunkMesh(bufferPool);
+            tessellate(chunkView, slice, sliceHeight, i * sliceHeight);
+            generateOptimizedBuffers(chunkView, slice);
+            slices[i] = slice;
+        });
+        watch.stop();
+
+        ChunkMesh mesh = new ChunkMesh(bufferPool);
+        mesh.setTimeToGenerateBlockVertices((int) watch.elapsed(TimeUnit.MILLISECONDS));
+
+        watch.reset().start();
+        mesh.setFaceConnectivity(ChunkFaceConnectivity.compute(chunkView));
+        for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
+            concatenate(slices, type, mesh.getVertexElements(type));
+        }
+        watch.stop();
+        mesh.setTimeToGenerateOptimizedBuffers((int) watch.elapsed(TimeUnit.MILLISECONDS));
+        statVertexArrayUpdateCount++;
+
+        PerformanceMonitor.endActivity();
+        return mesh;
+    }
+
+    /**
+     * Generates a reduced level of detail mesh of a whole chunk, for chunks far from the camera. Each cube of scale
+     * blocks along each axis is drawn as a single cube.
+     *
+     * @param chunkView A view on the chunk and its neighbours
+     * @param scale     The size of the cubes in blocks: 2, 4 or 8
+     * @return The mesh, whose {@link ChunkMesh#getLodScale()} is scale
+     */
+    public ChunkMesh generateLodMesh(ChunkView chunkView, int scale) {
+        PerformanceMonitor.startActivity("GenerateLodMesh");
+        ChunkMesh mesh = new ChunkMesh(bufferPool);
+        mesh.setLodScale(scale);
+
+        final Stopwatch watch = Stopwatch.createStarted();
+        lodChunkMesher.generate(chunkView, mesh, scale);
+        finishMesh(chunkView, mesh, watch);
+
+        PerformanceMonitor.endActivity();
+        return mesh;
+    }
+
+    /**
+     * Appends the raw vertex data of the blocks in the given vertical range of the chunk to the mesh.
+     */
+    private void tessellate(ChunkView chunkView, ChunkMesh mesh, int meshHeight, int verticalOffset) {
+        if (greedyFaceMesher != null) {
+            greedyFaceMesher.generate(chunkView, mesh, meshHeight, verticalOffset);
+        }
+        BlockTable blockTable = chunkView.getBlockTable();
         for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
             for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
                 for (int y = verticalOffset; y < verticalOffset + meshHeight; y++) {
-                    Block block = chunkView.getBlock(x, y, z);
+                    Block block = blockTable.getBlock(chunkView.getBlockId(x, y, z));
+                    if (greedyFaceMesher != null && GreedyFaceMesher.isCandidate(block)) {
+                        continue;
+                    }
                     if (block != null && block.getMeshGenerator() != null) {
                         block.getMeshGenerator().generateChunkMesh(chunkView, mesh, x, y, z);
                     }
                 }
             }
         }
+    }
+
+    /**
+     * Joins the final buffers of the given render type of all slices into output, offsetting the indices of each slice
+     * by the vertices before it. The buffers of the slices are released.
+     */
+    private static void concatenate(ChunkMesh[] slices, ChunkMesh.RenderType type, ChunkMesh.VertexElements output) {
+        int vertexInts = 0;
+        int indexCount = 0;
+        for (ChunkMesh slice : slices) {
+            ChunkMesh.VertexElements elements = slice.getVertexElements(type);
+            vertexInts += elements.finalVertices.remaining();
+            indexCount += elements.finalIndices.remaining();
+        }
+
+        output.finalVertices = ChunkMesh.BUFFER_POOL.acquire(vertexInts);
+        output.finalIndices = ChunkMesh.BUFFER_POOL.acquire(indexCount);
+        int vertexOffset = 0;
+        for (ChunkMesh slice : slices) {
+            ChunkMesh.VertexElements elements = slice.getVertexElements(type);
+            IntBuffer indices = elements.finalIndices;
+            while (indices.hasRemaining()) {
+                output.finalIndices.put(indices.get() + vertexOffset);
+            }
+            vertexOffset += elements.finalVertices.remaining() / ChunkMesh.VERTEX_SIZE;
+            output.finalVertices.put(elements.finalVertices);
+
+            ChunkMesh.BUFFER_POOL.release(elements.finalVertices);
+            ChunkMesh.BUFFER_POOL.release(elements.finalIndices);
+            elements.finalVertices = null;
+            elements.finalIndices = null;
+        }
+        output.vertexCount = vertexOffset;
+        output.finalVertices.flip();
+        output.finalIndices.flip();
+    }
+
+    private void finishMesh(ChunkView chunkView, ChunkMesh mesh, Stopwatch watch) {
+        mesh.setFaceConnectivity(ChunkFaceConnectivity.compute(chunkView));
         watch.stop();
 
         mesh.setTimeToGenerateBlockVertices((int) watch.elapsed(TimeUnit.MILLISECONDS));
@@ -69,74 +212,45 @@ public ChunkMesh generateMesh(ChunkView chunkView, int meshHeight, int verticalO
         watch.stop();
         mesh.setTimeToGenerateOptimizedBuffers((int) watch.elapsed(TimeUnit.MILLISECONDS));
         statVertexArrayUpdateCount++;
-
-        PerformanceMonitor.endActivity();
-        return mesh;
     }
 
     private void generateOptimizedBuffers(ChunkView chunkView, ChunkMesh mesh) {
         PerformanceMonitor.startActivity("OptimizeBuffers");
 
+        float[] lighting = new float[3];
+        BlockTable blockTable = chunkView.getBlockTable();
         for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
             ChunkMesh.VertexElements elements = mesh.getVertexElements(type);
-            // Vertices double to account for light info
-            elements.finalVertices = BufferUtils.createIntBuffer(
-                    elements.vertices.size() + /* POSITION */
-                            elements.tex.size() + /* TEX0 (UV0 and flags) */
-                            elements.tex.size() + /* TEX1 (lighting data) */
-                            elements.flags.size() + /* FLAGS */
-                            elements.color.size() + /* COLOR */
-                            elements.normals.size()  /* NORMALS */
-            );
-
-            int cTex = 0;
-            int cColor = 0;
-            int cFlags = 0;
-            for (int i = 0; i < elements.vertices.size(); i += 3, cTex += 2, cColor += 4, cFlags++) {
-                Vector3f vertexPos = new Vector3f(
-                        elements.vertices.get(i),
-                        elements.vertices.get(i + 1),
-                        elements.vertices.get(i + 2));
-
-                /* POSITION */
-                elements.finalVertices.put(Float.floatToIntBits(vertexPos.x));
-                elements.finalVertices.put(Float.floatToIntBits(vertexPos.y));
-                elements.finalVertices.put(Float.floatToIntBits(vertexPos.z));
-
-                /* UV0 - TEX DATA 0 */
-                elements.finalVertices.put(Float.floatToIntBits(elements.tex.get(cTex)));
-                elements.finalVertices.put(Float.floatToIntBits(elements.tex.get(cTex + 1)));
-
-                /* FLAGS */
-                elements.finalVertices.put(Float.floatToIntBits(elements.flags.get(cFlags)));
-
-                float[] result = new float[3];
-                Vector3f normal = new Vector3f(elements.normals.get(i), elements.normals.get(i + 1), elements.normals.get(i + 2));
-                calcLightingValuesForVertexPos(chunkView, vertexPos, result, normal);
-
-                /* LIGHTING DATA / TEX DATA 1 */
-                elements.finalVertices.put(Float.floatToIntBits(result[0]));
-                elements.finalVertices.put(Float.floatToIntBits(result[1]));
-                elements.finalVertices.put(Float.floatToIntBits(result[2]));
-
-                /* PACKED COLOR */
+            int vertexCount = elements.vertices.size() / 3;
+            elements.finalVertices = ChunkMesh.BUFFER_POOL.acquire(vertexCount * ChunkMesh.VERTEX_SIZE);
+
+            for (int i = 0; i < vertexCount; i++) {
+                int cVertex = i * 3;
+                int cTex = i * 2;
+                int cColor = i * 4;
+                float x = elements.vertices.get(cVertex);
+                float y = elements.vertices.get(cVertex + 1);
+                float z = elements.vertices.get(cVertex + 2);
+                float nx = elements.normals.get(cVertex);
+                float ny = elements.normals.get(cVertex + 1);
+                float nz = elements.normals.get(cVertex + 2);
+
+                calcLightingValuesForVertexPos(chunkView, blockTable, x, y, z, nx, ny, nz, lighting);
+
                 final int packedColor = RenderMath.packColor(
                         elements.color.get(cColor),
                         elements.color.get(cColor + 1),
                         elements.color.get(cColor + 2),
                         elements.color.get(cColor + 3));
-                elements.finalVertices.put(packedColor);
 
-                /* NORMALS */
-                elements.finalVertices.put(Float.floatToIntBits(normal.x));
-                elements.finalVertices.put(Float.floatToIntBits(normal.y));
-                elements.finalVertices.put(Float.floatToIntBits(normal.z));
+                ChunkMesh.putVertex(elements.finalVertices, x, y, z,
+                        elements.tex.get(cTex), elements.tex.get(cTex + 1), elements.flags.get(i),
+                        lighting[0], lighting[1], lighting[2], packedColor, nx, ny, nz);
             }
 
-            elements.finalIndices = BufferUtils.createIntBuffer(elements.indices.size());
-            TIntIterator indexIterator = elements.indices.iterator();
-            while (indexIterator.hasNext()) {
-                elements.finalIndices.put(indexIterator.next());
+            elements.finalIndices = ChunkMesh.BUFFER_POOL.acquire(elements.indices.size());
+            for (int i = 0; i < elements.indices.size(); i++) {
+                elements.finalIndices.put(elements.indices.get(i));
             }
 
             elements.finalVertices.flip();
@@ -145,82 +259,69 @@ private void generateOptimizedBuffers(ChunkView chunkView, ChunkMesh mesh) {
         PerformanceMonitor.endActivity();
     }
 
-    private void calcLightingValuesForVertexPos(ChunkView chunkView, Vector3f vertexPos, float[] output, Vector3f normal) {
-        PerformanceMonitor.startActivity("calcLighting");
-        float[] lights = new float[8];
-        float[] blockLights = new float[8];
-        Block[] blocks = new Block[4];
-
-        PerformanceMonitor.startActivity("gatherLightInfo");
-        Direction dir = Direction.inDirection(normal);
-        switch (dir) {
-            case LEFT:
-            case RIGHT:
-                blocks[0] = chunkView.getBlock((vertexPos.x + 0.8f * normal.x), (vertexPos.y + 0.1f), (vertexPos.z + 0.1f));
-                blocks[1] = chunkView.getBlock((vertexPos.x + 0.8f * normal.x), (vertexPos.y + 0.1f), (vertexPos.z - 0.1f));
-                blocks[2] = chunkView.getBlock((vertexPos.x + 0.8f * normal.x), (vertexPos.y - 0.1f), (vertexPos.z - 0.1f));
-                blocks[3] = chunkView.getBlock((vertexPos.x + 0.8f * normal.x), (vertexPos.y - 0.1f), (vertexPos.z + 0.1f));
-                break;
-            case FORWARD:
-            case BACKWARD:
-                blocks[0] = chunkView.getBlock((vertexPos.x + 0.1f), (vertexPos.y + 0.1f), (vertexPos.z + 0.8f * normal.z));
-                blocks[1] = chunkView.getBlock((vertexPos.x + 0.1f), (vertexPos.y - 0.1f), (vertexPos.z + 0.8f * normal.z));
-                blocks[2] = chunkView.getBlock((vertexPos.x - 0.1f), (vertexPos.y - 0.1f), (vertexPos.z + 0.8f * normal.z));
-                blocks[3] = chunkView.getBlock((vertexPos.x - 0.1f), (vertexPos.y + 0.1f), (vertexPos.z + 0.8f * normal.z));
-                break;
-            default:
-                blocks[0] = chunkView.getBlock((vertexPos.x + 0.1f), (vertexPos.y + 0.8f * normal.y), (vertexPos.z + 0.1f));
-                blocks[1] = chunkView.getBlock((vertexPos.x + 0.1f), (vertexPos.y + 0.8f * normal.y), (vertexPos.z - 0.1f));
-                blocks[2] = chunkView.getBlock((vertexPos.x - 0.1f), (vertexPos.y + 0.8f * normal.y), (vertexPos.z - 0.1f));
-                blocks[3] = chunkView.getBlock((vertexPos.x - 0.1f), (vertexPos.y + 0.8f * normal.y), (vertexPos.z + 0.1f));
-        }
-
-        lights[0] = chunkView.getSunlight((vertexPos.x + 0.1f), (vertexPos.y + 0.8f), (vertexPos.z + 0.1f));
-        lights[1] = chunkView.getSunlight((vertexPos.x + 0.1f), (vertexPos.y + 0.8f), (vertexPos.z - 0.1f));
-        lights[2] = chunkView.getSunlight((vertexPos.x - 0.1f), (vertexPos.y + 0.8f), (vertexPos.z - 0.1f));
-        lights[3] = chunkView.getSunlight((vertexPos.x - 0.1f), (vertexPos.y + 0.8f), (vertexPos.z + 0.1f));
-
-        lights[4] = chunkView.getSunlight((vertexPos.x + 0.1f), (vertexPos.y - 0.1f), (vertexPos.z + 0.1f));
-        lights[5] = chunkView.getSunlight((vertexPos.x + 0.1f), (vertexPos.y - 0.1f), (vertexPos.z - 0.1f));
-        lights[6] = chunkView.getSunlight((vertexPos.x - 0.1f), (vertexPos.y - 0.1f), (vertexPos.z - 0.1f));
-        lights[7] = chunkView.getSunlight((vertexPos.x - 0.1f), (vertexPos.y - 0.1f), (vertexPos.z + 0.1f));
-
-        blockLights[0] = chunkView.getLight((vertexPos.x + 0.1f), (vertexPos.y + 0.8f), (vertexPos.z + 0.1f));
-        blockLights[1] = chunkView.getLight((vertexPos.x + 0.1f), (vertexPos.y + 0.8f), (vertexPos.z - 0.1f));
-        blockLights[2] = chunkView.getLight((vertexPos.x - 0.1f), (vertexPos.y + 0.8f), (vertexPos.z - 0.1f));
-        blockLights[3] = chunkView.getLight((vertexPos.x - 0.1f), (vertexPos.y + 0.8f), (vertexPos.z + 0.1f));
-
-        blockLights[4] = chunkView.getLight((vertexPos.x + 0.1f), (vertexPos.y - 0.1f), (vertexPos.z + 0.1f));
-        blockLights[5] = chunkView.getLight((vertexPos.x + 0.1f), (vertexPos.y - 0.1f), (vertexPos.z - 0.1f));
-        blockLights[6] = chunkView.getLight((vertexPos.x - 0.1f), (vertexPos.y - 0.1f), (vertexPos.z - 0.1f));
-        blockLights[7] = chunkView.getLight((vertexPos.x - 0.1f), (vertexPos.y - 0.1f), (vertexPos.z + 0.1f));
-        PerformanceMonitor.endActivity();
+    static void calcLightingValuesForVertexPos(ChunkView chunkView, Vector3f vertexPos, float[] output, Vector3f normal) {
+        calcLightingValuesForVertexPos(chunkView, chunkView.getBlockTable(), vertexPos.x, vertexPos.y, vertexPos.z,
+                normal.x, normal.y, normal.z, output);
+    }
 
-        float resultLight = 0;
-        float resultBlockLight = 0;
+    /**
+     * Calculates the sunlight, block light and ambient occlusion of a vertex into output[0], output[1] and output[2].
+     * This runs for every vertex of every chunk mesh, so it samples the four corners around the vertex by block id,
+     * without allocating.
+     */
+    static void calcLightingValuesForVertexPos(ChunkView chunkView, BlockTable blockTable, float x, float y, float z,
+                                               float nx, float ny, float nz, float[] output) {
+        Direction dir = Direction.inDirection(nx, ny, nz);
+
+        int resultLight = 0;
+        int resultBlockLight = 0;
         int counterLight = 0;
         int counterBlockLight = 0;
 
         int occCounter = 0;
         int occCounterBillboard = 0;
-        for (int i = 0; i < 8; i++) {
-            if (lights[i] > 0) {
-                resultLight += lights[i];
+        for (int i = 0; i < 4; i++) {
+            float cornerU = CORNER_OFFSETS_U[i];
+            float cornerV = CORNER_OFFSETS_V[i];
+
+            short block;
+            switch (dir) {
+                case LEFT:
+                case RIGHT:
+                    block = blockIdAt(chunkView, x + 0.8f * nx, y + cornerU, z + cornerV);
+                    break;
+                case FORWARD:
+                case BACKWARD:
+                    block = blockIdAt(chunkView, x + cornerU, y + cornerV, z + 0.8f * nz);
+                    break;
+                default:
+                    block = blockIdAt(chunkView, x + cornerU, y + 0.8f * ny, z + cornerV);
+            }
+            if (blockTable.isShadowCasting(block) && !blockTable.isTranslucent(block)) {
+                occCounter++;
+            } else if (blockTable.isShadowCasting(block)) {
+                occCounterBillboard++;
+            }
+
+            int lightAbove = chunkView.getSunlight(x + cornerU, y + 0.8f, z + cornerV);
+            int lightBelow = chunkView.getSunlight(x + cornerU, y - 0.1f, z + cornerV);
+            int blockLightAbove = chunkView.getLight(x + cornerU, y + 0.8f, z + cornerV);
+            int blockLightBelow = chunkView.getLight(x + cornerU, y - 0.1f, z + cornerV);
+            if (lightAbove > 0) {
+                resultLight += lightAbove;
                 counterLight++;
             }
-            if (blockLights[i] > 0) {
-                resultBlockLight += blockLights[i];
+            if (lightBelow > 0) {
+                resultLight += lightBelow;
+                counterLight++;
+            }
+            if (blockLightAbove > 0) {
+                resultBlockLight += blockLightAbove;
                 counterBlockLight++;
             }
-
-            if (i < 4) {
-                Block b = blocks[i];
-
-                if (b.isShadowCasting() && !b.isTranslucent()) {
-                    occCounter++;
-                } else if (b.isShadowCasting()) {
-                    occCounterBillboard++;
-                }
+            if (blockLightBelow > 0) {
+                resultBlockLight += blockLightBelow;
+                counterBlockLight++;
             }
         }
 
@@ -229,17 +330,23 @@ private void calcLightingValuesForVertexPos(ChunkView chunkView, Vector3f vertex
         if (counterLight == 0) {
             output[0] = 0;
         } else {
-            output[0] = resultLight / counterLight / 15f;
+            output[0] = (float) resultLight / counterLight / 15f;
         }
 
         if (counterBlockLight == 0) {
             output[1] = 0;
         } else {
-            output[1] = resultBlockLight / counterBlockLight / 15f;
+            output[1] = (float) resultBlockLight / counterBlockLight / 15f;
         }
 
         output[2] = (float) resultAmbientOcclusion;
-        PerformanceMonitor.endActivity();
+    }
+
+    /**
+     * @return The id of the block containing the given position, as {@link ChunkView#getBlock(float, float, float)}
+     */
+    private static short blockIdAt(ChunkView chunkView, float x, float y, float z) {
+        return chunkView.getBlockId(TeraMath.floorToInt(x + 0.5f), TeraMath.floorToInt(y + 0.5f), TeraMath.floorToInt(z + 0.5f));
     }
 
     public static int getVertexArrayUpdateCount() {
@@ -0,0 +1,537 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.terasology.math.Side;
+import org.terasology.math.geom.Vector2f;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.math.geom.Vector4f;
+import org.terasology.world.ChunkView;
+import org.terasology.world.biomes.Biome;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockAppearance;
+import org.terasology.world.block.BlockPart;
+import org.terasology.world.block.BlockTable;
+import org.terasology.world.block.shapes.BlockMeshPart;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Tessellates simple cube blocks by merging coplanar faces into larger quads, so a flat area of a single block type
+ * is drawn with a handful of quads rather than two triangles per block.
+ * <br><br>
+ * Only blocks rendered by {@link BlockMeshGeneratorSingleShape} that are not liquid, waving or double sided are
+ * handled here, see {@link #isCandidate(Block)}. Their visible faces are merged when they use the same mesh part (and
+ * so the same texture), render type, vertex flag and color, are unit squares aligned to the block and have uniform
+ * lighting across all four corners. Uniformly lit faces give the same lighting at every corner of a merged quad, so
+ * the light interpolated across it is unchanged. All other faces of these blocks are appended exactly as the block's
+ * mesh generator would.
+ * <br><br>
+ * A merged quad repeats its texture once per block. Its texture coordinates run past the edge of the atlas tile and
+ * the index of the tile is encoded into the vertex flag, above {@link #TILE_FLAG_STRIDE}; the chunk shader wraps the
+ * coordinates back into the tile.
+ *
+ */
+final class GreedyFaceMesher {
+
+    /**
+     * Vertex flags are kept below this value. Merged quads add (tile index + 1) times this to their flag.
+     */
+    static final int TILE_FLAG_STRIDE = 8;
+
+    private static final float EPSILON = 0.001f;
+    private static final QuadLayout NOT_A_QUAD = new QuadLayout();
+    private static final float[] UNLIT = new float[3];
+
+    private final ConcurrentMap<BlockMeshPart, QuadLayout> layouts = Maps.newConcurrentMap();
+
+    /**
+     * @param block The block to check
+     * @return Whether all the block's faces are tessellated by this mesher rather than by its mesh generator
+     */
+    static boolean isCandidate(Block block) {
+        return block != null && block.getMeshGenerator() instanceof BlockMeshGeneratorSingleShape
+                && !block.isLiquid() && !block.isWater() && !block.isLava() && !block.isWaving() && !block.isDoubleSided();
+    }
+
+    /**
+     * Appends the faces of all candidate blocks in the given vertical range of the chunk to the mesh.
+     */
+    void generate(ChunkView chunkView, ChunkMesh mesh, int meshHeight, int verticalOffset) {
+        Slices slices = new Slices(meshHeight, verticalOffset);
+        Map<Side, Block> adjacentBlocks = Maps.newEnumMap(Side.class);
+        float[] light = new float[3];
+        BlockTable blockTable = chunkView.getBlockTable();
+
+        for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
+            for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
+                for (int y = verticalOffset; y < verticalOffset + meshHeight; y++) {
+                    Block block = blockTable.getBlock(chunkView.getBlockId(x, y, z));
+                    if (!isCandidate(block)) {
+                        continue;
+                    }
+                    for (Side side : Side.values()) {
+                        Vector3i offset = side.getVector3i();
+                        adjacentBlocks.put(side, blockAt(chunkView, blockTable, x + offset.x, y + offset.y, z + offset.z));
+                    }
+                    BlockAppearance appearance = block.getAppearance(adjacentBlocks);
+                    Biome biome = chunkView.getBiome(x, y, z);
+                    ChunkMesh.RenderType renderType = BlockMeshGeneratorSingleShape.getRenderType(block);
+
+                    BlockMeshPart center = appearance.getPart(BlockPart.CENTER);
+                    if (center != null) {
+                        center.appendTo(mesh, x, y, z, block.calcColorOffsetFor(BlockPart.CENTER, biome), renderType, ChunkVertexFlag.NORMAL);
+                    }
+
+                    for (Side side : Side.values()) {
+                        BlockPart blockPart = BlockPart.fromSide(side);
+                        BlockMeshPart part = appearance.getPart(blockPart);
+                        if (part == null || !BlockMeshGeneratorSingleShape.isSideVisibleForBlockTypes(adjacentBlocks.get(side), block, side)) {
+                            continue;
+                        }
+                        ChunkVertexFlag flag = (block.isGrass() && side.isHorizontal()) ? ChunkVertexFlag.COLOR_MASK : ChunkVertexFlag.NORMAL;
+                        Vector4f colorOffset = block.calcColorOffsetFor(blockPart, biome);
+                        QuadLayout layout = getLayout(part, side);
+                        if (layout != NOT_A_QUAD && calcUniformLight(chunkView, part, x, y, z, light)) {
+                            slices.setFace(side, x, y, z, new Face(part, layout, renderType, flag, colorOffset, light));
+                        } else {
+                            part.appendTo(mesh, x, y, z, colorOffset, renderType, flag);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (Side side : Side.values()) {
+            mergeFaces(side, slices, mesh);
+        }
+    }
+
+    private void mergeFaces(Side side, Slices slices, ChunkMesh mesh) {
+        int normalAxis = normalAxis(side);
+        int uAxis = (normalAxis == 0) ? 1 : 0;
+        int vAxis = (normalAxis == 2) ? 1 : 2;
+        int depth = slices.extent(normalAxis);
+        int width = slices.extent(uAxis);
+        int height = slices.extent(vAxis);
+        int[] pos = new int[3];
+        int[] mask = new int[width * height];
+
+        for (int d = 0; d < depth; d++) {
+            pos[normalAxis] = d;
+            boolean any = false;
+            for (int b = 0; b < height; b++) {
+                pos[vAxis] = b;
+                for (int a = 0; a < width; a++) {
+                    pos[uAxis] = a;
+                    int faceId = slices.getFaceId(side, pos[0], pos[1], pos[2]);
+                    mask[b * width + a] = faceId;
+                    any |= faceId != 0;
+                }
+            }
+            if (!any) {
+                continue;
+            }
+
+            for (int b = 0; b < height; b++) {
+                for (int a = 0; a < width; ) {
+                    int faceId = mask[b * width + a];
+                    if (faceId == 0) {
+                        a++;
+                        continue;
+                    }
+                    int w = 1;
+                    while (a + w < width && mask[b * width + a + w] == faceId) {
+                        w++;
+                    }
+                    int h = 1;
+                    while (b + h < height && rowMatches(mask, (b + h) * width + a, w, faceId)) {
+                        h++;
+                    }
+                    for (int row = b; row < b + h; row++) {
+                        Arrays.fill(mask, row * width + a, row * width + a + w, 0);
+                    }
+
+                    pos[uAxis] = a;
+                    pos[vAxis] = b;
+                    Face face = slices.getFace(faceId);
+                    int x = pos[0];
+                    int y = pos[1] + slices.verticalOffset;
+                    int z = pos[2];
+                    if (w == 1 && h == 1) {
+                        face.part.appendTo(mesh, x, y, z, face.colorOffset, face.renderType, face.flag);
+                    } else {
+                        appendMergedQuad(mesh, face, x, y, z, uAxis, vAxis, w, h);
+                    }
+                    a += w;
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends the face on the given side of a cube of size blocks along each axis, whose minimum block is at (x, y, z).
+     * The part's texture is repeated once per block, as for merged faces.
+     *
+     * @return False if the part is not a textured unit square, in which case nothing is appended
+     */
+    boolean appendScaledFace(ChunkMesh mesh, BlockMeshPart part, Side side, ChunkMesh.RenderType renderType,
+                             ChunkVertexFlag flag, Vector4f colorOffset, int x, int y, int z, int size) {
+        QuadLayout layout = getLayout(part, side);
+        if (layout == NOT_A_QUAD) {
+            return false;
+        }
+        int normalAxis = normalAxis(side);
+        int uAxis = (normalAxis == 0) ? 1 : 0;
+        int vAxis = (normalAxis == 2) ? 1 : 2;
+        int[] pos = {x, y, z};
+        Vector3i dir = side.getVector3i();
+        if (dir.x + dir.y + dir.z > 0) {
+            pos[normalAxis] += size - 1;
+        }
+        if (size == 1) {
+            part.appendTo(mesh, pos[0], pos[1], pos[2], colorOffset, renderType, flag);
+        } else {
+            Face face = new Face(part, layout, renderType, flag, colorOffset, UNLIT);
+            appendMergedQuad(mesh, face, pos[0], pos[1], pos[2], uAxis, vAxis, size, size);
+        }
+        return true;
+    }
+
+    /**
+     * @return The block at the given position, looked up by id where the table knows it
+     */
+    private static Block blockAt(ChunkView chunkView, BlockTable blockTable, int x, int y, int z) {
+        Block block = blockTable.getBlock(chunkView.getBlockId(x, y, z));
+        return (block != null) ? block : chunkView.getBlock(x, y, z);
+    }
+
+    private static boolean rowMatches(int[] mask, int start, int length, int faceId) {
+        for (int i = start; i < start + length; i++) {
+            if (mask[i] != faceId) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void appendMergedQuad(ChunkMesh mesh, Face face, int x, int y, int z, int uAxis, int vAxis, int w, int h) {
+        ChunkMesh.VertexElements elements = mesh.getVertexElements(face.renderType);
+        QuadLayout layout = face.layout;
+        BlockMeshPart part = face.part;
+        int flag = face.flag.getValue() + TILE_FLAG_STRIDE * (layout.tileIndex + 1);
+        float[] position = new float[3];
+
+        int nextIndex = elements.vertexCount;
+        for (int i = 0; i < 4; i++) {
+            int extendU = layout.highU[i] ? w - 1 : 0;
+            int extendV = layout.highV[i] ? h - 1 : 0;
+
+            Vector3f vertex = part.getVertex(i);
+            position[0] = vertex.x + x;
+            position[1] = vertex.y + y;
+            position[2] = vertex.z + z;
+            position[uAxis] += extendU;
+            position[vAxis] += extendV;
+
+            float tileU = layout.tileU[i] + extendU * layout.stepUAlongU + extendV * layout.stepUAlongV;
+            float tileV = layout.tileV[i] + extendU * layout.stepVAlongU + extendV * layout.stepVAlongV;
+            elements.tex.add(layout.originU + tileU * layout.tileSize);
+            elements.tex.add(layout.originV + tileV * layout.tileSize);
+
+            elements.color.add(face.colorOffset.x);
+            elements.color.add(face.colorOffset.y);
+            elements.color.add(face.colorOffset.z);
+            elements.color.add(face.colorOffset.w);
+            elements.vertices.add(position[0]);
+            elements.vertices.add(position[1]);
+            elements.vertices.add(position[2]);
+            Vector3f normal = part.getNormal(i);
+            elements.normals.add(normal.x);
+            elements.normals.add(normal.y);
+            elements.normals.add(normal.z);
+            elements.flags.add(flag);
+        }
+        elements.vertexCount += 4;
+
+        for (int i = 0; i < part.indicesSize(); i++) {
+            elements.indices.add(part.getIndex(i) + nextIndex);
+        }
+    }
+
+    /**
+     * Calculates the lighting at each corner of a face, as the tessellator will for its vertices.
+     *
+     * @return Whether the lighting is identical at all corners, in which case it is written to light
+     */
+    private static boolean calcUniformLight(ChunkView chunkView, BlockMeshPart part, int x, int y, int z, float[] light) {
+        Vector3f vertexPos = new Vector3f();
+        float[] cornerLight = new float[3];
+        for (int i = 0; i < part.size(); i++) {
+            vertexPos.set(part.getVertex(i));
+            vertexPos.add(x, y, z);
+            ChunkTessellator.calcLightingValuesForVertexPos(chunkView, vertexPos, (i == 0) ? light : cornerLight, part.getNormal(i));
+            if (i > 0 && !Arrays.equals(light, cornerLight)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private QuadLayout getLayout(BlockMeshPart part, Side side) {
+        QuadLayout layout = layouts.get(part);
+        if (layout == null) {
+            layout = QuadLayout.analyse(part, side);
+            layouts.putIfAbsent(part, layout);
+        }
+        return layout;
+    }
+
+    private static int normalAxis(Side side) {
+        Vector3i dir = side.getVector3i();
+        if (dir.x != 0) {
+            return 0;
+        }
+        return (dir.y != 0) ? 1 : 2;
+    }
+
+    private static float component(Vector3f vector, int axis) {
+        switch (axis) {
+            case 0:
+                return vector.x;
+            case 1:
+                return vector.y;
+            default:
+                return vector.z;
+        }
+    }
+
+    /**
+     * The faces found in a chunk, indexed by side and block position. Faces are interned so that mergeable faces share
+     * an id.
+     */
+    private static final class Slices {
+        private final int meshHeight;
+        private final int verticalOffset;
+        private final int[][] faceIds;
+        private final List<Face> faces = Lists.newArrayList();
+        private final Map<Face, Integer> faceLookup = Maps.newHashMap();
+
+        Slices(int meshHeight, int verticalOffset) {
+            this.meshHeight = meshHeight;
+            this.verticalOffset = verticalOffset;
+            this.faceIds = new int[Side.values().length][];
+        }
+
+        int extent(int axis) {
+            switch (axis) {
+                case 0:
+                    return ChunkConstants.SIZE_X;
+                case 1:
+                    return meshHeight;
+                default:
+                    return ChunkConstants.SIZE_Z;
+            }
+        }
+
+        void setFace(Side side, int x, int y, int z, Face face) {
+            Integer id = faceLookup.get(face);
+            if (id == null) {
+                faces.add(face);
+                id = faces.size();
+                faceLookup.put(face, id);
+            }
+            int[] ids = faceIds[side.ordinal()];
+            if (ids == null) {
+                ids = new int[ChunkConstants.SIZE_X * meshHeight * ChunkConstants.SIZE_Z];
+                faceIds[side.ordinal()] = ids;
+            }
+            ids[index(x, y - verticalOffset, z)] = id;
+        }
+
+        /**
+         * @return The id of the face at the given position relative to the bottom of the mesh, or 0 if there is none
+         */
+        int getFaceId(Side side, int x, int y, int z) {
+            int[] ids = faceIds[side.ordinal()];
+            return (ids == null) ? 0 : ids[index(x, y, z)];
+        }
+
+        Face getFace(int id) {
+            return faces.get(id - 1);
+        }
+
+        private int index(int x, int y, int z) {
+            return (x * meshHeight + y) * ChunkConstants.SIZE_Z + z;
+        }
+    }
+
+    /**
+     * Everything that must match for two faces to be merged.
+     */
+    private static final class Face {
+        private final BlockMeshPart part;
+        private final QuadLayout layout;
+        private final ChunkMesh.RenderType renderType;
+        private final ChunkVertexFlag flag;
+        private final Vector4f colorOffset;
+        private final float sunlight;
+        private final float blockLight;
+        private final float occlusion;
+
+        Face(BlockMeshPart part, QuadLayout layout, ChunkMesh.RenderType renderType, ChunkVertexFlag flag, Vector4f colorOffset, float[] light) {
+            this.part = part;
+            this.layout = layout;
+            this.renderType = renderType;
+            this.flag = flag;
+            this.colorOffset = colorOffset;
+            this.sunlight = light[0];
+            this.blockLight = light[1];
+            this.occlusion = light[2];
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj instanceof Face) {
+                Face other = (Face) obj;
+                return part == other.part && renderType == other.renderType && flag == other.flag
+                        && sunlight == other.sunlight && blockLight == other.blockLight && occlusion == other.occlusion
+                        && colorOffset.equals(other.colorOffset);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(part);
+            result = 31 * result + renderType.hashCode();
+            result = 31 * result + flag.hashCode();
+            result = 31 * result + Float.floatToIntBits(sunlight);
+            result = 31 * result + Float.floatToIntBits(blockLight);
+            result = 31 * result + Float.floatToIntBits(occlusion);
+            return 31 * result + colorOffset.hashCode();
+        }
+    }
+
+    /**
+     * How the vertices and texture coordinates of a unit square face relate to the block grid, used to stretch the
+     * face over several blocks. Texture coordinates are measured in atlas tiles from the origin of the face's tile.
+     */
+    private static final class QuadLayout {
+        private final boolean[] highU = new boolean[4];
+        private final boolean[] highV = new boolean[4];
+        private final float[] tileU = new float[4];
+        private final float[] tileV = new float[4];
+        private float stepUAlongU;
+        private float stepVAlongU;
+        private float stepUAlongV;
+        private float stepVAlongV;
+        private float tileSize;
+        private float originU;
+        private float originV;
+        private int tileIndex;
+
+        /**
+         * @return The layout of the part, or {@link #NOT_A_QUAD} if it is not a textured unit square covering the side
+         */
+        static QuadLayout analyse(BlockMeshPart part, Side side) {
+            if (part.size() != 4 || part.indicesSize() != 6) {
+                return NOT_A_QUAD;
+            }
+            int normalAxis = normalAxis(side);
+            int uAxis = (normalAxis == 0) ? 1 : 0;
+            int vAxis = (normalAxis == 2) ? 1 : 2;
+            Vector3i dir = side.getVector3i();
+            Vector3f sideNormal = new Vector3f(dir.x, dir.y, dir.z);
+
+            QuadLayout layout = new QuadLayout();
+            int[] cornerVertex = {-1, -1, -1, -1};
+            float minU = Float.MAX_VALUE;
+            float minV = Float.MAX_VALUE;
+            float maxU = -Float.MAX_VALUE;
+            float maxV = -Float.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                Vector3f vertex = part.getVertex(i);
+                if (Math.abs(component(vertex, normalAxis) - 0.5f * component(sideNormal, normalAxis)) > EPSILON
+                        || Math.abs(Math.abs(component(vertex, uAxis)) - 0.5f) > EPSILON
+                        || Math.abs(Math.abs(component(vertex, vAxis)) - 0.5f) > EPSILON
+                        || part.getNormal(i).distanceSquared(sideNormal) > EPSILON) {
+                    return NOT_A_QUAD;
+                }
+                layout.highU[i] = component(vertex, uAxis) > 0;
+                layout.highV[i] = component(vertex, vAxis) > 0;
+                int corner = (layout.highU[i] ? 1 : 0) + (layout.highV[i] ? 2 : 0);
+                if (cornerVertex[corner] != -1) {
+                    return NOT_A_QUAD;
+                }
+                cornerVertex[corner] = i;
+
+                Vector2f texCoord = part.getTexCoord(i);
+                minU = Math.min(minU, texCoord.x);
+                minV = Math.min(minV, texCoord.y);
+                maxU = Math.max(maxU, texCoord.x);
+                maxV = Math.max(maxV, texCoord.y);
+            }
+
+            float tileSize = (maxU - minU) / (1 - 2 * BlockMeshPart.BORDER);
+            if (tileSize <= 0 || Math.abs((maxV - minV) / (1 - 2 * BlockMeshPart.BORDER) - tileSize) > EPSILON * tileSize) {
+                return NOT_A_QUAD;
+            }
+            int tilesPerRow = Math.round(1 / tileSize);
+            int tileX = Math.round((minU - BlockMeshPart.BORDER * tileSize) / tileSize);
+            int tileY = Math.round((minV - BlockMeshPart.BORDER * tileSize) / tileSize);
+            layout.tileSize = tileSize;
+            layout.originU = tileX * tileSize;
+            layout.originV = tileY * tileSize;
+            layout.tileIndex = tileY * tilesPerRow + tileX;
+
+            for (int i = 0; i < 4; i++) {
+                Vector2f texCoord = part.getTexCoord(i);
+                float u = ((texCoord.x - layout.originU) / tileSize - BlockMeshPart.BORDER) / (1 - 2 * BlockMeshPart.BORDER);
+                float v = ((texCoord.y - layout.originV) / tileSize - BlockMeshPart.BORDER) / (1 - 2 * BlockMeshPart.BORDER);
+                layout.tileU[i] = Math.round(u);
+                layout.tileV[i] = Math.round(v);
+                if (Math.abs(u - layout.tileU[i]) > EPSILON || Math.abs(v - layout.tileV[i]) > EPSILON) {
+                    return NOT_A_QUAD;
+                }
+            }
+            int low = cornerVertex[0];
+            int alongU = cornerVertex[1];
+            int alongV = cornerVertex[2];
+            int high = cornerVertex[3];
+            layout.stepUAlongU = layout.tileU[alongU] - layout.tileU[low];
+            layout.stepVAlongU = layout.tileV[alongU] - layout.tileV[low];
+            layout.stepUAlongV = layout.tileU[alongV] - layout.tileU[low];
+            layout.stepVAlongV = layout.tileV[alongV] - layout.tileV[low];
+            // The texture must be an affine map of the face, otherwise it cannot be repeated across merged blocks
+            if (layout.tileU[high] != layout.tileU[low] + layout.stepUAlongU + layout.stepUAlongV
+                    || layout.tileV[high] != layout.tileV[low] + layout.stepVAlongU + layout.stepVAlongV) {
+                return NOT_A_QUAD;
+            }
+            return layout;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import org.lwjgl.BufferUtils;
+
+import java.nio.IntBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of direct int buffers with power of two capacities, which holds the vertex and index data of chunk meshes
+ * between tessellation and upload. Tessellation runs on worker threads while buffers are released on the main thread,
+ * so the pool is thread safe.
+ *
+ */
+final class IntBufferPool {
+
+    private static final int MIN_CAPACITY_BITS = 10;
+    private static final int MAX_CAPACITY_BITS = 22;
+
+    private final int maxRetainedPerCapacity;
+    private final Queue<IntBuffer>[] buffers;
+    private final AtomicInteger[] retained;
+
+    /**
+     * @param maxRetainedPerCapacity The number of released buffers of each capacity to keep for reuse
+     */
+    @SuppressWarnings("unchecked")
+    IntBufferPool(int maxRetainedPerCapacity) {
+        this.maxRetainedPerCapacity = maxRetainedPerCapacity;
+        int count = MAX_CAPACITY_BITS - MIN_CAPACITY_BITS + 1;
+        buffers = new Queue[count];
+        retained = new AtomicInteger[count];
+        for (int i = 0; i < count; i++) {
+            buffers[i] = new ConcurrentLinkedQueue<>();
+            retained[i] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * @param capacity The number of ints needed
+     * @return A cleared buffer with room for at least capacity ints. Requests too large to pool get a new buffer.
+     */
+    IntBuffer acquire(int capacity) {
+        int bucket = bucketFor(capacity);
+        if (bucket < 0) {
+            return BufferUtils.createIntBuffer(capacity);
+        }
+        IntBuffer buffer = buffers[bucket].poll();
+        if (buffer == null) {
+            return BufferUtils.createIntBuffer(1 << (bucket + MIN_CAPACITY_BITS));
+        }
+        retained[bucket].decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool. The buffer must not be used by the caller afterwards.
+     *
+     * @param buffer A buffer obtained from {@link #acquire(int)}
+     */
+    void release(IntBuffer buffer) {
+        int capacity = buffer.capacity();
+        if (Integer.bitCount(capacity) != 1) {
+            return;
+        }
+        int bucket = Integer.numberOfTrailingZeros(capacity) - MIN_CAPACITY_BITS;
+        if (bucket < 0 || bucket >= buffers.length) {
+            return;
+        }
+        if (retained[bucket].incrementAndGet() > maxRetainedPerCapacity) {
+            retained[bucket].decrementAndGet();
+            return;
+        }
+        buffers[bucket].offer(buffer);
+    }
+
+    private static int bucketFor(int capacity) {
+        int bits = (capacity <= 1) ? 0 : 32 - Integer.numberOfLeadingZeros(capacity - 1);
+        if (bits > MAX_CAPACITY_BITS) {
+            return -1;
+        }
+        return Math.max(bits, MIN_CAPACITY_BITS) - MIN_CAPACITY_BITS;
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import com.google.common.base.Preconditions;
+import org.terasology.math.Side;
+import org.terasology.math.geom.Vector2f;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.math.geom.Vector4f;
+import org.terasology.world.ChunkView;
+import org.terasology.world.biomes.Biome;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockPart;
+import org.terasology.world.block.BlockTable;
+import org.terasology.world.block.shapes.BlockMeshPart;
+import org.terasology.world.chunks.ChunkConstants;
+
+/**
+ * Tessellates a chunk at a reduced level of detail, for chunks far from the camera. The chunk is split into cells of
+ * scale blocks along each axis, and each cell is drawn as a single cube of the block at its surface, or not at all if
+ * less than half of it is solid. Within the chunk, only the cell faces that are not hidden by the adjacent cell are
+ * drawn, so the mesh has roughly 1 / scale² the faces of the full detail mesh.
+ * <br><br>
+ * The adjacent chunks may be drawn at another level of detail, so their cells don't match those of this chunk. Faces on
+ * the border of the chunk are therefore never culled, and a border cell that is not drawn still gets a face on the border
+ * if at least half of its layer of blocks touching the border is solid. This skirt closes the gap left where the
+ * adjacent chunk culled its faces against the real blocks of this chunk. Border faces are only culled where the blocks
+ * on both sides of the border all occlude.
+ * <br><br>
+ * Billboard blocks like tall grass and flowers are ignored, since they cannot be represented by a cube.
+ *
+ */
+final class LodChunkMesher {
+
+    private static final Side[] SIDES = Side.values();
+
+    private final GreedyFaceMesher faceMesher = new GreedyFaceMesher();
+
+    /**
+     * @param scale The size of a cell in blocks: 2, 4 or 8
+     * @return Whether the scale divides the chunk into whole cells
+     */
+    static boolean isValidScale(int scale) {
+        return scale > 1 && ChunkConstants.SIZE_X % scale == 0 && ChunkConstants.SIZE_Y % scale == 0
+                && ChunkConstants.SIZE_Z % scale == 0;
+    }
+
+    void generate(ChunkView chunkView, ChunkMesh mesh, int scale) {
+        Preconditions.checkArgument(isValidScale(scale), "Invalid level of detail scale %s", scale);
+        Cells cells = new Cells(ChunkConstants.SIZE_X / scale, ChunkConstants.SIZE_Y / scale, ChunkConstants.SIZE_Z / scale);
+        BlockTable blockTable = chunkView.getBlockTable();
+
+        // The cells of the chunk, and those above it to tell water surfaces
+        for (int cx = 0; cx < cells.sizeX; cx++) {
+            for (int cy = 0; cy <= cells.sizeY; cy++) {
+                for (int cz = 0; cz < cells.sizeZ; cz++) {
+                    cells.set(cx, cy, cz, sampleCell(chunkView, blockTable, cx * scale, cy * scale, cz * scale, scale));
+                }
+            }
+        }
+
+        for (int cx = 0; cx < cells.sizeX; cx++) {
+            for (int cy = 0; cy < cells.sizeY; cy++) {
+                for (int cz = 0; cz < cells.sizeZ; cz++) {
+                    Block block = cells.get(cx, cy, cz);
+                    Block above = cells.get(cx, cy + 1, cz);
+                    for (Side side : SIDES) {
+                        Vector3i dir = side.getVector3i();
+                        boolean border = !cells.isInsideX(cx + dir.x) || !cells.isInsideY(cy + dir.y) || !cells.isInsideZ(cz + dir.z);
+                        Block faceBlock = block;
+                        if (border) {
+                            if (isSealed(chunkView, blockTable, cx * scale, cy * scale, cz * scale, scale, side)) {
+                                faceBlock = null;
+                            } else if (block == null) {
+                                faceBlock = sampleBorder(chunkView, blockTable, cx * scale, cy * scale, cz * scale, scale, side);
+                            }
+                        } else if (block != null) {
+                            Block adjacent = cells.get(cx + dir.x, cy + dir.y, cz + dir.z);
+                            if (adjacent != null && !BlockMeshGeneratorSingleShape.isSideVisibleForBlockTypes(adjacent, block, side)) {
+                                faceBlock = null;
+                            }
+                        }
+                        if (faceBlock != null) {
+                            appendFace(chunkView, mesh, faceBlock, side, above, cx * scale, cy * scale, cz * scale, scale);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The block at the surface of the cell, or null if less than half of the cell is solid
+     */
+    private static Block sampleCell(ChunkView chunkView, BlockTable blockTable, int minX, int minY, int minZ, int scale) {
+        Block surface = null;
+        int solid = 0;
+        for (int y = minY + scale - 1; y >= minY; y--) {
+            for (int x = minX; x < minX + scale; x++) {
+                for (int z = minZ; z < minZ + scale; z++) {
+                    Block block = blockTable.getBlock(chunkView.getBlockId(x, y, z));
+                    if (block != null && block.getMeshGenerator() != null && !block.isDoubleSided()) {
+                        solid++;
+                        if (surface == null) {
+                            surface = block;
+                        }
+                    }
+                }
+            }
+        }
+        return (solid * 2 >= scale * scale * scale) ? surface : null;
+    }
+
+    /**
+     * @return Whether the blocks on both sides of the chunk border along the given side of the cell all occlude, so
+     *         that nothing can be seen through the border whatever the level of detail of the adjacent chunk
+     */
+    private static boolean isSealed(ChunkView chunkView, BlockTable blockTable, int minX, int minY, int minZ, int scale, Side side) {
+        Vector3i dir = side.getVector3i();
+        int fromX = (dir.x > 0) ? minX + scale - 1 : minX;
+        int toX = (dir.x < 0) ? minX + 1 : minX + scale;
+        int fromY = (dir.y > 0) ? minY + scale - 1 : minY;
+        int toY = (dir.y < 0) ? minY + 1 : minY + scale;
+        int fromZ = (dir.z > 0) ? minZ + scale - 1 : minZ;
+        int toZ = (dir.z < 0) ? minZ + 1 : minZ + scale;
+        for (int x = fromX; x < toX; x++) {
+            for (int y = fromY; y < toY; y++) {
+                for (int z = fromZ; z < toZ; z++) {
+                    if (!blockTable.isOccluding(chunkView.getBlockId(x, y, z))
+                            || !blockTable.isOccluding(chunkView.getBlockId(x + dir.x, y + dir.y, z + dir.z))) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The topmost solid block of the layer of the cell on the given side, or null if less than half of the layer
+     *         is solid
+     */
+    private static Block sampleBorder(ChunkView chunkView, BlockTable blockTable, int minX, int minY, int minZ, int scale, Side side) {
+        Vector3i dir = side.getVector3i();
+        int fromX = (dir.x > 0) ? minX + scale - 1 : minX;
+        int toX = (dir.x < 0) ? minX + 1 : minX + scale;
+        int fromY = (dir.y < 0) ? minY : minY + scale - 1;
+        int toY = (dir.y > 0) ? minY + scale - 1 : minY;
+        int fromZ = (dir.z > 0) ? minZ + scale - 1 : minZ;
+        int toZ = (dir.z < 0) ? minZ + 1 : minZ + scale;
+        Block surface = null;
+        int solid = 0;
+        for (int y = fromY; y >= toY; y--) {
+            for (int x = fromX; x < toX; x++) {
+                for (int z = fromZ; z < toZ; z++) {
+                    Block block = blockTable.getBlock(chunkView.getBlockId(x, y, z));
+                    if (block != null && block.getMeshGenerator() != null && !block.isDoubleSided()) {
+                        solid++;
+                        if (surface == null) {
+                            surface = block;
+                        }
+                    }
+                }
+            }
+        }
+        return (solid * 2 >= scale * scale) ? surface : null;
+    }
+
+    private void appendFace(ChunkView chunkView, ChunkMesh mesh, Block block, Side side, Block above, int x, int y, int z, int scale) {
+        BlockPart blockPart = BlockPart.fromSide(side);
+        BlockMeshPart part = block.getPrimaryAppearance().getPart(blockPart);
+        if (part == null) {
+            return;
+        }
+        Biome biome = chunkView.getBiome(x, y, z);
+        Vector4f colorOffset = block.calcColorOffsetFor(blockPart, biome);
+        ChunkMesh.RenderType renderType = BlockMeshGeneratorSingleShape.getRenderType(block);
+        ChunkVertexFlag flag = vertexFlag(block, side, above);
+        if (!faceMesher.appendScaledFace(mesh, part, side, renderType, flag, colorOffset, x, y, z, scale)) {
+            appendStretchedPart(mesh, part, x, y, z, scale, colorOffset, renderType, flag);
+        }
+    }
+
+    private static ChunkVertexFlag vertexFlag(Block block, Side side, Block above) {
+        if (block.isWater()) {
+            return (above != null && above.isWater()) ? ChunkVertexFlag.WATER : ChunkVertexFlag.WATER_SURFACE;
+        } else if (block.isLava()) {
+            return ChunkVertexFlag.LAVA;
+        } else if (block.isGrass() && side.isHorizontal()) {
+            return ChunkVertexFlag.COLOR_MASK;
+        }
+        return ChunkVertexFlag.NORMAL;
+    }
+
+    /**
+     * Appends a part that is not a unit square scaled up to the size of the cell, with its texture stretched over it.
+     */
+    private static void appendStretchedPart(ChunkMesh mesh, BlockMeshPart part, int x, int y, int z, int scale,
+                                            Vector4f colorOffset, ChunkMesh.RenderType renderType, ChunkVertexFlag flag) {
+        ChunkMesh.VertexElements elements = mesh.getVertexElements(renderType);
+        float centerOffset = (scale - 1) / 2f;
+        int nextIndex = elements.vertexCount;
+        for (int i = 0; i < part.size(); i++) {
+            Vector3f vertex = part.getVertex(i);
+            Vector3f normal = part.getNormal(i);
+            Vector2f texCoord = part.getTexCoord(i);
+            elements.tex.add(texCoord.x);
+            elements.tex.add(texCoord.y);
+            elements.color.add(colorOffset.x);
+            elements.color.add(colorOffset.y);
+            elements.color.add(colorOffset.z);
+            elements.color.add(colorOffset.w);
+            elements.vertices.add(x + centerOffset + vertex.x * scale);
+            elements.vertices.add(y + centerOffset + vertex.y * scale);
+            elements.vertices.add(z + centerOffset + vertex.z * scale);
+            elements.normals.add(normal.x);
+            elements.normals.add(normal.y);
+            elements.normals.add(normal.z);
+            elements.flags.add(flag.getValue());
+        }
+        elements.vertexCount += part.size();
+
+        for (int i = 0; i < part.indicesSize(); i++) {
+            elements.indices.add(part.getIndex(i) + nextIndex);
+        }
+    }
+
+    /**
+     * The surface blocks of the cells of a chunk, with room for a border of one cell.
+     */
+    private static final class Cells {
+        private final int sizeX;
+        private final int sizeY;
+        private final int sizeZ;
+        private final Block[] blocks;
+
+        Cells(int sizeX, int sizeY, int sizeZ) {
+            this.sizeX = sizeX;
+            this.sizeY = sizeY;
+            this.sizeZ = sizeZ;
+            this.blocks = new Block[(sizeX + 2) * (sizeY + 2) * (sizeZ + 2)];
+        }
+
+        boolean isInsideX(int cx) {
+            return cx >= 0 && cx < sizeX;
+        }
+
+        boolean isInsideY(int cy) {
+            return cy >= 0 && cy < sizeY;
+        }
+
+        boolean isInsideZ(int cz) {
+            return cz >= 0 && cz < sizeZ;
+        }
+
+        Block get(int cx, int cy, int cz) {
+            return blocks[index(cx, cy, cz)];
+        }
+
+        void set(int cx, int cy, int cz, Block block) {
+            blocks[index(cx, cy, cz)] = block;
+        }
+
+        private int index(int cx, int cy, int cz) {
+            return ((cx + 1) * (sizeY + 2) + (cy + 1)) * (sizeZ + 2) + (cz + 1);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.world;
+
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Sorts chunks front to back, by the distance of their centres from the camera.
+ * <br><br>
+ * The distances are computed once per sort rather than once per comparison. A list that was sorted for a nearby
+ * camera position, perhaps with a few chunks appended, is nearly sorted: it is repaired with an insertion sort in
+ * close to linear time. Lists that are far from sorted are sorted from scratch.
+ *
+ * @param <T> The type of the chunks
+ */
+public final class ChunkDistanceSorter<T> {
+
+    // Lists with more elements out of place than this are sorted from scratch instead of repaired
+    private static final int MAX_REPAIR_FRACTION = 16;
+    private static final int MIN_REPAIR_LIMIT = 64;
+
+    private final Function<? super T, Vector3i> positionOf;
+    private float[] keys = new float[0];
+    private Object[] items = new Object[0];
+    private long[] order = new long[0];
+
+    /**
+     * @param positionOf The position of a chunk, in chunk coordinates
+     */
+    public ChunkDistanceSorter(Function<? super T, Vector3i> positionOf) {
+        this.positionOf = positionOf;
+    }
+
+    /**
+     * Sorts the given chunks front to back.
+     *
+     * @param chunks         The chunks to sort, in place
+     * @param cameraPosition The position of the camera, in world coordinates
+     * @return The number of chunks that were out of place
+     */
+    @SuppressWarnings("unchecked")
+    public int sort(List<T> chunks, Vector3f cameraPosition) {
+        int size = chunks.size();
+        if (keys.length < size) {
+            keys = new float[size * 2];
+            items = new Object[size * 2];
+            order = new long[size * 2];
+        }
+
+        int outOfPlace = 0;
+        for (int i = 0; i < size; i++) {
+            T chunk = chunks.get(i);
+            items[i] = chunk;
+            keys[i] = squaredDistance(positionOf.apply(chunk), cameraPosition);
+            if (i > 0 && keys[i] < keys[i - 1]) {
+                outOfPlace++;
+            }
+        }
+        if (outOfPlace == 0) {
+            Arrays.fill(items, 0, size, null);
+            return 0;
+        }
+
+        if (outOfPlace > Math.max(MIN_REPAIR_LIMIT, size / MAX_REPAIR_FRACTION)) {
+            sortFromScratch(size);
+        } else {
+            insertionSort(size);
+        }
+        for (int i = 0; i < size; i++) {
+            chunks.set(i, (T) items[i]);
+        }
+        Arrays.fill(items, 0, size, null);
+        return outOfPlace;
+    }
+
+    private void insertionSort(int size) {
+        for (int i = 1; i < size; i++) {
+            float key = keys[i];
+            if (key >= keys[i - 1]) {
+                continue;
+            }
+            Object item = items[i];
+            int j = i - 1;
+            while (j >= 0 && keys[j] > key) {
+                keys[j + 1] = keys[j];
+                items[j + 1] = items[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            items[j + 1] = item;
+        }
+    }
+
+    private void sortFromScratch(int size) {
+        // The bits of non-negative floats order like the floats themselves, so each key and index pack into a long
+        for (int i = 0; i < size; i++) {
+            order[i] = ((long) Float.floatToIntBits(keys[i]) << 32) | i;
+        }
+        Arrays.sort(order, 0, size);
+        Object[] sorted = new Object[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = items[(int) order[i]];
+        }
+        System.arraycopy(sorted, 0, items, 0, size);
+    }
+
+    private static float squaredDistance(Vector3i chunkPosition, Vector3f cameraPosition) {
+        float x = (chunkPosition.x + 0.5f) * ChunkConstants.SIZE_X - cameraPosition.x;
+        float y = (chunkPosition.y + 0.5f) * ChunkConstants.SIZE_Y - cameraPosition.y;
+        float z = (chunkPosition.z + 0.5f) * ChunkConstants.SIZE_Z - cameraPosition.z;
+        return x * x + y * y + z * z;
+    }
+}
@@ -22,8 +22,10 @@
 import org.terasology.math.ChunkMath;
 import org.terasology.math.geom.Vector3f;
 import org.terasology.math.geom.Vector3i;
+import org.terasology.monitoring.PerformanceMonitor;
 import org.terasology.monitoring.chunk.ChunkMonitor;
 import org.terasology.rendering.primitives.ChunkMesh;
+import org.terasology.rendering.primitives.ChunkMeshCache;
 import org.terasology.rendering.primitives.ChunkTessellator;
 import org.terasology.utilities.concurrency.TaskMaster;
 import org.terasology.world.ChunkView;
@@ -33,24 +35,38 @@
 import org.terasology.world.chunks.pipeline.ChunkTask;
 import org.terasology.world.chunks.pipeline.ShutdownChunkTask;
 
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Provides the mechanism for updating and generating chunk meshes.
+ * <br><br>
+ * Updates are run by a pool of worker threads sized from the available cores, nearest to the camera first. An update
+ * that has not started yet is coalesced with later requests for the same chunk, and can be cancelled when the chunk
+ * leaves the view. Completed meshes are handed back for upload within a per frame byte budget.
+ * <br><br>
+ * Chunks next to the camera that are edited after they got a mesh are updated before all others, the closest first, and
+ * may be tessellated as vertical slices in parallel, as the player waits to see the result of the edit.
  *
  */
 public final class ChunkMeshUpdateManager {
-    private static final int NUM_TASK_THREADS = 8;
+    private static final int NUM_TASK_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final int LATENCY_SAMPLES = 256;
+    private static final int EDIT_SLICES = 4;
+    /* Only changed chunks within this grid distance of the camera chunk are treated as edits */
+    private static final int EDIT_DISTANCE = 2;
 
     private static final Logger logger = LoggerFactory.getLogger(ChunkMeshUpdateManager.class);
 
     /* CHUNK UPDATES */
-    private final Set<RenderableChunk> chunksProcessing = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Map<RenderableChunk, ChunkUpdateTask> chunksProcessing = new ConcurrentHashMap<>();
 
     private final BlockingDeque<RenderableChunk> chunksComplete = Queues.newLinkedBlockingDeque();
 
@@ -58,6 +74,8 @@ public final class ChunkMeshUpdateManager {
 
     private final ChunkTessellator tessellator;
     private final WorldProvider worldProvider;
+    private final ChunkMeshCache meshCache;
+    private final int editSlices;
     /**
      * This variable is volatile, so that it's value is visible to worker thread that calculates the best task to
      * process
@@ -66,9 +84,38 @@ public final class ChunkMeshUpdateManager {
     private volatile float cameraChunkPosY;
     private volatile float cameraChunkPosZ;
 
+    /* STATS */
+    private final AtomicInteger queuedUpdates = new AtomicInteger();
+    private final AtomicInteger coalescedUpdates = new AtomicInteger();
+    private final AtomicInteger cancelledUpdates = new AtomicInteger();
+    private final AtomicInteger wastedUpdates = new AtomicInteger();
+    private final AtomicLong wastedMillis = new AtomicLong();
+    private final long[] latencySamples = new long[LATENCY_SAMPLES];
+    private int latencySampleCount;
+    private final long[] editLatencySamples = new long[LATENCY_SAMPLES];
+    private int editLatencySampleCount;
+
     public ChunkMeshUpdateManager(ChunkTessellator tessellator, WorldProvider worldProvider) {
+        this(tessellator, worldProvider, null);
+    }
+
+    /**
+     * @param meshCache The cache to load unchanged meshes from and store new ones in, or null to always tessellate
+     */
+    public ChunkMeshUpdateManager(ChunkTessellator tessellator, WorldProvider worldProvider, ChunkMeshCache meshCache) {
+        this(tessellator, worldProvider, meshCache, true);
+    }
+
+    /**
+     * @param meshCache         The cache to load unchanged meshes from and store new ones in, or null to always tessellate
+     * @param sliceEditedMeshes Whether to tessellate edited chunks as parallel vertical slices
+     */
+    public ChunkMeshUpdateManager(ChunkTessellator tessellator, WorldProvider worldProvider, ChunkMeshCache meshCache,
+                                  boolean sliceEditedMeshes) {
         this.tessellator = tessellator;
         this.worldProvider = worldProvider;
+        this.meshCache = meshCache;
+        this.editSlices = sliceEditedMeshes ? EDIT_SLICES : 1;
 
         chunkUpdater = TaskMaster.createDynamicPriorityTaskMaster("Chunk-Updater", NUM_TASK_THREADS, new ChunkUpdaterComparator());
     }
@@ -82,15 +129,42 @@ public ChunkMeshUpdateManager(ChunkTessellator tessellator, WorldProvider worldP
      */
     // TODO: Review this system
     public boolean queueChunkUpdate(RenderableChunk chunk) {
+        return queueChunkUpdate(chunk, 1);
+    }
 
-        if (!chunksProcessing.contains(chunk)) {
-            executeChunkUpdate(chunk);
+    /**
+     * Updates the given chunk like {@link #queueChunkUpdate(RenderableChunk)}, at the given level of detail. If an
+     * update of the chunk is already queued but has not started yet, it is reused at the new level of detail.
+     *
+     * @param chunk    The chunk to update
+     * @param lodScale The level of detail scale of the new mesh, see {@link ChunkTessellator#generateLodMesh}. 1 for full detail.
+     * @return True if a chunk update was executed
+     */
+    public boolean queueChunkUpdate(RenderableChunk chunk, int lodScale) {
+        ChunkUpdateTask task = chunksProcessing.get(chunk);
+        if (task == null) {
+            executeChunkUpdate(chunk, lodScale);
             return true;
         }
-
+        if (task.coalesce(lodScale)) {
+            coalescedUpdates.incrementAndGet();
+        }
         return false;
     }
 
+    /**
+     * Cancels the queued or running update of the given chunk, if any, because its mesh is no longer needed. A
+     * chunk whose update is cancelled while running is marked dirty again.
+     *
+     * @param chunk The chunk which left the view
+     */
+    public void cancelChunkUpdate(RenderableChunk chunk) {
+        ChunkUpdateTask task = chunksProcessing.get(chunk);
+        if (task != null && task.cancel()) {
+            cancelledUpdates.incrementAndGet();
+        }
+    }
+
     /**
      * The method tells the chunk mesh update manager where the camera is, so that is able to prioritize chunks near the
      * camera. It stores the values in volatile variables so that the change is visible to the chunk updating threads
@@ -104,16 +178,42 @@ public void setCameraPosition(Vector3f cameraPosition) {
     }
 
     public List<RenderableChunk> availableChunksForUpdate() {
-        List<RenderableChunk> result = Lists.newArrayListWithExpectedSize(chunksComplete.size());
-        chunksComplete.drainTo(result);
-        chunksProcessing.removeAll(result);
+        return availableChunksForUpdate(Long.MAX_VALUE);
+    }
+
+    /**
+     * @param maxBytes The number of bytes of mesh data that may be uploaded this frame. At least one chunk is always returned if any is complete.
+     * @return The chunks whose update completed, in order of completion, up to the given budget of pending mesh data
+     */
+    public List<RenderableChunk> availableChunksForUpdate(long maxBytes) {
+        List<RenderableChunk> result = Lists.newArrayList();
+        long bytes = 0;
+        RenderableChunk chunk;
+        while (bytes < maxBytes && (chunk = chunksComplete.poll()) != null) {
+            if (chunk.hasPendingMesh()) {
+                bytes += chunk.getPendingMesh().getPendingBytes();
+            }
+            chunksProcessing.remove(chunk);
+            result.add(chunk);
+        }
+        reportStats();
         return result;
     }
 
-    private void executeChunkUpdate(final RenderableChunk c) {
-        chunksProcessing.add(c);
+    /**
+     * Records a completed mesh that was discarded instead of uploaded, as the chunk left the view in the mean time.
+     */
+    public void discardedCompletedMesh() {
+        wastedUpdates.incrementAndGet();
+    }
 
-        ChunkUpdateTask task = new ChunkUpdateTask(c, tessellator, worldProvider, this);
+    private void executeChunkUpdate(final RenderableChunk c, int lodScale) {
+        // A dirty chunk next to the camera which already has a full detail mesh was most likely changed by the player
+        boolean edited = lodScale == 1 && c.isDirty() && c.hasMesh() && c.getMesh().getLodScale() == 1
+                && distanceFromCamera(c.getPosition()) <= EDIT_DISTANCE;
+        ChunkUpdateTask task = new ChunkUpdateTask(c, lodScale, edited ? editSlices : 0, tessellator, worldProvider, meshCache, this);
+        chunksProcessing.put(c, task);
+        queuedUpdates.incrementAndGet();
         try {
             chunkUpdater.put(task);
         } catch (InterruptedException e) {
@@ -121,32 +221,155 @@ private void executeChunkUpdate(final RenderableChunk c) {
         }
     }
 
-    private void finishedProcessing(RenderableChunk c) {
+    private int distanceFromCamera(Vector3i pos) {
+        return pos.gridDistance(new Vector3i(cameraChunkPosX, cameraChunkPosY, cameraChunkPosZ));
+    }
+
+    private void startedProcessing() {
+        queuedUpdates.decrementAndGet();
+    }
+
+    /**
+     * @param latency The time from queueing to completion in milliseconds, or -1 if the update was cancelled before it started
+     * @param wasted  Whether the update was cancelled after it started, so its mesh was thrown away
+     */
+    private void finishedProcessing(RenderableChunk c, long latency, boolean wasted, boolean edited) {
+        if (wasted) {
+            wastedUpdates.incrementAndGet();
+            wastedMillis.addAndGet(latency);
+        } else if (latency >= 0) {
+            synchronized (latencySamples) {
+                latencySamples[latencySampleCount++ % LATENCY_SAMPLES] = latency;
+                if (edited) {
+                    editLatencySamples[editLatencySampleCount++ % LATENCY_SAMPLES] = latency;
+                }
+            }
+        }
         chunksComplete.add(c);
     }
 
+    private void reportStats() {
+        PerformanceMonitor.setCounter("Mesh Updates Queued", queuedUpdates.get());
+        PerformanceMonitor.setCounter("Mesh Updates Coalesced", coalescedUpdates.get());
+        PerformanceMonitor.setCounter("Mesh Updates Cancelled", cancelledUpdates.get());
+        PerformanceMonitor.setCounter("Mesh Updates Wasted", wastedUpdates.get());
+        PerformanceMonitor.setCounter("Mesh Updates Wasted Time (ms)", wastedMillis.get());
+        PerformanceMonitor.setCounter("Mesh Latency p95 (ms)", latencyPercentile(0.95));
+        PerformanceMonitor.setCounter("Edited Mesh Latency p95 (ms)", editLatencyPercentile(0.95));
+    }
+
+    /**
+     * @param fraction The fraction of updates that completed within the returned time
+     * @return The latency from queueing to completion of recent updates at the given percentile, in milliseconds
+     */
+    public long latencyPercentile(double fraction) {
+        long[] samples;
+        synchronized (latencySamples) {
+            samples = Arrays.copyOf(latencySamples, Math.min(latencySampleCount, LATENCY_SAMPLES));
+        }
+        return percentile(samples, fraction);
+    }
+
+    /**
+     * @param fraction The fraction of updates that completed within the returned time
+     * @return The latency from queueing to completion of recent updates of edited chunks at the given percentile, in milliseconds
+     */
+    public long editLatencyPercentile(double fraction) {
+        long[] samples;
+        synchronized (latencySamples) {
+            samples = Arrays.copyOf(editLatencySamples, Math.min(editLatencySampleCount, LATENCY_SAMPLES));
+        }
+        return percentile(samples, fraction);
+    }
+
+    private static long percentile(long[] samples, double fraction) {
+        if (samples.length == 0) {
+            return 0;
+        }
+        Arrays.sort(samples);
+        return samples[Math.min(samples.length - 1, (int) (samples.length * fraction))];
+    }
+
+    /**
+     * @return The number of updates queued but not started
+     */
+    public int getQueuedUpdateCount() {
+        return queuedUpdates.get();
+    }
+
+    /**
+     * @return The number of updates whose mesh was tessellated but thrown away, as the chunk left the view
+     */
+    public int getWastedUpdateCount() {
+        return wastedUpdates.get();
+    }
+
     public void shutdown() {
         chunkUpdater.shutdown(new ShutdownChunkTask(), false);
     }
 
 
-    private static class ChunkUpdateTask implements ChunkTask {
-
+    /**
+     * Updates the mesh of a chunk. A task is queued, may be cancelled and coalesced again before it starts, and is
+     * done once it ran, whether it got cancelled or not.
+     */
+    static class ChunkUpdateTask implements ChunkTask {
+        private static final int QUEUED = 0;
+        private static final int RUNNING = 1;
+        private static final int CANCELLED = 2;
+        private static final int DONE = 3;
+
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private final long queuedAt = System.nanoTime();
+        private final Vector3i position;
+        private volatile int lodScale;
+        private final int editSlices;
         private RenderableChunk c;
         private ChunkTessellator tessellator;
         private WorldProvider worldProvider;
+        private ChunkMeshCache meshCache;
         private ChunkMeshUpdateManager chunkMeshUpdateManager;
 
-        ChunkUpdateTask(RenderableChunk chunk, ChunkTessellator tessellator, WorldProvider worldProvider, ChunkMeshUpdateManager chunkMeshUpdateManager) {
+        /**
+         * @param editSlices The number of slices to tessellate the chunk in if it was edited, or 0 if it was not
+         */
+        ChunkUpdateTask(RenderableChunk chunk, int lodScale, int editSlices, ChunkTessellator tessellator, WorldProvider worldProvider,
+                        ChunkMeshCache meshCache, ChunkMeshUpdateManager chunkMeshUpdateManager) {
+            this.editSlices = editSlices;
             this.chunkMeshUpdateManager = chunkMeshUpdateManager;
             this.c = chunk;
+            this.position = chunk.getPosition();
+            this.lodScale = lodScale;
             this.tessellator = tessellator;
             this.worldProvider = worldProvider;
+            this.meshCache = meshCache;
+        }
+
+        /**
+         * Reuses this task for another request to update the chunk, if it has not started yet.
+         *
+         * @return Whether the request was merged into this task
+         */
+        boolean coalesce(int newLodScale) {
+            // The scale is written before the state is read, so a worker that starts after this check sees it
+            lodScale = newLodScale;
+            return state.get() == QUEUED || state.compareAndSet(CANCELLED, QUEUED);
+        }
+
+        /**
+         * @return Whether the task was queued or running and is now cancelled. A task that is done can't be cancelled.
+         */
+        boolean cancel() {
+            return state.compareAndSet(QUEUED, CANCELLED) || state.compareAndSet(RUNNING, CANCELLED);
         }
 
         @Override
         public Vector3i getPosition() {
-            return c.getPosition();
+            return position;
+        }
+
+        boolean isEdit() {
+            return editSlices > 0;
         }
 
         @Override
@@ -161,27 +384,73 @@ public boolean isTerminateSignal() {
 
         @Override
         public void run() {
-            ChunkMesh newMesh;
-            ChunkView chunkView = worldProvider.getLocalView(c.getPosition());
-            if (chunkView != null) {
-                /*
-                 * Important set dirty flag first, so that a concurrent modification of the chunk in the mean time we
-                 * will end up with a dirty chunk.
-                 */
-                c.setDirty(false);
-                if (chunkView.isValidView()) {
-                    newMesh = tessellator.generateMesh(chunkView, ChunkConstants.SIZE_Y, 0);
-
-                    c.setPendingMesh(newMesh);
-                    ChunkMonitor.fireChunkTessellated(c.getPosition(), newMesh);
+            chunkMeshUpdateManager.startedProcessing();
+            boolean wasted = false;
+            long latency = -1;
+            if (start()) {
+                int scale = lodScale;
+                ChunkMesh newMesh;
+                ChunkView chunkView = worldProvider.getLocalView(c.getPosition());
+                if (chunkView != null) {
+                    /*
+                     * Important set dirty flag first, so that a concurrent modification of the chunk in the mean time we
+                     * will end up with a dirty chunk.
+                     */
+                    c.setDirty(false);
+                    if (chunkView.isValidView()) {
+                        newMesh = null;
+                        long contentHash = 0;
+                        if (meshCache != null) {
+                            contentHash = meshCache.contentHash(chunkView, scale);
+                            newMesh = meshCache.load(c.getPosition(), scale, contentHash);
+                        }
+                        if (newMesh == null) {
+                            if (scale > 1) {
+                                newMesh = tessellator.generateLodMesh(chunkView, scale);
+                            } else if (isEdit()) {
+                                newMesh = tessellator.generateMeshInSlices(chunkView, editSlices);
+                            } else {
+                                newMesh = tessellator.generateMesh(chunkView, ChunkConstants.SIZE_Y, 0);
+                            }
+                            if (meshCache != null) {
+                                meshCache.store(c.getPosition(), newMesh, contentHash);
+                            }
+                        }
+
+                        if (state.get() == CANCELLED) {
+                            newMesh.dispose();
+                            c.setDirty(true);
+                            wasted = true;
+                        } else {
+                            c.setPendingMesh(newMesh);
+                            ChunkMonitor.fireChunkTessellated(c.getPosition(), newMesh);
+                        }
+                    }
                 }
-
+                latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queuedAt);
             }
-            chunkMeshUpdateManager.finishedProcessing(c);
+            state.set(DONE);
+            chunkMeshUpdateManager.finishedProcessing(c, latency, wasted, isEdit());
             // Clean these up because the task executor holds the object in memory.
             c = null;
             tessellator = null;
             worldProvider = null;
+            meshCache = null;
+        }
+
+        /**
+         * @return Whether the task is now running, or false if it was cancelled and is now done
+         */
+        private boolean start() {
+            // A cancelled task may be coalesced again until it is done
+            while (true) {
+                if (state.compareAndSet(QUEUED, RUNNING)) {
+                    return true;
+                }
+                if (state.compareAndSet(CANCELLED, DONE)) {
+                    return false;
+                }
+            }
         }
     }
 
@@ -195,11 +464,12 @@ private int score(ChunkTask task) {
             if (task.isTerminateSignal()) {
                 return -1;
             }
-            return distFromRegion(task.getPosition(), new Vector3i(cameraChunkPosX, cameraChunkPosY, cameraChunkPosZ));
-        }
-
-        private int distFromRegion(Vector3i pos, Vector3i regionCenter) {
-            return pos.gridDistance(regionCenter);
+            // Edits come before all other updates, the closest first
+            int distance = distanceFromCamera(task.getPosition());
+            if (task instanceof ChunkUpdateTask && ((ChunkUpdateTask) task).isEdit()) {
+                return distance;
+            }
+            return EDIT_DISTANCE + 1 + distance;
         }
     }
 }
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.world;
+
+import org.terasology.math.AABB;
+import org.terasology.math.Region3i;
+import org.terasology.math.Side;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.rendering.primitives.ChunkFaceConnectivity;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.RenderableChunk;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Culls chunks that can only be seen through solid terrain. Starting from the chunk containing the camera, it walks
+ * the chunks breadth first. The walk only leaves a chunk through a face that is connected, through non-occluding
+ * blocks, to the face it entered through. It never steps back against a direction it has already stepped in, and it
+ * only enters chunks within the view. Chunks the walk does not reach are occluded.
+ * <br><br>
+ * A chunk is reached exactly when some such path reaches it. As a path never reverses, the directions it has stepped
+ * in are the signs of its offset from the camera chunk, and are the same for every path into a chunk. What a path can
+ * reach from a chunk therefore only depends on the face it entered through, so each chunk is walked once per entry
+ * face. Chunks without a mesh, and positions without a chunk, are assumed to be see-through.
+ *
+ */
+final class ChunkOcclusionCuller {
+
+    private static final Side[] SIDES = Side.values();
+    private static final int NO_SIDE = -1;
+
+    private Region3i region = Region3i.EMPTY;
+    private boolean enabled;
+
+    // Per position within the region
+    private RenderableChunk[] chunks = new RenderableChunk[0];
+    private boolean[] reached = new boolean[0];
+    private byte[] enteredSides = new byte[0];
+
+    // The queue of the walk: the position index, the side it was entered through and the directions stepped in
+    private int[] queuedIndices = new int[0];
+    private int[] queuedEntrySides = new int[0];
+    private int[] queuedDirections = new int[0];
+
+    /**
+     * Determines which of the given chunks are occluded.
+     *
+     * @param chunkRegion The region, in chunk coordinates, containing the chunks
+     * @param chunksInRegion The chunks to cull
+     * @param cameraChunk The position of the chunk containing the camera. Nothing is culled if it is outside the region.
+     * @param inView Whether a box, in world coordinates, is within the view
+     */
+    void cull(Region3i chunkRegion, List<RenderableChunk> chunksInRegion, Vector3i cameraChunk, Predicate<AABB> inView) {
+        region = chunkRegion;
+        enabled = region.encompasses(cameraChunk);
+        if (!enabled) {
+            return;
+        }
+
+        int volume = region.sizeX() * region.sizeY() * region.sizeZ();
+        if (chunks.length < volume) {
+            chunks = new RenderableChunk[volume];
+            reached = new boolean[volume];
+            enteredSides = new byte[volume];
+            // Every chunk can be queued once per side, besides the start
+            int queueSize = volume * SIDES.length + 1;
+            queuedIndices = new int[queueSize];
+            queuedEntrySides = new int[queueSize];
+            queuedDirections = new int[queueSize];
+        } else {
+            Arrays.fill(chunks, null);
+            Arrays.fill(reached, false);
+            Arrays.fill(enteredSides, (byte) 0);
+        }
+        for (RenderableChunk chunk : chunksInRegion) {
+            Vector3i position = chunk.getPosition();
+            if (region.encompasses(position)) {
+                chunks[indexOf(position.x, position.y, position.z)] = chunk;
+            }
+        }
+
+        int head = 0;
+        int tail = 0;
+        int start = indexOf(cameraChunk.x, cameraChunk.y, cameraChunk.z);
+        reached[start] = true;
+        queuedIndices[tail] = start;
+        queuedEntrySides[tail] = NO_SIDE;
+        queuedDirections[tail] = 0;
+        tail++;
+
+        while (head < tail) {
+            int index = queuedIndices[head];
+            int entrySide = queuedEntrySides[head];
+            int directions = queuedDirections[head];
+            head++;
+
+            ChunkFaceConnectivity connectivity = connectivityOf(chunks[index]);
+            int x = index % region.sizeX() + region.minX();
+            int y = (index / region.sizeX()) % region.sizeY() + region.minY();
+            int z = index / (region.sizeX() * region.sizeY()) + region.minZ();
+            for (Side side : SIDES) {
+                if ((directions & (1 << side.reverse().ordinal())) != 0) {
+                    continue;
+                }
+                if (entrySide != NO_SIDE && !connectivity.isConnected(SIDES[entrySide], side)) {
+                    continue;
+                }
+                Vector3i step = side.getVector3i();
+                int nextX = x + step.x;
+                int nextY = y + step.y;
+                int nextZ = z + step.z;
+                if (!region.encompasses(nextX, nextY, nextZ)) {
+                    continue;
+                }
+                int next = indexOf(nextX, nextY, nextZ);
+                int nextEntrySide = side.reverse().ordinal();
+                if ((enteredSides[next] & (1 << nextEntrySide)) != 0 || !inView.test(aabbOf(chunks[next], nextX, nextY, nextZ))) {
+                    continue;
+                }
+                enteredSides[next] |= 1 << nextEntrySide;
+                reached[next] = true;
+                queuedIndices[tail] = next;
+                queuedEntrySides[tail] = nextEntrySide;
+                queuedDirections[tail] = directions | (1 << side.ordinal());
+                tail++;
+            }
+        }
+    }
+
+    /**
+     * @return Whether the chunk was found to be occluded by the last call to {@link #cull}
+     */
+    boolean isOccluded(RenderableChunk chunk) {
+        Vector3i position = chunk.getPosition();
+        return enabled && region.encompasses(position) && !reached[indexOf(position.x, position.y, position.z)];
+    }
+
+    private int indexOf(int x, int y, int z) {
+        return ((z - region.minZ()) * region.sizeY() + (y - region.minY())) * region.sizeX() + (x - region.minX());
+    }
+
+    private static ChunkFaceConnectivity connectivityOf(RenderableChunk chunk) {
+        if (chunk == null || !chunk.hasMesh()) {
+            return ChunkFaceConnectivity.ALL_CONNECTED;
+        }
+        return chunk.getMesh().getFaceConnectivity();
+    }
+
+    private static AABB aabbOf(RenderableChunk chunk, int x, int y, int z) {
+        if (chunk != null) {
+            return chunk.getAABB();
+        }
+        Vector3f min = new Vector3f(x * ChunkConstants.SIZE_X, y * ChunkConstants.SIZE_Y, z * ChunkConstants.SIZE_Z);
+        Vector3f max = ChunkConstants.CHUNK_SIZE.toVector3f();
+        max.add(min);
+        return AABB.createMinMax(min, max);
+    }
+}
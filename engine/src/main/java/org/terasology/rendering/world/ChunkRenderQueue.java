@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.world;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A render queue filled in front to back order, from a list of chunks that is already sorted. Unlike a priority queue
+ * it compares nothing: elements are polled in the order they were added, or in the reverse order for a back to front
+ * queue.
+ *
+ * @param <T> The type of the queued chunks
+ */
+public final class ChunkRenderQueue<T> extends AbstractQueue<T> {
+
+    private final boolean backToFront;
+    private Object[] elements;
+    private int head;
+    private int tail;
+
+    /**
+     * @param initialCapacity The number of chunks the queue has room for before growing
+     * @param backToFront     Whether chunks are polled in the reverse order they were added
+     */
+    public ChunkRenderQueue(int initialCapacity, boolean backToFront) {
+        this.elements = new Object[Math.max(1, initialCapacity)];
+        this.backToFront = backToFront;
+    }
+
+    /**
+     * Adds a chunk behind all chunks added so far, which must be nearer the camera than it.
+     */
+    @Override
+    public boolean offer(T chunk) {
+        if (tail == elements.length) {
+            elements = Arrays.copyOf(elements, elements.length * 2);
+        }
+        elements[tail++] = chunk;
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        if (head == tail) {
+            return null;
+        }
+        T result;
+        if (backToFront) {
+            result = (T) elements[--tail];
+            elements[tail] = null;
+        } else {
+            result = (T) elements[head];
+            elements[head++] = null;
+        }
+        if (head == tail) {
+            head = 0;
+            tail = 0;
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T peek() {
+        if (head == tail) {
+            return null;
+        }
+        return (T) elements[backToFront ? tail - 1 : head];
+    }
+
+    @Override
+    public int size() {
+        return tail - head;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(elements, head, tail, null);
+        head = 0;
+        tail = 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<T> iterator() {
+        List<T> queued = (List<T>) (List<?>) Arrays.asList(elements).subList(head, tail);
+        return Iterators.unmodifiableIterator((backToFront ? Lists.reverse(queued) : queued).iterator());
+    }
+}
@@ -17,20 +17,20 @@
 
 import org.terasology.world.chunks.RenderableChunk;
 
-import java.util.PriorityQueue;
+import java.util.Queue;
 
 public class RenderQueuesHelper {
-    public final PriorityQueue<RenderableChunk> chunksOpaque;
-    public final PriorityQueue<RenderableChunk> chunksOpaqueShadow;
-    public final PriorityQueue<RenderableChunk> chunksOpaqueReflection;
-    public final PriorityQueue<RenderableChunk> chunksAlphaReject;
-    public final PriorityQueue<RenderableChunk> chunksAlphaBlend;
+    public final Queue<RenderableChunk> chunksOpaque;
+    public final Queue<RenderableChunk> chunksOpaqueShadow;
+    public final Queue<RenderableChunk> chunksOpaqueReflection;
+    public final Queue<RenderableChunk> chunksAlphaReject;
+    public final Queue<RenderableChunk> chunksAlphaBlend;
 
-    RenderQueuesHelper(PriorityQueue<RenderableChunk> chunksOpaque,
-                       PriorityQueue<RenderableChunk> chunksOpaqueShadow,
-                       PriorityQueue<RenderableChunk> chunksOpaqueReflection,
-                       PriorityQueue<RenderableChunk> chunksAlphaReject,
-                       PriorityQueue<RenderableChunk> chunksAlphaBlend) {
+    RenderQueuesHelper(Queue<RenderableChunk> chunksOpaque,
+                       Queue<RenderableChunk> chunksOpaqueShadow,
+                       Queue<RenderableChunk> chunksOpaqueReflection,
+                       Queue<RenderableChunk> chunksAlphaReject,
+                       Queue<RenderableChunk> chunksAlphaBlend) {
 
         this.chunksOpaque = chunksOpaque;
         this.chunksOpaqueShadow = chunksOpaqueShadow;
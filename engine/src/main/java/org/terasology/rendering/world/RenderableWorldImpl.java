@@ -15,12 +15,12 @@
  */
 package org.terasology.rendering.world;
 
-import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.config.Config;
 import org.terasology.config.RenderingConfig;
+import org.terasology.engine.paths.PathManager;
 import org.terasology.engine.subsystem.lwjgl.GLBufferPool;
 import org.terasology.math.Region3i;
 import org.terasology.math.TeraMath;
@@ -29,20 +29,23 @@
 import org.terasology.monitoring.PerformanceMonitor;
 import org.terasology.registry.CoreRegistry;
 import org.terasology.rendering.cameras.Camera;
+import org.terasology.rendering.cameras.ViewFrustum;
 import org.terasology.rendering.primitives.ChunkMesh;
+import org.terasology.rendering.primitives.ChunkMeshCache;
 import org.terasology.rendering.primitives.ChunkTessellator;
 import org.terasology.rendering.world.viewDistance.ViewDistance;
 import org.terasology.world.ChunkView;
 import org.terasology.world.WorldProvider;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.tiles.WorldAtlas;
 import org.terasology.world.chunks.ChunkConstants;
 import org.terasology.world.chunks.ChunkProvider;
 import org.terasology.world.chunks.RenderableChunk;
 
-import java.util.Collections;
-import java.util.Comparator;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
-import java.util.PriorityQueue;
 
 /**
  * TODO: write javadoc unless this class gets slated for removal, which might be.
@@ -52,7 +55,12 @@ class RenderableWorldImpl implements RenderableWorld {
     private static final int MAX_ANIMATED_CHUNKS = 64;
     private static final int MAX_BILLBOARD_CHUNKS = 64;
     private static final int MAX_LOADABLE_CHUNKS = ViewDistance.MEGA.getChunkDistance().x * ViewDistance.MEGA.getChunkDistance().y * ViewDistance.MEGA.getChunkDistance().z;
-    private static final Vector3f CHUNK_CENTER_OFFSET = new Vector3f(0.5f, 0.5f, 0.5f);
+    private static final int MAX_LOD_SCALE = 8;
+
+    /* Phases of the cached visibility flags, each flag being 1 << phase */
+    private static final int VISIBLE = 0;
+    private static final int VISIBLE_FROM_MAIN_LIGHT = 1;
+    private static final int VISIBLE_REFLECTED = 2;
 
     private static final Logger logger = LoggerFactory.getLogger(RenderableWorldImpl.class);
 
@@ -63,10 +71,23 @@ class RenderableWorldImpl implements RenderableWorld {
 
     private ChunkTessellator chunkTessellator;
     private final ChunkMeshUpdateManager chunkMeshUpdateManager;
+    private final ChunkMeshCache meshCache;
     private final List<RenderableChunk> chunksInProximityOfCamera = Lists.newArrayListWithCapacity(MAX_LOADABLE_CHUNKS);
     private Region3i renderableRegion = Region3i.EMPTY;
     private ViewDistance currentViewDistance;
     private RenderQueuesHelper renderQueues;
+    private final ChunkOcclusionCuller occlusionCuller = new ChunkOcclusionCuller();
+
+    /* The proximity list is kept sorted front to back, and is only re-sorted when the camera moves to another chunk */
+    private final ChunkDistanceSorter<RenderableChunk> proximitySorter = new ChunkDistanceSorter<>(RenderableChunk::getPosition);
+    private Vector3i proximitySortedFor;
+    private int proximityListVersion;
+
+    /* Per chunk of the proximity list, whether it is in each frustum, valid while neither the list nor the frustum change */
+    private byte[] visibilityFlags = new byte[MAX_LOADABLE_CHUNKS];
+    private final ViewFrustum[] cachedFrustums = new ViewFrustum[3];
+    private final int[] cachedFrustumVersions = new int[3];
+    private final int[] cachedListVersions = new int[3];
 
     private Camera playerCamera;
     private Camera shadowMapCamera;
@@ -77,6 +98,13 @@ class RenderableWorldImpl implements RenderableWorld {
     private int statDirtyChunks;
     private int statVisibleChunks;
     private int statIgnoredPhases;
+    private int statOccludedChunks;
+    private int statLodChunks;
+    private long statLodMeshBytes;
+    private long statFullDetailMeshBytes;
+    private long statLodTessellationTime;
+    private long statFullDetailTessellationTime;
+    private int statFrustumTests;
 
 
     RenderableWorldImpl(WorldProvider worldProvider,
@@ -86,23 +114,44 @@ class RenderableWorldImpl implements RenderableWorld {
 
         this.worldProvider = worldProvider;
         this.chunkProvider = chunkProvider;
-        chunkTessellator = new ChunkTessellator(bufferPool);
-        chunkMeshUpdateManager = new ChunkMeshUpdateManager(chunkTessellator, worldProvider);
+        chunkTessellator = new ChunkTessellator(bufferPool, renderingConfig.isGreedyMeshing());
+        meshCache = createMeshCache(worldProvider, bufferPool);
+        chunkMeshUpdateManager = new ChunkMeshUpdateManager(chunkTessellator, worldProvider, meshCache,
+                renderingConfig.isSliceEditedMeshes());
 
         this.playerCamera = playerCamera;
 
-        renderQueues = new RenderQueuesHelper(new PriorityQueue<>(MAX_LOADABLE_CHUNKS, new ChunkFrontToBackComparator()),
-                new PriorityQueue<>(MAX_LOADABLE_CHUNKS, new ChunkFrontToBackComparator()),
-                new PriorityQueue<>(MAX_LOADABLE_CHUNKS, new ChunkFrontToBackComparator()),
-                new PriorityQueue<>(MAX_LOADABLE_CHUNKS, new ChunkFrontToBackComparator()),
-                new PriorityQueue<>(MAX_LOADABLE_CHUNKS, new ChunkBackToFrontComparator()));
+        // The queues are filled while iterating over the proximity list, which is sorted front to back
+        renderQueues = new RenderQueuesHelper(new ChunkRenderQueue<>(MAX_LOADABLE_CHUNKS, false),
+                new ChunkRenderQueue<>(MAX_LOADABLE_CHUNKS, false),
+                new ChunkRenderQueue<>(MAX_LOADABLE_CHUNKS, false),
+                new ChunkRenderQueue<>(MAX_LOADABLE_CHUNKS, false),
+                new ChunkRenderQueue<>(MAX_LOADABLE_CHUNKS, true));
+    }
+
+    private ChunkMeshCache createMeshCache(WorldProvider world, GLBufferPool bufferPool) {
+        int cacheSize = renderingConfig.getMeshCacheSize();
+        BlockManager blockManager = CoreRegistry.get(BlockManager.class);
+        WorldAtlas atlas = CoreRegistry.get(WorldAtlas.class);
+        if (cacheSize <= 0 || blockManager == null || atlas == null) {
+            return null;
+        }
+        String worldName = world.getTitle().replaceAll("[^A-Za-z0-9-_ ]", "") + "-" + Long.toHexString(world.getSeed().hashCode());
+        long salt = ChunkMeshCache.salt(blockManager.listRegisteredBlocks(), atlas, renderingConfig.isGreedyMeshing());
+        try {
+            return new ChunkMeshCache(PathManager.getInstance().getCachePath().resolve("meshes").resolve(worldName),
+                    cacheSize * 1024L * 1024L, salt, bufferPool);
+        } catch (IOException e) {
+            logger.warn("Failed to open the mesh cache, chunk meshes will not be cached", e);
+            return null;
+        }
     }
 
     @Override
     public void onChunkLoaded(Vector3i chunkCoordinates) {
         if (renderableRegion.encompasses(chunkCoordinates)) {
             chunksInProximityOfCamera.add(chunkProvider.getChunk(chunkCoordinates));
-            Collections.sort(chunksInProximityOfCamera, new ChunkFrontToBackComparator());
+            proximityListChanged(true);
         }
     }
 
@@ -114,8 +163,10 @@ public void onChunkUnloaded(Vector3i chunkCoordinates) {
             while (iterator.hasNext()) {
                 chunk = iterator.next();
                 if (chunk.getPosition().equals(chunkCoordinates)) {
+                    chunkMeshUpdateManager.cancelChunkUpdate(chunk);
                     chunk.disposeMesh();
                     iterator.remove();
+                    proximityListChanged(false);
                     break;
                 }
             }
@@ -200,8 +251,10 @@ public boolean updateChunksInProximity(Region3i newRenderableRegion) {
                 while (nearbyChunks.hasNext()) {
                     chunk = nearbyChunks.next();
                     if (chunk.getPosition().equals(chunkPosition)) {
+                        chunkMeshUpdateManager.cancelChunkUpdate(chunk);
                         chunk.disposeMesh();
                         nearbyChunks.remove();
+                        proximityListChanged(false);
                         break;
                     }
                 }
@@ -219,7 +272,7 @@ public boolean updateChunksInProximity(Region3i newRenderableRegion) {
             }
 
             if (chunksHaveBeenAdded) {
-                Collections.sort(chunksInProximityOfCamera, new ChunkFrontToBackComparator());
+                proximityListChanged(true);
             }
             renderableRegion = newRenderableRegion;
             return true;
@@ -258,12 +311,25 @@ private Vector3i calcCameraCoordinatesInChunkUnits() {
                 (int) (cameraCoordinates.z / ChunkConstants.SIZE_Z));
     }
 
+    /**
+     * Unlike {@link #calcCameraCoordinatesInChunkUnits()} this rounds down, so it is exact for negative coordinates.
+     *
+     * @return The position of the chunk containing the camera
+     */
+    private Vector3i calcCameraChunkPosition() {
+        Vector3f cameraCoordinates = playerCamera.getPosition();
+        return new Vector3i(TeraMath.floorToInt(cameraCoordinates.x / ChunkConstants.SIZE_X),
+                TeraMath.floorToInt(cameraCoordinates.y / ChunkConstants.SIZE_Y),
+                TeraMath.floorToInt(cameraCoordinates.z / ChunkConstants.SIZE_Z));
+    }
+
     @Override
     public void generateVBOs() {
         PerformanceMonitor.startActivity("Building Mesh VBOs");
         ChunkMesh pendingMesh;
         chunkMeshUpdateManager.setCameraPosition(playerCamera.getPosition());
-        for (RenderableChunk chunk : chunkMeshUpdateManager.availableChunksForUpdate()) {
+        long uploadBudget = Math.max(1, renderingConfig.getMeshUploadBudget()) * 1024L;
+        for (RenderableChunk chunk : chunkMeshUpdateManager.availableChunksForUpdate(uploadBudget)) {
 
             if (chunk.hasPendingMesh() && chunksInProximityOfCamera.contains(chunk)) {
                 pendingMesh = chunk.getPendingMesh();
@@ -278,6 +344,7 @@ public void generateVBOs() {
                 if (chunk.hasPendingMesh()) {
                     chunk.getPendingMesh().dispose();
                     chunk.setPendingMesh(null);
+                    chunkMeshUpdateManager.discardedCompletedMesh();
                 }
             }
         }
@@ -293,17 +360,56 @@ public int queueVisibleChunks(boolean isFirstRenderingStageForCurrentFrame) {
         statDirtyChunks = 0;
         statVisibleChunks = 0;
         statIgnoredPhases = 0;
+        statOccludedChunks = 0;
+        statLodChunks = 0;
+        statLodMeshBytes = 0;
+        statFullDetailMeshBytes = 0;
+        statLodTessellationTime = 0;
+        statFullDetailTessellationTime = 0;
 
         int processedChunks = 0;
         int chunkCounter = 0;
         ChunkMesh mesh;
         boolean isDynamicShadows = renderingConfig.isDynamicShadows();
+        boolean isOcclusionCulling = renderingConfig.isOcclusionCulling();
+        int lodChunkDistance = renderingConfig.getLodChunkDistance();
+        Vector3i cameraChunk = calcCameraChunkPosition();
+
+        renderQueues.chunksOpaque.clear();
+        renderQueues.chunksOpaqueShadow.clear();
+        renderQueues.chunksOpaqueReflection.clear();
+        renderQueues.chunksAlphaReject.clear();
+        renderQueues.chunksAlphaBlend.clear();
+
+        if (!cameraChunk.equals(proximitySortedFor)) {
+            PerformanceMonitor.startActivity("Sorting Chunks");
+            if (proximitySorter.sort(chunksInProximityOfCamera, playerCamera.getPosition()) > 0) {
+                proximityListVersion++;
+            }
+            proximitySortedFor = cameraChunk;
+            PerformanceMonitor.endActivity();
+        }
+
+        statFrustumTests = 0;
+        boolean queueShadows = isDynamicShadows && isFirstRenderingStageForCurrentFrame;
+        updateVisibilityFlags(VISIBLE, playerCamera.getViewFrustum());
+        updateVisibilityFlags(VISIBLE_REFLECTED, playerCamera.getViewFrustumReflected());
+        if (queueShadows) {
+            updateVisibilityFlags(VISIBLE_FROM_MAIN_LIGHT, shadowMapCamera.getViewFrustum());
+        }
 
-        for (RenderableChunk chunk : chunksInProximityOfCamera) {
+        if (isOcclusionCulling) {
+            PerformanceMonitor.startActivity("Occlusion Culling");
+            occlusionCuller.cull(renderableRegion, chunksInProximityOfCamera, cameraChunk, playerCamera::hasInSight);
+            PerformanceMonitor.endActivity();
+        }
+
+        for (int i = 0; i < chunksInProximityOfCamera.size(); i++) {
+            RenderableChunk chunk = chunksInProximityOfCamera.get(i);
             if (isChunkValidForRender(chunk)) {
                 mesh = chunk.getMesh();
 
-                if (isDynamicShadows && isFirstRenderingStageForCurrentFrame && chunkCounter < maxChunksForShadows && isChunkVisibleFromMainLight(chunk)) {
+                if (queueShadows && chunkCounter < maxChunksForShadows && isFlagged(i, VISIBLE_FROM_MAIN_LIGHT)) {
                     if (triangleCount(mesh, ChunkMesh.RenderPhase.OPAQUE) > 0) {
                         renderQueues.chunksOpaqueShadow.add(chunk);
                     } else {
@@ -311,7 +417,13 @@ public int queueVisibleChunks(boolean isFirstRenderingStageForCurrentFrame) {
                     }
                 }
 
-                if (isChunkVisible(chunk)) {
+                boolean isVisible = isFlagged(i, VISIBLE);
+                if (isVisible && isOcclusionCulling && occlusionCuller.isOccluded(chunk)) {
+                    statOccludedChunks++;
+                    isVisible = false;
+                }
+
+                if (isVisible) {
                     if (triangleCount(mesh, ChunkMesh.RenderPhase.OPAQUE) > 0) {
                         renderQueues.chunksOpaque.add(chunk);
                     } else {
@@ -339,14 +451,19 @@ public int queueVisibleChunks(boolean isFirstRenderingStageForCurrentFrame) {
                     }
                 }
 
-                if (isChunkVisibleReflection(chunk)) {
+                if (isFlagged(i, VISIBLE_REFLECTED)) {
                     renderQueues.chunksOpaqueReflection.add(chunk);
                 }
 
+                if (mesh != null) {
+                    recordMeshStats(mesh);
+                }
+
                 // Process all chunks in the area, not only the visible ones
-                if (isFirstRenderingStageForCurrentFrame && (chunk.isDirty() || !chunk.hasMesh())) {
+                int lodScale = lodScaleFor(chunk, cameraChunk, lodChunkDistance);
+                if (isFirstRenderingStageForCurrentFrame && (chunk.isDirty() || !chunk.hasMesh() || mesh.getLodScale() != lodScale)) {
                     statDirtyChunks++;
-                    chunkMeshUpdateManager.queueChunkUpdate(chunk);
+                    chunkMeshUpdateManager.queueChunkUpdate(chunk, lodScale);
                     processedChunks++;
                 }
             }
@@ -357,6 +474,38 @@ public int queueVisibleChunks(boolean isFirstRenderingStageForCurrentFrame) {
         return processedChunks;
     }
 
+    /**
+     * Chunks are drawn at full detail up to lodChunkDistance chunks from the camera, and at half the detail at each
+     * doubling of the distance after that, down to {@link #MAX_LOD_SCALE}.
+     *
+     * @return The level of detail scale the chunk should be tessellated at
+     */
+    private static int lodScaleFor(RenderableChunk chunk, Vector3i cameraChunk, int lodChunkDistance) {
+        if (lodChunkDistance <= 0) {
+            return 1;
+        }
+        Vector3i position = chunk.getPosition();
+        int distance = Math.max(Math.abs(position.x - cameraChunk.x),
+                Math.max(Math.abs(position.y - cameraChunk.y), Math.abs(position.z - cameraChunk.z)));
+        int scale = 1;
+        for (int ring = lodChunkDistance; distance >= ring && scale < MAX_LOD_SCALE; ring *= 2) {
+            scale *= 2;
+        }
+        return scale;
+    }
+
+    private void recordMeshStats(ChunkMesh mesh) {
+        int tessellationTime = mesh.getTimeToGenerateBlockVertices() + mesh.getTimeToGenerateOptimizedBuffers();
+        if (mesh.getLodScale() > 1) {
+            statLodChunks++;
+            statLodMeshBytes += mesh.getBufferedBytes();
+            statLodTessellationTime += tessellationTime;
+        } else {
+            statFullDetailMeshBytes += mesh.getBufferedBytes();
+            statFullDetailTessellationTime += tessellationTime;
+        }
+    }
+
     private int triangleCount(ChunkMesh mesh, ChunkMesh.RenderPhase renderPhase) {
         if (mesh != null) {
             return mesh.triangleCount(renderPhase);
@@ -368,26 +517,57 @@ private int triangleCount(ChunkMesh mesh, ChunkMesh.RenderPhase renderPhase) {
     @Override
     public void dispose() {
         chunkMeshUpdateManager.shutdown();
+        if (meshCache != null) {
+            meshCache.close();
+        }
     }
 
     private boolean isChunkValidForRender(RenderableChunk chunk) {
         return chunk.isReady() && chunk.areAdjacentChunksReady();
     }
 
-    private boolean isChunkVisibleFromMainLight(RenderableChunk chunk) {
-        return isChunkVisible(shadowMapCamera, chunk); //TODO: find an elegant way
-    }
-
-    private boolean isChunkVisible(RenderableChunk chunk) {
-        return isChunkVisible(playerCamera, chunk);
+    /**
+     * Must be called whenever chunks are added to or removed from the proximity list, as it invalidates the cached
+     * visibility flags. Added chunks also leave the list to be sorted again.
+     */
+    private void proximityListChanged(boolean chunksAdded) {
+        proximityListVersion++;
+        if (chunksAdded) {
+            proximitySortedFor = null;
+        }
     }
 
-    private boolean isChunkVisible(Camera camera, RenderableChunk chunk) {
-        return camera.hasInSight(chunk.getAABB());
+    /**
+     * Tests every chunk in the proximity list against the given frustum, unless neither has changed since the last test.
+     *
+     * @param phase   The phase the flags are for: VISIBLE, VISIBLE_FROM_MAIN_LIGHT or VISIBLE_REFLECTED
+     * @param frustum The frustum the chunks must intersect to be visible in that phase
+     */
+    private void updateVisibilityFlags(int phase, ViewFrustum frustum) {
+        if (cachedFrustums[phase] == frustum && cachedFrustumVersions[phase] == frustum.getVersion()
+                && cachedListVersions[phase] == proximityListVersion) {
+            return;
+        }
+        int size = chunksInProximityOfCamera.size();
+        if (visibilityFlags.length < size) {
+            visibilityFlags = Arrays.copyOf(visibilityFlags, size * 2);
+        }
+        int flag = 1 << phase;
+        for (int i = 0; i < size; i++) {
+            if (frustum.intersects(chunksInProximityOfCamera.get(i).getAABB())) {
+                visibilityFlags[i] |= flag;
+            } else {
+                visibilityFlags[i] &= ~flag;
+            }
+        }
+        statFrustumTests += size;
+        cachedFrustums[phase] = frustum;
+        cachedFrustumVersions[phase] = frustum.getVersion();
+        cachedListVersions[phase] = proximityListVersion;
     }
 
-    private boolean isChunkVisibleReflection(RenderableChunk chunk) {
-        return playerCamera.getViewFrustumReflected().intersects(chunk.getAABB());
+    private boolean isFlagged(int chunkIndex, int phase) {
+        return (visibilityFlags[chunkIndex] & (1 << phase)) != 0;
     }
 
     @Override
@@ -417,62 +597,27 @@ public String getMetrics() {
         stringToReturn += "Visible Chunks: ";
         stringToReturn += statVisibleChunks;
         stringToReturn += "\n";
-        return stringToReturn;
-    }
-
-    private static float squaredDistanceToCamera(RenderableChunk chunk, Vector3f cameraPosition) {
-        // For performance reasons, to avoid instantiating too many vectors in a frequently called method,
-        // comments are in use instead of appropriately named vectors.
-        Vector3f result = chunk.getPosition().toVector3f(); // chunk position in chunk coordinates
-        result.add(CHUNK_CENTER_OFFSET);                    // chunk center in chunk coordinates
-
-        result.x *= ChunkConstants.SIZE_X;    // chunk center in world coordinates
-        result.y *= ChunkConstants.SIZE_Y;
-        result.z *= ChunkConstants.SIZE_Z;
-
-        result.sub(cameraPosition); // camera to chunk vector
-
-        return result.lengthSquared();
-    }
-
-    // TODO: find the right place to check if the activeCamera has changed,
-    // TODO: so that the comparators can hold an up-to-date reference to it
-    // TODO: and avoid having to find it on a per-comparison basis.
-    private static class ChunkFrontToBackComparator implements Comparator<RenderableChunk> {
-
-        @Override
-        public int compare(RenderableChunk chunk1, RenderableChunk chunk2) {
-            Preconditions.checkNotNull(chunk1);
-            Preconditions.checkNotNull(chunk2);
-            Vector3f cameraPosition = CoreRegistry.get(WorldRenderer.class).getActiveCamera().getPosition();
-            double distance1 = squaredDistanceToCamera(chunk1, cameraPosition);
-            double distance2 = squaredDistanceToCamera(chunk2, cameraPosition);
-
-            // Using Double.compare as simple d1 < d2 comparison is flagged as problematic by Jenkins
-            // On the other hand Double.compare can return any positive/negative value apparently,
-            // hence the need for Math.signum().
-            return (int) Math.signum(Double.compare(distance1, distance2));
-        }
-    }
-
-    private static class ChunkBackToFrontComparator implements Comparator<RenderableChunk> {
-
-        @Override
-        public int compare(RenderableChunk chunk1, RenderableChunk chunk2) {
-            Preconditions.checkNotNull(chunk1);
-            Preconditions.checkNotNull(chunk2);
-            Vector3f cameraPosition = CoreRegistry.get(WorldRenderer.class).getActiveCamera().getPosition();
-            double distance1 = squaredDistanceToCamera(chunk1, cameraPosition);
-            double distance2 = squaredDistanceToCamera(chunk2, cameraPosition);
-
-            if (distance1 == distance2) {
-                return 0;
-            } else if (distance2 > distance1) {
-                return 1;
-            } else {
-                return -1;
-            }
+        stringToReturn += "Occluded Chunks: ";
+        stringToReturn += statOccludedChunks;
+        stringToReturn += "\n";
+        stringToReturn += "LOD Chunks: ";
+        stringToReturn += statLodChunks;
+        stringToReturn += "\n";
+        stringToReturn += "Mesh Memory (LOD / Full): ";
+        stringToReturn += statLodMeshBytes / 1024 + " / " + statFullDetailMeshBytes / 1024 + " KB";
+        stringToReturn += "\n";
+        stringToReturn += "Tessellation Time (LOD / Full): ";
+        stringToReturn += statLodTessellationTime + " / " + statFullDetailTessellationTime + " ms";
+        stringToReturn += "\n";
+        stringToReturn += "Frustum Tests: ";
+        stringToReturn += statFrustumTests;
+        stringToReturn += "\n";
+        if (meshCache != null) {
+            stringToReturn += "Mesh Cache (Hits / Misses / Size): ";
+            stringToReturn += meshCache.getHitCount() + " / " + meshCache.getMissCount() + " / " + meshCache.getTotalBytes() / 1024 + " KB";
+            stringToReturn += "\n";
         }
+        return stringToReturn;
     }
 
 }
@@ -0,0 +1,336 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities;
+
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.assets.ResourceUrn;
+import org.terasology.assets.format.AssetDataFile;
+import org.terasology.engine.module.ModuleManager;
+import org.terasology.engine.paths.PathManager;
+import org.terasology.module.Module;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Keeps the binary form of parsed assets on disk, so that asset formats with costly parsing - such as JSON prefabs and
+ * block shapes - only parse a file again once it changed.
+ * <br><br>
+ * Entries are keyed by asset urn. Each entry records the version of the providing module and a hash of the source
+ * file, see {@link #key(ResourceUrn, byte[])}, and is only returned while both still match. The cache of an asset
+ * type is a single file, memory mapped when opened, to which new entries are appended. Superseded entries are
+ * dropped when the cache is opened and most of the file is stale. A file that is about to be rewritten is read onto the
+ * heap instead of mapped, as a mapped file cannot be replaced on all platforms and the mapping cannot be released
+ * explicitly.
+ * <br><br>
+ * Formats are free to choose the binary form of their data, but must change their data version whenever it changes.
+ *
+ */
+public final class ParsedAssetCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParsedAssetCache.class);
+
+    private static final int MAGIC = 0x54504143;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 4;
+    private static final String CACHE_DIR = "assets";
+    private static final String CACHE_EXTENSION = ".cache";
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private final Path file;
+    private final int dataVersion;
+    private final ModuleManager moduleManager;
+
+    /* Guarded by this */
+    private final Map<String, Entry> entries = Maps.newHashMap();
+    private boolean writable = true;
+    private int hits;
+    private int misses;
+
+    /**
+     * Opens a cache file, discarding it if it was written by a different version of the cache or of the data.
+     *
+     * @param file          The cache file
+     * @param dataVersion   The version of the binary form the format stores its data in
+     * @param moduleManager The module manager, used to look up the versions of the modules providing the assets
+     */
+    public ParsedAssetCache(Path file, int dataVersion, ModuleManager moduleManager) {
+        this.file = file;
+        this.dataVersion = dataVersion;
+        this.moduleManager = moduleManager;
+        open();
+    }
+
+    /**
+     * @param assetType     The name of the asset type, used as name of the cache file
+     * @param dataVersion   The version of the binary form the format stores its data in
+     * @param moduleManager The module manager, used to look up the versions of the modules providing the assets
+     * @return The cache of the asset type in the cache directory of the game, or null if there is no cache directory
+     */
+    public static ParsedAssetCache forAssetType(String assetType, int dataVersion, ModuleManager moduleManager) {
+        Path cachePath = PathManager.getInstance().getCachePath();
+        if (cachePath == null) {
+            return null;
+        }
+        return new ParsedAssetCache(cachePath.resolve(CACHE_DIR).resolve(assetType + CACHE_EXTENSION), dataVersion, moduleManager);
+    }
+
+    /**
+     * @param input An asset file
+     * @return The full content of the file
+     * @throws IOException If the file could not be read
+     */
+    public static byte[] read(AssetDataFile input) throws IOException {
+        try (InputStream stream = input.openStream()) {
+            return ByteStreams.toByteArray(stream);
+        }
+    }
+
+    /**
+     * @param urn     The urn of an asset
+     * @param content The content of the file the asset is loaded from
+     * @return The key the parsed asset is stored with and looked up by
+     */
+    public String key(ResourceUrn urn, byte[] content) {
+        Module module = moduleManager.getEnvironment().get(urn.getModuleName());
+        String moduleVersion = (module == null) ? "" : module.getVersion().toString();
+        return moduleVersion + "/" + Hashing.murmur3_128().hashBytes(content);
+    }
+
+    /**
+     * @param urn The urn of an asset
+     * @param key The current key of the asset, see {@link #key(ResourceUrn, byte[])}
+     * @return The data stored for the asset, or null if there is none for this key
+     */
+    public synchronized ByteBuffer get(ResourceUrn urn, String key) {
+        Entry entry = entries.get(urn.toString());
+        if (entry == null || !entry.key.equals(key)) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.data.duplicate();
+    }
+
+    /**
+     * Stores the data of a parsed asset, replacing any data stored for it before.
+     *
+     * @param urn  The urn of the asset
+     * @param key  The key of the asset, see {@link #key(ResourceUrn, byte[])}
+     * @param data The binary form of the parsed asset
+     */
+    public synchronized void put(ResourceUrn urn, String key, byte[] data) {
+        String name = urn.toString();
+        entries.put(name, new Entry(key, ByteBuffer.wrap(data).asReadOnlyBuffer()));
+        if (!writable) {
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)))) {
+            writeEntry(out, name, key, data);
+        } catch (IOException e) {
+            logger.warn("Failed to store {} in asset cache {}, no longer writing to it", urn, file, e);
+            writable = false;
+        }
+    }
+
+    /**
+     * @return The number of assets loaded from the cache so far
+     */
+    public synchronized int getHitCount() {
+        return hits;
+    }
+
+    /**
+     * @return The number of assets looked up but not found in the cache so far
+     */
+    public synchronized int getMissCount() {
+        return misses;
+    }
+
+    private synchronized void open() {
+        boolean rewrite = true;
+        try {
+            Files.createDirectories(file.getParent());
+            if (Files.isRegularFile(file)) {
+                rewrite = !isAppendable();
+                if (rewrite) {
+                    readEntries(ByteBuffer.wrap(Files.readAllBytes(file)));
+                } else if (!readEntries(map())) {
+                    logger.warn("Asset cache {} changed while it was opened, not writing to it", file);
+                    writable = false;
+                }
+            }
+        } catch (IOException e) {
+            logger.info("Discarding asset cache {}", file, e);
+            entries.clear();
+        }
+        if (rewrite) {
+            rewrite();
+        }
+    }
+
+    /**
+     * Checks the entries of the file without keeping their data, so that the file is only mapped if it is kept.
+     *
+     * @return Whether the file can be appended to as it is, otherwise it ends with an incomplete entry or is mostly stale
+     * @throws IOException If the file could not be read or is out of date
+     */
+    private boolean isAppendable() throws IOException {
+        Map<String, Long> sizes = Maps.newHashMap();
+        long fileSize;
+        try (CountingInputStream counter = new CountingInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            DataInputStream in = new DataInputStream(counter);
+            fileSize = Files.size(file);
+            if (fileSize < HEADER_BYTES || in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != dataVersion) {
+                throw new IOException("Asset cache is out of date");
+            }
+            while (counter.getCount() < fileSize) {
+                long start = counter.getCount();
+                String name = in.readUTF();
+                in.readUTF();
+                int length = in.readInt();
+                if (length < 0 || in.skipBytes(length) < length) {
+                    return false;
+                }
+                sizes.put(name, counter.getCount() - start);
+            }
+        } catch (EOFException e) {
+            // Writing the last entry was interrupted
+            return false;
+        }
+        long liveBytes = HEADER_BYTES;
+        for (long size : sizes.values()) {
+            liveBytes += size;
+        }
+        return liveBytes * 2 >= fileSize;
+    }
+
+    private ByteBuffer map() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * @param data The content of the file
+     * @return Whether all entries of the file were read, otherwise it ends with an incomplete entry or is mostly stale
+     * @throws IOException If the file is out of date
+     */
+    private boolean readEntries(ByteBuffer data) throws IOException {
+        if (data.remaining() < HEADER_BYTES || data.getInt() != MAGIC || data.getInt() != VERSION || data.getInt() != dataVersion) {
+            throw new IOException("Asset cache is out of date");
+        }
+        Map<String, Integer> sizes = Maps.newHashMap();
+        try {
+            while (data.hasRemaining()) {
+                int start = data.position();
+                String name = readString(data);
+                String key = readString(data);
+                int length = data.getInt();
+                if (length < 0 || length > data.remaining()) {
+                    throw new BufferUnderflowException();
+                }
+                ByteBuffer entryData = data.slice();
+                entryData.limit(length);
+                data.position(data.position() + length);
+                entries.put(name, new Entry(key, entryData.asReadOnlyBuffer()));
+                sizes.put(name, data.position() - start);
+            }
+        } catch (BufferUnderflowException e) {
+            // Writing the last entry was interrupted, the ones before are intact
+            logger.debug("Asset cache {} ends with an incomplete entry", file);
+            return false;
+        }
+        long liveBytes = HEADER_BYTES;
+        for (int size : sizes.values()) {
+            liveBytes += size;
+        }
+        return liveBytes * 2 >= data.limit();
+    }
+
+    /**
+     * Writes the cache file from scratch, containing the current entries only. Each entry keeps a copy of its own data,
+     * rather than a slice of the content of the replaced file.
+     */
+    private void rewrite() {
+        Path temp = file.resolveSibling(file.getFileName() + TEMP_EXTENSION);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(dataVersion);
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    ByteBuffer data = entry.getValue().data.duplicate();
+                    byte[] bytes = new byte[data.remaining()];
+                    data.get(bytes);
+                    writeEntry(out, entry.getKey(), entry.getValue().key, bytes);
+                    entry.setValue(new Entry(entry.getValue().key, ByteBuffer.wrap(bytes).asReadOnlyBuffer()));
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to write asset cache {}, not writing to it", file, e);
+            writable = false;
+        }
+    }
+
+    private static void writeEntry(DataOutputStream out, String name, String key, byte[] data) throws IOException {
+        out.writeUTF(name);
+        out.writeUTF(key);
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    private static String readString(ByteBuffer data) {
+        int length = data.getShort() & 0xFFFF;
+        if (length > data.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        data.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final ByteBuffer data;
+
+        Entry(String key, ByteBuffer data) {
+            this.key = key;
+            this.data = data;
+        }
+    }
+}
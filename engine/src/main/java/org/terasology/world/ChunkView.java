@@ -17,8 +17,11 @@
 
 import org.terasology.math.Region3i;
 import org.terasology.math.geom.Vector3i;
+import org.terasology.registry.CoreRegistry;
 import org.terasology.world.biomes.Biome;
 import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockTable;
 import org.terasology.world.liquid.LiquidData;
 
 /**
@@ -52,6 +55,24 @@ public interface ChunkView {
      */
     Block getBlock(int x, int y, int z);
 
+    /**
+     * @param x
+     * @param y
+     * @param z
+     * @return The id of the block at the given coordinates, to be looked up in {@link #getBlockTable()}. If this is
+     * outside of the view then the id of the air block is returned
+     */
+    default short getBlockId(int x, int y, int z) {
+        return getBlock(x, y, z).getId();
+    }
+
+    /**
+     * @return The snapshot of the block registry the block ids of this view refer to
+     */
+    default BlockTable getBlockTable() {
+        return CoreRegistry.get(BlockManager.class).getBlockTable();
+    }
+
     /**
      * @param x
      * @param y
@@ -83,4 +83,11 @@ public abstract class BlockManager {
      */
     public abstract Collection<Block> listRegisteredBlocks();
 
+    /**
+     * @return A snapshot of the registered blocks and their most used properties by id, for reading many blocks by id
+     */
+    public BlockTable getBlockTable() {
+        return BlockTable.of(listRegisteredBlocks());
+    }
+
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.block;
+
+import org.terasology.math.Side;
+
+/**
+ * An immutable snapshot of the registered blocks, indexed by block id. Besides the blocks themselves it holds the
+ * block properties read most often by per-voxel loops, such as lighting and tessellation, in primitive arrays. Loops
+ * that read raw ids from chunk storage can use these without dereferencing the blocks.
+ * <br><br>
+ * A new table is published whenever blocks are registered, so a table should be fetched again for each batch of work
+ * rather than kept. Ids without a registered block read as null blocks with the properties of air.
+ *
+ */
+public final class BlockTable {
+
+    private static final int TRANSLUCENT = 1;
+    private static final int SHADOW_CASTING = 1 << 1;
+    private static final int LIQUID = 1 << 2;
+    private static final int OCCLUDING = 1 << 3;
+    private static final int FULL_SIDE_SHIFT = 4;
+    private static final int ALL_FULL_SIDES = ((1 << Side.values().length) - 1) << FULL_SIDE_SHIFT;
+    private static final int UNREGISTERED_FLAGS = TRANSLUCENT;
+
+    private static final BlockTable EMPTY = new BlockTable(new Block[0]);
+
+    private final Block[] blocks;
+    private final int[] flags;
+    private final byte[] luminance;
+
+    private BlockTable(Block[] blocks) {
+        this.blocks = blocks;
+        this.flags = new int[blocks.length];
+        this.luminance = new byte[blocks.length];
+        for (int id = 0; id < blocks.length; id++) {
+            Block block = blocks[id];
+            if (block == null) {
+                flags[id] = UNREGISTERED_FLAGS;
+                continue;
+            }
+            int blockFlags = 0;
+            if (block.isTranslucent()) {
+                blockFlags |= TRANSLUCENT;
+            }
+            if (block.isShadowCasting()) {
+                blockFlags |= SHADOW_CASTING;
+            }
+            if (block.isLiquid()) {
+                blockFlags |= LIQUID;
+            }
+            for (Side side : Side.values()) {
+                if (block.isFullSide(side)) {
+                    blockFlags |= 1 << (FULL_SIDE_SHIFT + side.ordinal());
+                }
+            }
+            if (block.getMeshGenerator() != null && !block.isTranslucent() && (blockFlags & ALL_FULL_SIDES) == ALL_FULL_SIDES) {
+                blockFlags |= OCCLUDING;
+            }
+            flags[id] = blockFlags;
+            luminance[id] = block.getLuminance();
+        }
+    }
+
+    /**
+     * @return A table without blocks
+     */
+    public static BlockTable empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param registeredBlocks The blocks to index, with distinct ids
+     * @return A table of the given blocks by id
+     */
+    public static BlockTable of(Iterable<Block> registeredBlocks) {
+        int size = 0;
+        for (Block block : registeredBlocks) {
+            size = Math.max(size, index(block.getId()) + 1);
+        }
+        Block[] blocks = new Block[size];
+        for (Block block : registeredBlocks) {
+            blocks[index(block.getId())] = block;
+        }
+        return new BlockTable(blocks);
+    }
+
+    /**
+     * @return One more than the largest registered id
+     */
+    public int size() {
+        return blocks.length;
+    }
+
+    /**
+     * @return The block with the given id, or null if there is none
+     */
+    public Block getBlock(short id) {
+        int index = index(id);
+        return (index < blocks.length) ? blocks[index] : null;
+    }
+
+    public boolean isTranslucent(short id) {
+        return (flags(id) & TRANSLUCENT) != 0;
+    }
+
+    public boolean isShadowCasting(short id) {
+        return (flags(id) & SHADOW_CASTING) != 0;
+    }
+
+    public boolean isLiquid(short id) {
+        return (flags(id) & LIQUID) != 0;
+    }
+
+    public boolean isFullSide(short id, Side side) {
+        return (flags(id) & (1 << (FULL_SIDE_SHIFT + side.ordinal()))) != 0;
+    }
+
+    /**
+     * @return Whether the block is drawn, opaque and full on all sides, so that it hides everything behind it
+     */
+    public boolean isOccluding(short id) {
+        return (flags(id) & OCCLUDING) != 0;
+    }
+
+    public byte getLuminance(short id) {
+        int index = index(id);
+        return (index < luminance.length) ? luminance[index] : 0;
+    }
+
+    private int flags(short id) {
+        int index = index(id);
+        return (index < flags.length) ? flags[index] : UNREGISTERED_FLAGS;
+    }
+
+    private static int index(short id) {
+        return id & 0xFFFF;
+    }
+}
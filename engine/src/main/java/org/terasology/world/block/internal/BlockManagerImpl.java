@@ -32,6 +32,7 @@
 import org.terasology.assets.management.AssetManager;
 import org.terasology.world.block.Block;
 import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockTable;
 import org.terasology.world.block.BlockUri;
 import org.terasology.world.block.BlockUriParseException;
 import org.terasology.world.block.family.BlockFamily;
@@ -182,6 +183,7 @@ protected void registerFamily(BlockFamily family) {
             for (Block block : family.getBlocks()) {
                 registerBlock(block, newState);
             }
+            newState.blockTable = BlockTable.of(newState.blocksById.valueCollection());
             registeredBlockInfo.set(newState);
         } finally {
             lock.unlock();
@@ -315,7 +317,7 @@ public Block getBlock(BlockUri uri) {
 
     @Override
     public Block getBlock(short id) {
-        Block result = registeredBlockInfo.get().blocksById.get(id);
+        Block result = registeredBlockInfo.get().blockTable.getBlock(id);
         if (result == null) {
             return getAirBlock();
         }
@@ -342,6 +344,11 @@ public Collection<Block> listRegisteredBlocks() {
         return ImmutableList.copyOf(registeredBlockInfo.get().blocksById.valueCollection());
     }
 
+    @Override
+    public BlockTable getBlockTable() {
+        return registeredBlockInfo.get().blockTable;
+    }
+
     private static class RegisteredState {
         private final Map<BlockUri, BlockFamily> registeredFamilyByUri;
 
@@ -350,6 +357,11 @@ private static class RegisteredState {
         private final TShortObjectMap<Block> blocksById;
         private final TObjectShortMap<BlockUri> idByUri;
 
+        /**
+         * Built from blocksById before the state is published, so block reads by id are a plain array access
+         */
+        private BlockTable blockTable = BlockTable.empty();
+
         RegisteredState() {
             this.registeredFamilyByUri = Maps.newHashMap();
             this.blocksByUri = Maps.newHashMap();
@@ -362,6 +374,7 @@ private static class RegisteredState {
             this.blocksByUri = Maps.newHashMap(oldState.blocksByUri);
             this.blocksById = new TShortObjectHashMap<>(oldState.blocksById);
             this.idByUri = new TObjectShortHashMap<>(oldState.idByUri);
+            this.blockTable = oldState.blockTable;
         }
     }
 
@@ -30,7 +30,10 @@
  *
  */
 public class BlockMeshPart {
-    private static final float BORDER = 1f / 128f;
+    /**
+     * The fraction of a texture atlas tile left as a border around the texture coordinates of a part.
+     */
+    public static final float BORDER = 1f / 128f;
 
     private Vector3f[] vertices;
     private Vector3f[] normals;
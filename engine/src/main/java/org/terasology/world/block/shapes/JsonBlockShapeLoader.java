@@ -19,6 +19,7 @@
 import com.bulletphysics.collision.shapes.BoxShape;
 import com.bulletphysics.collision.shapes.CollisionShape;
 import com.bulletphysics.collision.shapes.CompoundShape;
+import com.bulletphysics.collision.shapes.CompoundShapeChild;
 import com.bulletphysics.collision.shapes.ConvexHullShape;
 import com.bulletphysics.collision.shapes.SphereShape;
 import com.bulletphysics.linearmath.Transform;
@@ -35,33 +36,61 @@
 import com.google.gson.JsonParseException;
 import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TIntArrayList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.terasology.assets.ResourceUrn;
 import org.terasology.assets.format.AbstractAssetFileFormat;
 import org.terasology.assets.format.AssetDataFile;
-import org.terasology.assets.module.annotations.RegisterAssetFileFormat;
 import org.terasology.math.Rotation;
+import org.terasology.math.Side;
 import org.terasology.math.VecMath;
 import org.terasology.math.geom.Vector2f;
 import org.terasology.math.geom.Vector3f;
+import org.terasology.utilities.ParsedAssetCache;
 import org.terasology.utilities.gson.Vector2fTypeAdapter;
 import org.terasology.utilities.gson.Vector3fTypeAdapter;
 import org.terasology.world.block.BlockPart;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Locale;
 
 /**
  */
-@RegisterAssetFileFormat
 public class JsonBlockShapeLoader extends AbstractAssetFileFormat<BlockShapeData> {
+    /**
+     * The version of the shape data stored in a {@link ParsedAssetCache}, see {@link #encode(BlockShapeData)}.
+     */
+    public static final int CACHE_VERSION = 1;
+
     private static final BoxShape CUBE_SHAPE = new BoxShape(new javax.vecmath.Vector3f(0.5f, 0.5f, 0.5f));
+    private static final Logger logger = LoggerFactory.getLogger(JsonBlockShapeLoader.class);
+
+    private static final byte BOX_SHAPE = 0;
+    private static final byte SPHERE_SHAPE = 1;
+    private static final byte CONVEX_HULL_SHAPE = 2;
+    private static final byte COMPOUND_SHAPE = 3;
+
     private Gson gson;
+    private ParsedAssetCache cache;
 
     public JsonBlockShapeLoader() {
+        this(null);
+    }
+
+    /**
+     * @param cache The cache to skip parsing unchanged shapes with, or null
+     */
+    public JsonBlockShapeLoader(ParsedAssetCache cache) {
         super("shape");
+        this.cache = cache;
         gson = new GsonBuilder()
                 .setPrettyPrinting()
                 .registerTypeAdapter(BlockShapeData.class, new BlockShapeHandler())
@@ -73,11 +102,176 @@ public JsonBlockShapeLoader() {
 
     @Override
     public BlockShapeData load(ResourceUrn resourceUrn, List<AssetDataFile> inputs) throws IOException {
-        try (InputStreamReader reader = new InputStreamReader(inputs.get(0).openStream(), Charsets.UTF_8)) {
+        if (cache == null) {
+            return readJson(inputs.get(0).openStream());
+        }
+
+        byte[] content = ParsedAssetCache.read(inputs.get(0));
+        String key = cache.key(resourceUrn, content);
+        ByteBuffer cached = cache.get(resourceUrn, key);
+        if (cached != null) {
+            try {
+                return decode(cached);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to read cached shape {}, parsing it again", resourceUrn, e);
+            }
+        }
+        BlockShapeData data = readJson(new ByteArrayInputStream(content));
+        try {
+            cache.put(resourceUrn, key, encode(data));
+        } catch (IOException e) {
+            logger.debug("Not caching shape {}", resourceUrn, e);
+        }
+        return data;
+    }
+
+    private BlockShapeData readJson(InputStream stream) throws IOException {
+        try (InputStreamReader reader = new InputStreamReader(stream, Charsets.UTF_8)) {
             return gson.fromJson(reader, BlockShapeData.class);
         }
     }
 
+    /**
+     * Writes a shape in the binary form stored in the cache: the display name, symmetry, mesh parts, full sides and
+     * collision shape, in that order.
+     *
+     * @param shape The shape to write
+     * @return The binary form of the shape
+     * @throws IOException If the shape has a collision shape this loader does not create
+     */
+    private static byte[] encode(BlockShapeData shape) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        byte[] displayName = shape.getDisplayName().getBytes(Charsets.UTF_8);
+        out.writeInt(displayName.length);
+        out.write(displayName);
+        out.writeBoolean(shape.isYawSymmetric());
+        out.writeBoolean(shape.isPitchSymmetric());
+        out.writeBoolean(shape.isRollSymmetric());
+        for (BlockPart part : BlockPart.values()) {
+            BlockMeshPart meshPart = shape.getMeshPart(part);
+            out.writeBoolean(meshPart != null);
+            if (meshPart != null) {
+                out.writeInt(meshPart.size());
+                for (int i = 0; i < meshPart.size(); i++) {
+                    writeVector(out, meshPart.getVertex(i));
+                    writeVector(out, meshPart.getNormal(i));
+                    out.writeFloat(meshPart.getTexCoord(i).x);
+                    out.writeFloat(meshPart.getTexCoord(i).y);
+                }
+                out.writeInt(meshPart.indicesSize());
+                for (int i = 0; i < meshPart.indicesSize(); i++) {
+                    out.writeInt(meshPart.getIndex(i));
+                }
+            }
+        }
+        for (Side side : Side.values()) {
+            out.writeBoolean(shape.isBlockingSide(side));
+        }
+        writeVector(out, shape.getCollisionOffset());
+        writeCollisionShape(out, shape.getCollisionShape());
+        return bytes.toByteArray();
+    }
+
+    private static void writeCollisionShape(DataOutputStream out, CollisionShape shape) throws IOException {
+        if (shape instanceof BoxShape) {
+            out.writeByte(BOX_SHAPE);
+            writeVector(out, VecMath.from(((BoxShape) shape).getHalfExtentsWithMargin(new javax.vecmath.Vector3f())));
+        } else if (shape instanceof SphereShape) {
+            out.writeByte(SPHERE_SHAPE);
+            out.writeFloat(((SphereShape) shape).getRadius());
+        } else if (shape instanceof ConvexHullShape) {
+            ObjectArrayList<javax.vecmath.Vector3f> points = ((ConvexHullShape) shape).getPoints();
+            out.writeByte(CONVEX_HULL_SHAPE);
+            out.writeInt(points.size());
+            for (javax.vecmath.Vector3f point : points) {
+                writeVector(out, VecMath.from(point));
+            }
+        } else if (shape instanceof CompoundShape) {
+            ObjectArrayList<CompoundShapeChild> children = ((CompoundShape) shape).getChildList();
+            out.writeByte(COMPOUND_SHAPE);
+            out.writeInt(children.size());
+            for (CompoundShapeChild child : children) {
+                writeVector(out, VecMath.from(child.transform.origin));
+                writeCollisionShape(out, child.childShape);
+            }
+        } else {
+            throw new IOException("Unsupported collision shape " + shape);
+        }
+    }
+
+    private static BlockShapeData decode(ByteBuffer data) {
+        BlockShapeData shape = new BlockShapeData();
+        byte[] displayName = new byte[data.getInt()];
+        data.get(displayName);
+        shape.setDisplayName(new String(displayName, Charsets.UTF_8));
+        shape.setYawSymmetric(data.get() != 0);
+        shape.setPitchSymmetric(data.get() != 0);
+        shape.setRollSymmetric(data.get() != 0);
+        for (BlockPart part : BlockPart.values()) {
+            if (data.get() != 0) {
+                int size = data.getInt();
+                Vector3f[] vertices = new Vector3f[size];
+                Vector3f[] normals = new Vector3f[size];
+                Vector2f[] texCoords = new Vector2f[size];
+                for (int i = 0; i < size; i++) {
+                    vertices[i] = readVector(data);
+                    normals[i] = readVector(data);
+                    texCoords[i] = new Vector2f(data.getFloat(), data.getFloat());
+                }
+                int[] indices = new int[data.getInt()];
+                for (int i = 0; i < indices.length; i++) {
+                    indices[i] = data.getInt();
+                }
+                shape.setMeshPart(part, new BlockMeshPart(vertices, normals, texCoords, indices));
+            }
+        }
+        for (Side side : Side.values()) {
+            shape.setBlockingSide(side, data.get() != 0);
+        }
+        shape.setCollisionOffset(readVector(data));
+        shape.setCollisionShape(readCollisionShape(data));
+        return shape;
+    }
+
+    private static CollisionShape readCollisionShape(ByteBuffer data) {
+        byte type = data.get();
+        switch (type) {
+            case BOX_SHAPE:
+                return new BoxShape(VecMath.to(readVector(data)));
+            case SPHERE_SHAPE:
+                return new SphereShape(data.getFloat());
+            case CONVEX_HULL_SHAPE:
+                int pointCount = data.getInt();
+                ObjectArrayList<javax.vecmath.Vector3f> points = new ObjectArrayList<>();
+                for (int i = 0; i < pointCount; i++) {
+                    points.add(VecMath.to(readVector(data)));
+                }
+                return new ConvexHullShape(points);
+            case COMPOUND_SHAPE:
+                int childCount = data.getInt();
+                CompoundShape compound = new CompoundShape();
+                for (int i = 0; i < childCount; i++) {
+                    Vector3f offset = readVector(data);
+                    Transform transform = new Transform(new javax.vecmath.Matrix4f(VecMath.to(Rotation.none().getQuat4f()), VecMath.to(offset), 1.0f));
+                    compound.addChildShape(transform, readCollisionShape(data));
+                }
+                return compound;
+            default:
+                throw new IllegalArgumentException("Unknown collision shape type " + type);
+        }
+    }
+
+    private static void writeVector(DataOutputStream out, Vector3f vector) throws IOException {
+        out.writeFloat(vector.x);
+        out.writeFloat(vector.y);
+        out.writeFloat(vector.z);
+    }
+
+    private static Vector3f readVector(ByteBuffer data) {
+        return new Vector3f(data.getFloat(), data.getFloat(), data.getFloat());
+    }
+
 
     private static class BlockShapeHandler implements JsonDeserializer<BlockShapeData> {
 
@@ -95,6 +95,13 @@ public interface ChunkProvider {
      */
     void beginUpdate();
 
+    /**
+     * Restores, regardless of any time budget, the entities of loaded chunks that are still being restored over several
+     * frames. Must be called before the entities are saved, so that no chunk is saved without some of its entities.
+     */
+    default void finishRestoringEntities() {
+    }
+
     /**
      * @param pos the chunk coordinates
      * @return whether this chunk was purged successfully or not
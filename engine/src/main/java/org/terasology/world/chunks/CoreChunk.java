@@ -19,8 +19,11 @@
 import org.terasology.math.geom.BaseVector3i;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.module.sandbox.API;
+import org.terasology.registry.CoreRegistry;
 import org.terasology.world.biomes.Biome;
 import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockTable;
 import org.terasology.world.liquid.LiquidData;
 
 /**
@@ -43,6 +46,20 @@ public interface CoreChunk {
 
     Block getBlock(int x, int y, int z);
 
+    /**
+     * @return The id of the block at the given position, to be looked up in {@link #getBlockTable()}
+     */
+    default short getBlockId(int x, int y, int z) {
+        return getBlock(x, y, z).getId();
+    }
+
+    /**
+     * @return The current snapshot of the block registry, which gives the properties of blocks by id
+     */
+    default BlockTable getBlockTable() {
+        return CoreRegistry.get(BlockManager.class).getBlockTable();
+    }
+
     Block setBlock(int x, int y, int z, Block block);
 
     Block setBlock(BaseVector3i pos, Block block);
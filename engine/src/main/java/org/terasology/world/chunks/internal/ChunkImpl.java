@@ -32,6 +32,7 @@
 import org.terasology.world.biomes.BiomeManager;
 import org.terasology.world.block.Block;
 import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockTable;
 import org.terasology.world.chunks.Chunk;
 import org.terasology.world.chunks.ChunkBlockIterator;
 import org.terasology.world.chunks.ChunkConstants;
@@ -154,6 +155,16 @@ public final Block getBlock(int x, int y, int z) {
         return blockManager.getBlock(id);
     }
 
+    @Override
+    public final short getBlockId(int x, int y, int z) {
+        return (short) blockData.get(x, y, z);
+    }
+
+    @Override
+    public BlockTable getBlockTable() {
+        return blockManager.getBlockTable();
+    }
+
     @Override
     public Block setBlock(int x, int y, int z, Block block) {
         if (blockData == blockDataSnapshot) {
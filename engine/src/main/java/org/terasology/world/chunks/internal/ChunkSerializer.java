@@ -17,6 +17,8 @@
 
 import com.google.common.base.Preconditions;
 import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
 import gnu.trove.list.TByteList;
 import gnu.trove.list.array.TByteArrayList;
 import org.terasology.math.geom.Vector3i;
@@ -28,11 +30,26 @@
 import org.terasology.world.chunks.blockdata.TeraArray;
 import org.terasology.world.chunks.blockdata.TeraDenseArray16Bit;
 import org.terasology.world.chunks.blockdata.TeraDenseArray8Bit;
+import org.terasology.world.chunks.blockdata.TeraSparseArray16Bit;
+import org.terasology.world.chunks.blockdata.TeraSparseArray8Bit;
+
+import java.io.IOException;
+import java.util.Arrays;
 
 /**
  */
 public final class ChunkSerializer {
 
+    private static final int SIZE_XZ = ChunkConstants.SIZE_X * ChunkConstants.SIZE_Z;
+    private static final int SIZE_XYZ = SIZE_XZ * ChunkConstants.SIZE_Y;
+
+    // Decoded arrays with fewer layers holding a single value are dense, like in TeraStandardDeflator
+    private static final int DEFLATE_MINIMUM_16BIT = 8;
+    private static final int DEFLATE_MINIMUM_8BIT = 16;
+
+    private static final int RUN_BUFFER_CAPACITY = 4096;
+    private static final ThreadLocal<RunBuffer> RUN_BUFFERS = ThreadLocal.withInitial(RunBuffer::new);
+
     private ChunkSerializer() {
     }
 
@@ -119,32 +136,257 @@ private static EntityData.RunLengthEncoding8 runLengthEncode8(TeraArray array) {
         return builder.build();
     }
 
+    /**
+     * Reads a run length encoded array of 16 bit values, such as the block data of a chunk, from the length delimited
+     * field the input is positioned at. The runs are decoded straight into the array.
+     *
+     * @param input The input, positioned after the tag of the field
+     * @return The decoded array, sparse if most of its layers hold a single value
+     * @throws IOException If the input could not be read
+     */
+    public static TeraArray decodeRunLengths16(CodedInputStream input) throws IOException {
+        RunBuffer buffer = RUN_BUFFERS.get();
+        buffer.clear();
+        int oldLimit = input.pushLimit(input.readRawVarint32());
+        while (true) {
+            int tag = input.readTag();
+            int field = WireFormat.getTagFieldNumber(tag);
+            if (tag == 0) {
+                break;
+            } else if (field == EntityData.RunLengthEncoding16.RUNLENGTHS_FIELD_NUMBER) {
+                readSInt32s(input, tag, buffer.runLengths);
+            } else if (field == EntityData.RunLengthEncoding16.VALUES_FIELD_NUMBER) {
+                readSInt32s(input, tag, buffer.values);
+            } else if (!input.skipField(tag)) {
+                break;
+            }
+        }
+        input.popLimit(oldLimit);
+        Preconditions.checkState(buffer.values.size() == buffer.runLengths.size(), "Expected same number of values as runs");
+        return runLengthDecode16(buffer.runLengths.array(), buffer.values.array(), buffer.runLengths.size());
+    }
+
+    /**
+     * Reads a run length encoded array of 8 bit values, such as the liquid data of a chunk, from the length delimited
+     * field the input is positioned at. The runs are decoded straight into the array.
+     *
+     * @param input The input, positioned after the tag of the field
+     * @return The decoded array, sparse if most of its layers hold a single value
+     * @throws IOException If the input could not be read
+     */
+    public static TeraArray decodeRunLengths8(CodedInputStream input) throws IOException {
+        RunBuffer buffer = RUN_BUFFERS.get();
+        buffer.clear();
+        byte[] values = new byte[0];
+        int oldLimit = input.pushLimit(input.readRawVarint32());
+        while (true) {
+            int tag = input.readTag();
+            int field = WireFormat.getTagFieldNumber(tag);
+            if (tag == 0) {
+                break;
+            } else if (field == EntityData.RunLengthEncoding8.RUNLENGTHS_FIELD_NUMBER) {
+                readSInt32s(input, tag, buffer.runLengths);
+            } else if (field == EntityData.RunLengthEncoding8.VALUES_FIELD_NUMBER) {
+                values = input.readRawBytes(input.readRawVarint32());
+            } else if (!input.skipField(tag)) {
+                break;
+            }
+        }
+        input.popLimit(oldLimit);
+        Preconditions.checkState(values.length == buffer.runLengths.size(), "Expected same number of values as runs");
+        return runLengthDecode8(buffer.runLengths.array(), values, buffer.runLengths.size());
+    }
+
     private static TeraArray runLengthDecode(EntityData.RunLengthEncoding16 data) {
         Preconditions.checkState(data.getValuesCount() == data.getRunLengthsCount(), "Expected same number of values as runs");
-        short[] decodedData = new short[ChunkConstants.SIZE_X * ChunkConstants.SIZE_Y * ChunkConstants.SIZE_Z];
-        int index = 0;
-        for (int pos = 0; pos < data.getValuesCount(); ++pos) {
-            int length = data.getRunLengths(pos);
-            short value = (short) data.getValues(pos);
-            for (int i = 0; i < length; ++i) {
-                decodedData[index++] = value;
-            }
+        RunBuffer buffer = RUN_BUFFERS.get();
+        buffer.clear();
+        for (int pos = 0; pos < data.getRunLengthsCount(); ++pos) {
+            buffer.runLengths.add(data.getRunLengths(pos));
+            buffer.values.add(data.getValues(pos));
         }
-        return new TeraDenseArray16Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z, decodedData);
+        return runLengthDecode16(buffer.runLengths.array(), buffer.values.array(), buffer.runLengths.size());
     }
 
     private static TeraArray runLengthDecode(EntityData.RunLengthEncoding8 data) {
         Preconditions.checkState(data.getValues().size() == data.getRunLengthsCount(), "Expected same number of values as runs");
-        byte[] decodedData = new byte[ChunkConstants.SIZE_X * ChunkConstants.SIZE_Y * ChunkConstants.SIZE_Z];
-        int index = 0;
-        ByteString.ByteIterator valueSource = data.getValues().iterator();
+        RunBuffer buffer = RUN_BUFFERS.get();
+        buffer.clear();
         for (int pos = 0; pos < data.getRunLengthsCount(); ++pos) {
-            int length = data.getRunLengths(pos);
-            byte value = valueSource.nextByte();
-            for (int i = 0; i < length; ++i) {
-                decodedData[index++] = value;
+            buffer.runLengths.add(data.getRunLengths(pos));
+        }
+        return runLengthDecode8(buffer.runLengths.array(), data.getValues().toByteArray(), buffer.runLengths.size());
+    }
+
+    private static TeraArray runLengthDecode16(int[] runLengths, int[] values, int runCount) {
+        boolean[] uniformLayers = RUN_BUFFERS.get().uniformLayers;
+        int packed = findUniformLayers(runLengths, runCount, uniformLayers);
+        if (packed <= DEFLATE_MINIMUM_16BIT) {
+            short[] decodedData = new short[SIZE_XYZ];
+            int index = 0;
+            for (int pos = 0; pos < runCount; ++pos) {
+                int end = index + runLengths[pos];
+                Arrays.fill(decodedData, index, end, (short) values[pos]);
+                index = end;
             }
+            return new TeraDenseArray16Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z, decodedData);
+        }
+
+        short[][] inflated = new short[ChunkConstants.SIZE_Y][];
+        short[] deflated = new short[ChunkConstants.SIZE_Y];
+        int index = 0;
+        for (int pos = 0; pos < runCount; ++pos) {
+            int end = index + runLengths[pos];
+            short value = (short) values[pos];
+            while (index < end) {
+                int layer = index / SIZE_XZ;
+                int layerEnd = Math.min(end, (layer + 1) * SIZE_XZ);
+                if (uniformLayers[layer]) {
+                    deflated[layer] = value;
+                } else {
+                    if (inflated[layer] == null) {
+                        inflated[layer] = new short[SIZE_XZ];
+                    }
+                    Arrays.fill(inflated[layer], index - layer * SIZE_XZ, layerEnd - layer * SIZE_XZ, value);
+                }
+                index = layerEnd;
+            }
+        }
+        if (packed == ChunkConstants.SIZE_Y && isUniform(deflated)) {
+            return new TeraSparseArray16Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z, deflated[0]);
+        }
+        return new TeraSparseArray16Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z, inflated, deflated);
+    }
+
+    private static TeraArray runLengthDecode8(int[] runLengths, byte[] values, int runCount) {
+        boolean[] uniformLayers = RUN_BUFFERS.get().uniformLayers;
+        int packed = findUniformLayers(runLengths, runCount, uniformLayers);
+        if (packed <= DEFLATE_MINIMUM_8BIT) {
+            byte[] decodedData = new byte[SIZE_XYZ];
+            int index = 0;
+            for (int pos = 0; pos < runCount; ++pos) {
+                int end = index + runLengths[pos];
+                Arrays.fill(decodedData, index, end, values[pos]);
+                index = end;
+            }
+            return new TeraDenseArray8Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z, decodedData);
+        }
+
+        byte[][] inflated = new byte[ChunkConstants.SIZE_Y][];
+        byte[] deflated = new byte[ChunkConstants.SIZE_Y];
+        int index = 0;
+        for (int pos = 0; pos < runCount; ++pos) {
+            int end = index + runLengths[pos];
+            byte value = values[pos];
+            while (index < end) {
+                int layer = index / SIZE_XZ;
+                int layerEnd = Math.min(end, (layer + 1) * SIZE_XZ);
+                if (uniformLayers[layer]) {
+                    deflated[layer] = value;
+                } else {
+                    if (inflated[layer] == null) {
+                        inflated[layer] = new byte[SIZE_XZ];
+                    }
+                    Arrays.fill(inflated[layer], index - layer * SIZE_XZ, layerEnd - layer * SIZE_XZ, value);
+                }
+                index = layerEnd;
+            }
+        }
+        if (packed == ChunkConstants.SIZE_Y && isUniform(deflated)) {
+            return new TeraSparseArray8Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z, deflated[0]);
+        }
+        return new TeraSparseArray8Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z, inflated, deflated);
+    }
+
+    /**
+     * Finds the layers that hold a single value from the run lengths alone: a layer holds more than one value if a run
+     * starts anywhere but at its first element. Elements after the last run are 0, as trailing runs of 0 are not stored.
+     *
+     * @return The number of layers holding a single value
+     */
+    private static int findUniformLayers(int[] runLengths, int runCount, boolean[] uniformLayers) {
+        Arrays.fill(uniformLayers, true);
+        int packed = ChunkConstants.SIZE_Y;
+        int index = 0;
+        for (int pos = 0; pos < runCount; ++pos) {
+            Preconditions.checkState(runLengths[pos] >= 0, "Run lengths must not be negative");
+            index += runLengths[pos];
+            Preconditions.checkState(index <= SIZE_XYZ, "Runs exceed the size of a chunk");
+            if (index < SIZE_XYZ && index % SIZE_XZ != 0 && uniformLayers[index / SIZE_XZ]) {
+                uniformLayers[index / SIZE_XZ] = false;
+                packed--;
+            }
+        }
+        return packed;
+    }
+
+    private static boolean isUniform(short[] values) {
+        for (short value : values) {
+            if (value != values[0]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isUniform(byte[] values) {
+        for (byte value : values) {
+            if (value != values[0]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the elements of a repeated sint32 field, whether packed or not.
+     */
+    private static void readSInt32s(CodedInputStream input, int tag, IntList target) throws IOException {
+        if (WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+            int oldLimit = input.pushLimit(input.readRawVarint32());
+            while (input.getBytesUntilLimit() > 0) {
+                target.add(input.readSInt32());
+            }
+            input.popLimit(oldLimit);
+        } else {
+            target.add(input.readSInt32());
+        }
+    }
+
+    /**
+     * Per thread buffers for the runs of the array being decoded.
+     */
+    private static final class RunBuffer {
+        private final IntList runLengths = new IntList();
+        private final IntList values = new IntList();
+        private final boolean[] uniformLayers = new boolean[ChunkConstants.SIZE_Y];
+
+        void clear() {
+            runLengths.size = 0;
+            values.size = 0;
+        }
+    }
+
+    /**
+     * A list of ints, growing its backing array as needed. The array is exposed so runs can be decoded without copying.
+     */
+    private static final class IntList {
+        private int[] data = new int[RUN_BUFFER_CAPACITY];
+        private int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        int[] array() {
+            return data;
+        }
+
+        int size() {
+            return size;
         }
-        return new TeraDenseArray8Bit(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z, decodedData);
     }
 }
@@ -79,6 +79,7 @@
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -89,6 +90,7 @@ public class LocalChunkProvider implements GeneratingChunkProvider {
     private static final Logger logger = LoggerFactory.getLogger(LocalChunkProvider.class);
     private static final int UNLOAD_PER_FRAME = 64;
     private static final Vector3i UNLOAD_LEEWAY = Vector3i.one();
+    private static final long ENTITY_RESTORE_BUDGET = TimeUnit.MILLISECONDS.toNanos(4);
 
     private StorageManager storageManager;
     private final EntityManager entityManager;
@@ -104,6 +106,7 @@ public class LocalChunkProvider implements GeneratingChunkProvider {
     private final Set<Vector3i> preparingChunks = Sets.newHashSet();
     private final BlockingQueue<ReadyChunkInfo> readyChunks = Queues.newLinkedBlockingQueue();
     private List<ReadyChunkInfo> sortedReadyChunks = Lists.newArrayList();
+    private final List<RestoringChunk> restoringChunks = Lists.newArrayList();
     private final BlockingQueue<TShortObjectMap<TIntList>> deactivateBlocksQueue = Queues.newLinkedBlockingQueue();
 
     private EntityRef worldEntity = EntityRef.NULL;
@@ -243,46 +246,106 @@ public void removeRelevanceEntity(EntityRef entity) {
     public void completeUpdate() {
         ReadyChunkInfo readyChunkInfo = lightMerger.completeMerge();
         if (readyChunkInfo != null) {
-            Chunk chunk = readyChunkInfo.getChunk();
-            chunk.markReady();
-            updateAdjacentChunksReadyFieldOf(chunk);
-            updateAdjacentChunksReadyFieldOfAdjChunks(chunk);
-
-            if (readyChunkInfo.isNewChunk()) {
-                PerformanceMonitor.startActivity("Generating queued Entities");
-                readyChunkInfo.getEntities().forEach(this::generateQueuedEntities);
-                PerformanceMonitor.endActivity();
+            restoringChunks.add(new RestoringChunk(readyChunkInfo));
+        }
+        restoreEntities();
+    }
+
+    /**
+     * Creates the entities of ready chunks, within a time budget per frame so that chunks full of entities do not stall
+     * the game. Chunks closest to a relevance region are restored first. A chunk is only marked ready once all of its
+     * entities exist, so its blocks are not relevant while it is restoring and no temporary block entities get created
+     * for blocks whose stored entities are still pending. Its blocks are then activated and {@link OnChunkLoaded} is
+     * sent, so the events keep their order relative to the entities.
+     */
+    private void restoreEntities() {
+        long startTime = System.nanoTime();
+        if (!restoringChunks.isEmpty()) {
+            PerformanceMonitor.startActivity("Restoring Chunk Entities");
+            long deadline = startTime + ENTITY_RESTORE_BUDGET;
+            Collections.sort(restoringChunks,
+                    Comparator.comparing((RestoringChunk restoringChunk) -> restoringChunk.info, new ReadyChunkRelevanceComparator()));
+            for (int i = restoringChunks.size() - 1; i >= 0; i--) {
+                RestoringChunk restoringChunk = restoringChunks.get(i);
+                if (!restoringChunk.restoreEntities(deadline)) {
+                    break;
+                }
+                restoringChunks.remove(i);
+                completeChunkLoad(restoringChunk.info);
+                if (System.nanoTime() >= deadline) {
+                    break;
+                }
             }
+            PerformanceMonitor.endActivity();
+        }
 
-            if (readyChunkInfo.getChunkStore() != null) {
-                readyChunkInfo.getChunkStore().restoreEntities();
-            }
+        int unrestoredEntities = 0;
+        for (RestoringChunk restoringChunk : restoringChunks) {
+            unrestoredEntities += restoringChunk.getUnrestoredEntityCount();
+        }
+        PerformanceMonitor.setCounter("Entity Restore Backlog", unrestoredEntities);
+        PerformanceMonitor.setCounter("Entity Restore Chunks", restoringChunks.size());
+        PerformanceMonitor.setCounter("Entity Restore Time (ms)", (System.nanoTime() - startTime) / 1000000.0);
+    }
 
-            if (!readyChunkInfo.isNewChunk()) {
-                PerformanceMonitor.startActivity("Sending OnAddedBlocks");
-                readyChunkInfo.getBlockPositionMapppings().forEachEntry((id, positions) -> {
-                    if (positions.size() > 0) {
-                        blockManager.getBlock(id).getEntity().send(new OnAddedBlocks(positions, registry));
-                    }
-                    return true;
-                });
-                PerformanceMonitor.endActivity();
+    @Override
+    public void finishRestoringEntities() {
+        List<RestoringChunk> pendingChunks = Lists.newArrayList(restoringChunks);
+        restoringChunks.clear();
+        for (RestoringChunk restoringChunk : pendingChunks) {
+            restoringChunk.restoreEntities(Long.MAX_VALUE);
+            completeChunkLoad(restoringChunk.info);
+        }
+    }
+
+    /**
+     * Restores all remaining entities of a chunk, if it is still being restored, and completes its loading.
+     *
+     * @param pos The position of the chunk
+     */
+    private void finishRestoringEntities(Vector3i pos) {
+        Iterator<RestoringChunk> iterator = restoringChunks.iterator();
+        while (iterator.hasNext()) {
+            RestoringChunk restoringChunk = iterator.next();
+            if (restoringChunk.info.getPos().equals(pos)) {
+                iterator.remove();
+                restoringChunk.restoreEntities(Long.MAX_VALUE);
+                completeChunkLoad(restoringChunk.info);
+                return;
             }
+        }
+    }
 
-            PerformanceMonitor.startActivity("Sending OnActivateBlocks");
+    private void completeChunkLoad(ReadyChunkInfo readyChunkInfo) {
+        Chunk chunk = readyChunkInfo.getChunk();
+        chunk.markReady();
+        updateAdjacentChunksReadyFieldOf(chunk);
+        updateAdjacentChunksReadyFieldOfAdjChunks(chunk);
+
+        if (!readyChunkInfo.isNewChunk()) {
+            PerformanceMonitor.startActivity("Sending OnAddedBlocks");
             readyChunkInfo.getBlockPositionMapppings().forEachEntry((id, positions) -> {
                 if (positions.size() > 0) {
-                    blockManager.getBlock(id).getEntity().send(new OnActivatedBlocks(positions, registry));
+                    blockManager.getBlock(id).getEntity().send(new OnAddedBlocks(positions, registry));
                 }
                 return true;
             });
             PerformanceMonitor.endActivity();
+        }
 
-            if (readyChunkInfo.isNewChunk()) {
-                worldEntity.send(new OnChunkGenerated(readyChunkInfo.getPos()));
+        PerformanceMonitor.startActivity("Sending OnActivateBlocks");
+        readyChunkInfo.getBlockPositionMapppings().forEachEntry((id, positions) -> {
+            if (positions.size() > 0) {
+                blockManager.getBlock(id).getEntity().send(new OnActivatedBlocks(positions, registry));
             }
-            worldEntity.send(new OnChunkLoaded(readyChunkInfo.getPos()));
+            return true;
+        });
+        PerformanceMonitor.endActivity();
+
+        if (readyChunkInfo.isNewChunk()) {
+            worldEntity.send(new OnChunkGenerated(readyChunkInfo.getPos()));
         }
+        worldEntity.send(new OnChunkLoaded(readyChunkInfo.getPos()));
     }
 
     private void generateQueuedEntities(EntityStore store) {
@@ -387,6 +450,7 @@ private void checkForUnload() {
     }
 
     private boolean unloadChunkInternal(Vector3i pos) {
+        finishRestoringEntities(pos);
         Chunk chunk = nearCache.get(pos);
         if (!chunk.isReady()) {
             // Chunk hasn't been finished or changed, so just drop it.
@@ -574,6 +638,7 @@ public void purgeWorld() {
         unloadRequestTaskMaster.shutdown(new ChunkUnloadRequest(), true);
         lightMerger.shutdown();
 
+        finishRestoringEntities();
         nearCache.values().stream().filter(ManagedChunk::isReady).forEach(chunk -> {
             worldEntity.send(new BeforeChunkUnload(chunk.getPosition()));
             storageManager.deactivateChunk(chunk);
@@ -620,6 +685,7 @@ public void run() {
                         generator.createChunk(chunk, buffer);
                     } else {
                         chunk = chunkStore.getChunk();
+                        chunkStore.prepareEntities();
                     }
 
                     InternalLightProcessor.generateInternalLighting(chunk);
@@ -651,6 +717,47 @@ private boolean isChunkReady(Chunk chunk) {
         return chunk != null && chunk.isReady();
     }
 
+    /**
+     * A ready chunk whose generated or stored entities are being created, see {@link #restoreEntities()}.
+     */
+    private class RestoringChunk {
+        private final ReadyChunkInfo info;
+        private int generatedEntities;
+
+        RestoringChunk(ReadyChunkInfo info) {
+            this.info = info;
+        }
+
+        /**
+         * Creates the entities of the chunk until all exist or the deadline has passed. At least one entity is created.
+         *
+         * @param deadline The value of {@link System#nanoTime()} after which to stop
+         * @return Whether all entities of the chunk exist
+         */
+        boolean restoreEntities(long deadline) {
+            List<EntityStore> entities = info.getEntities();
+            ChunkStore chunkStore = info.getChunkStore();
+            do {
+                if (generatedEntities < entities.size()) {
+                    generateQueuedEntities(entities.get(generatedEntities++));
+                } else if (chunkStore != null && chunkStore.getUnrestoredEntityCount() > 0) {
+                    chunkStore.restoreNextEntity();
+                } else {
+                    return true;
+                }
+            } while (System.nanoTime() < deadline);
+            return getUnrestoredEntityCount() == 0;
+        }
+
+        int getUnrestoredEntityCount() {
+            int count = info.getEntities().size() - generatedEntities;
+            if (info.getChunkStore() != null) {
+                count += info.getChunkStore().getUnrestoredEntityCount();
+            }
+            return count;
+        }
+    }
+
     private class ChunkTaskRelevanceComparator implements Comparator<ChunkTask> {
 
         @Override
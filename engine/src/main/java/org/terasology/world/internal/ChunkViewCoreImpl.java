@@ -25,6 +25,7 @@
 import org.terasology.world.biomes.Biome;
 import org.terasology.world.biomes.BiomeManager;
 import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockTable;
 import org.terasology.world.chunks.Chunk;
 import org.terasology.world.chunks.ChunkConstants;
 import org.terasology.world.liquid.LiquidData;
@@ -44,6 +45,7 @@ public class ChunkViewCoreImpl implements ChunkViewCore {
     private Vector3i chunkFilterSize;
 
     private Block defaultBlock;
+    private BlockTable blockTable = BlockTable.empty();
 
     public ChunkViewCoreImpl(Chunk[] chunks, Region3i chunkRegion, Vector3i offset, Block defaultBlock) {
         this.chunkRegion = chunkRegion;
@@ -51,6 +53,12 @@ public ChunkViewCoreImpl(Chunk[] chunks, Region3i chunkRegion, Vector3i offset,
         this.offset = offset;
         setChunkSize(new Vector3i(ChunkConstants.SIZE_X, ChunkConstants.SIZE_Y, ChunkConstants.SIZE_Z));
         this.defaultBlock = defaultBlock;
+        for (Chunk chunk : chunks) {
+            if (chunk != null) {
+                blockTable = chunk.getBlockTable();
+                break;
+            }
+        }
     }
 
     @Override
@@ -87,6 +95,24 @@ public Block getBlock(int blockX, int blockY, int blockZ) {
                 ChunkMath.calcBlockPosZ(blockZ, chunkFilterSize.z));
     }
 
+    @Override
+    public short getBlockId(int blockX, int blockY, int blockZ) {
+        if (!blockRegion.encompasses(blockX, blockY, blockZ)) {
+            return defaultBlock.getId();
+        }
+
+        int chunkIndex = relChunkIndex(blockX, blockY, blockZ);
+        return chunks[chunkIndex].getBlockId(
+                ChunkMath.calcBlockPosX(blockX, chunkFilterSize.x),
+                ChunkMath.calcBlockPosY(blockY, chunkFilterSize.y),
+                ChunkMath.calcBlockPosZ(blockZ, chunkFilterSize.z));
+    }
+
+    @Override
+    public BlockTable getBlockTable() {
+        return blockTable;
+    }
+
     @Override
     public Biome getBiome(float x, float y, float z) {
         return getBiome(TeraMath.floorToInt(x + 0.5f), TeraMath.floorToInt(y + 0.5f), TeraMath.floorToInt(z + 0.5f));
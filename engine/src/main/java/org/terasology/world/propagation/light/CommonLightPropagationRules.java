@@ -17,6 +17,7 @@
 
 import org.terasology.math.Side;
 import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockTable;
 import org.terasology.world.propagation.PropagationComparison;
 import org.terasology.world.propagation.PropagationRules;
 
@@ -58,4 +59,18 @@ public boolean canSpreadOutOf(Block block, Side side) {
     public boolean canSpreadInto(Block block, Side side) {
         return block.isTranslucent() || !block.isFullSide(side);
     }
+
+    /**
+     * Same as {@link #canSpreadOutOf(Block, Side)}, for a raw block id.
+     */
+    public boolean canSpreadOutOf(BlockTable blockTable, short blockId, Side side) {
+        return blockTable.getLuminance(blockId) > 0 || blockTable.isTranslucent(blockId) || !blockTable.isFullSide(blockId, side);
+    }
+
+    /**
+     * Same as {@link #canSpreadInto(Block, Side)}, for a raw block id.
+     */
+    public boolean canSpreadInto(BlockTable blockTable, short blockId, Side side) {
+        return blockTable.isTranslucent(blockId) || !blockTable.isFullSide(blockId, side);
+    }
 }
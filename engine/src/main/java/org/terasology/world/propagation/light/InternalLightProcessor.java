@@ -19,6 +19,7 @@
 import org.terasology.math.Side;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockTable;
 import org.terasology.world.chunks.ChunkConstants;
 import org.terasology.world.chunks.LitChunk;
 import org.terasology.world.propagation.BatchPropagator;
@@ -33,7 +34,7 @@
 public final class InternalLightProcessor {
 
     private static final PropagationRules LIGHT_RULES = new LightPropagationRules();
-    private static final PropagationRules SUNLIGHT_REGEN_RULES = new SunlightRegenPropagationRules();
+    private static final SunlightRegenPropagationRules SUNLIGHT_REGEN_RULES = new SunlightRegenPropagationRules();
 
     private InternalLightProcessor() {
     }
@@ -46,13 +47,14 @@ public static void generateInternalLighting(LitChunk chunk) {
 
     private static void populateLight(LitChunk chunk) {
         BatchPropagator lightPropagator = new StandardBatchPropagator(LIGHT_RULES, new SingleChunkView(LIGHT_RULES, chunk));
+        BlockTable blockTable = chunk.getBlockTable();
         for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
             for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
                 for (int y = 0; y < ChunkConstants.SIZE_Y; y++) {
-                    Block block = chunk.getBlock(x, y, z);
-                    if (block.getLuminance() > 0) {
-                        chunk.setLight(x, y, z, block.getLuminance());
-                        lightPropagator.propagateFrom(new Vector3i(x, y, z), block.getLuminance());
+                    byte luminance = blockTable.getLuminance(chunk.getBlockId(x, y, z));
+                    if (luminance > 0) {
+                        chunk.setLight(x, y, z, luminance);
+                        lightPropagator.propagateFrom(new Vector3i(x, y, z), luminance);
                     }
                 }
             }
@@ -81,16 +83,23 @@ private static void populateSunlight(LitChunk chunk) {
     }
 
     private static void populateSunlightRegen(LitChunk chunk) {
+        BlockTable blockTable = chunk.getBlockTable();
         int top = ChunkConstants.SIZE_Y - 1;
         for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
             for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
                 int y = top;
                 byte regen = 0;
-                Block lastBlock = chunk.getBlock(x, y, z);
+                short lastBlock = chunk.getBlockId(x, y, z);
                 for (y -= 1; y >= 0; y--) {
-                    Block block = chunk.getBlock(x, y, z);
-                    if (SUNLIGHT_REGEN_RULES.canSpreadOutOf(lastBlock, Side.BOTTOM) && SUNLIGHT_REGEN_RULES.canSpreadInto(block, Side.TOP)) {
-                        regen = SUNLIGHT_REGEN_RULES.propagateValue(regen, Side.BOTTOM, lastBlock);
+                    short block = chunk.getBlockId(x, y, z);
+                    if (SUNLIGHT_REGEN_RULES.canSpreadOutOf(blockTable, lastBlock, Side.BOTTOM)
+                            && SUNLIGHT_REGEN_RULES.canSpreadInto(blockTable, block, Side.TOP)) {
+                        Block from = blockTable.getBlock(lastBlock);
+                        if (from == null) {
+                            // Registered after the table was taken, the chunk resolves it or falls back to air
+                            from = chunk.getBlock(x, y + 1, z);
+                        }
+                        regen = SUNLIGHT_REGEN_RULES.propagateValue(regen, Side.BOTTOM, from);
                         chunk.setSunlightRegen(x, y, z, regen);
                     } else {
                         regen = 0;
@@ -18,6 +18,7 @@
 import org.terasology.math.Side;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockTable;
 import org.terasology.world.chunks.ChunkConstants;
 import org.terasology.world.chunks.LitChunk;
 import org.terasology.world.propagation.PropagationComparison;
@@ -76,4 +77,14 @@ public boolean canSpreadOutOf(Block block, Side side) {
     public boolean canSpreadInto(Block block, Side side) {
         return !block.isLiquid() && super.canSpreadInto(block, side);
     }
+
+    @Override
+    public boolean canSpreadOutOf(BlockTable blockTable, short blockId, Side side) {
+        return side == Side.BOTTOM && !blockTable.isLiquid(blockId) && super.canSpreadOutOf(blockTable, blockId, side);
+    }
+
+    @Override
+    public boolean canSpreadInto(BlockTable blockTable, short blockId, Side side) {
+        return !blockTable.isLiquid(blockId) && super.canSpreadInto(blockTable, blockId, side);
+    }
 }
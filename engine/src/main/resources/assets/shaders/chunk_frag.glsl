@@ -68,6 +68,19 @@ varying vec3 sunVecView;
 varying vec3 normal;
 
 varying float blockHint;
+varying vec2 tileOrigin;
+
+// Must match BlockMeshPart.BORDER
+const float TILE_BORDER = 1.0 / 128.0;
+
+// Merged quads wrap their texture coordinates back into the tile, which makes the implicit derivatives jump at every
+// repeat. Sampling the atlas with the derivatives of the unwrapped coordinates keeps the mip selection of the whole face.
+#if defined (GL_ARB_shader_texture_lod)
+#define sampleAtlas(atlas, coord) texture2DGradARB(atlas, coord, atlasDx, atlasDy)
+#else
+#define sampleAtlas(atlas, coord) texture2D(atlas, coord)
+#endif
+
 varying float isUpside;
 
 uniform sampler2D textureAtlas;
@@ -86,6 +99,14 @@ void main() {
 #endif
 
     vec2 texCoord = gl_TexCoord[0].xy;
+    vec2 atlasDx = dFdx(texCoord);
+    vec2 atlasDy = dFdy(texCoord);
+
+    // Merged quads repeat their tile, so wrap the texture coordinates back into it
+    if (tileOrigin.x >= 0.0) {
+        vec2 tileCoord = fract((texCoord - tileOrigin) / TEXTURE_OFFSET);
+        texCoord = tileOrigin + (TILE_BORDER + tileCoord * (1.0 - 2.0 * TILE_BORDER)) * TEXTURE_OFFSET;
+    }
 
     vec3 normalizedVPos = -normalize(vertexViewPos.xyz);
     vec2 projectedPos = projectVertexToTexCoord(vertexProjPos);
@@ -111,14 +132,14 @@ void main() {
 #if defined (PARALLAX_MAPPING)
     vec3 eyeTangentSpace = tbn * vertexViewPos.xyz;
 
-    float height =  parallaxScale * texture2D(textureAtlasHeight, texCoord).r - parallaxBias;
+    float height =  parallaxScale * sampleAtlas(textureAtlasHeight, texCoord).r - parallaxBias;
 	texCoord += height * normalize(eyeTangentSpace).xy * TEXTURE_OFFSET;
 #endif
 
-    normalOpaque = normalize(texture2D(textureAtlasNormal, texCoord).xyz * 2.0 - 1.0);
+    normalOpaque = normalize(sampleAtlas(textureAtlasNormal, texCoord).xyz * 2.0 - 1.0);
     normalOpaque = normalize(tbn * normalOpaque);
 
-    shininess = texture2D(textureAtlasNormal, texCoord).w;
+    shininess = sampleAtlas(textureAtlasNormal, texCoord).w;
 #endif
 
 #ifdef FEATURE_REFRACTIVE_PASS
@@ -166,7 +187,7 @@ void main() {
         color = texture2D(textureLava, texCoord.xy);
     /* APPLY DEFAULT TEXTURE FROM ATLAS */
     } else {
-        color = texture2D(textureAtlas, texCoord.xy);
+        color = sampleAtlas(textureAtlas, texCoord.xy);
 
 #if defined FEATURE_ALPHA_REJECT
         if (color.a < 0.1) {
@@ -261,7 +282,7 @@ void main() {
             color.a = 1.0;
     } else {
         vec3 refractionColor = texture2D(texSceneOpaque, projectedPos).rgb;
-        vec4 albedoColor = texture2D(textureAtlas, texCoord.xy);
+        vec4 albedoColor = sampleAtlas(textureAtlas, texCoord.xy);
         albedoColor.rgb *= combinedLightValue;
 
         // TODO: Add support for actual refraction here
@@ -106,27 +106,43 @@ varying vec3 sunVecView;
 
 varying float isUpside;
 varying float blockHint;
+varying vec2 tileOrigin;
+
+// Must match GreedyFaceMesher.TILE_FLAG_STRIDE
+const float TILE_FLAG_STRIDE = 8.0;
 
 void main()
 {
 	gl_TexCoord[0] = gl_MultiTexCoord0;
-	blockHint = int(gl_TexCoord[0].z);
+	// Merged quads encode the index of their atlas tile plus one above the block hint
+	blockHint = mod(gl_TexCoord[0].z, TILE_FLAG_STRIDE);
+	float tile = floor(gl_TexCoord[0].z / TILE_FLAG_STRIDE) - 1.0;
+	if (tile >= 0.0) {
+	    tileOrigin = vec2(mod(tile, 1.0 / TEXTURE_OFFSET), floor(tile * TEXTURE_OFFSET)) * TEXTURE_OFFSET;
+	} else {
+	    tileOrigin = vec2(-1.0, -1.0);
+	}
+
+    // Lighting is packed into bytes and passed as the secondary color
+    gl_TexCoord[1] = vec4(gl_SecondaryColor.rgb, 1.0);
 
-    gl_TexCoord[1] = gl_MultiTexCoord1;
+    // Positions are quantised, with the quantisation scale stored as w (see ChunkMesh)
+    vec4 vertex = vec4(gl_Vertex.xyz / gl_Vertex.w, 1.0);
+    vec3 vertexNormal = normalize(gl_Normal);
 
-	vertexViewPos = gl_ModelViewMatrix * gl_Vertex;
-	vertexWorldPos = gl_Vertex.xyz + chunkPositionWorld.xyz;
+	vertexViewPos = gl_ModelViewMatrix * vertex;
+	vertexWorldPos = vertex.xyz + chunkPositionWorld.xyz;
 
 	sunVecView = (gl_ModelViewMatrix * vec4(sunVec.x, sunVec.y, sunVec.z, 0.0)).xyz;
 
-	isUpside = (gl_Normal.y > 0.9) ? 1.0 : 0.0;
+	isUpside = (vertexNormal.y > 0.9) ? 1.0 : 0.0;
 
 #if defined (NORMAL_MAPPING)
     normalMatrix = gl_NormalMatrix;
-    worldSpaceNormal = gl_Normal;
+    worldSpaceNormal = vertexNormal;
 #endif
 
-    normal = gl_NormalMatrix * gl_Normal;
+    normal = gl_NormalMatrix * vertexNormal;
 
     gl_FrontColor = gl_Color;
 